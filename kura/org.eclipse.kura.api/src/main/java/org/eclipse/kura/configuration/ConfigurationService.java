@@ -61,9 +61,14 @@ import org.osgi.annotation.versioning.ProviderType;
  * <br>
  * <br>
  * The Configuration Service has the ability to create a snapshot for the current configuration
- * of all the tracked components. The snapshot is saved in the form of an
- * XML file stored under $kura.snapshots/snapshot_epoch.xml where epoch is replaced
+ * of all the tracked components. The snapshot is saved in a file stored under
+ * $kura.snapshots/snapshot_epoch.xml where epoch is replaced
  * with the epoch timestamp at the time of the snapshot creation.
+ * The content of the file is the XML of the configurations, compressed and encrypted with the
+ * {@link org.eclipse.kura.crypto.CryptoService}. A snapshot can also be stored as a delta, holding only the
+ * configurations that changed since a previous full snapshot, which is then kept as long as the delta exists.
+ * The content of a snapshot should therefore be accessed through {@link #getSnapshot(long)}
+ * rather than by reading the file.
  * The Configuration Service also has the ability to rollback the configuration of
  * tracked components taking them back to a previous stored snapshot.
  * <br>
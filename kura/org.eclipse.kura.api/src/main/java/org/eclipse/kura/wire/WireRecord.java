@@ -15,9 +15,14 @@ package org.eclipse.kura.wire;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.eclipse.kura.annotation.Immutable;
 import org.eclipse.kura.annotation.ThreadSafe;
@@ -27,6 +32,10 @@ import org.osgi.annotation.versioning.ProviderType;
 /**
  * The Class WireRecord represents a record to be transmitted during wire
  * communication between wire emitter and wire receiver
+ * <br/>
+ * <br/>
+ * A record created with a {@link WireRecordSchema} stores only the array of its values and shares the property names
+ * with the other records created with the same schema; {@link #getProperties()} returns a read-only view over them.
  *
  * @noextend This class is not intended to be extended by clients.
  * @since 1.2
@@ -38,6 +47,12 @@ public class WireRecord {
 
     private final Map<String, TypedValue<?>> properties;
 
+    private final WireRecordSchema schema;
+
+    private final TypedValue<?>[] values;
+
+    private final int size;
+
     /**
      * Instantiates a new {@link WireRecord}.
      *
@@ -50,6 +65,43 @@ public class WireRecord {
         requireNonNull(properties, "Properties cannot be null");
 
         this.properties = new HashMap<>(properties);
+        this.schema = null;
+        this.values = null;
+        this.size = this.properties.size();
+    }
+
+    /**
+     * Instantiates a new {@link WireRecord} sharing the property names of the provided {@link WireRecordSchema}.
+     * The value at each position is associated to the name at the same position of the schema; the names whose value
+     * is null are not part of the record. The array is copied, so later changes to it do not affect the record.
+     *
+     * @param schema
+     *            the {@link WireRecordSchema}
+     * @param values
+     *            the values, with the same length as the schema
+     * @throws NullPointerException
+     *             if any of the argument is null
+     * @throws IllegalArgumentException
+     *             if the number of values differs from the size of the schema
+     * @since 1.3
+     */
+    public WireRecord(WireRecordSchema schema, TypedValue<?>[] values) {
+        requireNonNull(schema, "Schema cannot be null");
+        requireNonNull(values, "Values cannot be null");
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("The number of values must match the size of the schema");
+        }
+
+        this.properties = null;
+        this.schema = schema;
+        this.values = values.clone();
+        int count = 0;
+        for (final TypedValue<?> value : this.values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        this.size = count;
     }
 
     /**
@@ -58,6 +110,104 @@ public class WireRecord {
      * @return the fields
      */
     public Map<String, TypedValue<?>> getProperties() {
-        return Collections.unmodifiableMap(this.properties);
+        if (this.properties != null) {
+            return Collections.unmodifiableMap(this.properties);
+        }
+        return new SchemaProperties();
+    }
+
+    /**
+     * Returns the {@link WireRecordSchema} this record has been created with.
+     *
+     * @return the {@link WireRecordSchema}, or null if this record has been created from a map
+     * @since 1.3
+     */
+    public WireRecordSchema getSchema() {
+        return this.schema;
+    }
+
+    /**
+     * Returns the value at the provided position of the {@link WireRecordSchema} of this record.
+     *
+     * @param index
+     *            the position
+     * @return the value, or null if the record has no value for the name at that position
+     * @throws IllegalStateException
+     *             if this record has not been created with a {@link WireRecordSchema}
+     * @throws IndexOutOfBoundsException
+     *             if the position is not valid
+     * @since 1.3
+     */
+    public TypedValue<?> getValue(int index) {
+        if (this.values == null) {
+            throw new IllegalStateException("The record has not been created with a schema");
+        }
+        return this.values[index];
+    }
+
+    /**
+     * Read-only view of the properties of a record created with a {@link WireRecordSchema}.
+     */
+    private final class SchemaProperties extends AbstractMap<String, TypedValue<?>> {
+
+        @Override
+        public TypedValue<?> get(final Object key) {
+            final int index = WireRecord.this.schema.indexOf(key);
+            return index >= 0 ? WireRecord.this.values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return WireRecord.this.size;
+        }
+
+        @Override
+        public Set<Entry<String, TypedValue<?>>> entrySet() {
+            return new AbstractSet<Entry<String, TypedValue<?>>>() {
+
+                @Override
+                public Iterator<Entry<String, TypedValue<?>>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return WireRecord.this.size;
+                }
+            };
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, TypedValue<?>>> {
+
+        private int next = advance(0);
+
+        private int advance(int index) {
+            while (index < WireRecord.this.values.length && WireRecord.this.values[index] == null) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < WireRecord.this.values.length;
+        }
+
+        @Override
+        public Map.Entry<String, TypedValue<?>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int index = this.next;
+            this.next = advance(index + 1);
+            return new AbstractMap.SimpleImmutableEntry<>(WireRecord.this.schema.getKey(index),
+                    WireRecord.this.values[index]);
+        }
     }
 }
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.wire;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.annotation.Immutable;
+import org.eclipse.kura.annotation.ThreadSafe;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * The Class WireRecordSchema represents the ordered set of property names shared by the {@link WireRecord}s created
+ * with {@link WireRecord#WireRecord(WireRecordSchema, org.eclipse.kura.type.TypedValue[])}. An emitter producing
+ * records with the same names over and over should create the schema once and reuse it, so that each record only
+ * stores its values.
+ * <br/>
+ * <br/>
+ * The names are interned, hence schemas created independently with the same names share the same String instances.
+ *
+ * @noextend This class is not intended to be extended by clients.
+ * @since 1.3
+ */
+@Immutable
+@ThreadSafe
+@ProviderType
+public final class WireRecordSchema {
+
+    private final String[] keys;
+
+    private final Map<String, Integer> indexes;
+
+    /**
+     * Instantiates a new {@link WireRecordSchema}.
+     *
+     * @param keys
+     *            the property names, in the order of the values of the records
+     * @throws NullPointerException
+     *             if the argument or any of the names is null
+     * @throws IllegalArgumentException
+     *             if a name is repeated
+     */
+    public WireRecordSchema(final List<String> keys) {
+        requireNonNull(keys, "Keys cannot be null");
+
+        this.keys = new String[keys.size()];
+        this.indexes = new HashMap<>(keys.size() * 4 / 3 + 1);
+        for (int i = 0; i < this.keys.length; i++) {
+            final String key = requireNonNull(keys.get(i), "Key cannot be null").intern();
+            if (this.indexes.put(key, i) != null) {
+                throw new IllegalArgumentException("Duplicate key: " + key);
+            }
+            this.keys[i] = key;
+        }
+    }
+
+    /**
+     * Returns the number of property names.
+     *
+     * @return the number of property names
+     */
+    public int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Returns the property name at the provided position.
+     *
+     * @param index
+     *            the position
+     * @return the property name
+     * @throws IndexOutOfBoundsException
+     *             if the position is not valid
+     */
+    public String getKey(final int index) {
+        return this.keys[index];
+    }
+
+    /**
+     * Returns the position of the provided property name.
+     *
+     * @param key
+     *            the property name
+     * @return the position, or -1 if the name is not part of this schema
+     */
+    public int indexOf(final Object key) {
+        final Integer index = this.indexes.get(key);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the property names.
+     *
+     * @return the unmodifiable list of the property names
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(this.keys));
+    }
+}
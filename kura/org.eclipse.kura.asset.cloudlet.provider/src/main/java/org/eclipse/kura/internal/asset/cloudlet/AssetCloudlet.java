@@ -14,15 +14,18 @@
 package org.eclipse.kura.internal.asset.cloudlet;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.kura.asset.Asset;
 import org.eclipse.kura.asset.AssetService;
+import org.eclipse.kura.asset.provider.ParallelAssetReader;
 import org.eclipse.kura.channel.ChannelRecord;
 import org.eclipse.kura.cloud.CloudService;
 import org.eclipse.kura.cloud.Cloudlet;
@@ -53,6 +56,10 @@ public final class AssetCloudlet extends Cloudlet {
 
     private static final String APP_ID = "ASSET-V1";
 
+    private static final int READ_THREADS = 4;
+
+    private static final long READ_TIMEOUT_SECONDS = 10;
+
     private static final Logger logger = LoggerFactory.getLogger(AssetCloudlet.class);
 
     private static final AssetCloudletMessages message = LocalizationAdapter.adapt(AssetCloudletMessages.class);
@@ -65,6 +72,8 @@ public final class AssetCloudlet extends Cloudlet {
 
     private ServiceTracker<Asset, Asset> assetServiceTracker;
 
+    private ParallelAssetReader assetReader;
+
     public AssetCloudlet() {
         super(APP_ID);
     }
@@ -114,6 +123,10 @@ public final class AssetCloudlet extends Cloudlet {
         logger.debug(message.deactivating());
         super.deactivate(componentContext);
         this.assetServiceTracker.close();
+        if (this.assetReader != null) {
+            this.assetReader.shutdown();
+            this.assetReader = null;
+        }
         logger.debug(message.deactivatingDone());
     }
 
@@ -203,40 +216,59 @@ public final class AssetCloudlet extends Cloudlet {
         }
     }
 
-    private void readAsset(String assetName, Set<String> channelNames, ChannelOperationResponse response) {
-        final Asset asset = this.assets.get(assetName);
-        if (asset == null) {
-            response.reportAssetNotFound(assetName);
-            return;
+    private synchronized ParallelAssetReader getAssetReader() {
+        if (this.assetReader == null) {
+            this.assetReader = new ParallelAssetReader("AssetCloudletReader", READ_THREADS, READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
         }
-        try {
-            if (channelNames.isEmpty()) {
-                response.reportResult(assetName, asset.readAllChannels());
+        return this.assetReader;
+    }
+
+    private ChannelOperationResponse readAssets(final List<ReadRequest> readRequests) {
+        ChannelOperationResponse response = new ChannelOperationResponse();
+        List<ParallelAssetReader.Read> reads = new ArrayList<>(readRequests.size());
+        for (ReadRequest readRequest : readRequests) {
+            final String assetName = readRequest.getAssetName();
+            final Asset asset = this.assets.get(assetName);
+            if (asset == null) {
+                response.reportAssetNotFound(assetName);
             } else {
-                response.reportResult(assetName, asset.read(channelNames));
+                reads.add(new ParallelAssetReader.Read(assetName, asset, readRequest.getChannelNames()));
             }
-        } catch (Exception e) {
-            response.reportAllFailed(assetName, channelNames.iterator(),
-                    Optional.ofNullable(e.getMessage()).orElse(message.unknownError()));
         }
+        reportReadResults(reads, response, false);
+        return response;
     }
 
-    private ChannelOperationResponse readAllAssets(final KuraResponsePayload respPayload) {
+    private ChannelOperationResponse readAllAssets() {
         ChannelOperationResponse response = new ChannelOperationResponse();
+        List<ParallelAssetReader.Read> reads = new ArrayList<>(this.assets.size());
         for (Entry<String, Asset> entry : this.assets.entrySet()) {
-            final String assetName = entry.getKey();
-            final Asset asset = entry.getValue();
-            try {
-                response.reportResult(assetName, asset.readAllChannels());
-            } catch (Exception e) {
-                response.reportAllFailed(assetName,
-                        asset.getAssetConfiguration().getAssetChannels().keySet().iterator(),
-                        Optional.ofNullable(e.getMessage()).orElse(message.unknownError()));
-            }
+            reads.add(new ParallelAssetReader.Read(entry.getKey(), entry.getValue(), Collections.emptySet()));
         }
+        reportReadResults(reads, response, true);
         return response;
     }
 
+    private void reportReadResults(final List<ParallelAssetReader.Read> reads, final ChannelOperationResponse response,
+            final boolean reportAllChannels) {
+        if (reads.isEmpty()) {
+            return;
+        }
+        for (ParallelAssetReader.Result result : getAssetReader().read(reads)) {
+            final String assetName = result.getAssetName();
+            if (result.isSuccessful()) {
+                response.reportResult(assetName, result.getChannelRecords());
+                continue;
+            }
+            final Iterator<String> channelNames = reportAllChannels
+                    ? result.getAsset().getAssetConfiguration().getAssetChannels().keySet().iterator()
+                    : result.getChannelNames().iterator();
+            final String errorMessage = result.isTimedOut() ? message.readTimedOut()
+                    : Optional.ofNullable(result.getError().getMessage()).orElse(message.unknownError());
+            response.reportAllFailed(assetName, channelNames, errorMessage);
+        }
+    }
+
     private void read(final KuraRequestPayload reqPayload, final KuraResponsePayload respPayload) {
         this.findAssets();
 
@@ -252,7 +284,7 @@ public final class AssetCloudlet extends Cloudlet {
         ChannelOperationResponse response;
 
         if (request == null || request.isEmpty()) {
-            response = readAllAssets(respPayload);
+            response = readAllAssets();
         } else {
             List<ReadRequest> readRequests;
             try {
@@ -261,10 +293,7 @@ public final class AssetCloudlet extends Cloudlet {
                 respPayload.setResponseCode(KuraResponsePayload.RESPONSE_CODE_BAD_REQUEST);
                 return;
             }
-            response = new ChannelOperationResponse();
-            for (ReadRequest readRequest : readRequests) {
-                readAsset(readRequest.getAssetName(), readRequest.getChannelNames(), response);
-            }
+            response = readAssets(readRequests);
         }
 
         respPayload.setBody(response.serialize());
@@ -30,6 +30,9 @@ public enum AssetConstants {
     /** Driver PID Property to be used in the configuration. */
     ASSET_DRIVER_PROP("driver.pid"),
 
+    /** Scan groups Property to be used in the configuration. */
+    ASSET_SCAN_GROUPS_PROP("scan.groups"),
+
     /** Name Property to be used in the configuration. */
     NAME(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "name"),
 
@@ -37,7 +40,22 @@ public enum AssetConstants {
     TYPE(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "type"),
 
     /** Value type Property to be used in the configuration. */
-    VALUE_TYPE(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "value.type");
+    VALUE_TYPE(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "value.type"),
+
+    /** Report-on-change Property to be used in the configuration. */
+    REPORT_ON_CHANGE(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "report.on.change"),
+
+    /** Absolute deadband Property to be used in the configuration. */
+    DEADBAND_ABSOLUTE(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "deadband.absolute"),
+
+    /** Percent deadband Property to be used in the configuration. */
+    DEADBAND_PERCENT(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "deadband.percent"),
+
+    /** Maximum silence Property to be used in the configuration. */
+    MAX_SILENCE(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "max.silence"),
+
+    /** Scan group Property to be used in the configuration. */
+    SCAN_GROUP(CHANNEL_DEFAULT_PROPERTY_PREFIX.value() + "scan.group");
 
     /** The value. */
     private String value;
@@ -18,17 +18,22 @@ import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 import static org.eclipse.kura.asset.provider.AssetConstants.ASSET_DESC_PROP;
 import static org.eclipse.kura.asset.provider.AssetConstants.ASSET_DRIVER_PROP;
+import static org.eclipse.kura.asset.provider.AssetConstants.ASSET_SCAN_GROUPS_PROP;
+import static org.eclipse.kura.asset.provider.AssetConstants.SCAN_GROUP;
 import static org.eclipse.kura.channel.ChannelFlag.FAILURE;
 import static org.eclipse.kura.channel.ChannelType.READ;
 import static org.eclipse.kura.channel.ChannelType.READ_WRITE;
 import static org.eclipse.kura.channel.ChannelType.WRITE;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -57,7 +62,9 @@ import org.eclipse.kura.driver.Driver;
 import org.eclipse.kura.driver.Driver.ConnectionException;
 import org.eclipse.kura.driver.PreparedRead;
 import org.eclipse.kura.internal.asset.provider.AssetOptions;
+import org.eclipse.kura.internal.asset.provider.ChannelChangeFilter;
 import org.eclipse.kura.internal.asset.provider.DriverTrackerCustomizer;
+import org.eclipse.kura.internal.asset.provider.ScanScheduler;
 import org.eclipse.kura.localization.LocalizationAdapter;
 import org.eclipse.kura.localization.resources.AssetMessages;
 import org.eclipse.kura.type.DataType;
@@ -108,6 +115,22 @@ import org.slf4j.LoggerFactory;
  * on one of the enum variants of that type.
  * 
  * <br>
+ * The following generic channel properties are optional and enable report-on-change for the channel, see
+ * {@link #readChangedChannels()}:
+ * <ul>
+ * <li>{@code +report.on.change} if {@code true} the channel is reported only when its value changes</li>
+ * <li>{@code +deadband.absolute} the minimum absolute change of a numeric value to be reported</li>
+ * <li>{@code +deadband.percent} the minimum change of a numeric value to be reported, in percent of the last
+ * reported value</li>
+ * <li>{@code +max.silence} the maximum time in milliseconds between two reports of the channel</li>
+ * </ul>
+ * <br>
+ * Channels can be grouped in scan groups that are read periodically, each one with its own period, see
+ * {@link #onScanGroupRead(String, List)}. The scan groups are defined by the <b><i>scan.groups</i></b> property as a
+ * comma separated list of {@code name=period} entries, with the period expressed in milliseconds, for example
+ * {@code alarms=100,energy=60000}. A channel belongs to the scan group named by its {@code +scan.group} property.
+ * Channels that do not belong to a scan group are read on demand, see {@link #readUnscheduledChannels()}.
+ * <br>
  * Driver specific properties are defined by the driver, their keys cannot begin with a '+' character.
  * For example, valid driver specific properties can be channel1#modbus.register,
  * channel1#modbus.unit.id etc.<br>
@@ -152,6 +175,19 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
 
     private String kuraServicePid;
 
+    private ChannelChangeFilter changeFilter;
+
+    /** The configuration the {@link #changeFilter} has been created for. */
+    private AssetConfiguration changeFilterConfiguration;
+
+    /** The running scans of the scan groups. */
+    private final List<ScanScheduler.Scan> scans = new ArrayList<>();
+
+    private final List<ChannelGroup> scanGroups = new ArrayList<>();
+
+    /** The channels that do not belong to a scan group, null if there are no scan groups. */
+    private ChannelGroup unscheduledChannels;
+
     /**
      * Instantiates a new asset instance.
      */
@@ -198,6 +234,8 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
      */
     protected void deactivate(final ComponentContext context) {
         logger.debug(message.deactivating());
+        // no scan must read from the driver once it is disconnected
+        stopScanGroups();
         this.monitor.lock();
         try {
             if (this.driver != null) {
@@ -316,6 +354,7 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
             hasReadChannels = !readRecords.isEmpty();
             tryPrepareRead(readRecords);
         }
+        startScanGroups();
     }
 
     public Driver getDriver() {
@@ -370,6 +409,18 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
 
             fillDriverSpecificChannelConfiguration(mainOcd, driverSpecificChannelConfiguration);
         }
+
+        final Tad scanGroupsAd = new Tad();
+        scanGroupsAd.setId(ASSET_SCAN_GROUPS_PROP.value());
+        scanGroupsAd.setName(ASSET_SCAN_GROUPS_PROP.value());
+        scanGroupsAd.setCardinality(0);
+        scanGroupsAd.setType(Tscalar.STRING);
+        scanGroupsAd.setDescription(message.scanGroups());
+        scanGroupsAd.setRequired(false);
+        scanGroupsAd.setDefault("");
+
+        mainOcd.addAD(scanGroupsAd);
+
         return new ComponentConfigurationImpl(componentName, mainOcd, props);
     }
 
@@ -504,6 +555,177 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
         return channelRecords;
     }
 
+    /**
+     * Reads the readable channels that do not belong to a scan group, or all the readable channels if no scan
+     * groups are defined.
+     *
+     * @return the read records, possibly empty
+     * @throws KuraException
+     *             if the read operation fails
+     */
+    public List<ChannelRecord> readUnscheduledChannels() throws KuraException {
+        final ChannelGroup group;
+        synchronized (this) {
+            group = this.unscheduledChannels;
+        }
+        if (group == null) {
+            return readAllChannels();
+        }
+        return readChannelGroup(group);
+    }
+
+    /**
+     * Reads the channels like {@link #readUnscheduledChannels()}, but returns only the records that must be
+     * reported according to the report-on-change configuration of the channels. The records of the channels that
+     * are not configured for report-on-change are always returned.
+     *
+     * @return the records to be reported, possibly empty
+     * @throws KuraException
+     *             if the read operation fails
+     */
+    public List<ChannelRecord> readChangedChannels() throws KuraException {
+        return filterChangedChannels(readUnscheduledChannels());
+    }
+
+    /**
+     * Returns the records that must be reported according to the report-on-change configuration of the channels.
+     *
+     * @param channelRecords
+     *            the records returned by a read operation
+     * @return the records to be reported, possibly empty
+     */
+    protected List<ChannelRecord> filterChangedChannels(final List<ChannelRecord> channelRecords) {
+        return getChangeFilter().filter(channelRecords, System.currentTimeMillis());
+    }
+
+    /**
+     * Called on a scheduler thread each time the channels of a scan group have been read. This implementation does
+     * nothing, subclasses that define scan groups are expected to override it.
+     *
+     * @param scanGroup
+     *            the name of the scan group
+     * @param channelRecords
+     *            the read records, they should not be modified and are valid only until the method returns
+     */
+    protected void onScanGroupRead(final String scanGroup, final List<ChannelRecord> channelRecords) {
+    }
+
+    private List<ChannelRecord> readChannelGroup(final ChannelGroup group) throws KuraException {
+        final Driver currentDriver = this.driver;
+        requireNonNull(currentDriver, message.driverNonNull());
+
+        this.monitor.lock();
+        try {
+            return group.read(currentDriver);
+        } catch (final ConnectionException ce) {
+            throw new KuraException(KuraErrorCode.CONNECTION_FAILED, ce);
+        } finally {
+            this.monitor.unlock();
+        }
+    }
+
+    private void scan(final String scanGroup, final ChannelGroup group) {
+        final List<ChannelRecord> channelRecords;
+        try {
+            channelRecords = readChannelGroup(group);
+        } catch (final KuraException | RuntimeException e) {
+            logger.warn(message.errorReadingScanGroup(scanGroup), e);
+            return;
+        }
+        onScanGroupRead(scanGroup, channelRecords);
+    }
+
+    private synchronized void startScanGroups() {
+        stopScanGroups();
+        if (this.driver == null || this.assetConfiguration == null || this.properties == null) {
+            return;
+        }
+        final Map<String, Long> periods = getScanGroupPeriods(this.properties.get(ASSET_SCAN_GROUPS_PROP.value()));
+        if (periods.isEmpty()) {
+            return;
+        }
+
+        final Map<String, List<Channel>> groupChannels = new LinkedHashMap<>();
+        final List<Channel> unscheduled = new ArrayList<>();
+        for (final Channel channel : this.assetConfiguration.getAssetChannels().values()) {
+            if (channel.getType() != READ && channel.getType() != READ_WRITE) {
+                continue;
+            }
+            final Object scanGroup = channel.getConfiguration().get(SCAN_GROUP.value());
+            final String scanGroupName = scanGroup != null ? scanGroup.toString().trim() : "";
+            if (periods.containsKey(scanGroupName)) {
+                groupChannels.computeIfAbsent(scanGroupName, name -> new ArrayList<>()).add(channel);
+            } else {
+                if (!scanGroupName.isEmpty()) {
+                    logger.warn(message.scanGroupNotDefined(channel.getName(), scanGroupName));
+                }
+                unscheduled.add(channel);
+            }
+        }
+
+        this.unscheduledChannels = new ChannelGroup(unscheduled, this.driver);
+        for (final Entry<String, List<Channel>> entry : groupChannels.entrySet()) {
+            final String scanGroup = entry.getKey();
+            final ChannelGroup group = new ChannelGroup(entry.getValue(), this.driver);
+            this.scanGroups.add(group);
+            this.scans.add(ScanScheduler.getDefault().schedule(this.kuraServicePid + "/" + scanGroup,
+                    periods.get(scanGroup), TimeUnit.MILLISECONDS, () -> scan(scanGroup, group)));
+        }
+    }
+
+    private synchronized void stopScanGroups() {
+        for (final ScanScheduler.Scan scan : this.scans) {
+            scan.cancel();
+        }
+        this.scans.clear();
+        // a scan might be still running
+        this.monitor.lock();
+        try {
+            for (final ChannelGroup group : this.scanGroups) {
+                group.close();
+            }
+            if (this.unscheduledChannels != null) {
+                this.unscheduledChannels.close();
+            }
+        } finally {
+            this.monitor.unlock();
+        }
+        this.scanGroups.clear();
+        this.unscheduledChannels = null;
+    }
+
+    private static Map<String, Long> getScanGroupPeriods(final Object scanGroupsProperty) {
+        if (scanGroupsProperty == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final String scanGroup : scanGroupsProperty.toString().split(",")) {
+            if (scanGroup.trim().isEmpty()) {
+                continue;
+            }
+            final int separator = scanGroup.indexOf('=');
+            try {
+                final String name = scanGroup.substring(0, Math.max(separator, 0)).trim();
+                final long period = Long.parseLong(scanGroup.substring(separator + 1).trim());
+                if (name.isEmpty() || period <= 0) {
+                    throw new IllegalArgumentException();
+                }
+                result.put(name, period);
+            } catch (final IllegalArgumentException e) {
+                logger.warn(message.errorInvalidScanGroup(scanGroup));
+            }
+        }
+        return result;
+    }
+
+    private synchronized ChannelChangeFilter getChangeFilter() {
+        if (this.changeFilter == null || this.changeFilterConfiguration != this.assetConfiguration) {
+            this.changeFilterConfiguration = this.assetConfiguration;
+            this.changeFilter = new ChannelChangeFilter(this.assetConfiguration.getAssetChannels());
+        }
+        return this.changeFilter;
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<ChannelRecord> read(final Set<String> channelNames) throws KuraException {
@@ -647,6 +869,54 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
         }
     }
 
+    /**
+     * A set of channels read together using a {@link PreparedRead}, if the driver supports it.
+     */
+    private static final class ChannelGroup {
+
+        private final List<Channel> channels;
+        private volatile PreparedRead preparedRead;
+
+        ChannelGroup(final List<Channel> channels, final Driver driver) {
+            this.channels = channels;
+            if (!channels.isEmpty()) {
+                this.preparedRead = driver.prepareRead(createReadRecords());
+            }
+        }
+
+        private List<ChannelRecord> createReadRecords() {
+            final List<ChannelRecord> readRecords = new ArrayList<>(this.channels.size());
+            for (final Channel channel : this.channels) {
+                readRecords.add(channel.createReadRecord());
+            }
+            return readRecords;
+        }
+
+        List<ChannelRecord> read(final Driver driver) throws ConnectionException, KuraException {
+            if (this.channels.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final PreparedRead currentRead = this.preparedRead;
+            if (currentRead != null) {
+                return currentRead.execute();
+            }
+            final List<ChannelRecord> readRecords = createReadRecords();
+            driver.read(readRecords);
+            return readRecords;
+        }
+
+        void close() {
+            if (this.preparedRead != null) {
+                try {
+                    this.preparedRead.close();
+                } catch (Exception e) {
+                    logger.warn(message.errorClosingPreparingRead(), e);
+                }
+                this.preparedRead = null;
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void write(final List<ChannelRecord> channelRecords) throws KuraException {
@@ -13,7 +13,12 @@
  *******************************************************************************/
 package org.eclipse.kura.asset.provider;
 
+import static org.eclipse.kura.asset.provider.AssetConstants.DEADBAND_ABSOLUTE;
+import static org.eclipse.kura.asset.provider.AssetConstants.DEADBAND_PERCENT;
+import static org.eclipse.kura.asset.provider.AssetConstants.MAX_SILENCE;
 import static org.eclipse.kura.asset.provider.AssetConstants.NAME;
+import static org.eclipse.kura.asset.provider.AssetConstants.REPORT_ON_CHANGE;
+import static org.eclipse.kura.asset.provider.AssetConstants.SCAN_GROUP;
 import static org.eclipse.kura.asset.provider.AssetConstants.TYPE;
 import static org.eclipse.kura.asset.provider.AssetConstants.VALUE_TYPE;
 
@@ -38,6 +43,11 @@ import org.eclipse.kura.util.collection.CollectionUtil;
  * <li>name</li> denotes the name of the channel
  * <li>type</li>
  * <li>value.type</li>
+ * <li>report.on.change</li>
+ * <li>deadband.absolute</li>
+ * <li>deadband.percent</li>
+ * <li>max.silence</li>
+ * <li>scan.group</li>
  * </ul>
  *
  * The <b><i>type</i></b> would be one of the following:
@@ -157,6 +167,59 @@ public final class BaseChannelDescriptor implements ChannelDescriptor {
         valueType.getOption().add(oString);
 
         this.defaultElements.add(valueType);
+
+        final Tad reportOnChange = new Tad();
+        reportOnChange.setName(REPORT_ON_CHANGE.value());
+        reportOnChange.setId(REPORT_ON_CHANGE.value());
+        reportOnChange.setDescription(s_message.reportOnChange());
+        reportOnChange.setType(Tscalar.BOOLEAN);
+        reportOnChange.setRequired(false);
+        reportOnChange.setDefault("false");
+
+        this.defaultElements.add(reportOnChange);
+
+        final Tad deadbandAbsolute = new Tad();
+        deadbandAbsolute.setName(DEADBAND_ABSOLUTE.value());
+        deadbandAbsolute.setId(DEADBAND_ABSOLUTE.value());
+        deadbandAbsolute.setDescription(s_message.deadbandAbsolute());
+        deadbandAbsolute.setType(Tscalar.DOUBLE);
+        deadbandAbsolute.setRequired(false);
+        deadbandAbsolute.setDefault("0");
+        deadbandAbsolute.setMin("0");
+
+        this.defaultElements.add(deadbandAbsolute);
+
+        final Tad deadbandPercent = new Tad();
+        deadbandPercent.setName(DEADBAND_PERCENT.value());
+        deadbandPercent.setId(DEADBAND_PERCENT.value());
+        deadbandPercent.setDescription(s_message.deadbandPercent());
+        deadbandPercent.setType(Tscalar.DOUBLE);
+        deadbandPercent.setRequired(false);
+        deadbandPercent.setDefault("0");
+        deadbandPercent.setMin("0");
+
+        this.defaultElements.add(deadbandPercent);
+
+        final Tad maxSilence = new Tad();
+        maxSilence.setName(MAX_SILENCE.value());
+        maxSilence.setId(MAX_SILENCE.value());
+        maxSilence.setDescription(s_message.maxSilence());
+        maxSilence.setType(Tscalar.LONG);
+        maxSilence.setRequired(false);
+        maxSilence.setDefault("0");
+        maxSilence.setMin("0");
+
+        this.defaultElements.add(maxSilence);
+
+        final Tad scanGroup = new Tad();
+        scanGroup.setName(SCAN_GROUP.value());
+        scanGroup.setId(SCAN_GROUP.value());
+        scanGroup.setDescription(s_message.scanGroup());
+        scanGroup.setType(Tscalar.STRING);
+        scanGroup.setRequired(false);
+        scanGroup.setDefault("");
+
+        this.defaultElements.add(scanGroup);
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.asset.provider;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.kura.KuraException;
+import org.eclipse.kura.asset.Asset;
+import org.eclipse.kura.asset.AssetConfiguration;
+import org.eclipse.kura.channel.ChannelRecord;
+
+/**
+ * Reads a set of assets concurrently on a bounded pool of threads.
+ * <br>
+ * Assets attached to the same driver are read one after the other by the same task, so that a driver never receives
+ * concurrent requests from this class and the threads of the pool are not wasted waiting for a busy driver. Each
+ * asset read has to complete within a timeout measured from the beginning of the operation, the assets that do not
+ * complete in time are reported as failed while the results of the others are returned.
+ */
+public final class ParallelAssetReader {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+
+    /**
+     * Instantiates a new reader, the threads of the pool are started on demand.
+     *
+     * @param name
+     *            the prefix of the names of the threads of the pool
+     * @param threads
+     *            the maximum number of assets read concurrently
+     * @param timeout
+     *            the time allowed to each {@link #read(List)} operation
+     * @param unit
+     *            the unit of the timeout
+     * @throws NullPointerException
+     *             if the name or the unit is null
+     */
+    public ParallelAssetReader(final String name, final int threads, final long timeout, final TimeUnit unit) {
+        requireNonNull(name);
+        requireNonNull(unit);
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Reads the provided assets and waits for the results.
+     *
+     * @param reads
+     *            the assets to be read
+     * @return the results, in the same order as the provided reads
+     */
+    public List<Result> read(final List<Read> reads) {
+        final long deadline = System.nanoTime() + this.timeoutNanos;
+
+        final Map<String, List<Read>> readsByDriver = new LinkedHashMap<>();
+        for (final Read read : reads) {
+            readsByDriver.computeIfAbsent(read.getDriverPid(), pid -> new ArrayList<>()).add(read);
+        }
+        for (final List<Read> driverReads : readsByDriver.values()) {
+            this.executor.execute(() -> {
+                for (final Read read : driverReads) {
+                    read.execute();
+                }
+            });
+        }
+
+        final List<Result> results = new ArrayList<>(reads.size());
+        for (final Read read : reads) {
+            results.add(read.await(deadline));
+        }
+        return results;
+    }
+
+    /**
+     * Stops the pool, the reads in progress are not interrupted.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Reads all the channels of an asset, or the specified ones.
+     */
+    public static final class Read {
+
+        private final String assetName;
+        private final Asset asset;
+        private final Set<String> channelNames;
+        private final CompletableFuture<List<ChannelRecord>> future = new CompletableFuture<>();
+
+        /**
+         * @param channelNames
+         *            the channels to be read, all the channels are read if empty
+         */
+        public Read(final String assetName, final Asset asset, final Set<String> channelNames) {
+            this.assetName = assetName;
+            this.asset = asset;
+            this.channelNames = channelNames;
+        }
+
+        private String getDriverPid() {
+            final AssetConfiguration configuration = this.asset.getAssetConfiguration();
+            final String driverPid = configuration != null ? configuration.getDriverPid() : null;
+            return driverPid != null ? driverPid : this.assetName;
+        }
+
+        private void execute() {
+            if (this.future.isDone()) {
+                // timed out before being started
+                return;
+            }
+            try {
+                this.future.complete(this.channelNames.isEmpty() ? this.asset.readAllChannels()
+                        : this.asset.read(this.channelNames));
+            } catch (final KuraException | RuntimeException e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+
+        private Result await(final long deadline) {
+            try {
+                return new Result(this, this.future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS), null,
+                        false);
+            } catch (final ExecutionException e) {
+                return new Result(this, null, e.getCause(), false);
+            } catch (final TimeoutException e) {
+                this.future.cancel(false);
+                return new Result(this, null, e, true);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.future.cancel(false);
+                return new Result(this, null, e, true);
+            }
+        }
+    }
+
+    /**
+     * The outcome of a {@link Read}.
+     */
+    public static final class Result {
+
+        private final Read read;
+        private final List<ChannelRecord> channelRecords;
+        private final Throwable error;
+        private final boolean timedOut;
+
+        private Result(final Read read, final List<ChannelRecord> channelRecords, final Throwable error,
+                final boolean timedOut) {
+            this.read = read;
+            this.channelRecords = channelRecords;
+            this.error = error;
+            this.timedOut = timedOut;
+        }
+
+        public String getAssetName() {
+            return this.read.assetName;
+        }
+
+        public Asset getAsset() {
+            return this.read.asset;
+        }
+
+        public Set<String> getChannelNames() {
+            return this.read.channelNames;
+        }
+
+        public boolean isSuccessful() {
+            return this.error == null;
+        }
+
+        public boolean isTimedOut() {
+            return this.timedOut;
+        }
+
+        public List<ChannelRecord> getChannelRecords() {
+            return this.channelRecords;
+        }
+
+        public Throwable getError() {
+            return this.error;
+        }
+    }
+}
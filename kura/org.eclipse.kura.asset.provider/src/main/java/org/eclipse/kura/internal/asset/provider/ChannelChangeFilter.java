@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import static org.eclipse.kura.asset.provider.AssetConstants.DEADBAND_ABSOLUTE;
+import static org.eclipse.kura.asset.provider.AssetConstants.DEADBAND_PERCENT;
+import static org.eclipse.kura.asset.provider.AssetConstants.MAX_SILENCE;
+import static org.eclipse.kura.asset.provider.AssetConstants.REPORT_ON_CHANGE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.kura.channel.Channel;
+import org.eclipse.kura.channel.ChannelFlag;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.channel.ChannelStatus;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.util.collection.CollectionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the channel records that must be reported, according to the report-on-change properties of the
+ * channels.
+ * <br>
+ * A record of a channel that has the {@code +report.on.change} property set to {@code true} is reported only if:
+ * <ul>
+ * <li>no value has been reported for the channel yet, or the channel flag changed since the last report</li>
+ * <li>the value differs from the last reported one by more than the {@code +deadband.absolute} and the
+ * {@code +deadband.percent} (relative to the last reported value) deadbands, deadbands that are not greater than
+ * zero are ignored and non numeric values are reported as soon as they change</li>
+ * <li>at least {@code +max.silence} milliseconds elapsed since the last report, if greater than zero</li>
+ * </ul>
+ * The records of the other channels are always reported.
+ */
+public final class ChannelChangeFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelChangeFilter.class);
+
+    private final Map<String, ChannelState> states;
+
+    /**
+     * Creates a filter for the provided channels.
+     *
+     * @param channels
+     *            the channels of the asset, indexed by name
+     */
+    public ChannelChangeFilter(final Map<String, Channel> channels) {
+        this.states = CollectionUtil.newHashMap();
+        for (final Entry<String, Channel> entry : channels.entrySet()) {
+            final Map<String, Object> config = entry.getValue().getConfiguration();
+            if (Boolean.parseBoolean(String.valueOf(config.get(REPORT_ON_CHANGE.value())))) {
+                this.states.put(entry.getKey(),
+                        new ChannelState(getDouble(config, DEADBAND_ABSOLUTE.value()),
+                                getDouble(config, DEADBAND_PERCENT.value()),
+                                (long) getDouble(config, MAX_SILENCE.value())));
+            }
+        }
+    }
+
+    /**
+     * Returns true if none of the channels is configured for report-on-change.
+     *
+     * @return true if all the records pass the filter
+     */
+    public boolean isPassThrough() {
+        return this.states.isEmpty();
+    }
+
+    /**
+     * Returns the records that must be reported, in the order they are provided, and remembers them as the last
+     * reported ones.
+     *
+     * @param records
+     *            the records returned by a read operation
+     * @param now
+     *            the current time in milliseconds
+     * @return the records to be reported, possibly empty
+     */
+    public synchronized List<ChannelRecord> filter(final List<ChannelRecord> records, final long now) {
+        if (isPassThrough()) {
+            return records;
+        }
+        final List<ChannelRecord> result = new ArrayList<>(records.size());
+        for (final ChannelRecord record : records) {
+            final ChannelState state = this.states.get(record.getChannelName());
+            if (state == null || state.update(record, now)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    private static double getDouble(final Map<String, Object> config, final String key) {
+        final Object value = config.get(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (final NumberFormatException e) {
+            logger.warn("Invalid value for {}: {}", key, value);
+            return 0;
+        }
+    }
+
+    private static final class ChannelState {
+
+        private final double absoluteDeadband;
+        private final double percentDeadband;
+        private final long maxSilence;
+
+        private ChannelFlag lastFlag;
+        private TypedValue<?> lastValue;
+        private long lastReportTime;
+
+        ChannelState(final double absoluteDeadband, final double percentDeadband, final long maxSilence) {
+            this.absoluteDeadband = absoluteDeadband;
+            this.percentDeadband = percentDeadband;
+            this.maxSilence = maxSilence;
+        }
+
+        boolean update(final ChannelRecord record, final long now) {
+            final ChannelStatus status = record.getChannelStatus();
+            final ChannelFlag flag = status != null ? status.getChannelFlag() : null;
+            final TypedValue<?> value = record.getValue();
+
+            final boolean report = flag != this.lastFlag || this.lastFlag == null
+                    || this.maxSilence > 0 && now - this.lastReportTime >= this.maxSilence
+                    || flag == ChannelFlag.SUCCESS && isChanged(value);
+
+            if (report) {
+                this.lastFlag = flag;
+                this.lastValue = value;
+                this.lastReportTime = now;
+            }
+            return report;
+        }
+
+        private boolean isChanged(final TypedValue<?> value) {
+            if (value == null || this.lastValue == null) {
+                return value != this.lastValue;
+            }
+            final Object current = value.getValue();
+            final Object last = this.lastValue.getValue();
+            if (!(current instanceof Number) || !(last instanceof Number)) {
+                return !value.equals(this.lastValue);
+            }
+            final double currentNumber = ((Number) current).doubleValue();
+            final double lastNumber = ((Number) last).doubleValue();
+            final double delta = Math.abs(currentNumber - lastNumber);
+            if (this.absoluteDeadband <= 0 && this.percentDeadband <= 0) {
+                return delta > 0 || Double.isNaN(delta);
+            }
+            if (this.absoluteDeadband > 0 && !(delta > this.absoluteDeadband)) {
+                return false;
+            }
+            return this.percentDeadband <= 0 || delta > Math.abs(lastNumber) * this.percentDeadband / 100;
+        }
+    }
+}
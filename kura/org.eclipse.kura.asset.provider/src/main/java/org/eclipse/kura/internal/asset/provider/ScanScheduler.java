@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the periodic scans of the asset scan groups on a bounded pool of threads shared by all the assets.
+ * <br>
+ * Scans are executed at fixed rate: the n-th execution of a scan is scheduled at {@code start + n * period},
+ * regardless of the duration of the previous executions, so that the scan times do not drift. If an execution
+ * lasts more than a period the deadlines that have been missed are skipped and accounted as overruns, an
+ * execution of a scan never overlaps with the previous one.
+ */
+public final class ScanScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanScheduler.class);
+
+    private static final int DEFAULT_POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final ScanScheduler DEFAULT = new ScanScheduler(DEFAULT_POOL_SIZE);
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Creates a scheduler that runs the scans on the provided number of threads.
+     *
+     * @param poolSize
+     *            the number of threads
+     */
+    public ScanScheduler(final int poolSize) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(poolSize, r -> {
+            final Thread thread = new Thread(r, "AssetScanScheduler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Returns the scheduler shared by all the assets.
+     *
+     * @return the default scheduler
+     */
+    public static ScanScheduler getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Starts the periodic execution of the provided task, the first execution happens immediately.
+     *
+     * @param name
+     *            the name of the scan, used for logging
+     * @param period
+     *            the period of the scan
+     * @param unit
+     *            the time unit of the period
+     * @param task
+     *            the task to be executed
+     * @return the {@link Scan} that can be used to retrieve the statistics and to cancel the execution
+     */
+    public Scan schedule(final String name, final long period, final TimeUnit unit, final Runnable task) {
+        requireNonNull(name);
+        requireNonNull(task);
+        if (period <= 0) {
+            throw new IllegalArgumentException("The period must be greater than zero");
+        }
+        final Scan scan = new Scan(name, unit.toNanos(period), task);
+        scan.arm(System.nanoTime());
+        return scan;
+    }
+
+    /**
+     * Stops all the scans and releases the threads.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * A periodic scan scheduled by a {@link ScanScheduler}.
+     */
+    public final class Scan {
+
+        private final String name;
+        private final long period;
+        private final Runnable task;
+
+        private ScheduledFuture<?> future;
+        private long deadline;
+        private boolean cancelled;
+
+        private volatile long executionCount;
+        private volatile long overrunCount;
+        private volatile long lastExecutionTime;
+
+        private Scan(final String name, final long period, final Runnable task) {
+            this.name = name;
+            this.period = period;
+            this.task = task;
+        }
+
+        /**
+         * Stops the scan, an execution already in progress is not interrupted.
+         */
+        public synchronized void cancel() {
+            this.cancelled = true;
+            if (this.future != null) {
+                this.future.cancel(false);
+                this.future = null;
+            }
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the number of completed executions of the scan.
+         */
+        public long getExecutionCount() {
+            return this.executionCount;
+        }
+
+        /**
+         * Returns the number of periods that have been skipped because an execution lasted too long.
+         */
+        public long getOverrunCount() {
+            return this.overrunCount;
+        }
+
+        /**
+         * Returns the duration of the last execution, in nanoseconds.
+         */
+        public long getLastExecutionTime() {
+            return this.lastExecutionTime;
+        }
+
+        private synchronized void arm(final long nextDeadline) {
+            if (this.cancelled) {
+                return;
+            }
+            this.deadline = nextDeadline;
+            this.future = ScanScheduler.this.executor.schedule(this::execute, nextDeadline - System.nanoTime(),
+                    TimeUnit.NANOSECONDS);
+        }
+
+        private void execute() {
+            final long start = System.nanoTime();
+            try {
+                this.task.run();
+            } catch (final RuntimeException e) {
+                logger.warn("Scan {} failed", this.name, e);
+            }
+            final long end = System.nanoTime();
+            this.lastExecutionTime = end - start;
+            this.executionCount++;
+
+            long nextDeadline = this.deadline + this.period;
+            if (end - nextDeadline > 0) {
+                final long missed = (end - this.deadline) / this.period;
+                this.overrunCount += missed;
+                nextDeadline = this.deadline + (missed + 1) * this.period;
+                logger.debug("Scan {} overrun, skipped {} periods", this.name, missed);
+            }
+            arm(nextDeadline);
+        }
+    }
+}
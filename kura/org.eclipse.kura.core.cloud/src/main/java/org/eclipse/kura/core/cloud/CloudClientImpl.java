@@ -121,7 +121,7 @@ public class CloudClientImpl implements CloudClient, CloudClientListener {
     @Override
     public int publish(String deviceId, String appTopic, KuraPayload payload, int qos, boolean retain, int priority)
             throws KuraException {
-        byte[] appPayload = this.cloudServiceImpl.encodePayload(payload);
+        byte[] appPayload = this.cloudServiceImpl.encodeDataPayload(payload);
         return publish(deviceId, appTopic, appPayload, qos, retain, priority);
     }
 
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import static org.eclipse.kura.core.cloud.CloudPayloadProtoBufStreamEncoder.*;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.eclipse.kura.KuraInvalidMessageException;
+import org.eclipse.kura.core.message.protobuf.KuraPayloadProto.KuraPayload.KuraMetric.ValueType;
+import org.eclipse.kura.core.util.GZipUtil;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.message.KuraPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Decodes an KuraPayload encoded in the Google ProtoBuf binary format without building the intermediate
+ * {@code KuraPayloadProto} message graph.
+ * <p>
+ * As with {@link CloudPayloadProtoBufDecoderImpl}, a message with a malformed metric or with a metric of an unknown
+ * type is rejected with a {@link KuraInvalidMessageException}.
+ */
+public class CloudPayloadProtoBufStreamDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudPayloadProtoBufStreamDecoder.class);
+
+    private byte[] bytes;
+
+    public CloudPayloadProtoBufStreamDecoder(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Factory method to build an KuraPayload instance from a byte array.
+     *
+     * @return
+     * @throws KuraInvalidMessageException
+     * @throws IOException
+     */
+    public KuraPayload buildFromByteArray() throws KuraInvalidMessageException, IOException {
+        // Check if a compressed payload and try to decompress it
+        if (GZipUtil.isCompressed(this.bytes)) {
+            try {
+                this.bytes = GZipUtil.decompress(this.bytes);
+            } catch (IOException e) {
+                logger.info("Decompression failed");
+                // do not rethrow the exception here as isCompressed may return some false positives
+            }
+        }
+
+        KuraPayload kuraMsg = new KuraPayload();
+        try {
+            CodedInputStream in = CodedInputStream.newInstance(this.bytes);
+            int tag;
+            while ((tag = in.readTag()) != 0) {
+                switch (tag) {
+                case PAYLOAD_TIMESTAMP << 3 | WireFormat.WIRETYPE_VARINT:
+                    kuraMsg.setTimestamp(new Date(in.readInt64()));
+                    break;
+                case PAYLOAD_POSITION << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                    kuraMsg.setPosition(readPosition(in));
+                    break;
+                case PAYLOAD_METRIC << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                    readMetric(in, kuraMsg);
+                    break;
+                case PAYLOAD_BODY << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                    kuraMsg.setBody(in.readByteArray());
+                    break;
+                default:
+                    if (!in.skipField(tag)) {
+                        throw new InvalidProtocolBufferException("Unexpected end group tag");
+                    }
+                }
+            }
+        } catch (InvalidProtocolBufferException ipbe) {
+            throw new KuraInvalidMessageException(ipbe);
+        }
+
+        return kuraMsg;
+    }
+
+    private static KuraPosition readPosition(CodedInputStream in) throws IOException {
+        KuraPosition position = new KuraPosition();
+
+        int limit = in.pushLimit(in.readRawVarint32());
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+            case POSITION_LATITUDE << 3 | WireFormat.WIRETYPE_FIXED64:
+                position.setLatitude(in.readDouble());
+                break;
+            case POSITION_LONGITUDE << 3 | WireFormat.WIRETYPE_FIXED64:
+                position.setLongitude(in.readDouble());
+                break;
+            case POSITION_ALTITUDE << 3 | WireFormat.WIRETYPE_FIXED64:
+                position.setAltitude(in.readDouble());
+                break;
+            case POSITION_PRECISION << 3 | WireFormat.WIRETYPE_FIXED64:
+                position.setPrecision(in.readDouble());
+                break;
+            case POSITION_HEADING << 3 | WireFormat.WIRETYPE_FIXED64:
+                position.setHeading(in.readDouble());
+                break;
+            case POSITION_SPEED << 3 | WireFormat.WIRETYPE_FIXED64:
+                position.setSpeed(in.readDouble());
+                break;
+            case POSITION_TIMESTAMP << 3 | WireFormat.WIRETYPE_VARINT:
+                position.setTimestamp(new Date(in.readInt64()));
+                break;
+            case POSITION_SATELLITES << 3 | WireFormat.WIRETYPE_VARINT:
+                position.setSatellites(in.readInt32());
+                break;
+            case POSITION_STATUS << 3 | WireFormat.WIRETYPE_VARINT:
+                position.setStatus(in.readInt32());
+                break;
+            default:
+                if (!in.skipField(tag)) {
+                    throw new InvalidProtocolBufferException("Unexpected end group tag");
+                }
+            }
+        }
+        in.checkLastTagWas(0);
+        in.popLimit(limit);
+
+        if (position.getLatitude() == null || position.getLongitude() == null) {
+            throw new InvalidProtocolBufferException("Position latitude and longitude are required");
+        }
+        return position;
+    }
+
+    private static void readMetric(CodedInputStream in, KuraPayload kuraMsg) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        String name = null;
+        ValueType type = null;
+        Object[] values = new Object[METRIC_BYTES_VALUE + 1];
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+            case METRIC_NAME << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                name = in.readString();
+                break;
+            case METRIC_TYPE << 3 | WireFormat.WIRETYPE_VARINT:
+                // as the generated code does, an unknown type leaves the required field unset
+                type = ValueType.valueOf(in.readEnum());
+                break;
+            case METRIC_DOUBLE_VALUE << 3 | WireFormat.WIRETYPE_FIXED64:
+                values[METRIC_DOUBLE_VALUE] = in.readDouble();
+                break;
+            case METRIC_FLOAT_VALUE << 3 | WireFormat.WIRETYPE_FIXED32:
+                values[METRIC_FLOAT_VALUE] = in.readFloat();
+                break;
+            case METRIC_LONG_VALUE << 3 | WireFormat.WIRETYPE_VARINT:
+                values[METRIC_LONG_VALUE] = in.readInt64();
+                break;
+            case METRIC_INT_VALUE << 3 | WireFormat.WIRETYPE_VARINT:
+                values[METRIC_INT_VALUE] = in.readInt32();
+                break;
+            case METRIC_BOOL_VALUE << 3 | WireFormat.WIRETYPE_VARINT:
+                values[METRIC_BOOL_VALUE] = in.readBool();
+                break;
+            case METRIC_STRING_VALUE << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                values[METRIC_STRING_VALUE] = in.readString();
+                break;
+            case METRIC_BYTES_VALUE << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                values[METRIC_BYTES_VALUE] = in.readByteArray();
+                break;
+            default:
+                if (!in.skipField(tag)) {
+                    throw new InvalidProtocolBufferException("Unexpected end group tag");
+                }
+            }
+        }
+        in.checkLastTagWas(0);
+        in.popLimit(limit);
+
+        if (name == null || type == null) {
+            throw new InvalidProtocolBufferException("Metric name and type are required");
+        }
+
+        // as the generated code does, a missing value is decoded as the default value of the type
+        Object value;
+        switch (type) {
+        case DOUBLE:
+            value = values[METRIC_DOUBLE_VALUE] != null ? values[METRIC_DOUBLE_VALUE] : 0.0d;
+            break;
+        case FLOAT:
+            value = values[METRIC_FLOAT_VALUE] != null ? values[METRIC_FLOAT_VALUE] : 0.0f;
+            break;
+        case INT64:
+            value = values[METRIC_LONG_VALUE] != null ? values[METRIC_LONG_VALUE] : 0L;
+            break;
+        case INT32:
+            value = values[METRIC_INT_VALUE] != null ? values[METRIC_INT_VALUE] : 0;
+            break;
+        case BOOL:
+            value = values[METRIC_BOOL_VALUE] != null ? values[METRIC_BOOL_VALUE] : false;
+            break;
+        case STRING:
+            value = values[METRIC_STRING_VALUE] != null ? values[METRIC_STRING_VALUE] : "";
+            break;
+        default:
+            value = values[METRIC_BYTES_VALUE] != null ? values[METRIC_BYTES_VALUE] : new byte[0];
+        }
+        kuraMsg.addMetric(name, value);
+    }
+}
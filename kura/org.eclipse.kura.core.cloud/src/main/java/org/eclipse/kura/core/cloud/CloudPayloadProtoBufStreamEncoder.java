@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.KuraInvalidMetricTypeException;
+import org.eclipse.kura.core.message.protobuf.KuraPayloadProto.KuraPayload.KuraMetric.ValueType;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.message.KuraPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Encodes an KuraPayload class using the Google ProtoBuf binary format.
+ * <p>
+ * Unlike {@link CloudPayloadProtoBufEncoderImpl}, this encoder does not build the intermediate
+ * {@code KuraPayloadProto} message graph: the serialized size is computed first and the fields are then written
+ * directly into a byte array of exactly that size. The body and the byte array metrics are copied only once and the
+ * strings are UTF-8 encoded only once. The output is the same as the one of {@link CloudPayloadProtoBufEncoderImpl}.
+ */
+public class CloudPayloadProtoBufStreamEncoder implements CloudPayloadEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudPayloadProtoBufStreamEncoder.class);
+
+    static final int PAYLOAD_TIMESTAMP = 1;
+    static final int PAYLOAD_POSITION = 2;
+    static final int PAYLOAD_METRIC = 5000;
+    static final int PAYLOAD_BODY = 5001;
+
+    static final int METRIC_NAME = 1;
+    static final int METRIC_TYPE = 2;
+    static final int METRIC_DOUBLE_VALUE = 3;
+    static final int METRIC_FLOAT_VALUE = 4;
+    static final int METRIC_LONG_VALUE = 5;
+    static final int METRIC_INT_VALUE = 6;
+    static final int METRIC_BOOL_VALUE = 7;
+    static final int METRIC_STRING_VALUE = 8;
+    static final int METRIC_BYTES_VALUE = 9;
+
+    static final int POSITION_LATITUDE = 1;
+    static final int POSITION_LONGITUDE = 2;
+    static final int POSITION_ALTITUDE = 3;
+    static final int POSITION_PRECISION = 4;
+    static final int POSITION_HEADING = 5;
+    static final int POSITION_SPEED = 6;
+    static final int POSITION_TIMESTAMP = 7;
+    static final int POSITION_SATELLITES = 8;
+    static final int POSITION_STATUS = 9;
+
+    private final KuraPayload kuraPayload;
+
+    public CloudPayloadProtoBufStreamEncoder(KuraPayload kuraPayload) {
+        this.kuraPayload = kuraPayload;
+    }
+
+    /**
+     * Conversion method to serialize an KuraPayload instance into a byte array.
+     *
+     * @return
+     */
+    @Override
+    public byte[] getBytes() throws IOException {
+        final KuraPosition position = this.kuraPayload.getPosition();
+        final List<EncodedMetric> metrics = encodeMetrics();
+        final byte[] body = this.kuraPayload.getBody();
+
+        // compute the size
+        int size = 0;
+        if (this.kuraPayload.getTimestamp() != null) {
+            size += CodedOutputStream.computeInt64Size(PAYLOAD_TIMESTAMP, this.kuraPayload.getTimestamp().getTime());
+        }
+
+        int positionSize = 0;
+        if (position != null) {
+            positionSize = computePositionSize(position);
+            size += CodedOutputStream.computeTagSize(PAYLOAD_POSITION)
+                    + CodedOutputStream.computeRawVarint32Size(positionSize) + positionSize;
+        }
+
+        for (EncodedMetric metric : metrics) {
+            size += CodedOutputStream.computeTagSize(PAYLOAD_METRIC)
+                    + CodedOutputStream.computeRawVarint32Size(metric.size) + metric.size;
+        }
+
+        if (body != null) {
+            size += CodedOutputStream.computeByteArraySize(PAYLOAD_BODY, body);
+        }
+
+        // write the fields in field number order, as the generated code does
+        final byte[] bytes = new byte[size];
+        final CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+
+        if (this.kuraPayload.getTimestamp() != null) {
+            out.writeInt64(PAYLOAD_TIMESTAMP, this.kuraPayload.getTimestamp().getTime());
+        }
+
+        if (position != null) {
+            out.writeTag(PAYLOAD_POSITION, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeRawVarint32(positionSize);
+            writePosition(out, position);
+        }
+
+        for (EncodedMetric metric : metrics) {
+            out.writeTag(PAYLOAD_METRIC, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeRawVarint32(metric.size);
+            writeMetric(out, metric);
+        }
+
+        if (body != null) {
+            out.writeByteArray(PAYLOAD_BODY, body);
+        }
+
+        out.checkNoSpaceLeft();
+        return bytes;
+    }
+
+    //
+    // Helper methods to encode the KuraMetrics
+    //
+    private List<EncodedMetric> encodeMetrics() {
+        final Map<String, Object> payloadMetrics = this.kuraPayload.metrics();
+        final List<EncodedMetric> metrics = new ArrayList<>(payloadMetrics.size());
+
+        for (final Map.Entry<String, Object> entry : payloadMetrics.entrySet()) {
+            final String name = entry.getKey();
+            final Object value = entry.getValue();
+
+            try {
+                EncodedMetric metric = encodeMetric(name, value);
+                if (metric != null) {
+                    metrics.add(metric);
+                }
+            } catch (KuraInvalidMetricTypeException e) {
+                logger.error("During serialization, ignoring metric named: {}. Unrecognized value type: {}.", name,
+                        value != null ? value.getClass().getName() : "<null>");
+                throw new RuntimeException(e);
+            }
+        }
+        return metrics;
+    }
+
+    private static EncodedMetric encodeMetric(String name, Object o) throws KuraInvalidMetricTypeException {
+        final ValueType type;
+        final int valueField;
+        Object value = o;
+        int valueSize;
+
+        if (o instanceof String) {
+            type = ValueType.STRING;
+            valueField = METRIC_STRING_VALUE;
+            value = ((String) o).getBytes(StandardCharsets.UTF_8);
+            valueSize = CodedOutputStream.computeByteArraySize(valueField, (byte[]) value);
+        } else if (o instanceof Double) {
+            type = ValueType.DOUBLE;
+            valueField = METRIC_DOUBLE_VALUE;
+            valueSize = CodedOutputStream.computeDoubleSize(valueField, (Double) o);
+        } else if (o instanceof Integer) {
+            type = ValueType.INT32;
+            valueField = METRIC_INT_VALUE;
+            valueSize = CodedOutputStream.computeInt32Size(valueField, (Integer) o);
+        } else if (o instanceof Float) {
+            type = ValueType.FLOAT;
+            valueField = METRIC_FLOAT_VALUE;
+            valueSize = CodedOutputStream.computeFloatSize(valueField, (Float) o);
+        } else if (o instanceof Long) {
+            type = ValueType.INT64;
+            valueField = METRIC_LONG_VALUE;
+            valueSize = CodedOutputStream.computeInt64Size(valueField, (Long) o);
+        } else if (o instanceof Boolean) {
+            type = ValueType.BOOL;
+            valueField = METRIC_BOOL_VALUE;
+            valueSize = CodedOutputStream.computeBoolSize(valueField, (Boolean) o);
+        } else if (o instanceof byte[]) {
+            type = ValueType.BYTES;
+            valueField = METRIC_BYTES_VALUE;
+            valueSize = CodedOutputStream.computeByteArraySize(valueField, (byte[]) o);
+        } else if (o == null) {
+            logger.warn("Received a metric with a null value!");
+            return null;
+        } else {
+            throw new KuraInvalidMetricTypeException(o.getClass().getName());
+        }
+
+        final byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        final int size = CodedOutputStream.computeByteArraySize(METRIC_NAME, encodedName)
+                + CodedOutputStream.computeEnumSize(METRIC_TYPE, type.getNumber()) + valueSize;
+
+        return new EncodedMetric(encodedName, type, valueField, value, size);
+    }
+
+    private static void writeMetric(CodedOutputStream out, EncodedMetric metric) throws IOException {
+        out.writeByteArray(METRIC_NAME, metric.name);
+        out.writeEnum(METRIC_TYPE, metric.type.getNumber());
+
+        switch (metric.type) {
+        case DOUBLE:
+            out.writeDouble(metric.valueField, (Double) metric.value);
+            break;
+        case FLOAT:
+            out.writeFloat(metric.valueField, (Float) metric.value);
+            break;
+        case INT64:
+            out.writeInt64(metric.valueField, (Long) metric.value);
+            break;
+        case INT32:
+            out.writeInt32(metric.valueField, (Integer) metric.value);
+            break;
+        case BOOL:
+            out.writeBool(metric.valueField, (Boolean) metric.value);
+            break;
+        case STRING:
+        case BYTES:
+            out.writeByteArray(metric.valueField, (byte[]) metric.value);
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
+    //
+    // Helper methods to encode the KuraPosition
+    //
+    private static int computePositionSize(KuraPosition position) throws IOException {
+        if (position.getLatitude() == null || position.getLongitude() == null) {
+            throw new IOException("Position latitude and longitude are required");
+        }
+
+        int size = CodedOutputStream.computeDoubleSize(POSITION_LATITUDE, position.getLatitude())
+                + CodedOutputStream.computeDoubleSize(POSITION_LONGITUDE, position.getLongitude());
+        if (position.getAltitude() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_ALTITUDE, position.getAltitude());
+        }
+        if (position.getPrecision() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_PRECISION, position.getPrecision());
+        }
+        if (position.getHeading() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_HEADING, position.getHeading());
+        }
+        if (position.getSpeed() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_SPEED, position.getSpeed());
+        }
+        if (position.getTimestamp() != null) {
+            size += CodedOutputStream.computeInt64Size(POSITION_TIMESTAMP, position.getTimestamp().getTime());
+        }
+        if (position.getSatellites() != null) {
+            size += CodedOutputStream.computeInt32Size(POSITION_SATELLITES, position.getSatellites());
+        }
+        if (position.getStatus() != null) {
+            size += CodedOutputStream.computeInt32Size(POSITION_STATUS, position.getStatus());
+        }
+        return size;
+    }
+
+    private static void writePosition(CodedOutputStream out, KuraPosition position) throws IOException {
+        out.writeDouble(POSITION_LATITUDE, position.getLatitude());
+        out.writeDouble(POSITION_LONGITUDE, position.getLongitude());
+        if (position.getAltitude() != null) {
+            out.writeDouble(POSITION_ALTITUDE, position.getAltitude());
+        }
+        if (position.getPrecision() != null) {
+            out.writeDouble(POSITION_PRECISION, position.getPrecision());
+        }
+        if (position.getHeading() != null) {
+            out.writeDouble(POSITION_HEADING, position.getHeading());
+        }
+        if (position.getSpeed() != null) {
+            out.writeDouble(POSITION_SPEED, position.getSpeed());
+        }
+        if (position.getTimestamp() != null) {
+            out.writeInt64(POSITION_TIMESTAMP, position.getTimestamp().getTime());
+        }
+        if (position.getSatellites() != null) {
+            out.writeInt32(POSITION_SATELLITES, position.getSatellites());
+        }
+        if (position.getStatus() != null) {
+            out.writeInt32(POSITION_STATUS, position.getStatus());
+        }
+    }
+
+    private static final class EncodedMetric {
+
+        private final byte[] name;
+        private final ValueType type;
+        private final int valueField;
+        private final Object value;
+        private final int size;
+
+        EncodedMetric(byte[] name, ValueType type, int valueField, Object value, int size) {
+            this.name = name;
+            this.type = type;
+            this.valueField = valueField;
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
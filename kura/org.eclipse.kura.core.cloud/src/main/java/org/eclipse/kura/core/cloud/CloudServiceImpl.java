@@ -14,11 +14,13 @@ package org.eclipse.kura.core.cloud;
 import static org.eclipse.kura.cloud.CloudPayloadEncoding.SIMPLE_JSON;
 import static org.eclipse.kura.cloud.CloudPayloadEncoding.KURA_PROTOBUF;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -41,7 +43,11 @@ import org.eclipse.kura.data.DataService;
 import org.eclipse.kura.data.listener.DataServiceListener;
 import org.eclipse.kura.message.KuraPayload;
 import org.eclipse.kura.message.KuraTopic;
+import org.eclipse.kura.net.NetInterfaceAddedEvent;
+import org.eclipse.kura.net.NetInterfaceRemovedEvent;
+import org.eclipse.kura.net.NetInterfaceStateChangedEvent;
 import org.eclipse.kura.net.NetworkService;
+import org.eclipse.kura.net.NetworkStateChangedEvent;
 import org.eclipse.kura.net.modem.ModemReadyEvent;
 import org.eclipse.kura.position.PositionLockedEvent;
 import org.eclipse.kura.position.PositionService;
@@ -64,6 +70,10 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
     private static final String TOPIC_BA_APP = "BA";
     private static final String TOPIC_MQTT_APP = "MQTT";
 
+    private static final String METRIC_DICTIONARY_DIRECTORY = "metric-dictionary";
+
+    private static final String NETWORK_EVENT_TOPIC_PREFIX = "org/eclipse/kura/net/NetworkEvent/";
+
     private ComponentContext ctx;
 
     private CloudServiceOptions options;
@@ -85,14 +95,20 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
     String imsi;
     String rssi;
 
+    // connection interfaces and addresses of the last device profile, discarded when the network changes
+    volatile LifeCyclePayloadBuilder.ConnectionInfo connectionInfo;
+
     private boolean subscribed;
     private boolean birthPublished;
 
     private final AtomicInteger messageId;
 
+    private volatile MetricNameDictionary metricNameDictionary;
+
     public CloudServiceImpl() {
         this.cloudClients = new CopyOnWriteArrayList<>();
         this.messageId = new AtomicInteger();
+        this.metricNameDictionary = new MetricNameDictionary();
     }
 
     // ----------------------------------------------------------------
@@ -182,12 +198,17 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
         // save the bundle context and the properties
         this.ctx = componentContext;
         this.options = new CloudServiceOptions(properties, this.systemService);
+        this.metricNameDictionary = createMetricNameDictionary(
+                (String) properties.get(ConfigurationService.KURA_SERVICE_PID));
 
         //
         // install event listener for GPS locked event
         Dictionary<String, Object> props = new Hashtable<String, Object>();
         String[] eventTopics = { PositionLockedEvent.POSITION_LOCKED_EVENT_TOPIC,
-                ModemReadyEvent.MODEM_EVENT_READY_TOPIC };
+                ModemReadyEvent.MODEM_EVENT_READY_TOPIC, NetInterfaceAddedEvent.NETWORK_EVENT_INTERFACE_ADDED_TOPIC,
+                NetInterfaceRemovedEvent.NETWORK_EVENT_INTERFACE_REMOVED_TOPIC,
+                NetInterfaceStateChangedEvent.NETWORK_EVENT_INTERFACE_STATE_CHANGED_TOPIC,
+                NetworkStateChangedEvent.NETWORK_EVENT_STATE_CHANGED_TOPIC };
         props.put(EventConstants.EVENT_TOPIC, eventTopics);
         this.ctx.getBundleContext().registerService(EventHandler.class.getName(), this, props);
 
@@ -252,7 +273,10 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
 
     @Override
     public void handleEvent(Event event) {
-        if (PositionLockedEvent.POSITION_LOCKED_EVENT_TOPIC.contains(event.getTopic())) {
+        if (event.getTopic().startsWith(NETWORK_EVENT_TOPIC_PREFIX)) {
+            logger.debug("Handling {}, discarding the connection information", event.getTopic());
+            this.connectionInfo = null;
+        } else if (PositionLockedEvent.POSITION_LOCKED_EVENT_TOPIC.contains(event.getTopic())) {
             // if we get a position locked event,
             // republish the birth certificate only if we are configured to
             logger.info("Handling PositionLockedEvent");
@@ -364,6 +388,22 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
         return bytes;
     }
 
+    byte[] encodeDataPayload(KuraPayload payload) throws KuraException {
+        if (payload == null || !this.options.getPayloadMetricDictionary()) {
+            return encodePayload(payload);
+        }
+
+        // the entries must be stored before the message using them, which the caller publishes afterwards
+        MetricNameDictionary dictionary = this.metricNameDictionary;
+        Map<String, Integer> unannounced = new LinkedHashMap<>();
+        KuraPayload compressed = dictionary.compress(payload, unannounced);
+        if (!unannounced.isEmpty()) {
+            publishMetricDictionary(unannounced);
+            dictionary.announced(unannounced);
+        }
+        return encodePayload(compressed);
+    }
+
     // ----------------------------------------------------------------
     //
     // DataServiceListener API
@@ -533,7 +573,7 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
 
     @Override
     public byte[] getBytes(KuraPayload kuraPayload, boolean gzipped) throws KuraException {
-        CloudPayloadEncoder encoder = new CloudPayloadProtoBufEncoderImpl(kuraPayload);
+        CloudPayloadEncoder encoder = new CloudPayloadProtoBufStreamEncoder(kuraPayload);
         if (gzipped) {
             encoder = new CloudPayloadGZipEncoder(encoder);
         }
@@ -555,7 +595,7 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
 
     @Override
     public KuraPayload buildFromByteArray(byte[] payload) throws KuraException {
-        CloudPayloadProtoBufDecoderImpl encoder = new CloudPayloadProtoBufDecoderImpl(payload);
+        CloudPayloadProtoBufStreamDecoder encoder = new CloudPayloadProtoBufStreamDecoder(payload);
         KuraPayload kuraPayload;
 
         try {
@@ -592,6 +632,14 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
         if (publishBirth) {
             publishBirthCertificate();
             this.birthPublished = true;
+
+            // the remote server may not know the dictionary of the previous session
+            if (this.options.getPayloadMetricDictionary()) {
+                Map<String, Integer> entries = this.metricNameDictionary.getEntries();
+                if (!entries.isEmpty()) {
+                    publishMetricDictionary(entries);
+                }
+            }
         }
 
         // restore or remove default subscriptions
@@ -657,6 +705,30 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
         publishLifeCycleMessage(topic, payload);
     }
 
+    private MetricNameDictionary createMetricNameDictionary(String pid) {
+        // the ids of the messages kept by the data store must survive a restart
+        String dataDirectory = this.systemService != null ? this.systemService.getKuraDataDirectory() : null;
+        if (dataDirectory == null || pid == null) {
+            logger.warn("Kura data directory not available, the metric name dictionary is not persisted");
+            return new MetricNameDictionary();
+        }
+        File dictionaryDirectory = new File(dataDirectory, METRIC_DICTIONARY_DIRECTORY);
+        return new MetricNameDictionary(new File(dictionaryDirectory, pid + ".properties"));
+    }
+
+    private void publishMetricDictionary(Map<String, Integer> entries) throws KuraException {
+        StringBuilder sbTopic = new StringBuilder();
+        sbTopic.append(this.options.getTopicControlPrefix()).append(this.options.getTopicSeparator())
+                .append(this.options.getTopicAccountToken()).append(this.options.getTopicSeparator())
+                .append(this.options.getTopicClientIdToken()).append(this.options.getTopicSeparator())
+                .append(this.options.getTopicDictionarySuffix());
+
+        // QoS 1 and the life cycle priority: the dictionary is delivered before the data messages using it
+        String topic = sbTopic.toString();
+        byte[] encodedPayload = encodePayload(MetricNameDictionary.toPayload(entries));
+        this.dataService.publish(topic, encodedPayload, 1, false, this.options.getLifeCycleMessagePriority());
+    }
+
     private KuraPayload createBirthPayload() {
         LifeCyclePayloadBuilder payloadBuilder = new LifeCyclePayloadBuilder(this);
         return payloadBuilder.buildBirthPayload();
@@ -690,7 +762,7 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
             return bytes;
         }
 
-        CloudPayloadEncoder encoder = new CloudPayloadProtoBufEncoderImpl(payload);
+        CloudPayloadEncoder encoder = new CloudPayloadProtoBufStreamEncoder(payload);
         if (this.options.getEncodeGzip()) {
             encoder = new CloudPayloadGZipEncoder(encoder);
         }
@@ -715,7 +787,7 @@ public class CloudServiceImpl implements CloudService, DataServiceListener, Conf
         KuraPayload kuraPayload;
         try {
             // try to decode the message into an KuraPayload
-            kuraPayload = new CloudPayloadProtoBufDecoderImpl(payload).buildFromByteArray();
+            kuraPayload = new CloudPayloadProtoBufStreamDecoder(payload).buildFromByteArray();
         } catch (Exception e) {
             // Wrap the received bytes payload into an KuraPayload
             logger.debug("Received message on topic {} that could not be decoded. Wrapping it into an KuraPayload.",
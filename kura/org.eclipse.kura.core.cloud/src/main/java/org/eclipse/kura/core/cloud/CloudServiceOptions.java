@@ -36,6 +36,7 @@ public class CloudServiceOptions {
     private static final String TOPIC_BIRTH_SUFFIX = "MQTT/BIRTH";
     private static final String TOPIC_DISCONNECT_SUFFIX = "MQTT/DC";
     private static final String TOPIC_APPS_SUFFIX = "MQTT/APPS";
+    private static final String TOPIC_DICTIONARY_SUFFIX = "MQTT/DICT";
     private static final String TOPIC_CONTROL_PREFIX = "topic.control-prefix";
     private static final String TOPIC_CONTROL_PREFIX_DEFAULT = "$EDC";
     private static final String TOPIC_WILD_CARD = "#";
@@ -48,6 +49,7 @@ public class CloudServiceOptions {
     private static final String ENABLE_DFLT_SUBSCRIPTIONS = "enable.default.subscriptions";
     private static final String BIRTH_CERT_POLICY = "birth.cert.policy";
     private static final String PAYLOAD_ENCODING = "payload.encoding";
+    private static final String PAYLOAD_METRIC_DICTIONARY = "payload.metric-dictionary";
 
     private static final int LIFECYCLE_QOS = 0;
     private static final int LIFECYCLE_PRIORITY = 0;
@@ -249,6 +251,22 @@ public class CloudServiceOptions {
         return result;
     }
 
+    /**
+     * Returns true if the current CloudService configuration
+     * specifies that the metric names of the published payloads should be replaced
+     * by the aliases of a metric name dictionary.
+     *
+     * @return a boolean value.
+     */
+    public boolean getPayloadMetricDictionary() {
+        boolean enable = false;
+        if (this.properties != null && this.properties.get(PAYLOAD_METRIC_DICTIONARY) != null
+                && this.properties.get(PAYLOAD_METRIC_DICTIONARY) instanceof Boolean) {
+            enable = (Boolean) this.properties.get(PAYLOAD_METRIC_DICTIONARY);
+        }
+        return enable;
+    }
+
     public String getTopicSeparator() {
         return TOPIC_SEPARATOR;
     }
@@ -273,6 +291,10 @@ public class CloudServiceOptions {
         return TOPIC_APPS_SUFFIX;
     }
 
+    public String getTopicDictionarySuffix() {
+        return TOPIC_DICTIONARY_SUFFIX;
+    }
+
     public String getTopicWildCard() {
         return TOPIC_WILD_CARD;
     }
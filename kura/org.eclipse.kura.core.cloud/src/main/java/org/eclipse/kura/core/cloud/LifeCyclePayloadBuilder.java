@@ -12,6 +12,7 @@
 package org.eclipse.kura.core.cloud;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.kura.core.message.KuraBirthPayload;
 import org.eclipse.kura.core.message.KuraBirthPayload.KuraBirthPayloadBuilder;
@@ -40,6 +41,9 @@ public class LifeCyclePayloadBuilder {
 
     private static final String UNKNOWN = "UNKNOWN";
 
+    // addresses can change without a network event, e.g. on DHCP lease renewal
+    private static final long CONNECTION_INFO_MAX_AGE = TimeUnit.SECONDS.toNanos(30);
+
     private final CloudServiceImpl cloudServiceImpl;
 
     LifeCyclePayloadBuilder(CloudServiceImpl cloudServiceImpl) {
@@ -131,33 +135,14 @@ public class LifeCyclePayloadBuilder {
         PositionService positionService = this.cloudServiceImpl.getPositionService();
 
         //
-        // get the network information
-        StringBuilder sbConnectionIp = null;
-        StringBuilder sbConnectionInterface = null;
-        try {
-            List<NetInterface<? extends NetInterfaceAddress>> nis = networkService.getActiveNetworkInterfaces();
-            if (!nis.isEmpty()) {
-                sbConnectionIp = new StringBuilder();
-                sbConnectionInterface = new StringBuilder();
-
-                for (NetInterface<? extends NetInterfaceAddress> ni : nis) {
-                    List<? extends NetInterfaceAddress> nias = ni.getNetInterfaceAddresses();
-                    if (nias != null && !nias.isEmpty()) {
-                        sbConnectionInterface.append(buildConnectionInterface(ni)).append(",");
-                        sbConnectionIp.append(buildConnectionIp(ni)).append(",");
-                    }
-                }
-
-                // Remove trailing comma
-                sbConnectionIp.deleteCharAt(sbConnectionIp.length() - 1);
-                sbConnectionInterface.deleteCharAt(sbConnectionInterface.length() - 1);
-            }
-        } catch (Exception se) {
-            s_logger.warn("Error while getting ConnetionIP and ConnectionInterface", se);
+        // get the network information, querying the network service only if the network changed
+        ConnectionInfo connectionInfo = this.cloudServiceImpl.connectionInfo;
+        if (connectionInfo == null || System.nanoTime() - connectionInfo.timestamp > CONNECTION_INFO_MAX_AGE) {
+            connectionInfo = buildConnectionInfo(networkService);
+            this.cloudServiceImpl.connectionInfo = connectionInfo;
         }
-
-        String connectionIp = sbConnectionIp != null ? sbConnectionIp.toString() : UNKNOWN;
-        String connectionInterface = sbConnectionInterface != null ? sbConnectionInterface.toString() : UNKNOWN;
+        String connectionIp = connectionInfo.ip;
+        String connectionInterface = connectionInfo.iface;
 
         //
         // get the position information
@@ -188,6 +173,35 @@ public class LifeCyclePayloadBuilder {
                 systemService.getOsArch(), systemService.getOsgiFwName(), systemService.getOsgiFwVersion());
     }
 
+    private ConnectionInfo buildConnectionInfo(NetworkService networkService) {
+        StringBuilder sbConnectionIp = null;
+        StringBuilder sbConnectionInterface = null;
+        try {
+            List<NetInterface<? extends NetInterfaceAddress>> nis = networkService.getActiveNetworkInterfaces();
+            if (!nis.isEmpty()) {
+                sbConnectionIp = new StringBuilder();
+                sbConnectionInterface = new StringBuilder();
+
+                for (NetInterface<? extends NetInterfaceAddress> ni : nis) {
+                    List<? extends NetInterfaceAddress> nias = ni.getNetInterfaceAddresses();
+                    if (nias != null && !nias.isEmpty()) {
+                        sbConnectionInterface.append(buildConnectionInterface(ni)).append(",");
+                        sbConnectionIp.append(buildConnectionIp(ni)).append(",");
+                    }
+                }
+
+                // Remove trailing comma
+                sbConnectionIp.deleteCharAt(sbConnectionIp.length() - 1);
+                sbConnectionInterface.deleteCharAt(sbConnectionInterface.length() - 1);
+            }
+        } catch (Exception se) {
+            s_logger.warn("Error while getting ConnetionIP and ConnectionInterface", se);
+        }
+
+        return new ConnectionInfo(sbConnectionInterface != null ? sbConnectionInterface.toString() : UNKNOWN,
+                sbConnectionIp != null ? sbConnectionIp.toString() : UNKNOWN);
+    }
+
     private String buildConnectionIp(NetInterface<? extends NetInterfaceAddress> ni) {
         String connectionIp = UNKNOWN;
         List<? extends NetInterfaceAddress> nias = ni.getNetInterfaceAddresses();
@@ -224,4 +238,19 @@ public class LifeCyclePayloadBuilder {
         }
         return acceptEncoding;
     }
+
+    /**
+     * The connection interfaces and addresses reported in the device profile.
+     */
+    static final class ConnectionInfo {
+
+        private final String iface;
+        private final String ip;
+        private final long timestamp = System.nanoTime();
+
+        private ConnectionInfo(String iface, String ip) {
+            this.iface = iface;
+            this.ip = ip;
+        }
+    }
 }
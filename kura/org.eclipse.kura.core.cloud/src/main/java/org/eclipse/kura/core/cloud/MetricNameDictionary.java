@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.kura.message.KuraPayload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replaces the metric names of a KuraPayload with short aliases.
+ * <p>
+ * Each metric name is assigned a numeric id the first time it is used; the metric is then sent with the name
+ * {@value #ALIAS_PREFIX} followed by the id in base 36 (e.g. {@code ~a}). Ids are never reassigned, so a payload
+ * stored while disconnected can still be expanded later on. A name which starts with {@value #ALIAS_PREFIX} is never
+ * aliased and is escaped by doubling the prefix; names which do not fit in the dictionary are sent unchanged.
+ * <p>
+ * A dictionary created with a file keeps its entries there: the new entries are written before the payload using
+ * them is returned, so the stored messages still expand to the right names after a restart. If the file cannot be
+ * written the new names are sent unchanged.
+ * <p>
+ * The dictionary itself is published as a KuraPayload with a metric for each name whose value is the id (see
+ * {@link #toPayload(Map)}); the receiving side uses {@link #learn(KuraPayload)} and {@link #expand(KuraPayload)}.
+ */
+public class MetricNameDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricNameDictionary.class);
+
+    public static final String ALIAS_PREFIX = "~";
+
+    private static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final int maxSize;
+    private final File file;
+    private final Map<String, Integer> ids = new LinkedHashMap<>();
+    private final Map<Integer, String> names = new HashMap<>();
+    private final Set<String> announced = new HashSet<>();
+    private int nextId;
+
+    public MetricNameDictionary() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public MetricNameDictionary(int maxSize) {
+        this(null, maxSize);
+    }
+
+    /**
+     * Creates a dictionary kept in the given file, loading the entries it already contains. The loaded entries are
+     * considered as announced.
+     *
+     * @param file
+     *            the dictionary file, or null to keep the dictionary in memory only
+     * @param maxSize
+     *            the maximum number of aliased names
+     */
+    public MetricNameDictionary(File file, int maxSize) {
+        this.maxSize = maxSize;
+        this.file = file;
+        if (file != null && file.isFile()) {
+            load(file);
+        }
+    }
+
+    public MetricNameDictionary(File file) {
+        this(file, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Returns a copy of the payload where the metric names are replaced by their aliases, assigning an id to the
+     * names used for the first time.
+     * <p>
+     * The entries used by the payload that have not been {@link #announced(Map) announced} yet are returned to the
+     * caller, which has to publish them before the payload. Concurrent callers may therefore announce the same entry
+     * more than once.
+     *
+     * @param payload
+     *            the payload to compress
+     * @param unannounced
+     *            receives the entries used by the payload which have not been announced yet
+     * @return the compressed payload
+     */
+    public synchronized KuraPayload compress(KuraPayload payload, Map<String, Integer> unannounced) {
+        List<String> added = new ArrayList<>();
+        for (String name : payload.metricNames()) {
+            if (!name.startsWith(ALIAS_PREFIX) && !this.ids.containsKey(name) && this.ids.size() < this.maxSize) {
+                add(name, this.nextId);
+                added.add(name);
+            }
+        }
+        if (!added.isEmpty() && this.file != null && !save()) {
+            // ids which are not stored would be handed out again after a restart
+            for (String name : added) {
+                this.names.remove(this.ids.remove(name));
+            }
+            this.nextId -= added.size();
+        }
+
+        KuraPayload compressed = new KuraPayload();
+        compressed.setTimestamp(payload.getTimestamp());
+        compressed.setPosition(payload.getPosition());
+        compressed.setBody(payload.getBody());
+
+        for (Map.Entry<String, Object> metric : payload.metrics().entrySet()) {
+            String name = metric.getKey();
+            if (name.startsWith(ALIAS_PREFIX)) {
+                compressed.addMetric(ALIAS_PREFIX + name, metric.getValue());
+                continue;
+            }
+
+            Integer id = this.ids.get(name);
+            if (id != null && !this.announced.contains(name)) {
+                unannounced.put(name, id);
+            }
+            compressed.addMetric(id != null ? alias(id) : name, metric.getValue());
+        }
+        return compressed;
+    }
+
+    /**
+     * Records that the given entries have been published, so they are no longer returned by
+     * {@link #compress(KuraPayload, Map)}.
+     *
+     * @param entries
+     *            the published entries
+     */
+    public synchronized void announced(Map<String, Integer> entries) {
+        this.announced.addAll(entries.keySet());
+    }
+
+    /**
+     * Returns a copy of the payload where the aliases known to this dictionary are replaced by the metric names.
+     *
+     * @param payload
+     *            the compressed payload
+     * @return the expanded payload
+     */
+    public synchronized KuraPayload expand(KuraPayload payload) {
+        KuraPayload expanded = new KuraPayload();
+        expanded.setTimestamp(payload.getTimestamp());
+        expanded.setPosition(payload.getPosition());
+        expanded.setBody(payload.getBody());
+
+        for (Map.Entry<String, Object> metric : payload.metrics().entrySet()) {
+            String name = metric.getKey();
+            if (name.startsWith(ALIAS_PREFIX + ALIAS_PREFIX)) {
+                name = name.substring(ALIAS_PREFIX.length());
+            } else if (name.startsWith(ALIAS_PREFIX)) {
+                try {
+                    String original = this.names.get(Integer.parseInt(name.substring(ALIAS_PREFIX.length()),
+                            Character.MAX_RADIX));
+                    if (original != null) {
+                        name = original;
+                    }
+                } catch (NumberFormatException e) {
+                    // not an alias
+                }
+            }
+            expanded.addMetric(name, metric.getValue());
+        }
+        return expanded;
+    }
+
+    /**
+     * Adds the entries of a dictionary payload built by {@link #toPayload(Map)}.
+     *
+     * @param dictionary
+     *            the dictionary payload
+     */
+    public synchronized void learn(KuraPayload dictionary) {
+        for (Map.Entry<String, Object> entry : dictionary.metrics().entrySet()) {
+            if (entry.getValue() instanceof Integer) {
+                add(entry.getKey(), (Integer) entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the entries of the dictionary.
+     *
+     * @return the ids by metric name
+     */
+    public synchronized Map<String, Integer> getEntries() {
+        return new LinkedHashMap<>(this.ids);
+    }
+
+    public static KuraPayload toPayload(Map<String, Integer> entries) {
+        KuraPayload payload = new KuraPayload();
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            payload.addMetric(entry.getKey(), entry.getValue());
+        }
+        return payload;
+    }
+
+    private void add(String name, int id) {
+        this.ids.put(name, id);
+        this.names.put(id, name);
+        this.nextId = Math.max(this.nextId, id + 1);
+    }
+
+    private void load(File file) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.warn("Cannot load the metric name dictionary {}", file, e);
+            return;
+        }
+
+        Map<Integer, String> entries = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            try {
+                entries.put(Integer.parseInt(properties.getProperty(name)), name);
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring the invalid metric name dictionary entry {}", name);
+            }
+        }
+        for (Map.Entry<Integer, String> entry : entries.entrySet()) {
+            add(entry.getValue(), entry.getKey());
+            this.announced.add(entry.getValue());
+        }
+    }
+
+    private boolean save() {
+        File dir = this.file.getAbsoluteFile().getParentFile();
+        dir.mkdirs();
+
+        Properties properties = new Properties();
+        for (Map.Entry<String, Integer> entry : this.ids.entrySet()) {
+            properties.setProperty(entry.getKey(), Integer.toString(entry.getValue()));
+        }
+
+        File tmpFile = new File(this.file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmpFile)) {
+                properties.store(out, null);
+                out.getFD().sync();
+            }
+            Files.move(tmpFile.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Cannot write the metric name dictionary {}", this.file, e);
+            return false;
+        } finally {
+            tmpFile.delete();
+        }
+    }
+
+    private static String alias(int id) {
+        return ALIAS_PREFIX + Integer.toString(id, Character.MAX_RADIX);
+    }
+}
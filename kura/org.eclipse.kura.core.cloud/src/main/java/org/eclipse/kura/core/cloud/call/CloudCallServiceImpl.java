@@ -21,8 +21,8 @@ import org.eclipse.kura.KuraStoreException;
 import org.eclipse.kura.KuraTimeoutException;
 import org.eclipse.kura.cloud.CloudCallService;
 import org.eclipse.kura.cloud.app.RequestIdGenerator;
-import org.eclipse.kura.core.cloud.CloudPayloadProtoBufDecoderImpl;
-import org.eclipse.kura.core.cloud.CloudPayloadProtoBufEncoderImpl;
+import org.eclipse.kura.core.cloud.CloudPayloadProtoBufStreamDecoder;
+import org.eclipse.kura.core.cloud.CloudPayloadProtoBufStreamEncoder;
 import org.eclipse.kura.data.DataService;
 import org.eclipse.kura.data.listener.DataServiceListener;
 import org.eclipse.kura.message.KuraPayload;
@@ -116,7 +116,7 @@ public class CloudCallServiceImpl implements CloudCallService, DataServiceListen
         req.setRequestId(requestId);
         req.setRequesterClientId(CLIENT_ID_VAR_NAME);
 
-        CloudPayloadProtoBufEncoderImpl encoder = new CloudPayloadProtoBufEncoderImpl(req);
+        CloudPayloadProtoBufStreamEncoder encoder = new CloudPayloadProtoBufStreamEncoder(req);
         byte[] rawPayload;
         try {
             rawPayload = encoder.getBytes();
@@ -197,7 +197,7 @@ public class CloudCallServiceImpl implements CloudCallService, DataServiceListen
 
                 s_logger.debug("Got response");
 
-                CloudPayloadProtoBufDecoderImpl decoder = new CloudPayloadProtoBufDecoderImpl(payload);
+                CloudPayloadProtoBufStreamDecoder decoder = new CloudPayloadProtoBufStreamDecoder(payload);
 
                 KuraResponsePayload resp = null;
                 try {
@@ -13,7 +13,9 @@
 package org.eclipse.kura.core.configuration;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
@@ -21,25 +23,39 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.xml.bind.DatatypeConverter;
 import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLStreamException;
 
 import org.eclipse.kura.KuraErrorCode;
 import org.eclipse.kura.KuraException;
 import org.eclipse.kura.KuraPartialSuccessException;
+import org.eclipse.kura.cloud.CloudConnectionEstablishedEvent;
 import org.eclipse.kura.configuration.ComponentConfiguration;
 import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.configuration.ConfigurationService;
@@ -61,10 +77,14 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.cm.Configuration;
 import org.osgi.service.cm.ConfigurationAdmin;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.ComponentException;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
 import org.osgi.service.metatype.AttributeDefinition;
 import org.osgi.service.metatype.MetaTypeService;
 import org.osgi.service.metatype.ObjectClassDefinition;
@@ -83,6 +103,35 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     private static final boolean TRACK_ONLY_RELEVANT_SERVICES = !Boolean
             .getBoolean("org.eclipse.kura.core.configuration.legacyServiceTracking");
 
+    // if set, snapshots requested by configuration updates within this delay, in milliseconds, are written once by a
+    // background thread; by default every snapshot is written before the update returns
+    private static final long SNAPSHOT_WRITE_DELAY = Long
+            .getLong("org.eclipse.kura.core.configuration.snapshotWriteDelay", 0L);
+
+    // maximum number of delta snapshots written against the same full snapshot
+    private static final int SNAPSHOT_DELTAS_PER_BASE = Integer
+            .getInteger("org.eclipse.kura.core.configuration.snapshotDeltasPerBase", 10);
+
+    // unless disabled, the configurations of the latest snapshot are also stored in binary form when they are loaded
+    // from the XML at startup, so that the next startups do not parse the XML again. The cache is not written with
+    // every snapshot to avoid doubling the writes of a configuration update
+    private static final boolean SNAPSHOT_CACHE_ENABLED = !Boolean
+            .getBoolean("org.eclipse.kura.core.configuration.disableSnapshotCache");
+
+    private static final String SNAPSHOT_CACHE_FILE = "snapshot.cache";
+
+    // number of threads pushing the configurations of the latest snapshot to ConfigurationAdmin at startup
+    private static final int STARTUP_THREADS = Integer.getInteger("org.eclipse.kura.core.configuration.startupThreads",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    // comma separated factory PIDs, or prefixes ending with *, whose components are created at startup only once the
+    // cloud connection is established or the timeout, in milliseconds, expires
+    private static final String DEFERRED_FACTORY_PIDS = System
+            .getProperty("org.eclipse.kura.core.configuration.deferredFactoryPids", "");
+
+    private static final long DEFERRED_FACTORY_TIMEOUT = Long
+            .getLong("org.eclipse.kura.core.configuration.deferredFactoryTimeout", 60000L);
+
     private interface ServiceHandler {
 
         void add(String servicePid, String kuraPid, String factoryPid);
@@ -151,6 +200,31 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     // maps the kura.service.pid to the associated service.pid
     private final Map<String, String> servicePidByPid;
 
+    // in-memory index of the snapshot files, maps a snapshot id to the id of its full base snapshot (itself for full
+    // snapshots, null if not known yet). Reloaded when the modification time of the directory changes.
+    private TreeMap<Long, Long> snapshotIndex;
+    private String snapshotIndexDirectory;
+    private long snapshotIndexModified;
+
+    // the last full snapshot written, against which the following snapshots are written as deltas
+    private SnapshotBase snapshotBase;
+
+    // copy of the configurations of the latest snapshot, to avoid decrypting it again on every write
+    private long latestSnapshotId = -1;
+    private List<ComponentConfigurationImpl> latestSnapshotConfigs;
+
+    // executes the delayed snapshot writes and the creation of the deferred components
+    private ScheduledExecutorService worker;
+
+    // snapshot requested by a configuration update and not written yet
+    private ScheduledFuture<?> pendingSnapshotWrite;
+    private List<ComponentConfigurationImpl> pendingSnapshotConfigs;
+
+    // factory configurations of the latest snapshot whose creation waits for the cloud connection
+    private List<ComponentConfigurationImpl> deferredConfigs;
+    private ServiceRegistration<?> deferredConfigsHandler;
+    private ScheduledFuture<?> deferredConfigsTimeout;
+
     // ----------------------------------------------------------------
     //
     // Dependencies
@@ -309,6 +383,19 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             this.bundleTracker.close();
             this.bundleTracker = null;
         }
+
+        synchronized (this) {
+            try {
+                flushPendingSnapshot();
+            } catch (KuraException e) {
+                logger.error("Error writing pending snapshot", e);
+            }
+            cancelDeferredConfigurations();
+            if (this.worker != null) {
+                this.worker.shutdown();
+                this.worker = null;
+            }
+        }
     }
 
     // ----------------------------------------------------------------
@@ -402,27 +489,8 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
 
         try {
-            // Second argument in createFactoryConfiguration is a bundle location. If left null the new bundle location
-            // will be bound to the location of the first bundle that registers a Managed Service Factory with a
-            // corresponding PID
-            logger.info("Creating new configuration for factory pid {} and pid {}", factoryPid, pid);
-            String servicePid = this.configurationAdmin.createFactoryConfiguration(factoryPid, null).getPid();
-
-            logger.info("Updating newly created configuration for pid {}", pid);
-
-            Map<String, Object> mergedProperties = new HashMap<String, Object>();
-            if (properties != null) {
-                mergedProperties.putAll(properties);
-            }
-
-            OCD ocd = this.ocds.get(factoryPid);
-            mergeWithDefaults(ocd, mergedProperties);
-
-            mergedProperties.put(ConfigurationService.KURA_SERVICE_PID, pid);
-
-            Dictionary<String, Object> dict = CollectionsUtil.mapToDictionary(mergedProperties);
-            Configuration config = this.configurationAdmin.getConfiguration(servicePid, "?");
-            config.update(dict);
+            String servicePid = createFactoryConfigurationInternal(factoryPid, pid, properties,
+                    this.ocds.get(factoryPid));
 
             registerComponentConfiguration(pid, servicePid, factoryPid);
 
@@ -437,6 +505,37 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
     }
 
+    /**
+     * Creates the configuration in ConfigurationAdmin, does not access the state of this service so that it can be
+     * called without holding its lock.
+     *
+     * @return the service PID of the new configuration
+     */
+    private String createFactoryConfigurationInternal(String factoryPid, String pid, Map<String, Object> properties,
+            OCD ocd) throws KuraException, IOException {
+        // Second argument in createFactoryConfiguration is a bundle location. If left null the new bundle location
+        // will be bound to the location of the first bundle that registers a Managed Service Factory with a
+        // corresponding PID
+        logger.info("Creating new configuration for factory pid {} and pid {}", factoryPid, pid);
+        String servicePid = this.configurationAdmin.createFactoryConfiguration(factoryPid, null).getPid();
+
+        logger.info("Updating newly created configuration for pid {}", pid);
+
+        Map<String, Object> mergedProperties = new HashMap<String, Object>();
+        if (properties != null) {
+            mergedProperties.putAll(properties);
+        }
+
+        mergeWithDefaults(ocd, mergedProperties);
+
+        mergedProperties.put(ConfigurationService.KURA_SERVICE_PID, pid);
+
+        Dictionary<String, Object> dict = CollectionsUtil.mapToDictionary(mergedProperties);
+        Configuration config = this.configurationAdmin.getConfiguration(servicePid, "?");
+        config.update(dict);
+        return servicePid;
+    }
+
     @Override
     public synchronized void deleteFactoryConfiguration(String pid, boolean takeSnapshot) throws KuraException {
         if (pid == null) {
@@ -474,6 +573,8 @@ public class ConfigurationServiceImpl implements ConfigurationService {
 
     @Override
     public long snapshot() throws KuraException {
+        flushPendingSnapshot();
+
         logger.info("Writing snapshot - Getting component configurations...");
 
         List<ComponentConfiguration> configs = buildCurrentConfiguration(null);
@@ -500,6 +601,8 @@ public class ConfigurationServiceImpl implements ConfigurationService {
 
     @Override
     public synchronized void rollback(long id) throws KuraException {
+        flushPendingSnapshot();
+
         // load the snapshot we need to rollback to
         XmlComponentConfigurations xmlConfigs = loadEncryptedSnapshotFileContent(id);
 
@@ -511,6 +614,20 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         boolean snapshotOnConfirmation = false;
         List<Throwable> causes = new ArrayList<Throwable>();
         List<ComponentConfigurationImpl> configs = xmlConfigs.getConfigurations();
+        if (this.deferredConfigs != null) {
+            // the components not created yet will be created with the restored configurations
+            Set<String> deferredPids = new HashSet<String>();
+            for (ComponentConfigurationImpl config : this.deferredConfigs) {
+                deferredPids.add(config.getPid());
+            }
+            List<ComponentConfigurationImpl> restoredConfigs = new ArrayList<ComponentConfigurationImpl>();
+            for (ComponentConfigurationImpl config : configs) {
+                if (config != null && deferredPids.contains(config.getPid())) {
+                    restoredConfigs.add(config);
+                }
+            }
+            this.deferredConfigs = restoredConfigs;
+        }
         for (ComponentConfigurationImpl config : configs) {
             if (config != null) {
                 try {
@@ -572,11 +689,14 @@ public class ConfigurationServiceImpl implements ConfigurationService {
 
     @Override
     public Set<Long> getSnapshots() throws KuraException {
+        flushPendingSnapshot();
         return getSnapshotsInternal();
     }
 
     @Override
     public List<ComponentConfiguration> getSnapshot(long sid) throws KuraException {
+        flushPendingSnapshot();
+
         List<ComponentConfiguration> returnConfigs = new ArrayList<ComponentConfiguration>();
 
         XmlComponentConfigurations xmlConfigs = loadEncryptedSnapshotFileContent(sid);
@@ -787,7 +907,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
 
         if (takeSnapshot && configs != null && !configs.isEmpty()) {
-            saveSnapshot(configs);
+            scheduleSnapshot(configs);
         }
 
         if (!causes.isEmpty()) {
@@ -932,7 +1052,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
     }
 
-    private boolean allSnapshotsUnencrypted() {
+    private synchronized boolean allSnapshotsUnencrypted() {
         try {
             Set<Long> snapshotIDs = getSnapshots();
             if (snapshotIDs == null || snapshotIDs.isEmpty()) {
@@ -941,6 +1061,10 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             Long[] snapshots = snapshotIDs.toArray(new Long[] {});
 
             for (Long snapshot : snapshots) {
+                // delta snapshots are always written encrypted
+                if (!snapshot.equals(getSnapshotBase(snapshot))) {
+                    return false;
+                }
 
                 try {
                     // Verify if the current snapshot is encrypted
@@ -955,7 +1079,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
     }
 
-    private void encryptPlainSnapshots() throws Exception {
+    private synchronized void encryptPlainSnapshots() throws Exception {
         Set<Long> snapshotIDs = getSnapshots();
         if (snapshotIDs == null || snapshotIDs.isEmpty()) {
             return;
@@ -967,6 +1091,10 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             if (fSnapshot == null || !fSnapshot.exists()) {
                 throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, snapshot);
             }
+            if (!snapshot.equals(getSnapshotBase(snapshot))) {
+                logger.debug("Snapshot {} is a delta, already encrypted", snapshot);
+                continue;
+            }
 
             //
             // Unmarshall
@@ -998,6 +1126,72 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
     }
 
+    /**
+     * Requests a snapshot of the provided configurations. The snapshot is written immediately unless
+     * {@link #SNAPSHOT_WRITE_DELAY} is set, in which case it is written after that delay by a background thread, so
+     * that the snapshots requested by a burst of updates result in a single write containing the latest
+     * configurations. A pending snapshot is written immediately when the snapshots are accessed or a new snapshot is
+     * taken.
+     */
+    private synchronized void scheduleSnapshot(List<? extends ComponentConfiguration> configs) throws KuraException {
+        if (SNAPSHOT_WRITE_DELAY <= 0) {
+            saveSnapshot(configs);
+            return;
+        }
+
+        // the configurations are copied as the caller could still modify them before the write
+        List<ComponentConfigurationImpl> configImpls = new ArrayList<ComponentConfigurationImpl>();
+        for (ComponentConfiguration config : configs) {
+            if (config instanceof ComponentConfigurationImpl) {
+                configImpls.add((ComponentConfigurationImpl) config);
+            }
+        }
+        this.pendingSnapshotConfigs = copyConfigurations(configImpls);
+        if (this.pendingSnapshotWrite != null) {
+            logger.debug("Writing snapshot - Coalesced with the pending snapshot");
+            return;
+        }
+
+        this.pendingSnapshotWrite = getWorker().schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    flushPendingSnapshot();
+                } catch (KuraException e) {
+                    logger.error("Error writing pending snapshot", e);
+                }
+            }
+        }, SNAPSHOT_WRITE_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService getWorker() {
+        if (this.worker == null) {
+            this.worker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ConfigurationServiceWorker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return this.worker;
+    }
+
+    private synchronized void flushPendingSnapshot() throws KuraException {
+        if (this.pendingSnapshotWrite == null) {
+            return;
+        }
+        this.pendingSnapshotWrite.cancel(false);
+        this.pendingSnapshotWrite = null;
+
+        List<ComponentConfigurationImpl> configs = this.pendingSnapshotConfigs;
+        this.pendingSnapshotConfigs = null;
+        saveSnapshot(configs);
+    }
+
     private synchronized long saveSnapshot(List<? extends ComponentConfiguration> configs) throws KuraException {
 
         List<ComponentConfigurationImpl> configImpls = new ArrayList<ComponentConfigurationImpl>();
@@ -1026,8 +1220,53 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             }
         }
 
-        // Write snapshot
-        writeSnapshot(sid, conf);
+        boolean indexCurrent = isSnapshotIndexCurrent();
+
+        // Write snapshot, as a delta if most of the configurations did not change since the last full snapshot
+        Map<String, String> fingerprints = new HashMap<String, String>();
+        for (ComponentConfigurationImpl config : configImpls) {
+            fingerprints.put(config.getPid(), SnapshotCodec.fingerprint(config));
+        }
+
+        Long deltaBaseSid = null;
+        SnapshotBase base = this.snapshotBase;
+        if (base != null && base.deltaCount < SNAPSHOT_DELTAS_PER_BASE && indexCurrent
+                && this.snapshotIndex.containsKey(base.sid)) {
+            List<ComponentConfigurationImpl> changedConfigs = new ArrayList<ComponentConfigurationImpl>();
+            for (ComponentConfigurationImpl config : configImpls) {
+                String pid = config.getPid();
+                if (!fingerprints.get(pid).equals(base.fingerprints.get(pid))
+                        || config.getDefinition() != base.definitions.get(pid)) {
+                    changedConfigs.add(config);
+                }
+            }
+            if (changedConfigs.size() * 2 <= configImpls.size()) {
+                Set<String> removedPids = new HashSet<String>(base.fingerprints.keySet());
+                removedPids.removeAll(fingerprints.keySet());
+
+                writeDeltaSnapshot(sid, base.sid, changedConfigs, removedPids);
+                base.deltaCount++;
+                deltaBaseSid = base.sid;
+            }
+        }
+        if (deltaBaseSid == null) {
+            writeSnapshot(sid, conf);
+
+            Map<String, Tocd> definitions = new HashMap<String, Tocd>();
+            for (ComponentConfigurationImpl config : configImpls) {
+                definitions.put(config.getPid(), config.getDefinition());
+            }
+            this.snapshotBase = new SnapshotBase(sid, fingerprints, definitions);
+        }
+
+        if (indexCurrent) {
+            this.snapshotIndex.put(sid, deltaBaseSid != null ? deltaBaseSid : sid);
+            this.snapshotIndexModified = new File(this.snapshotIndexDirectory).lastModified();
+        } else {
+            this.snapshotIndex = null;
+        }
+        this.latestSnapshotId = sid;
+        this.latestSnapshotConfigs = copyConfigurations(configImpls);
 
         this.pendingDeletePids.clear();
 
@@ -1037,11 +1276,26 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     }
 
     private void writeSnapshot(long sid, XmlComponentConfigurations conf) throws KuraException {
-        File fSnapshot = getSnapshotFile(sid);
-        if (fSnapshot == null) {
-            throw new KuraException(KuraErrorCode.CONFIGURATION_SNAPSHOT_NOT_FOUND);
+        writeSnapshotFile(sid, null, marshalSnapshot(conf));
+    }
+
+    private void writeDeltaSnapshot(long sid, long baseSid, List<ComponentConfigurationImpl> changedConfigs,
+            Collection<String> removedPids) throws KuraException {
+        XmlComponentConfigurations conf = new XmlComponentConfigurations();
+        conf.setConfigurations(changedConfigs);
+
+        String content;
+        try {
+            content = SnapshotCodec.deltaContent(removedPids, marshalSnapshot(conf));
+        } catch (UnsupportedEncodingException e) {
+            throw new KuraException(KuraErrorCode.INTERNAL_ERROR, e);
         }
+        logger.info("Writing snapshot - {} changed and {} removed configurations since snapshot {}",
+                new Object[] { changedConfigs.size(), removedPids.size(), baseSid });
+        writeSnapshotFile(sid, baseSid, content);
+    }
 
+    private String marshalSnapshot(XmlComponentConfigurations conf) throws KuraException {
         // Marshall the configuration into an XML
         String xmlResult;
         try {
@@ -1052,9 +1306,22 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         } catch (Exception e1) {
             throw new KuraException(KuraErrorCode.INTERNAL_ERROR, e1);
         }
+        return xmlResult;
+    }
 
-        // Encrypt the XML
-        char[] encryptedXML = this.cryptoService.encryptAes(xmlResult.toCharArray());
+    private void writeSnapshotFile(long sid, Long baseSid, String content) throws KuraException {
+        File fSnapshot = getSnapshotFile(sid);
+        if (fSnapshot == null) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_SNAPSHOT_NOT_FOUND);
+        }
+
+        // Compress and encrypt the content
+        char[] encryptedXML;
+        try {
+            encryptedXML = this.cryptoService.encryptAes(SnapshotCodec.compress(content).toCharArray());
+        } catch (IOException e) {
+            throw new KuraException(KuraErrorCode.INTERNAL_ERROR, e);
+        }
 
         // Write the snapshot
         FileOutputStream fos = null;
@@ -1063,6 +1330,9 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             logger.info("Writing snapshot - Saving {}...", fSnapshot.getAbsolutePath());
             fos = new FileOutputStream(fSnapshot);
             osw = new OutputStreamWriter(fos, "UTF-8");
+            if (baseSid != null) {
+                osw.append(SnapshotCodec.deltaHeader(baseSid)).append('\n');
+            }
             osw.append(new String(encryptedXML));
             osw.flush();
             fos.flush();
@@ -1210,12 +1480,18 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return cc;
     }
 
-    private TreeSet<Long> getSnapshotsInternal() {
+    private synchronized TreeSet<Long> getSnapshotsInternal() {
         // keeps the list of snapshots ordered
-        TreeSet<Long> ids = new TreeSet<Long>();
         String configDir = getSnapshotsDirectory();
-        if (configDir != null) {
-            File fConfigDir = new File(configDir);
+        if (configDir == null) {
+            return new TreeSet<Long>();
+        }
+
+        File fConfigDir = new File(configDir);
+        long modified = fConfigDir.lastModified();
+        if (this.snapshotIndex == null || modified != this.snapshotIndexModified
+                || !configDir.equals(this.snapshotIndexDirectory)) {
+            TreeMap<Long, Long> index = new TreeMap<Long, Long>();
             File[] files = fConfigDir.listFiles();
             if (files != null) {
 
@@ -1223,12 +1499,68 @@ public class ConfigurationServiceImpl implements ConfigurationService {
                 for (File file : files) {
                     Matcher m = p.matcher(file.getName());
                     if (m.matches()) {
-                        ids.add(Long.parseLong(m.group(1)));
+                        Long sid = Long.parseLong(m.group(1));
+                        // keep the known bases of the snapshots that are still there
+                        index.put(sid, this.snapshotIndex != null && configDir.equals(this.snapshotIndexDirectory)
+                                ? this.snapshotIndex.get(sid) : null);
+                    }
+                }
+            }
+            this.snapshotIndex = index;
+            this.snapshotIndexDirectory = configDir;
+            this.snapshotIndexModified = modified;
+        }
+        return new TreeSet<Long>(this.snapshotIndex.keySet());
+    }
+
+    private boolean isSnapshotIndexCurrent() {
+        String configDir = getSnapshotsDirectory();
+        return this.snapshotIndex != null && configDir != null && configDir.equals(this.snapshotIndexDirectory)
+                && new File(configDir).lastModified() == this.snapshotIndexModified;
+    }
+
+    /**
+     * Returns the id of the full snapshot on which the provided snapshot is based, the id itself for full
+     * snapshots. Only the header of the file is read, the result is cached in the snapshot index.
+     */
+    private Long getSnapshotBase(long sid) {
+        Long base = this.snapshotIndex != null ? this.snapshotIndex.get(sid) : null;
+        if (base != null) {
+            return base;
+        }
+
+        base = sid;
+        File fSnapshot = getSnapshotFile(sid);
+        if (fSnapshot != null && fSnapshot.exists()) {
+            FileReader fr = null;
+            try {
+                fr = new FileReader(fSnapshot);
+                char[] header = new char[SnapshotCodec.DELTA_HEADER.length() + 20];
+                int read = fr.read(header);
+                if (read > 0) {
+                    String line = new String(header, 0, read);
+                    int end = line.indexOf('\n');
+                    Long deltaBase = SnapshotCodec.parseDeltaHeader(end < 0 ? line : line.substring(0, end));
+                    if (deltaBase != null) {
+                        base = deltaBase;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Error reading the header of snapshot {}", sid, e);
+                return sid;
+            } finally {
+                if (fr != null) {
+                    try {
+                        fr.close();
+                    } catch (IOException e) {
                     }
                 }
             }
         }
-        return ids;
+        if (this.snapshotIndex != null && this.snapshotIndex.containsKey(sid)) {
+            this.snapshotIndex.put(sid, base);
+        }
+        return base;
     }
 
     String getSnapshotsDirectory() {
@@ -1249,13 +1581,14 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return new File(snapshot);
     }
 
-    private void garbageCollectionOldSnapshots() {
+    private synchronized void garbageCollectionOldSnapshots() {
         // get the current snapshots and compared with the maximum number we
         // need to keep
         TreeSet<Long> sids = getSnapshotsInternal();
 
         int currCount = sids.size();
         int maxCount = this.systemService.getKuraSnapshotsCount();
+        List<Long> deletableSids = new ArrayList<Long>();
         while (currCount > maxCount && !sids.isEmpty()) { // stop if count reached or no more snapshots remain
 
             // preserve snapshot ID 0 as this will be considered the seeding
@@ -1264,62 +1597,286 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             if (sid != 0) {
                 File fSnapshot = getSnapshotFile(sid);
                 if (fSnapshot != null && fSnapshot.exists()) {
-                    logger.info("Snapshots Garbage Collector. Deleting {}", fSnapshot.getAbsolutePath());
-                    fSnapshot.delete();
+                    deletableSids.add(sid);
                     currCount--;
                 }
             }
         }
+        if (deletableSids.isEmpty()) {
+            return;
+        }
+
+        // preserve the full snapshots on which the remaining snapshots are based
+        Set<Long> baseSids = new HashSet<Long>();
+        for (Long sid : sids) {
+            baseSids.add(getSnapshotBase(sid));
+        }
+
+        boolean indexCurrent = isSnapshotIndexCurrent();
+        for (Long sid : deletableSids) {
+            if (baseSids.contains(sid)) {
+                logger.debug("Snapshots Garbage Collector. Keeping {} as base of more recent snapshots", sid);
+                continue;
+            }
+            File fSnapshot = getSnapshotFile(sid);
+            logger.info("Snapshots Garbage Collector. Deleting {}", fSnapshot.getAbsolutePath());
+            fSnapshot.delete();
+            if (indexCurrent) {
+                this.snapshotIndex.remove(sid);
+            }
+        }
+        if (indexCurrent) {
+            this.snapshotIndexModified = new File(this.snapshotIndexDirectory).lastModified();
+        }
     }
 
     private void loadLatestSnapshotInConfigAdmin() throws KuraException {
         //
         // save away initial configuration
-        List<ComponentConfigurationImpl> configs = loadLatestSnapshotConfigurations();
+        List<ComponentConfigurationImpl> configs = loadStartupConfigurations();
         if (configs == null) {
             return;
         }
-        for (ComponentConfiguration config : configs) {
-            if (config != null) {
-                Map<String, Object> props = config.getConfigurationProperties();
-                if (props != null) {
-                    String factoryPid = (String) props.get(ConfigurationAdmin.SERVICE_FACTORYPID);
 
-                    if (factoryPid != null) {
-                        String pid = config.getPid();
-                        logger.info("Creating configuration with pid: {} and factory pid: {}", pid, factoryPid);
-                        try {
-                            createFactoryConfiguration(factoryPid, pid, props, false);
-                        } catch (KuraException e) {
-                            logger.warn("Error creating configuration with pid: {} and factory pid: {}", pid,
-                                    factoryPid, e);
-                        }
-                    } else {
-                        try {
-                            logger.debug("Pushing config to config admin: {}", config.getPid());
+        // ConfigurationAdmin notifies the components asynchronously, the configurations are pushed in parallel to
+        // shorten the time spent in its persistence
+        List<ComponentConfigurationImpl> deferred = new ArrayList<ComponentConfigurationImpl>();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final ComponentConfigurationImpl config : configs) {
+            if (config == null || config.getConfigurationProperties() == null) {
+                continue;
+            }
+            String factoryPid = (String) config.getConfigurationProperties().get(ConfigurationAdmin.SERVICE_FACTORYPID);
+            if (factoryPid != null && isDeferredFactoryPid(factoryPid)) {
+                deferred.add(config);
+                continue;
+            }
+            tasks.add(new Callable<Void>() {
 
-                            // push it to the ConfigAdmin
-                            Configuration cfg = this.configurationAdmin.getConfiguration(config.getPid(), "?");
+                @Override
+                public Void call() {
+                    pushConfigurationInConfigAdmin(config);
+                    return null;
+                }
+            });
+        }
+        runStartupTasks(tasks);
 
-                            // set kura.service.pid if missing
-                            Map<String, Object> newProperties = new HashMap<String, Object>(props);
-                            if (!newProperties.containsKey(ConfigurationService.KURA_SERVICE_PID)) {
-                                newProperties.put(ConfigurationService.KURA_SERVICE_PID, config.getPid());
-                            }
+        if (!deferred.isEmpty()) {
+            deferConfigurations(deferred);
+        }
+    }
 
-                            cfg.update(CollectionsUtil.mapToDictionary(newProperties));
+    private void pushConfigurationInConfigAdmin(ComponentConfiguration config) {
+        Map<String, Object> props = config.getConfigurationProperties();
+        String factoryPid = (String) props.get(ConfigurationAdmin.SERVICE_FACTORYPID);
 
-                        } catch (IOException e) {
-                            logger.warn("Error seeding initial properties to ConfigAdmin for pid: {}", config.getPid(),
-                                    e);
-                        }
+        if (factoryPid != null) {
+            String pid = config.getPid();
+            logger.info("Creating configuration with pid: {} and factory pid: {}", pid, factoryPid);
+            try {
+                OCD ocd;
+                synchronized (this) {
+                    if (this.servicePidByPid.containsKey(pid)) {
+                        throw new KuraException(KuraErrorCode.INVALID_PARAMETER, "pid " + pid + " already exists");
                     }
+                    ocd = this.ocds.get(factoryPid);
+                }
+                String servicePid = createFactoryConfigurationInternal(factoryPid, pid, props, ocd);
+                synchronized (this) {
+                    registerComponentConfiguration(pid, servicePid, factoryPid);
+                    this.pendingDeletePids.remove(pid);
+                }
+            } catch (KuraException e) {
+                logger.warn("Error creating configuration with pid: {} and factory pid: {}", pid, factoryPid, e);
+            } catch (IOException e) {
+                logger.warn("Error creating configuration with pid: {} and factory pid: {}", pid, factoryPid, e);
+            }
+        } else {
+            try {
+                logger.debug("Pushing config to config admin: {}", config.getPid());
+
+                // push it to the ConfigAdmin
+                Configuration cfg = this.configurationAdmin.getConfiguration(config.getPid(), "?");
+
+                // set kura.service.pid if missing
+                Map<String, Object> newProperties = new HashMap<String, Object>(props);
+                if (!newProperties.containsKey(ConfigurationService.KURA_SERVICE_PID)) {
+                    newProperties.put(ConfigurationService.KURA_SERVICE_PID, config.getPid());
+                }
+
+                cfg.update(CollectionsUtil.mapToDictionary(newProperties));
+
+            } catch (IOException e) {
+                logger.warn("Error seeding initial properties to ConfigAdmin for pid: {}", config.getPid(), e);
+            }
+        }
+    }
+
+    private void runStartupTasks(List<Callable<Void>> tasks) {
+        int threads = Math.min(STARTUP_THREADS, tasks.size());
+        if (threads <= 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    logger.warn("Error loading the latest snapshot", e);
                 }
             }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ConfigurationStartup-" + ++this.count);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    logger.warn("Error loading the latest snapshot", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while loading the latest snapshot");
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean isDeferredFactoryPid(String factoryPid) {
+        for (String deferredPid : DEFERRED_FACTORY_PIDS.split(",")) {
+            deferredPid = deferredPid.trim();
+            if (deferredPid.isEmpty()) {
+                continue;
+            }
+            if (deferredPid.endsWith("*") ? factoryPid.startsWith(deferredPid.substring(0, deferredPid.length() - 1))
+                    : factoryPid.equals(deferredPid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delays the creation of the provided factory configurations until the cloud connection is established or
+     * {@link #DEFERRED_FACTORY_TIMEOUT} expires, so that the components needed to reach the device start first.
+     * Until then the configurations are kept in the snapshots as they are in the latest one.
+     */
+    private synchronized void deferConfigurations(List<ComponentConfigurationImpl> configs) {
+        logger.info("Deferring the creation of {} factory configurations until the cloud connection is established",
+                configs.size());
+        this.deferredConfigs = configs;
+
+        Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put(EventConstants.EVENT_TOPIC,
+                new String[] { CloudConnectionEstablishedEvent.CLOUD_CONNECTION_STATUS_ESTABLISHED });
+        this.deferredConfigsHandler = this.ctx.getBundleContext().registerService(EventHandler.class.getName(),
+                new EventHandler() {
+
+                    @Override
+                    public void handleEvent(Event event) {
+                        // do not block the delivery of the event
+                        getWorker().execute(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                createDeferredConfigurations();
+                            }
+                        });
+                    }
+                }, props);
+
+        this.deferredConfigsTimeout = getWorker().schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                logger.info("Cloud connection not established within {} ms", DEFERRED_FACTORY_TIMEOUT);
+                createDeferredConfigurations();
+            }
+        }, DEFERRED_FACTORY_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void createDeferredConfigurations() {
+        List<ComponentConfigurationImpl> configs;
+        synchronized (this) {
+            configs = this.deferredConfigs;
+            cancelDeferredConfigurations();
+        }
+        if (configs == null) {
+            return;
+        }
+
+        logger.info("Creating {} deferred factory configurations...", configs.size());
+        for (ComponentConfigurationImpl config : configs) {
+            pushConfigurationInConfigAdmin(config);
+        }
+        logger.info("Creating {} deferred factory configurations... Done.", configs.size());
+    }
+
+    private synchronized void cancelDeferredConfigurations() {
+        this.deferredConfigs = null;
+        if (this.deferredConfigsHandler != null) {
+            try {
+                this.deferredConfigsHandler.unregister();
+            } catch (IllegalStateException e) {
+                // already unregistered with the bundle
+            }
+            this.deferredConfigsHandler = null;
+        }
+        if (this.deferredConfigsTimeout != null) {
+            this.deferredConfigsTimeout.cancel(false);
+            this.deferredConfigsTimeout = null;
         }
     }
 
+    /**
+     * Loads the configurations of the latest snapshot from the snapshot cache, falling back to its XML. The cache is
+     * refreshed when the XML is used.
+     */
+    private List<ComponentConfigurationImpl> loadStartupConfigurations() throws KuraException {
+        Set<Long> snapshotIDs = getSnapshots();
+        if (snapshotIDs == null || snapshotIDs.isEmpty()) {
+            return null;
+        }
+        long latestID = Collections.max(snapshotIDs);
+
+        List<ComponentConfigurationImpl> configs = readSnapshotCache(latestID);
+        if (configs != null) {
+            logger.info("Loaded init configurations of {} from the snapshot cache", latestID);
+            synchronized (this) {
+                this.latestSnapshotId = latestID;
+                this.latestSnapshotConfigs = copyConfigurations(configs);
+            }
+            return configs;
+        }
+
+        configs = loadLatestSnapshotConfigurations();
+        synchronized (this) {
+            if (configs != null && this.latestSnapshotId == latestID) {
+                writeSnapshotCache(latestID, this.latestSnapshotConfigs);
+            }
+        }
+        return configs;
+    }
+
     private List<ComponentConfigurationImpl> loadLatestSnapshotConfigurations() throws KuraException {
+        // a pending snapshot is more recent than the ones on disk
+        synchronized (this) {
+            if (this.pendingSnapshotConfigs != null) {
+                return copyConfigurations(this.pendingSnapshotConfigs);
+            }
+        }
+
         //
         // Get the latest snapshot file to use as initialization
         Set<Long> snapshotIDs = getSnapshots();
@@ -1330,6 +1887,12 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Long[] snapshots = snapshotIDs.toArray(new Long[] {});
         Long lastestID = snapshots[snapshotIDs.size() - 1];
 
+        synchronized (this) {
+            if (lastestID == this.latestSnapshotId && this.latestSnapshotConfigs != null) {
+                return copyConfigurations(this.latestSnapshotConfigs);
+            }
+        }
+
         //
         // Unmarshall
         logger.info("Loading init configurations from: {}...", lastestID);
@@ -1340,6 +1903,12 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             if (xmlConfigs != null) {
                 configs = xmlConfigs.getConfigurations();
             }
+            if (configs != null) {
+                synchronized (this) {
+                    this.latestSnapshotId = lastestID;
+                    this.latestSnapshotConfigs = copyConfigurations(configs);
+                }
+            }
         } catch (Exception e) {
             logger.info("Unable to decrypt snapshot! Fallback to unencrypted snapshots mode.");
             try {
@@ -1355,7 +1924,124 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return configs;
     }
 
+    private File getSnapshotCacheFile() {
+        String configDir = getSnapshotsDirectory();
+        return configDir != null ? new File(configDir, SNAPSHOT_CACHE_FILE) : null;
+    }
+
+    /**
+     * Returns the configurations of the provided snapshot from the snapshot cache, or null if the cache is disabled,
+     * missing or has been built from another snapshot.
+     */
+    private List<ComponentConfigurationImpl> readSnapshotCache(long snapshotID) {
+        File fCache = getSnapshotCacheFile();
+        File fSnapshot = getSnapshotFile(snapshotID);
+        if (!SNAPSHOT_CACHE_ENABLED || fCache == null || fSnapshot == null || !fCache.isFile()) {
+            return null;
+        }
+
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(fCache);
+            ByteArrayOutputStream content = new ByteArrayOutputStream((int) fCache.length());
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = fis.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+
+            char[] decrypted = this.cryptoService.decryptAes(content.toString("US-ASCII").toCharArray());
+            if (decrypted == null) {
+                return null;
+            }
+            List<ComponentConfigurationImpl> configs = SnapshotCache.decode(
+                    DatatypeConverter.parseBase64Binary(new String(decrypted)), getSnapshotCacheVersion(), snapshotID,
+                    fSnapshot.length(), fSnapshot.lastModified());
+            if (configs == null) {
+                logger.info("Snapshot cache is stale, ignoring it");
+            }
+            return configs;
+        } catch (Exception e) {
+            logger.warn("Error reading the snapshot cache, ignoring it", e);
+            return null;
+        } finally {
+            if (fis != null) {
+                try {
+                    fis.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the snapshot cache with the configurations of the provided snapshot. Failures are only logged, the
+     * snapshot will be loaded from its XML.
+     */
+    private void writeSnapshotCache(long snapshotID, List<ComponentConfigurationImpl> configs) {
+        File fCache = getSnapshotCacheFile();
+        File fSnapshot = getSnapshotFile(snapshotID);
+        if (!SNAPSHOT_CACHE_ENABLED || fCache == null || fSnapshot == null || !fSnapshot.isFile()) {
+            return;
+        }
+
+        File fTemp = new File(fCache.getPath() + ".tmp");
+        FileOutputStream fos = null;
+        try {
+            byte[] cache = SnapshotCache.encode(getSnapshotCacheVersion(), snapshotID, fSnapshot.length(),
+                    fSnapshot.lastModified(), configs);
+            char[] encrypted = cache != null
+                    ? this.cryptoService.encryptAes(DatatypeConverter.printBase64Binary(cache).toCharArray()) : null;
+            if (encrypted == null) {
+                logger.debug("Snapshot {} cannot be cached", snapshotID);
+                fCache.delete();
+                return;
+            }
+
+            fos = new FileOutputStream(fTemp);
+            fos.write(new String(encrypted).getBytes("US-ASCII"));
+            fos.flush();
+            fos.getFD().sync();
+            fos.close();
+            fos = null;
+            if (!fTemp.renameTo(fCache)) {
+                throw new IOException("Cannot rename " + fTemp + " to " + fCache);
+            }
+        } catch (Exception e) {
+            logger.warn("Error writing the snapshot cache", e);
+            fCache.delete();
+        } finally {
+            if (fos != null) {
+                try {
+                    fos.close();
+                } catch (IOException e) {
+                }
+            }
+            fTemp.delete();
+        }
+    }
+
+    /**
+     * Returns the version of this bundle, which provides the configuration upgrade applied to the cached
+     * configurations.
+     */
+    String getSnapshotCacheVersion() {
+        if (this.ctx == null || this.ctx.getBundleContext() == null
+                || this.ctx.getBundleContext().getBundle() == null) {
+            return "";
+        }
+        return this.ctx.getBundleContext().getBundle().getVersion().toString();
+    }
+
     XmlComponentConfigurations loadEncryptedSnapshotFileContent(long snapshotID) throws KuraException {
+        return ConfigurationUpgrade.upgrade(loadSnapshotFileContent(snapshotID, true));
+    }
+
+    /**
+     * Loads a snapshot file, applying the content of delta snapshots to their base if {@code resolveDelta} is true.
+     */
+    private XmlComponentConfigurations loadSnapshotFileContent(long snapshotID, boolean resolveDelta)
+            throws KuraException {
         File fSnapshot = getSnapshotFile(snapshotID);
         if (fSnapshot == null || !fSnapshot.exists()) {
             throw new KuraException(KuraErrorCode.CONFIGURATION_SNAPSHOT_NOT_FOUND, fSnapshot.getAbsolutePath());
@@ -1363,13 +2049,19 @@ public class ConfigurationServiceImpl implements ConfigurationService {
 
         FileReader fr = null;
         BufferedReader br = null;
+        Long baseSid = null;
         StringBuilder entireFile = new StringBuilder();
         try {
             fr = new FileReader(fSnapshot);
             br = new BufferedReader(fr);
-            String line = "";
-            while ((line = br.readLine()) != null) {
+            String line = br.readLine();
+            baseSid = SnapshotCodec.parseDeltaHeader(line);
+            if (baseSid != null) {
+                line = br.readLine();
+            }
+            while (line != null) {
                 entireFile.append(line);
+                line = br.readLine();
             }
         } catch (IOException e) {
             logger.error("Error loading file from disk", e);
@@ -1389,12 +2081,35 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             }
         }
 
-        // File loaded, try to decrypt and unmarshall
+        // File loaded, try to decrypt, decompress and unmarshall
         char[] decryptAes = this.cryptoService.decryptAes(entireFile.toString().toCharArray());
         if (decryptAes == null) {
             throw new KuraException(KuraErrorCode.DECODER_ERROR);
         }
-        String decryptedContent = new String(decryptAes);
+        String decryptedContent;
+        try {
+            decryptedContent = SnapshotCodec.decompress(new String(decryptAes));
+        } catch (IOException e) {
+            throw new KuraException(KuraErrorCode.DECODER_ERROR, e);
+        } catch (IllegalArgumentException e) {
+            throw new KuraException(KuraErrorCode.DECODER_ERROR, e);
+        }
+
+        List<String> removedPids = null;
+        if (baseSid != null) {
+            if (!resolveDelta) {
+                throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, snapshotID);
+            }
+            try {
+                removedPids = SnapshotCodec.parseRemovedPids(decryptedContent);
+            } catch (UnsupportedEncodingException e) {
+                throw new KuraException(KuraErrorCode.DECODER_ERROR, e);
+            }
+            if (removedPids == null) {
+                throw new KuraException(KuraErrorCode.DECODER_ERROR);
+            }
+            decryptedContent = SnapshotCodec.deltaXml(decryptedContent);
+        }
 
         XmlComponentConfigurations xmlConfigs = null;
         try {
@@ -1405,7 +2120,25 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             logger.warn("Error parsing xml", e);
         }
 
-        return ConfigurationUpgrade.upgrade(xmlConfigs);
+        if (baseSid != null && xmlConfigs != null) {
+            XmlComponentConfigurations baseConfigs = loadSnapshotFileContent(baseSid, false);
+            if (baseConfigs == null) {
+                return null;
+            }
+            xmlConfigs.setConfigurations(SnapshotCodec.merge(baseConfigs.getConfigurations(),
+                    xmlConfigs.getConfigurations(), removedPids));
+        }
+        return xmlConfigs;
+    }
+
+    private static List<ComponentConfigurationImpl> copyConfigurations(List<ComponentConfigurationImpl> configs) {
+        List<ComponentConfigurationImpl> copies = new ArrayList<ComponentConfigurationImpl>(configs.size());
+        for (ComponentConfigurationImpl config : configs) {
+            Map<String, Object> properties = config.getConfigurationProperties();
+            copies.add(new ComponentConfigurationImpl(config.getPid(), config.getDefinition(),
+                    properties != null ? new HashMap<String, Object>(properties) : null));
+        }
+        return copies;
     }
 
     private void updateConfigurationInternal(String pid, Map<String, Object> properties, boolean snapshotOnConfirmation)
@@ -1675,4 +2408,21 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
         return value.toString();
     }
+
+    /**
+     * The last full snapshot written, with the state of its configurations.
+     */
+    private static final class SnapshotBase {
+
+        private final long sid;
+        private final Map<String, String> fingerprints;
+        private final Map<String, Tocd> definitions;
+        private int deltaCount;
+
+        private SnapshotBase(long sid, Map<String, String> fingerprints, Map<String, Tocd> definitions) {
+            this.sid = sid;
+            this.fingerprints = fingerprints;
+            this.definitions = definitions;
+        }
+    }
 }
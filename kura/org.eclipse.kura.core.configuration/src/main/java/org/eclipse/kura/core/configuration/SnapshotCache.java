@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.configuration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.kura.configuration.Password;
+
+/**
+ * Binary form of the configurations of a snapshot, used to load the latest snapshot at startup without parsing its
+ * XML and running the configuration upgrade again.
+ * <br>
+ * The cache identifies the snapshot file it has been built from by its id, length and modification time, and the
+ * version of the bundle that wrote it, as the configuration upgrade may change with it. The cache must be discarded
+ * if any of them does not match. Like the XML, only the PIDs and the properties of the configurations are
+ * stored, passwords are kept encrypted.
+ */
+final class SnapshotCache {
+
+    private static final int MAGIC = 0x4b534332; // KSC2
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte INTEGER = 5;
+    private static final byte BYTE = 6;
+    private static final byte CHAR = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte SHORT = 9;
+    private static final byte PASSWORD = 10;
+    private static final byte ARRAY = 0x40;
+
+    private SnapshotCache() {
+    }
+
+    /**
+     * Encodes the configurations of the provided snapshot file, upgraded by the provided version.
+     *
+     * @return the encoded configurations, or null if a property has a type that cannot be cached
+     */
+    static byte[] encode(String version, long sid, long fileLength, long fileModified,
+            List<ComponentConfigurationImpl> configs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        writeString(out, version);
+        out.writeLong(sid);
+        out.writeLong(fileLength);
+        out.writeLong(fileModified);
+        out.writeInt(configs.size());
+        for (ComponentConfigurationImpl config : configs) {
+            writeString(out, config.getPid());
+            Map<String, Object> properties = config.getConfigurationProperties();
+            if (properties == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(properties.size());
+            for (Entry<String, Object> property : properties.entrySet()) {
+                writeString(out, property.getKey());
+                if (!writeValue(out, property.getValue())) {
+                    return null;
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes the configurations of the provided snapshot file.
+     *
+     * @return the configurations, or null if the cache has been built from another snapshot file or by another
+     *         version
+     * @throws IOException
+     *             if the cache is corrupted
+     */
+    static List<ComponentConfigurationImpl> decode(byte[] cache, String version, long sid, long fileLength,
+            long fileModified) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(cache));
+        if (in.readInt() != MAGIC || !version.equals(readString(in)) || in.readLong() != sid
+                || in.readLong() != fileLength || in.readLong() != fileModified) {
+            return null;
+        }
+        int count = in.readInt();
+        List<ComponentConfigurationImpl> configs = new ArrayList<ComponentConfigurationImpl>(count);
+        for (int i = 0; i < count; i++) {
+            String pid = readString(in);
+            int size = in.readInt();
+            Map<String, Object> properties = null;
+            if (size >= 0) {
+                properties = new HashMap<String, Object>(size * 2);
+                for (int j = 0; j < size; j++) {
+                    String key = readString(in);
+                    properties.put(key, readValue(in));
+                }
+            }
+            configs.add(new ComponentConfigurationImpl(pid, null, properties));
+        }
+        return configs;
+    }
+
+    private static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return true;
+        }
+        if (value instanceof Object[]) {
+            byte type = typeOf(value.getClass().getComponentType());
+            if (type == NULL) {
+                return false;
+            }
+            Object[] values = (Object[]) value;
+            out.writeByte(ARRAY | type);
+            out.writeInt(values.length);
+            for (Object element : values) {
+                out.writeBoolean(element != null);
+                if (element != null) {
+                    writeScalar(out, type, element);
+                }
+            }
+            return true;
+        }
+        byte type = typeOf(value.getClass());
+        if (type == NULL) {
+            return false;
+        }
+        out.writeByte(type);
+        writeScalar(out, type, value);
+        return true;
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == NULL) {
+            return null;
+        }
+        if ((type & ARRAY) == 0) {
+            return readScalar(in, type);
+        }
+        type = (byte) (type & ~ARRAY);
+        int length = in.readInt();
+        Object[] values = (Object[]) Array.newInstance(classOf(type), length);
+        for (int i = 0; i < length; i++) {
+            if (in.readBoolean()) {
+                values[i] = readScalar(in, type);
+            }
+        }
+        return values;
+    }
+
+    private static byte typeOf(Class<?> clazz) {
+        if (clazz == String.class) {
+            return STRING;
+        } else if (clazz == Long.class) {
+            return LONG;
+        } else if (clazz == Double.class) {
+            return DOUBLE;
+        } else if (clazz == Float.class) {
+            return FLOAT;
+        } else if (clazz == Integer.class) {
+            return INTEGER;
+        } else if (clazz == Byte.class) {
+            return BYTE;
+        } else if (clazz == Character.class) {
+            return CHAR;
+        } else if (clazz == Boolean.class) {
+            return BOOLEAN;
+        } else if (clazz == Short.class) {
+            return SHORT;
+        } else if (clazz == Password.class) {
+            return PASSWORD;
+        }
+        return NULL;
+    }
+
+    private static Class<?> classOf(byte type) throws IOException {
+        switch (type) {
+        case STRING:
+            return String.class;
+        case LONG:
+            return Long.class;
+        case DOUBLE:
+            return Double.class;
+        case FLOAT:
+            return Float.class;
+        case INTEGER:
+            return Integer.class;
+        case BYTE:
+            return Byte.class;
+        case CHAR:
+            return Character.class;
+        case BOOLEAN:
+            return Boolean.class;
+        case SHORT:
+            return Short.class;
+        case PASSWORD:
+            return Password.class;
+        default:
+            throw new IOException("Unknown property type " + type);
+        }
+    }
+
+    private static void writeScalar(DataOutputStream out, byte type, Object value) throws IOException {
+        switch (type) {
+        case STRING:
+            writeString(out, (String) value);
+            break;
+        case LONG:
+            out.writeLong((Long) value);
+            break;
+        case DOUBLE:
+            out.writeDouble((Double) value);
+            break;
+        case FLOAT:
+            out.writeFloat((Float) value);
+            break;
+        case INTEGER:
+            out.writeInt((Integer) value);
+            break;
+        case BYTE:
+            out.writeByte((Byte) value);
+            break;
+        case CHAR:
+            out.writeChar((Character) value);
+            break;
+        case BOOLEAN:
+            out.writeBoolean((Boolean) value);
+            break;
+        case SHORT:
+            out.writeShort((Short) value);
+            break;
+        default:
+            writeString(out, new String(((Password) value).getPassword()));
+            break;
+        }
+    }
+
+    private static Object readScalar(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+        case STRING:
+            return readString(in);
+        case LONG:
+            return in.readLong();
+        case DOUBLE:
+            return in.readDouble();
+        case FLOAT:
+            return in.readFloat();
+        case INTEGER:
+            return in.readInt();
+        case BYTE:
+            return in.readByte();
+        case CHAR:
+            return in.readChar();
+        case BOOLEAN:
+            return in.readBoolean();
+        case SHORT:
+            return in.readShort();
+        case PASSWORD:
+            return new Password(readString(in));
+        default:
+            throw new IOException("Unknown property type " + type);
+        }
+    }
+
+    // DataOutputStream.writeUTF is limited to 64 KiB, property values can be longer
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
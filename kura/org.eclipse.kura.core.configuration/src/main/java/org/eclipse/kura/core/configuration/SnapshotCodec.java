@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.configuration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.eclipse.kura.configuration.ComponentConfiguration;
+import org.eclipse.kura.configuration.Password;
+
+/**
+ * Encodes and decodes the content of the snapshot files.
+ * <br>
+ * The XML of a snapshot is compressed before being encrypted: the plain text passed to the CryptoService is the
+ * {@value #COMPRESSED_PREFIX} prefix followed by the Base64 encoding of the gzipped XML. Plain XML content, written
+ * by previous versions, is still accepted when reading.
+ * <br>
+ * A snapshot can be either full or a delta. A delta only contains the configurations that differ from a full
+ * snapshot, its base, and the list of the PIDs that have been removed since the base. Delta files start with an
+ * unencrypted header line, {@value #DELTA_HEADER} followed by the id of the base, so that the base of a delta can be
+ * found without decrypting it. Deltas never refer to other deltas.
+ */
+final class SnapshotCodec {
+
+    static final String COMPRESSED_PREFIX = "gz:";
+
+    static final String DELTA_HEADER = "#delta base=";
+
+    private static final String REMOVED_PREFIX = "removed=";
+
+    private static final String UTF_8 = "UTF-8";
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Compresses the XML of a snapshot.
+     */
+    static String compress(String xml) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length() / 4 + 64);
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        try {
+            gzip.write(xml.getBytes(UTF_8));
+        } finally {
+            gzip.close();
+        }
+        return COMPRESSED_PREFIX + DatatypeConverter.printBase64Binary(out.toByteArray());
+    }
+
+    /**
+     * Decompresses the content of a snapshot, content without the {@value #COMPRESSED_PREFIX} prefix is returned as is.
+     */
+    static String decompress(String content) throws IOException {
+        if (!content.startsWith(COMPRESSED_PREFIX)) {
+            return content;
+        }
+        byte[] compressed = DatatypeConverter.parseBase64Binary(content.substring(COMPRESSED_PREFIX.length()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+        InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            gzip.close();
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    /**
+     * Returns the header line of a delta snapshot based on the provided snapshot.
+     */
+    static String deltaHeader(long baseSid) {
+        return DELTA_HEADER + baseSid;
+    }
+
+    /**
+     * Parses the first line of a snapshot file.
+     *
+     * @return the id of the base snapshot, or null if the line is not a delta header
+     */
+    static Long parseDeltaHeader(String line) {
+        if (line == null || !line.startsWith(DELTA_HEADER)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(line.substring(DELTA_HEADER.length()).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the plain content of a delta, before compression.
+     */
+    static String deltaContent(Collection<String> removedPids, String xml) throws UnsupportedEncodingException {
+        StringBuilder sb = new StringBuilder(REMOVED_PREFIX);
+        boolean first = true;
+        for (String pid : removedPids) {
+            if (!first) {
+                sb.append(',');
+            }
+            sb.append(URLEncoder.encode(pid, UTF_8));
+            first = false;
+        }
+        return sb.append('\n').append(xml).toString();
+    }
+
+    /**
+     * Returns the PIDs removed by a delta, or null if the content is not a delta.
+     */
+    static List<String> parseRemovedPids(String content) throws UnsupportedEncodingException {
+        if (!content.startsWith(REMOVED_PREFIX)) {
+            return null;
+        }
+        int end = content.indexOf('\n');
+        String removed = content.substring(REMOVED_PREFIX.length(), end < 0 ? content.length() : end);
+        if (removed.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> pids = new ArrayList<String>();
+        for (String pid : removed.split(",")) {
+            pids.add(URLDecoder.decode(pid, UTF_8));
+        }
+        return pids;
+    }
+
+    /**
+     * Returns the XML of the content of a delta.
+     */
+    static String deltaXml(String content) {
+        int end = content.indexOf('\n');
+        return end < 0 ? "" : content.substring(end + 1);
+    }
+
+    /**
+     * Applies a delta to the configurations of its base, the order of the base configurations is preserved.
+     */
+    static List<ComponentConfigurationImpl> merge(List<ComponentConfigurationImpl> base,
+            List<ComponentConfigurationImpl> delta, Collection<String> removedPids) {
+        Map<String, ComponentConfigurationImpl> configs = new LinkedHashMap<String, ComponentConfigurationImpl>();
+        if (base != null) {
+            for (ComponentConfigurationImpl config : base) {
+                configs.put(config.getPid(), config);
+            }
+        }
+        for (String pid : removedPids) {
+            configs.remove(pid);
+        }
+        if (delta != null) {
+            for (ComponentConfigurationImpl config : delta) {
+                configs.put(config.getPid(), config);
+            }
+        }
+        return new ArrayList<ComponentConfigurationImpl>(configs.values());
+    }
+
+    /**
+     * Returns a representation of the properties of a configuration that is equal for equal properties, regardless
+     * of the order of the keys. Passwords are included as they are stored, i.e. encrypted.
+     */
+    static String fingerprint(ComponentConfiguration config) {
+        Map<String, Object> properties = config.getConfigurationProperties();
+        if (properties == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Entry<String, Object> property : new TreeMap<String, Object>(properties).entrySet()) {
+            String key = property.getKey();
+            sb.append(key.length()).append(':').append(key);
+            appendFingerprint(sb, property.getValue());
+        }
+        return sb.toString();
+    }
+
+    // lengths make the representation unambiguous whatever the keys and the values contain, the elements of arrays
+    // are represented like the values and null ones are marked explicitly
+    private static void appendFingerprint(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null;");
+            return;
+        }
+        if (value instanceof Object[]) {
+            Object[] values = (Object[]) value;
+            sb.append(value.getClass().getComponentType().getSimpleName()).append("[]").append(values.length)
+                    .append(':');
+            for (Object element : values) {
+                appendFingerprint(sb, element);
+            }
+            return;
+        }
+        String text;
+        if (value instanceof Password) {
+            text = new String(((Password) value).getPassword());
+        } else {
+            text = value.toString();
+        }
+        sb.append(value.getClass().getSimpleName()).append(':').append(text.length()).append(':').append(text);
+    }
+}
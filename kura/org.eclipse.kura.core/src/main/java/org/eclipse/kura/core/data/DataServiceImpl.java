@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.kura.core.data;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -36,7 +37,10 @@ import org.eclipse.kura.KuraTimeoutException;
 import org.eclipse.kura.KuraTooManyInflightMessagesException;
 import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.configuration.ConfigurationService;
+import org.eclipse.kura.core.data.DataServiceOptions.StoreType;
 import org.eclipse.kura.core.data.store.DbDataStore;
+import org.eclipse.kura.core.data.store.MemoryQueueDataStore;
+import org.eclipse.kura.core.data.store.SegmentLogDataStore;
 import org.eclipse.kura.core.internal.data.TokenBucket;
 import org.eclipse.kura.data.DataService;
 import org.eclipse.kura.data.DataTransportService;
@@ -47,6 +51,7 @@ import org.eclipse.kura.db.H2DbService;
 import org.eclipse.kura.status.CloudConnectionStatusComponent;
 import org.eclipse.kura.status.CloudConnectionStatusEnum;
 import org.eclipse.kura.status.CloudConnectionStatusService;
+import org.eclipse.kura.system.SystemService;
 import org.eclipse.kura.watchdog.CriticalComponent;
 import org.eclipse.kura.watchdog.WatchdogService;
 import org.eclipse.paho.client.mqttv3.MqttException;
@@ -68,6 +73,9 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
     private static final int TRANSPORT_TASK_TIMEOUT = 1; // In seconds
 
+    // folder of the Kura data directory holding the segment-log store when no directory is configured
+    private static final String SEGMENT_DIRECTORY_NAME = "data-store";
+
     private DataServiceOptions dataServiceOptions;
 
     private DataTransportService dataTransportService;
@@ -81,6 +89,9 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
     private ExecutorService publisherExecutor;
 
     private DataStore store;
+    private String storeName;
+    private StoreType storeType;
+    private volatile boolean storeStarted;
 
     private Map<DataTransportToken, Integer> inFlightMsgIds;
 
@@ -103,6 +114,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
     private WatchdogService watchdogService;
 
+    private SystemService systemService;
+
     private AtomicInteger connectionAttempts;
 
     // ----------------------------------------------------------------
@@ -131,9 +144,9 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         if (parts.length > 1) {
             table += "_" + parts[1];
         }
-        this.store = new DbDataStore(table);
+        this.storeName = table;
 
-        restartDbServiceTracker(this.dataServiceOptions.getDbServiceInstancePid());
+        openStore();
 
         this.dataServiceListeners = new DataServiceListenerS(componentContext);
 
@@ -186,6 +199,64 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         }
     }
 
+    private void openStore() {
+        this.storeType = this.dataServiceOptions.getStoreType();
+        if (this.storeType == StoreType.SEGMENT_LOG) {
+            this.store = new SegmentLogDataStore(this.storeName, getSegmentDirectory(),
+                    this.dataServiceOptions.getStoreSegmentSize());
+        } else {
+            this.store = new DbDataStore(this.storeName);
+        }
+
+        if (this.dataServiceOptions.isStoreMemoryQueueEnabled()) {
+            this.store = new MemoryQueueDataStore(this.store, this.dataServiceOptions.getStoreMemoryQueueCapacity(),
+                    this::isConnected);
+        }
+
+        if (this.storeType == StoreType.SEGMENT_LOG) {
+            startDbStore();
+        } else {
+            restartDbServiceTracker(this.dataServiceOptions.getDbServiceInstancePid());
+        }
+    }
+
+    private String getSegmentDirectory() {
+        String directory = this.dataServiceOptions.getStoreSegmentDirectory();
+        if (directory != null && !directory.trim().isEmpty()) {
+            return directory;
+        }
+        return this.systemService.getKuraDataDirectory() + File.separator + SEGMENT_DIRECTORY_NAME;
+    }
+
+    private void persistQueuedMessages() {
+        if (this.store instanceof MemoryQueueDataStore) {
+            try {
+                ((MemoryQueueDataStore) this.store).persistQueuedMessages();
+            } catch (KuraStoreException e) {
+                logger.error("Failed to persist queued messages", e);
+            }
+        }
+    }
+
+    private void closeStore() {
+        if (this.storeType == StoreType.SEGMENT_LOG) {
+            disconnect();
+            stopStore();
+        } else {
+            // closing the tracker unbinds the H2DbService instance, which stops the store
+            stopDbServiceTracker();
+        }
+    }
+
+    private boolean isStoreAvailable() {
+        return this.storeStarted;
+    }
+
+    private void stopStore() {
+        this.storeStarted = false;
+        this.store.stop();
+    }
+
     private void stopDbServiceTracker() {
         if (this.dbServiceTracker != null) {
             this.dbServiceTracker.close();
@@ -194,9 +265,11 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
     }
 
     private synchronized void startDbStore() {
+        this.storeStarted = false;
         try {
             this.store.start(this.dbService, this.dataServiceOptions.getStoreHousekeeperInterval(),
                     this.dataServiceOptions.getStorePurgeAge(), this.dataServiceOptions.getStoreCapacity());
+            this.storeStarted = true;
 
             // The initial list of in-flight messages
             List<DataMessage> inFlightMsgs = this.store.allInFlightMessagesNoPayload();
@@ -225,7 +298,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
         stopConnectionMonitorTask();
 
-        final String oldDbServicePid = this.dataServiceOptions.getDbServiceInstancePid();
+        final DataServiceOptions oldDataServiceOptions = this.dataServiceOptions;
+        final String oldDbServicePid = oldDataServiceOptions.getDbServiceInstancePid();
 
         this.dataServiceOptions = new DataServiceOptions(properties);
 
@@ -233,7 +307,15 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
         final String currentDbServicePid = this.dataServiceOptions.getDbServiceInstancePid();
 
-        if (oldDbServicePid.equals(currentDbServicePid)) {
+        if (isStoreChanged(oldDataServiceOptions)) {
+            logger.info("Data store configuration changed, switching to the {} store",
+                    this.dataServiceOptions.getStoreType());
+            closeStore();
+            openStore();
+        } else if (this.storeType == StoreType.SEGMENT_LOG) {
+            this.store.update(this.dataServiceOptions.getStoreHousekeeperInterval(),
+                    this.dataServiceOptions.getStorePurgeAge(), this.dataServiceOptions.getStoreCapacity());
+        } else if (oldDbServicePid.equals(currentDbServicePid)) {
             if (this.dbService != null) {
                 this.store.update(this.dataServiceOptions.getStoreHousekeeperInterval(),
                         this.dataServiceOptions.getStorePurgeAge(), this.dataServiceOptions.getStoreCapacity());
@@ -247,6 +329,21 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         }
     }
 
+    private boolean isStoreChanged(DataServiceOptions oldDataServiceOptions) {
+        if (this.dataServiceOptions.getStoreType() != this.storeType
+                || oldDataServiceOptions.isStoreMemoryQueueEnabled() != this.dataServiceOptions
+                        .isStoreMemoryQueueEnabled()
+                || oldDataServiceOptions.getStoreMemoryQueueCapacity() != this.dataServiceOptions
+                        .getStoreMemoryQueueCapacity()) {
+            return true;
+        }
+        return this.storeType == StoreType.SEGMENT_LOG
+                && (!oldDataServiceOptions.getStoreSegmentDirectory()
+                        .equals(this.dataServiceOptions.getStoreSegmentDirectory())
+                        || oldDataServiceOptions.getStoreSegmentSize() != this.dataServiceOptions
+                                .getStoreSegmentSize());
+    }
+
     protected void deactivate(ComponentContext componentContext) {
         logger.info("Deactivating {}...", this.dataServiceOptions.getKuraServicePid());
 
@@ -272,7 +369,7 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
         this.dataTransportService.removeDataTransportListener(this);
 
-        this.store.stop();
+        stopStore();
 
         stopDbServiceTracker();
     }
@@ -293,14 +390,18 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
     public synchronized void setH2DbService(H2DbService dbService) {
         this.dbService = dbService;
-        startDbStore();
-        signalPublisher();
+        if (this.storeType != StoreType.SEGMENT_LOG) {
+            startDbStore();
+            signalPublisher();
+        }
     }
 
     public synchronized void unsetH2DbService(H2DbService dbService) {
         this.dbService = null;
-        disconnect();
-        this.store.stop();
+        if (this.storeType != StoreType.SEGMENT_LOG) {
+            disconnect();
+            stopStore();
+        }
     }
 
     public void setCloudConnectionStatusService(CloudConnectionStatusService cloudConnectionStatusService) {
@@ -311,6 +412,14 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         this.cloudConnectionStatusService = null;
     }
 
+    public void setSystemService(SystemService systemService) {
+        this.systemService = systemService;
+    }
+
+    public void unsetSystemService(SystemService systemService) {
+        this.systemService = null;
+    }
+
     public void setWatchdogService(WatchdogService watchdogService) {
         this.watchdogService = watchdogService;
     }
@@ -397,6 +506,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         logger.info("Notified disconnected");
         this.cloudConnectionStatusService.updateStatus(this, CloudConnectionStatusEnum.OFF);
 
+        persistQueuedMessages();
+
         // Notify the listeners
         this.dataServiceListeners.onDisconnected();
     }
@@ -428,6 +539,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         stopConnectionMonitorTask(); // Just in case...
         startConnectionMonitorTask();
 
+        persistQueuedMessages();
+
         // Notify the listeners
         this.dataServiceListeners.onConnectionLost(cause);
     }
@@ -485,7 +598,7 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
     @Override
     public void connect() throws KuraConnectException {
         stopConnectionMonitorTask();
-        if (this.dbService == null) {
+        if (!isStoreAvailable()) {
             throw new KuraConnectException("H2DbService instance not attached, not connecting");
         }
 
@@ -597,7 +710,7 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
                     Thread.currentThread().setName("DataServiceImpl:ReconnectTask");
                     boolean connected = false;
                     try {
-                        if (DataServiceImpl.this.dbService == null) {
+                        if (!isStoreAvailable()) {
                             logger.warn("H2DbService instance not attached, not connecting");
                             return;
                         }
@@ -795,18 +908,28 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
                 if (DataServiceImpl.this.dataTransportService.isConnected()) {
                     try {
-                        DataMessage message = DataServiceImpl.this.store.getNextMessage();
-
-                        if (message != null) {
-                            checkInFlightMessages(message);
-
-                            if (DataServiceImpl.this.dataServiceOptions.isRateLimitEnabled()
-                                    && message.getPriority() >= 5) {
-                                messagePublished = publishMessageTokenBucket(message);
+                        int windowSize = DataServiceImpl.this.dataServiceOptions.getPublisherWindowSize();
+                        if (windowSize > 1) {
+                            List<DataMessage> messages = DataServiceImpl.this.store.getNextMessages(windowSize);
+                            messagePublished = publishMessages(messages);
+                            if (!messagePublished && !messages.isEmpty()) {
+                                // the first message of the window is waiting for a token
                                 sleepingTime = DataServiceImpl.this.throttle.getTokenWaitTime();
-                            } else {
-                                publishMessageUnbound(message);
-                                messagePublished = true;
+                            }
+                        } else {
+                            DataMessage message = DataServiceImpl.this.store.getNextMessage();
+
+                            if (message != null) {
+                                checkInFlightMessages(message);
+
+                                if (DataServiceImpl.this.dataServiceOptions.isRateLimitEnabled()
+                                        && message.getPriority() >= 5) {
+                                    messagePublished = publishMessageTokenBucket(message);
+                                    sleepingTime = DataServiceImpl.this.throttle.getTokenWaitTime();
+                                } else {
+                                    publishMessageUnbound(message);
+                                    messagePublished = true;
+                                }
                             }
                         }
                     } catch (KuraNotConnectedException e) {
@@ -865,6 +988,70 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
             DataServiceImpl.this.dataServiceListeners.onMessagePublished(message.getId(), message.getTopic());
         }
 
+        private boolean publishMessages(List<DataMessage> messages) throws KuraException {
+            List<DataMessage> publishedMessages = new ArrayList<>(messages.size());
+            try {
+                // It's very important that the publishing and messageConfirmed methods are synchronized
+                synchronized (DataServiceImpl.this) {
+                    try {
+                        for (DataMessage message : messages) {
+                            try {
+                                checkInFlightMessages(message);
+                            } catch (KuraTooManyInflightMessagesException e) {
+                                if (publishedMessages.isEmpty()) {
+                                    throw e;
+                                }
+                                break;
+                            }
+
+                            if (DataServiceImpl.this.dataServiceOptions.isRateLimitEnabled()
+                                    && message.getPriority() >= 5 && !DataServiceImpl.this.throttle.getToken()) {
+                                break;
+                            }
+
+                            publishedMessages.add(publishWindowMessage(message));
+                        }
+                    } finally {
+                        // Mark the published messages with a single store update
+                        DataServiceImpl.this.store.published(publishedMessages);
+                    }
+                }
+            } finally {
+                // Notify the listeners
+                for (DataMessage message : publishedMessages) {
+                    DataServiceImpl.this.dataServiceListeners.onMessagePublished(message.getId(), message.getTopic());
+                }
+            }
+            return !publishedMessages.isEmpty();
+        }
+
+        private DataMessage publishWindowMessage(DataMessage message) throws KuraException {
+            int msgId = message.getId();
+
+            logger.debug("Publishing message with ID: {} on topic: {}, priority: {}",
+                    new Object[] { msgId, message.getTopic(), message.getPriority() });
+
+            DataTransportToken token = DataServiceImpl.this.dataTransportService.publish(message.getTopic(),
+                    message.getPayload(), message.getQos(), message.isRetain());
+
+            if (token == null) {
+                logger.debug("Published message with ID: {}", msgId);
+                return message;
+            }
+
+            // Check if the token is already tracked in the map (in which case we are in trouble)
+            Integer trackedMsgId = DataServiceImpl.this.inFlightMsgIds.get(token);
+            if (trackedMsgId != null) {
+                logger.error("Token already tracked: {} -", token.getSessionId(), token.getMessageId());
+            }
+
+            DataServiceImpl.this.inFlightMsgIds.put(token, msgId);
+            logger.debug("Published message with ID: {} and MQTT message ID: {}", msgId, token.getMessageId());
+
+            return new DataMessage.Builder(msgId).withTopic(message.getTopic())
+                    .withPublishedMessageId(token.getMessageId()).withSessionId(token.getSessionId()).build();
+        }
+
         private boolean publishMessageTokenBucket(DataMessage message) throws KuraException, InterruptedException {
             boolean tokenAvailable = DataServiceImpl.this.throttle.getToken();
 
@@ -29,9 +29,15 @@ public class DataServiceOptions {
     private static final String STORE_HOUSEKEEPER_INTERVAL_PROP_NAME = "store.housekeeper-interval";
     private static final String STORE_PURGE_AGE_PROP_NAME = "store.purge-age";
     private static final String STORE_CAPACITY_PROP_NAME = "store.capacity";
+    private static final String STORE_TYPE_PROP_NAME = "store.type";
+    private static final String STORE_SEGMENT_DIRECTORY_PROP_NAME = "store.segment.directory";
+    private static final String STORE_SEGMENT_SIZE_PROP_NAME = "store.segment.size";
+    private static final String STORE_MEMORY_QUEUE_ENABLE_PROP_NAME = "store.memory-queue.enabled";
+    private static final String STORE_MEMORY_QUEUE_CAPACITY_PROP_NAME = "store.memory-queue.capacity";
     private static final String REPUBLISH_IN_FLIGHT_MSGS_PROP_NAME = "in-flight-messages.republish-on-new-session";
     private static final String MAX_IN_FLIGHT_MSGS_PROP_NAME = "in-flight-messages.max-number";
     private static final String IN_FLIGHT_MSGS_CONGESTION_TIMEOUT_PROP_NAME = "in-flight-messages.congestion-timeout";
+    private static final String PUBLISHER_WINDOW_SIZE_PROP_NAME = "publisher.window-size";
     private static final String RATE_LIMIT_ENABLE_PROP_NAME = "enable.rate.limit";
     private static final String RATE_LIMIT_AVERAGE_RATE_PROP_NAME = "rate.limit.average";
     private static final String RATE_LIMIT_TIME_UNIT_PROP_NAME = "rate.limit.time.unit";
@@ -46,9 +52,15 @@ public class DataServiceOptions {
     private static final int STORE_HOUSEKEEPER_INTERVAL_DEFAULT = 900;
     private static final int STORE_PURGE_AGE_DEFAULT = 60;
     private static final int STORE_CAPACITY_DEFAULT = 10000;
+    private static final String STORE_TYPE_DEFAULT = StoreType.H2.name();
+    private static final String STORE_SEGMENT_DIRECTORY_DEFAULT = "";
+    private static final int STORE_SEGMENT_SIZE_DEFAULT = 1048576;
+    private static final boolean STORE_MEMORY_QUEUE_ENABLE_DEFAULT = false;
+    private static final int STORE_MEMORY_QUEUE_CAPACITY_DEFAULT = 1000;
     private static final boolean REPUBLISH_IN_FLIGHT_MSGS_DEFAULT = true;
     private static final int MAX_IN_FLIGHT_MSGS_DEFAULT = 9;
     private static final int IN_FLIGHT_MSGS_CONGESTION_TIMEOUT_DEFAULT = 0;
+    private static final int PUBLISHER_WINDOW_SIZE_DEFAULT = 1;
     private static final boolean RATE_LIMIT_ENABLE_DEFAULT = true;
     private static final int RATE_LIMIT_AVERAGE_RATE_DEFAULT = 1;
     private static final String RATE_LIMIT_TIME_UNIT_DEFAULT = "SECONDS";
@@ -58,6 +70,11 @@ public class DataServiceOptions {
 
     private static final int CONNECT_CRITICAL_COMPONENT_TIMEOUT_MULTIPLIER = 1500;
 
+    enum StoreType {
+        H2,
+        SEGMENT_LOG
+    }
+
     private final Map<String, Object> properties;
 
     DataServiceOptions(Map<String, Object> properties) {
@@ -78,6 +95,30 @@ public class DataServiceOptions {
         return (int) this.properties.getOrDefault(STORE_CAPACITY_PROP_NAME, STORE_CAPACITY_DEFAULT);
     }
 
+    StoreType getStoreType() {
+        String storeType = (String) this.properties.getOrDefault(STORE_TYPE_PROP_NAME, STORE_TYPE_DEFAULT);
+        return StoreType.valueOf(storeType);
+    }
+
+    String getStoreSegmentDirectory() {
+        return (String) this.properties.getOrDefault(STORE_SEGMENT_DIRECTORY_PROP_NAME,
+                STORE_SEGMENT_DIRECTORY_DEFAULT);
+    }
+
+    int getStoreSegmentSize() {
+        return (int) this.properties.getOrDefault(STORE_SEGMENT_SIZE_PROP_NAME, STORE_SEGMENT_SIZE_DEFAULT);
+    }
+
+    boolean isStoreMemoryQueueEnabled() {
+        return (boolean) this.properties.getOrDefault(STORE_MEMORY_QUEUE_ENABLE_PROP_NAME,
+                STORE_MEMORY_QUEUE_ENABLE_DEFAULT);
+    }
+
+    int getStoreMemoryQueueCapacity() {
+        return (int) this.properties.getOrDefault(STORE_MEMORY_QUEUE_CAPACITY_PROP_NAME,
+                STORE_MEMORY_QUEUE_CAPACITY_DEFAULT);
+    }
+
     boolean isPublishInFlightMessages() {
         return (boolean) this.properties.getOrDefault(REPUBLISH_IN_FLIGHT_MSGS_PROP_NAME,
                 REPUBLISH_IN_FLIGHT_MSGS_DEFAULT);
@@ -92,6 +133,10 @@ public class DataServiceOptions {
                 IN_FLIGHT_MSGS_CONGESTION_TIMEOUT_DEFAULT);
     }
 
+    int getPublisherWindowSize() {
+        return (int) this.properties.getOrDefault(PUBLISHER_WINDOW_SIZE_PROP_NAME, PUBLISHER_WINDOW_SIZE_DEFAULT);
+    }
+
     boolean isAutoConnect() {
         return (boolean) this.properties.getOrDefault(AUTOCONNECT_PROP_NAME, AUTOCONNECT_PROP_DEFAULT);
     }
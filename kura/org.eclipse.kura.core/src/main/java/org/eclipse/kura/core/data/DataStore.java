@@ -91,6 +91,26 @@ public interface DataStore {
      */
     public DataMessage getNextMessage() throws KuraStoreException;
 
+    /**
+     * Gets up to count unpublished messages, in the same order in which {@link #getNextMessage()} would return them.
+     * 
+     * @param count
+     *            the maximum number of messages to be returned
+     * @return the list of messages, empty if there are no unpublished messages
+     * @throws KuraStoreException
+     */
+    public List<DataMessage> getNextMessages(int count) throws KuraStoreException;
+
+    /**
+     * Acknowledges the publication of the given messages with a single store operation.
+     * The ID, the protocol (e.g. MQTT) message ID and the session ID of each message are stored
+     * as by {@link #published(int, int, String)}.
+     * 
+     * @param messages
+     * @throws KuraStoreException
+     */
+    public void published(List<DataMessage> messages) throws KuraStoreException;
+
     /**
      * Returns a message from the DataStore by its message id.
      * 
@@ -22,7 +22,9 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Queue;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -42,6 +44,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * An implementation of the DataStore which stores messages into an embedded H2 instance.
+ * <p>
+ * Concurrent calls to {@link #store(String, byte[], int, boolean, int)} are group-committed: callers enqueue their
+ * message and whichever thread acquires the store monitor first inserts all the pending messages in a single
+ * transaction. The number of stored messages is tracked in memory, so that the capacity check does not need to
+ * query the table.
  */
 public class DbDataStore implements DataStore {
 
@@ -49,11 +56,16 @@ public class DbDataStore implements DataStore {
 
     private static final String DATA_SERVICE_REPAIR_ENABLED_PROPNAME = "db.store.repair.enabled";
 
+    private static final int MAX_GROUP_COMMIT_SIZE = 256;
+
     private H2DbService dbService;
     private final Calendar utcCalendar;
     private ScheduledExecutorService houseKeeperExecutor;
     private ScheduledFuture<?> houseKeeperTask;
     private int capacity;
+    private int messageCount = -1;
+
+    private final Queue<PendingMessage> pendingMessages = new ConcurrentLinkedQueue<>();
 
     private final String table;
 
@@ -64,6 +76,7 @@ public class DbDataStore implements DataStore {
     private final String sqlStore;
     private final String sqlGetMessage;
     private final String sqlGetNextMessage;
+    private final String sqlGetNextMessages;
     private final String sqlSetPublished;
     private final String sqlSetPublished2;
     private final String sqlSetConfirmed;
@@ -100,6 +113,9 @@ public class DbDataStore implements DataStore {
         this.sqlGetNextMessage = "SELECT a.id, a.topic, a.qos, a.retain, a.createdOn, a.publishedOn, a.publishedMessageId, a.confirmedOn, a.payload, a.priority, a.sessionId, a.droppedOn FROM "
                 + this.table + " AS a JOIN (SELECT id, publishedOn FROM " + this.table
                 + " ORDER BY publishedOn ASC NULLS FIRST, priority ASC, createdOn ASC LIMIT 1) AS b WHERE a.id = b.id AND b.publishedOn IS NULL;";
+        this.sqlGetNextMessages = "SELECT id, topic, qos, retain, createdOn, publishedOn, publishedMessageId, confirmedOn, payload, priority, sessionId, droppedOn FROM "
+                + this.table
+                + " WHERE publishedOn IS NULL ORDER BY publishedOn ASC NULLS FIRST, priority ASC, createdOn ASC LIMIT ?;";
         this.sqlSetPublished = "UPDATE " + this.table
                 + " SET publishedOn = ?, publishedMessageId = ?, sessionId = ? WHERE id = ?;";
         this.sqlSetPublished2 = "UPDATE " + this.table + " SET publishedOn = ? WHERE id = ?;";
@@ -155,6 +171,7 @@ public class DbDataStore implements DataStore {
         }
         this.houseKeeperExecutor.shutdownNow();
         dbService = null;
+        this.messageCount = -1;
     }
 
     private boolean isRepairEnabled() {
@@ -190,6 +207,8 @@ public class DbDataStore implements DataStore {
             createIndex(this.table + "_CONFIRMEDON", this.table, "(CONFIRMEDON DESC)");
             createIndex(this.table + "_DROPPEDON", this.table, "(DROPPEDON DESC)");
 
+            this.messageCount = countMessages();
+
             // Start the Housekeeper task
             this.houseKeeperTask = this.houseKeeperExecutor.scheduleWithFixedDelay(
                     new HouseKeeperTask(this, purgeAge, isRepairEnabled()), 1,    // start in one second
@@ -208,6 +227,13 @@ public class DbDataStore implements DataStore {
     // ----------------------------------------------------------
 
     private synchronized int getMessageCount() throws KuraStoreException {
+        if (this.messageCount < 0) {
+            this.messageCount = countMessages();
+        }
+        return this.messageCount;
+    }
+
+    private synchronized int countMessages() throws KuraStoreException {
         ResultSet rs = null;
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -236,90 +262,144 @@ public class DbDataStore implements DataStore {
     }
 
     @Override
-    public synchronized DataMessage store(String topic, byte[] payload, int qos, boolean retain, int priority)
+    public DataMessage store(String topic, byte[] payload, int qos, boolean retain, int priority)
             throws KuraStoreException {
-        if (dbService == null) {
-            throw new KuraStoreException("DbService instance not attached");
-        }
         if (topic == null || topic.trim().length() == 0) {
             throw new IllegalArgumentException("topic");
         }
 
-        // Priority 0 are used for life-cycle messages like birth and death certificates.
-        // Priority 1 are used for remove management by Cloudlet applications.
-        // For those messages, bypass the max message count check of the DB cache;
-        // we want to publish those message even if the db is full, so allow their storage.
-        if (priority != 0 && priority != 1) {
-            int count = getMessageCount();
-            logger.debug("Store message count: {}", count);
-            if (count >= this.capacity) {
-                logger.error("Store capacity exceeded");
-                throw new KuraStoreCapacityReachedException("Store capacity exceeded");
+        final PendingMessage pendingMessage = new PendingMessage(topic, payload, qos, retain, priority);
+        this.pendingMessages.add(pendingMessage);
+
+        // Whoever gets the monitor first stores all the messages enqueued so far, including ours.
+        synchronized (this) {
+            while (!pendingMessage.isDone()) {
+                storePendingMessages();
+            }
+        }
+
+        return pendingMessage.getResult();
+    }
+
+    private synchronized void storePendingMessages() {
+        final List<PendingMessage> batch = new ArrayList<>();
+        PendingMessage next;
+        while (batch.size() < MAX_GROUP_COMMIT_SIZE && (next = this.pendingMessages.poll()) != null) {
+            batch.add(next);
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        RuntimeException failure = null;
+        try {
+            storeBatch(batch);
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error storing messages", e);
+            failure = e;
+        } finally {
+            // the callers of store() wait until their message is done: never leave one of the batch pending
+            for (PendingMessage pendingMessage : batch) {
+                if (!pendingMessage.isDone()) {
+                    pendingMessage.fail(new KuraStoreException(failure, "Cannot store message"));
+                }
             }
         }
+    }
 
-        DataMessage message = null;
+    private synchronized void storeBatch(List<PendingMessage> batch) {
+        if (this.dbService == null) {
+            failAll(batch, new KuraStoreException("DbService instance not attached"));
+            return;
+        }
+
+        final List<PendingMessage> accepted = new ArrayList<>(batch.size());
         try {
-            message = storeInternal(topic, payload, qos, retain, priority);
+            int count = getMessageCount();
+            logger.debug("Store message count: {}, pending: {}", count, batch.size());
+            for (PendingMessage pendingMessage : batch) {
+                // Priority 0 are used for life-cycle messages like birth and death certificates.
+                // Priority 1 are used for remove management by Cloudlet applications.
+                // For those messages, bypass the max message count check of the DB cache;
+                // we want to publish those message even if the db is full, so allow their storage.
+                if (pendingMessage.priority != 0 && pendingMessage.priority != 1
+                        && count + accepted.size() >= this.capacity) {
+                    logger.error("Store capacity exceeded");
+                    pendingMessage.fail(new KuraStoreCapacityReachedException("Store capacity exceeded"));
+                } else {
+                    accepted.add(pendingMessage);
+                }
+            }
         } catch (KuraStoreException e) {
-            // Try to reset the sequence generator and store the message again.
-            // FIXME: it doesn't work but if we restart Kura the sequence generator restarts from 0!
-            Throwable cause = e.getCause();
-            if (cause instanceof SQLException) {
-                SQLException sqle = (SQLException) cause;
-                int errorCode = sqle.getErrorCode();
-                if (errorCode == 22003) {
+            failAll(batch, e);
+            return;
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            try {
+                storeInternal(accepted);
+            } catch (KuraStoreException e) {
+                // Try to reset the sequence generator and store the messages again.
+                // FIXME: it doesn't work but if we restart Kura the sequence generator restarts from 0!
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == 22003) {
                     logger.warn("Identity generator limit exceeded. Resetting it...");
                     resetIdentityGenerator();
-                    message = storeInternal(topic, payload, qos, retain, priority);
+                    storeInternal(accepted);
                 } else {
                     throw e;
                 }
-            } else {
-                throw e;
             }
+        } catch (KuraStoreException e) {
+            failAll(accepted, e);
         }
-
-        return message;
     }
 
-    private synchronized DataMessage storeInternal(String topic, byte[] payload, int qos, boolean retain, int priority)
-            throws KuraStoreException {
-        if (topic == null || topic.trim().length() == 0) {
-            throw new IllegalArgumentException("topic");
-        }
-
+    private synchronized void storeInternal(List<PendingMessage> batch) throws KuraStoreException {
         Timestamp now = new Timestamp(new Date().getTime());
 
-        int messageId = -1;
+        final List<DataMessage> messages = new ArrayList<>(batch.size());
         ResultSet rs = null;
         Connection conn = null;
         PreparedStatement pstmt = null;
-        PreparedStatement cstmt = null;
         try {
 
             conn = getConnection();
 
-            // store message
-            pstmt = conn.prepareStatement(this.sqlStore);
-            pstmt.setString(1, topic);				// topic
-            pstmt.setInt(2, qos);				// qos
-            pstmt.setBoolean(3, retain);				// retain
-            pstmt.setTimestamp(4, now, this.utcCalendar); // createdOn
-            pstmt.setTimestamp(5, null);				// publishedOn
-            pstmt.setInt(6, -1);                 // publishedMessageId
-            pstmt.setTimestamp(7, null);				// confirmedOn
-            pstmt.setBytes(8, payload);			// payload
-            pstmt.setInt(9, priority);            // priority
-            pstmt.setString(10, null);               // sessionId
-            pstmt.setTimestamp(11, null);				// droppedOn
-            pstmt.execute();
-
-            // retrieve message id
-            cstmt = conn.prepareStatement("CALL IDENTITY();");
-            rs = cstmt.executeQuery();
-            if (rs != null && rs.next()) {
-                messageId = rs.getInt(1);
+            // store all the messages in the same transaction
+            pstmt = conn.prepareStatement(this.sqlStore, Statement.RETURN_GENERATED_KEYS);
+            for (PendingMessage pendingMessage : batch) {
+                pstmt.setString(1, pendingMessage.topic);				// topic
+                pstmt.setInt(2, pendingMessage.qos);				// qos
+                pstmt.setBoolean(3, pendingMessage.retain);				// retain
+                pstmt.setTimestamp(4, now, this.utcCalendar); // createdOn
+                pstmt.setTimestamp(5, null);				// publishedOn
+                pstmt.setInt(6, -1);                 // publishedMessageId
+                pstmt.setTimestamp(7, null);				// confirmedOn
+                pstmt.setBytes(8, pendingMessage.payload);			// payload
+                pstmt.setInt(9, pendingMessage.priority);            // priority
+                pstmt.setString(10, null);               // sessionId
+                pstmt.setTimestamp(11, null);				// droppedOn
+                pstmt.execute();
+
+                // retrieve message id
+                int messageId = -1;
+                rs = pstmt.getGeneratedKeys();
+                if (rs != null && rs.next()) {
+                    messageId = rs.getInt(1);
+                }
+                close(rs);
+                rs = null;
+
+                messages.add(new DataMessage.Builder(messageId).withTopic(pendingMessage.topic)
+                        .withQos(pendingMessage.qos).withRetain(pendingMessage.retain).withCreatedOn(now)
+                        .withPublishedMessageId(-1).withPayload(pendingMessage.payload)
+                        .withPriority(pendingMessage.priority).build());
             }
 
             conn.commit();
@@ -329,11 +409,20 @@ public class DbDataStore implements DataStore {
             throw new KuraStoreException(e, "Cannot store message");
         } finally {
             close(rs);
-            close(cstmt);
             close(pstmt);
             close(conn);
         }
-        return get(messageId);
+
+        this.messageCount += messages.size();
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(messages.get(i));
+        }
+    }
+
+    private static void failAll(List<PendingMessage> batch, KuraStoreException e) {
+        for (PendingMessage pendingMessage : batch) {
+            pendingMessage.fail(e);
+        }
     }
 
     @Override
@@ -385,6 +474,31 @@ public class DbDataStore implements DataStore {
         return msg;
     }
 
+    @Override
+    public synchronized List<DataMessage> getNextMessages(int count) throws KuraStoreException {
+        List<DataMessage> msgs = new ArrayList<>();
+        ResultSet rs = null;
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+
+            conn = getConnection();
+            stmt = conn.prepareStatement(this.sqlGetNextMessages);
+            stmt.setInt(1, count);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                msgs.add(buildDataMessage(rs));
+            }
+        } catch (Exception e) {
+            throw new KuraStoreException(e, "Cannot get next messages");
+        } finally {
+            close(rs);
+            close(stmt);
+            close(conn);
+        }
+        return msgs;
+    }
+
     @Override
     public synchronized void published(int msgId, int publishedMsgId, String sessionId) throws KuraStoreException {
         Timestamp now = new Timestamp(new Date().getTime());
@@ -411,6 +525,39 @@ public class DbDataStore implements DataStore {
         }
     }
 
+    @Override
+    public synchronized void published(List<DataMessage> messages) throws KuraStoreException {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = new Timestamp(new Date().getTime());
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+
+            conn = getConnection();
+            stmt = conn.prepareStatement(this.sqlSetPublished);
+            for (DataMessage message : messages) {
+                stmt.setTimestamp(1, now, this.utcCalendar); // timestamp
+                stmt.setInt(2, message.getPublishedMessageId());
+                stmt.setString(3, message.getSessionId());
+                stmt.setInt(4, message.getId());
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            rollback(conn);
+            throw new KuraStoreException(e, "Cannot update timestamp");
+        } finally {
+            close(stmt);
+            close(conn);
+        }
+    }
+
     @Override
     public synchronized void published(int msgId) throws KuraStoreException {
         updateTimestamp(this.sqlSetPublished2, msgId);
@@ -451,14 +598,20 @@ public class DbDataStore implements DataStore {
 
     @Override
     public synchronized void deleteStaleMessages(int purgeAge) throws KuraStoreException {
+        int deleted = 0;
+
         // Delete dropped messages (published with QoS > 0)
-        execute(this.sqlDeleteDroppedMessages, purgeAge);
+        deleted += execute(this.sqlDeleteDroppedMessages, purgeAge);
 
         // Delete stale confirmed messages (published with QoS > 0)
-        execute(this.sqlDeleteConfirmedMessages, purgeAge);
+        deleted += execute(this.sqlDeleteConfirmedMessages, purgeAge);
 
         // Delete stale published messages with QoS == 0
-        execute(this.sqlDeletePublishedMessages, purgeAge);
+        deleted += execute(this.sqlDeletePublishedMessages, purgeAge);
+
+        if (this.messageCount >= 0) {
+            this.messageCount = Math.max(0, this.messageCount - deleted);
+        }
     }
 
     @Override
@@ -495,6 +648,7 @@ public class DbDataStore implements DataStore {
 
             stmt.execute(this.sqlDeleteDuplicates);
             logger.info("Duplicate messages deleted");
+            this.messageCount = -1;
 
             stmt.execute(this.sqlCreatePrimaryKey);
             logger.info("Primary key created");
@@ -575,7 +729,7 @@ public class DbDataStore implements DataStore {
         return msgs;
     }
 
-    private synchronized void execute(String sql, Integer... params) throws KuraStoreException {
+    private synchronized int execute(String sql, Integer... params) throws KuraStoreException {
         if (dbService == null) {
             throw new KuraStoreException("DbService instance not attached");
         }
@@ -589,7 +743,9 @@ public class DbDataStore implements DataStore {
                 stmt.setInt(1 + i, params[i]);
             }
             stmt.execute();
+            int updateCount = stmt.getUpdateCount();
             conn.commit();
+            return updateCount;
         } catch (SQLException e) {
             rollback(conn);
             throw new KuraStoreException(e, "Cannot execute query");
@@ -659,4 +815,48 @@ public class DbDataStore implements DataStore {
     private void close(Connection conn) {
         this.dbService.close(conn);
     }
+
+    private static final class PendingMessage {
+
+        private final String topic;
+        private final byte[] payload;
+        private final int qos;
+        private final boolean retain;
+        private final int priority;
+
+        private boolean done;
+        private DataMessage result;
+        private KuraStoreException exception;
+
+        PendingMessage(String topic, byte[] payload, int qos, boolean retain, int priority) {
+            this.topic = topic;
+            this.payload = payload;
+            this.qos = qos;
+            this.retain = retain;
+            this.priority = priority;
+        }
+
+        // completion is always performed and observed while holding the DbDataStore monitor
+
+        boolean isDone() {
+            return this.done;
+        }
+
+        void complete(DataMessage result) {
+            this.result = result;
+            this.done = true;
+        }
+
+        void fail(KuraStoreException exception) {
+            this.exception = exception;
+            this.done = true;
+        }
+
+        DataMessage getResult() throws KuraStoreException {
+            if (this.exception != null) {
+                throw this.exception;
+            }
+            return this.result;
+        }
+    }
 }
@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.eclipse.kura.core.data.DataStore;
+import org.eclipse.kura.db.H2DbService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A DataStore which keeps the messages published with QoS 0 and a priority of at least {@value #MIN_PRIORITY} in a
+ * bounded in-memory queue, delegating all the other messages to a persistent DataStore.
+ * <p>
+ * The queued messages are written to the persistent store only when the queue is full or when the connection is not
+ * available (write-behind): in the common case they never touch the disk, but they are lost on power loss.
+ * Queued messages are identified by negative IDs. A message moved to the persistent store keeps its ID: the ID
+ * assigned by the persistent store is translated back in the messages returned and forward in the calls made to it,
+ * until the message has been published or purged.
+ */
+public class MemoryQueueDataStore implements DataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryQueueDataStore.class);
+
+    private static final int MIN_PRIORITY = 5;
+
+    private final DataStore store;
+    private final int capacity;
+    private final BooleanSupplier connected;
+
+    // Same order as DbDataStore.sqlGetNextMessage, the messages with the same priority and creation time in insertion
+    // order
+    private final Comparator<DataMessage> messageOrder = Comparator
+            .<DataMessage> comparingInt(DataMessage::getPriority).thenComparing(DataMessage::getCreatedOn)
+            .thenComparingLong(this::getInsertionOrder);
+
+    private final TreeSet<DataMessage> queue = new TreeSet<>(this.messageOrder);
+    private final Map<Integer, DataMessage> queuedMessages = new HashMap<>();
+    private final Map<Integer, Long> queuedSequences = new HashMap<>();
+    private int nextId = -1;
+    private long nextSequence;
+
+    // IDs of the queued messages moved to the persistent store, by queued ID and by persistent ID
+    private final Map<Integer, Integer> storedIds = new HashMap<>();
+    private final Map<Integer, Integer> queuedIds = new HashMap<>();
+
+    private DataMessage nextStoredMessage;
+    private boolean nextStoredMessageValid;
+
+    /**
+     * @param store
+     *            the persistent DataStore
+     * @param capacity
+     *            the maximum number of messages kept in memory
+     * @param connected
+     *            tells whether the messages can be delivered
+     */
+    public MemoryQueueDataStore(DataStore store, int capacity, BooleanSupplier connected) {
+        this.store = store;
+        this.capacity = capacity;
+        this.connected = connected;
+    }
+
+    @Override
+    public synchronized void start(H2DbService dbService, int houseKeeperInterval, int purgeAge, int capacity)
+            throws KuraStoreException {
+        invalidateNextStoredMessage();
+        this.store.start(dbService, houseKeeperInterval, purgeAge, capacity);
+    }
+
+    @Override
+    public synchronized void update(int houseKeeperInterval, int purgeAge, int capacity) {
+        invalidateNextStoredMessage();
+        this.store.update(houseKeeperInterval, purgeAge, capacity);
+    }
+
+    @Override
+    public synchronized void stop() {
+        try {
+            persistQueuedMessages();
+        } catch (KuraStoreException e) {
+            logger.warn("Failed to persist the queued messages", e);
+        }
+        invalidateNextStoredMessage();
+        this.store.stop();
+    }
+
+    /**
+     * Moves all the queued messages to the persistent store.
+     *
+     * @throws KuraStoreException
+     */
+    public synchronized void persistQueuedMessages() throws KuraStoreException {
+        if (this.queue.isEmpty()) {
+            return;
+        }
+
+        logger.info("Persisting {} queued messages", this.queue.size());
+
+        Iterator<DataMessage> iterator = this.queue.iterator();
+        while (iterator.hasNext()) {
+            DataMessage message = iterator.next();
+            DataMessage storedMessage = storePersistent(message.getTopic(), message.getPayload(), message.getQos(),
+                    message.isRetain(), message.getPriority());
+            iterator.remove();
+            this.queuedMessages.remove(message.getId());
+            this.queuedSequences.remove(message.getId());
+            if (storedMessage != null) {
+                this.storedIds.put(message.getId(), storedMessage.getId());
+                this.queuedIds.put(storedMessage.getId(), message.getId());
+            }
+        }
+    }
+
+    @Override
+    public synchronized DataMessage store(String topic, byte[] payload, int qos, boolean retain, int priority)
+            throws KuraStoreException {
+        if (topic == null || topic.trim().length() == 0) {
+            throw new IllegalArgumentException("topic");
+        }
+
+        boolean isConnected = this.connected.getAsBoolean();
+        if (qos == 0 && priority >= MIN_PRIORITY && isConnected && this.queue.size() < this.capacity) {
+            DataMessage message = new DataMessage.Builder(allocateId()).withTopic(topic).withQos(qos)
+                    .withRetain(retain).withCreatedOn(new Date()).withPublishedMessageId(-1).withPayload(payload)
+                    .withPriority(priority).build();
+            this.queuedSequences.put(message.getId(), this.nextSequence++);
+            this.queue.add(message);
+            this.queuedMessages.put(message.getId(), message);
+            return message;
+        }
+
+        if (!isConnected) {
+            persistQueuedMessages();
+        }
+        return storePersistent(topic, payload, qos, retain, priority);
+    }
+
+    @Override
+    public synchronized void published(int msgId, int publishedMsgId, String sessionId) throws KuraStoreException {
+        if (!dequeue(msgId)) {
+            invalidateNextStoredMessage();
+            this.store.published(toStoredId(msgId), publishedMsgId, sessionId);
+        }
+    }
+
+    @Override
+    public synchronized void published(int msgId) throws KuraStoreException {
+        if (!dequeue(msgId)) {
+            invalidateNextStoredMessage();
+            this.store.published(toStoredId(msgId));
+            forgetStoredId(msgId);
+        }
+    }
+
+    @Override
+    public synchronized void published(List<DataMessage> messages) throws KuraStoreException {
+        List<DataMessage> storedMessages = new ArrayList<>(messages.size());
+        List<Integer> movedIds = new ArrayList<>();
+        for (DataMessage message : messages) {
+            if (dequeue(message.getId())) {
+                continue;
+            }
+            Integer storedId = this.storedIds.get(message.getId());
+            if (storedId != null) {
+                movedIds.add(message.getId());
+                storedMessages.add(withId(message, storedId));
+            } else {
+                storedMessages.add(message);
+            }
+        }
+        if (!storedMessages.isEmpty()) {
+            invalidateNextStoredMessage();
+            this.store.published(storedMessages);
+            for (Integer movedId : movedIds) {
+                forgetStoredId(movedId);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void confirmed(int msgId) throws KuraStoreException {
+        this.store.confirmed(toStoredId(msgId));
+        forgetStoredId(msgId);
+    }
+
+    @Override
+    public synchronized DataMessage getNextMessage() throws KuraStoreException {
+        if (!this.nextStoredMessageValid) {
+            this.nextStoredMessage = fromStore(this.store.getNextMessage());
+            this.nextStoredMessageValid = true;
+        }
+
+        if (this.queue.isEmpty()) {
+            return this.nextStoredMessage;
+        }
+        if (this.nextStoredMessage == null) {
+            return this.queue.first();
+        }
+        return this.messageOrder.compare(this.queue.first(), this.nextStoredMessage) < 0 ? this.queue.first()
+                : this.nextStoredMessage;
+    }
+
+    @Override
+    public synchronized List<DataMessage> getNextMessages(int count) throws KuraStoreException {
+        List<DataMessage> storedMessages;
+        if (this.nextStoredMessageValid && this.nextStoredMessage == null) {
+            storedMessages = new ArrayList<>();
+        } else {
+            storedMessages = fromStore(this.store.getNextMessages(count));
+        }
+        return merge(storedMessages, new ArrayList<>(this.queue), count);
+    }
+
+    @Override
+    public synchronized DataMessage get(int msgId) throws KuraStoreException {
+        DataMessage message = this.queuedMessages.get(msgId);
+        return message != null ? message : fromStore(this.store.get(toStoredId(msgId)));
+    }
+
+    @Override
+    public synchronized List<DataMessage> allUnpublishedMessagesNoPayload() throws KuraStoreException {
+        List<DataMessage> queuedMessagesNoPayload = new ArrayList<>(this.queue.size());
+        for (DataMessage message : this.queue) {
+            queuedMessagesNoPayload.add(new DataMessage.Builder(message.getId()).withTopic(message.getTopic())
+                    .withQos(message.getQos()).withRetain(message.isRetain()).withCreatedOn(message.getCreatedOn())
+                    .withPublishedMessageId(message.getPublishedMessageId()).withPriority(message.getPriority())
+                    .build());
+        }
+        return merge(fromStore(this.store.allUnpublishedMessagesNoPayload()), queuedMessagesNoPayload,
+                Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<DataMessage> allInFlightMessagesNoPayload() throws KuraStoreException {
+        return fromStore(this.store.allInFlightMessagesNoPayload());
+    }
+
+    @Override
+    public synchronized List<DataMessage> allDroppedInFlightMessagesNoPayload() throws KuraStoreException {
+        return fromStore(this.store.allDroppedInFlightMessagesNoPayload());
+    }
+
+    @Override
+    public synchronized void unpublishAllInFlighMessages() throws KuraStoreException {
+        invalidateNextStoredMessage();
+        this.store.unpublishAllInFlighMessages();
+    }
+
+    @Override
+    public synchronized void dropAllInFlightMessages() throws KuraStoreException {
+        this.store.dropAllInFlightMessages();
+    }
+
+    @Override
+    public void deleteStaleMessages(int purgeAge) throws KuraStoreException {
+        // Queued messages are removed as soon as they are published
+        this.store.deleteStaleMessages(purgeAge);
+
+        // forget the moved messages purged by the persistent store
+        synchronized (this) {
+            for (Integer queuedId : new ArrayList<>(this.storedIds.keySet())) {
+                if (this.store.get(this.storedIds.get(queuedId)) == null) {
+                    forgetStoredId(queuedId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void repair() throws KuraStoreException {
+        this.store.repair();
+    }
+
+    private DataMessage storePersistent(String topic, byte[] payload, int qos, boolean retain, int priority)
+            throws KuraStoreException {
+        invalidateNextStoredMessage();
+        return this.store.store(topic, payload, qos, retain, priority);
+    }
+
+    private boolean dequeue(int msgId) {
+        DataMessage message = this.queuedMessages.remove(msgId);
+        if (message == null) {
+            return false;
+        }
+        this.queue.remove(message);
+        this.queuedSequences.remove(msgId);
+        return true;
+    }
+
+    private int allocateId() {
+        if (this.nextId == Integer.MIN_VALUE) {
+            this.nextId = -1;
+        }
+        while (this.queuedMessages.containsKey(this.nextId) || this.storedIds.containsKey(this.nextId)) {
+            this.nextId--;
+        }
+        return this.nextId--;
+    }
+
+    private long getInsertionOrder(DataMessage message) {
+        Long sequence = this.queuedSequences.get(message.getId());
+        if (sequence != null) {
+            return (long) Integer.MAX_VALUE + sequence;
+        }
+        // the persistent messages are stored in the order of their IDs
+        Integer storedId = this.storedIds.get(message.getId());
+        return storedId != null ? storedId : message.getId();
+    }
+
+    private int toStoredId(int msgId) {
+        Integer storedId = this.storedIds.get(msgId);
+        return storedId != null ? storedId : msgId;
+    }
+
+    private void forgetStoredId(int msgId) {
+        Integer storedId = this.storedIds.remove(msgId);
+        if (storedId != null) {
+            this.queuedIds.remove(storedId);
+        }
+    }
+
+    private DataMessage fromStore(DataMessage message) {
+        if (message == null) {
+            return null;
+        }
+        Integer queuedId = this.queuedIds.get(message.getId());
+        return queuedId != null ? withId(message, queuedId) : message;
+    }
+
+    private List<DataMessage> fromStore(List<DataMessage> messages) {
+        if (this.queuedIds.isEmpty()) {
+            return messages;
+        }
+        List<DataMessage> result = new ArrayList<>(messages.size());
+        for (DataMessage message : messages) {
+            result.add(fromStore(message));
+        }
+        return result;
+    }
+
+    private static DataMessage withId(DataMessage message, int id) {
+        return new DataMessage.Builder(id).withTopic(message.getTopic()).withQos(message.getQos())
+                .withRetain(message.isRetain()).withCreatedOn(message.getCreatedOn())
+                .withPublishedOn(message.getPublishedOn()).withPublishedMessageId(message.getPublishedMessageId())
+                .withConfirmedOn(message.getConfirmedOn()).withPayload(message.getPayload())
+                .withPriority(message.getPriority()).withSessionId(message.getSessionId())
+                .withDroppedOn(message.droppedOn()).build();
+    }
+
+    private void invalidateNextStoredMessage() {
+        this.nextStoredMessage = null;
+        this.nextStoredMessageValid = false;
+    }
+
+    private List<DataMessage> merge(List<DataMessage> first, List<DataMessage> second, int count) {
+        List<DataMessage> result = new ArrayList<>(Math.min(count, first.size() + second.size()));
+        int i = 0;
+        int j = 0;
+        while (result.size() < count && (i < first.size() || j < second.size())) {
+            if (j >= second.size()
+                    || i < first.size() && this.messageOrder.compare(first.get(i), second.get(j)) <= 0) {
+                result.add(first.get(i++));
+            } else {
+                result.add(second.get(j++));
+            }
+        }
+        return result;
+    }
+}
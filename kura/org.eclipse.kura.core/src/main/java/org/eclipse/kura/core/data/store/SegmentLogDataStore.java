@@ -0,0 +1,757 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import org.eclipse.kura.KuraStoreCapacityReachedException;
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.eclipse.kura.core.data.DataStore;
+import org.eclipse.kura.db.H2DbService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of the DataStore which appends messages and their state transitions to memory-mapped segment
+ * files.
+ * <p>
+ * The metadata of the messages is kept in an in-memory index, ordered by priority and creation time for the
+ * unpublished ones, while the payloads are read back from the mapped segments when needed. The index is rebuilt by
+ * replaying the segments on start. Stale messages are only removed from the index: a segment file is deleted as a
+ * whole once none of its messages is alive anymore. The H2DbService instance passed to
+ * {@link #start(H2DbService, int, int, int)} is not used.
+ */
+public class SegmentLogDataStore implements DataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLogDataStore.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int RECORD_HEADER_SIZE = 8; // body length + body CRC32
+
+    private static final byte RECORD_STORED = 1;
+    private static final byte RECORD_PUBLISHED = 2;
+    private static final byte RECORD_CONFIRMED = 3;
+    private static final byte RECORD_DROPPED = 4;
+    private static final byte RECORD_UNPUBLISHED = 5;
+
+    private static final int FLUSH_INTERVAL = 1; // In seconds
+
+    // Live messages of the oldest segment are moved to the active one when the store grows beyond this
+    private static final int RELOCATION_THRESHOLD = 4;
+
+    private static final Comparator<Entry> MESSAGE_ORDER = Comparator.<Entry> comparingInt(e -> e.priority)
+            .thenComparingLong(e -> e.createdOn).thenComparingInt(e -> e.id);
+
+    private final String name;
+    private final String directory;
+    private final int segmentSize;
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> unpublished = new TreeSet<>(MESSAGE_ORDER);
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private File storeDirectory;
+    private ScheduledExecutorService houseKeeperExecutor;
+    private ScheduledFuture<?> houseKeeperTask;
+    private ScheduledFuture<?> flushTask;
+    private int capacity;
+    private int nextId = 1;
+    private boolean started;
+
+    /**
+     * @param name
+     *            the prefix of the segment file names
+     * @param directory
+     *            the directory holding the segment files
+     * @param segmentSize
+     *            the size in bytes of a segment file
+     */
+    public SegmentLogDataStore(String name, String directory, int segmentSize) {
+        this.name = name;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    // ----------------------------------------------------------
+    //
+    // Start/Stop
+    //
+    // ----------------------------------------------------------
+
+    @Override
+    public synchronized void start(H2DbService dbService, int houseKeeperInterval, int purgeAge, int capacity)
+            throws KuraStoreException {
+        this.storeDirectory = new File(this.directory);
+        if (!this.storeDirectory.isDirectory() && !this.storeDirectory.mkdirs()) {
+            throw new KuraStoreException("Cannot create the store directory " + this.storeDirectory);
+        }
+
+        try {
+            loadSegments();
+        } catch (IOException e) {
+            closeSegments();
+            throw new KuraStoreException(e, "Cannot load the store segments");
+        }
+        this.started = true;
+
+        logger.info("Loaded {} messages from {} segments", this.entries.size(), this.segments.size());
+
+        this.houseKeeperExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.flushTask = this.houseKeeperExecutor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL,
+                TimeUnit.SECONDS);
+
+        update(houseKeeperInterval, purgeAge, capacity);
+    }
+
+    @Override
+    public synchronized void update(int houseKeeperInterval, int purgeAge, int capacity) {
+        this.capacity = capacity;
+
+        if (this.houseKeeperTask != null) {
+            this.houseKeeperTask.cancel(true);
+        }
+
+        // Start the Housekeeper task
+        this.houseKeeperTask = this.houseKeeperExecutor.scheduleWithFixedDelay(
+                new HouseKeeperTask(this, purgeAge, false), 1,    // start in one second
+                houseKeeperInterval,   // repeat every retryInterval until we stopped.
+                TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        logger.info("Canceling the Housekeeper Task...");
+        if (this.houseKeeperTask != null) {
+            this.houseKeeperTask.cancel(true);
+        }
+        if (this.flushTask != null) {
+            this.flushTask.cancel(true);
+        }
+        if (this.houseKeeperExecutor != null) {
+            this.houseKeeperExecutor.shutdownNow();
+        }
+
+        flush();
+        closeSegments();
+        this.started = false;
+    }
+
+    // ----------------------------------------------------------
+    //
+    // Message APIs
+    //
+    // ----------------------------------------------------------
+
+    @Override
+    public synchronized DataMessage store(String topic, byte[] payload, int qos, boolean retain, int priority)
+            throws KuraStoreException {
+        checkStarted();
+        if (topic == null || topic.trim().length() == 0) {
+            throw new IllegalArgumentException("topic");
+        }
+
+        // Priority 0 are used for life-cycle messages like birth and death certificates.
+        // Priority 1 are used for remove management by Cloudlet applications.
+        // For those messages, bypass the max message count check of the store;
+        // we want to publish those message even if the store is full, so allow their storage.
+        if (priority != 0 && priority != 1 && this.entries.size() >= this.capacity) {
+            logger.error("Store capacity exceeded");
+            throw new KuraStoreCapacityReachedException("Store capacity exceeded");
+        }
+
+        Entry entry = new Entry(allocateId(), topic, qos, retain, priority, System.currentTimeMillis());
+        try {
+            appendStored(entry, payload);
+        } catch (IOException e) {
+            throw new KuraStoreException(e, "Cannot store message");
+        }
+
+        this.entries.put(entry.id, entry);
+        this.unpublished.add(entry);
+
+        return buildDataMessage(entry, true);
+    }
+
+    @Override
+    public synchronized DataMessage get(int msgId) throws KuraStoreException {
+        Entry entry = this.entries.get(msgId);
+        return entry != null ? buildDataMessage(entry, true) : null;
+    }
+
+    @Override
+    public synchronized DataMessage getNextMessage() throws KuraStoreException {
+        return this.unpublished.isEmpty() ? null : buildDataMessage(this.unpublished.first(), true);
+    }
+
+    @Override
+    public synchronized List<DataMessage> getNextMessages(int count) throws KuraStoreException {
+        List<DataMessage> messages = new ArrayList<>(Math.min(count, this.unpublished.size()));
+        Iterator<Entry> iterator = this.unpublished.iterator();
+        while (messages.size() < count && iterator.hasNext()) {
+            messages.add(buildDataMessage(iterator.next(), true));
+        }
+        return messages;
+    }
+
+    @Override
+    public synchronized void published(List<DataMessage> messages) throws KuraStoreException {
+        for (DataMessage message : messages) {
+            published(message.getId(), message.getPublishedMessageId(), message.getSessionId());
+        }
+    }
+
+    @Override
+    public synchronized void published(int msgId, int publishedMsgId, String sessionId) throws KuraStoreException {
+        Entry entry = this.entries.get(msgId);
+        if (entry == null) {
+            return;
+        }
+        this.unpublished.remove(entry);
+        entry.publishedOn = System.currentTimeMillis();
+        entry.publishedMessageId = publishedMsgId;
+        entry.sessionId = sessionId;
+        append(encodePublished(entry));
+    }
+
+    @Override
+    public synchronized void published(int msgId) throws KuraStoreException {
+        Entry entry = this.entries.get(msgId);
+        if (entry == null) {
+            return;
+        }
+        this.unpublished.remove(entry);
+        entry.publishedOn = System.currentTimeMillis();
+        append(encodePublished(entry));
+    }
+
+    @Override
+    public synchronized void confirmed(int msgId) throws KuraStoreException {
+        Entry entry = this.entries.get(msgId);
+        if (entry == null) {
+            return;
+        }
+        entry.confirmedOn = System.currentTimeMillis();
+        append(encodeTimestamp(RECORD_CONFIRMED, entry.id, entry.confirmedOn));
+    }
+
+    @Override
+    public synchronized List<DataMessage> allUnpublishedMessagesNoPayload() throws KuraStoreException {
+        List<DataMessage> messages = new ArrayList<>(this.unpublished.size());
+        for (Entry entry : this.unpublished) {
+            messages.add(buildDataMessage(entry, false));
+        }
+        return messages;
+    }
+
+    @Override
+    public synchronized List<DataMessage> allInFlightMessagesNoPayload() throws KuraStoreException {
+        return listMessages(e -> e.isInFlight() && e.droppedOn == 0);
+    }
+
+    @Override
+    public synchronized List<DataMessage> allDroppedInFlightMessagesNoPayload() throws KuraStoreException {
+        return listMessages(e -> e.droppedOn != 0);
+    }
+
+    @Override
+    public synchronized void unpublishAllInFlighMessages() throws KuraStoreException {
+        for (Entry entry : this.entries.values()) {
+            if (entry.isInFlight()) {
+                entry.publishedOn = 0;
+                this.unpublished.add(entry);
+                append(encodeUnpublished(entry.id));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void dropAllInFlightMessages() throws KuraStoreException {
+        long now = System.currentTimeMillis();
+        for (Entry entry : this.entries.values()) {
+            if (entry.isInFlight()) {
+                entry.droppedOn = now;
+                append(encodeTimestamp(RECORD_DROPPED, entry.id, now));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void deleteStaleMessages(int purgeAge) throws KuraStoreException {
+        if (!this.started) {
+            return;
+        }
+
+        long limit = System.currentTimeMillis() - purgeAge * 1000L;
+
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isStale(limit)) {
+                iterator.remove();
+                this.unpublished.remove(entry);
+                entry.segment.liveMessages--;
+            }
+        }
+
+        reclaimSegments();
+    }
+
+    @Override
+    public synchronized void repair() throws KuraStoreException {
+        // Corrupted records are detected by their checksum and skipped when the segments are loaded
+    }
+
+    // ------------------------------------------------------------------
+    //
+    // Private Methods
+    //
+    // ------------------------------------------------------------------
+
+    private void checkStarted() throws KuraStoreException {
+        if (!this.started) {
+            throw new KuraStoreException("Store not started");
+        }
+    }
+
+    private int allocateId() {
+        do {
+            if (this.nextId == Integer.MAX_VALUE) {
+                logger.warn("Identity generator limit exceeded. Resetting it...");
+                this.nextId = 1;
+            }
+        } while (this.entries.containsKey(this.nextId++));
+        return this.nextId - 1;
+    }
+
+    private List<DataMessage> listMessages(Predicate<Entry> filter) {
+        List<Entry> matching = new ArrayList<>();
+        for (Entry entry : this.entries.values()) {
+            if (filter.test(entry)) {
+                matching.add(entry);
+            }
+        }
+        Collections.sort(matching, MESSAGE_ORDER);
+
+        List<DataMessage> messages = new ArrayList<>(matching.size());
+        for (Entry entry : matching) {
+            messages.add(buildDataMessage(entry, false));
+        }
+        return messages;
+    }
+
+    private DataMessage buildDataMessage(Entry entry, boolean withPayload) {
+        DataMessage.Builder builder = new DataMessage.Builder(entry.id).withTopic(entry.topic).withQos(entry.qos)
+                .withRetain(entry.retain).withCreatedOn(new Date(entry.createdOn))
+                .withPublishedOn(toDate(entry.publishedOn)).withPublishedMessageId(entry.publishedMessageId)
+                .withConfirmedOn(toDate(entry.confirmedOn)).withPriority(entry.priority)
+                .withSessionId(entry.sessionId).withDroppedOn(toDate(entry.droppedOn));
+        if (withPayload) {
+            builder = builder.withPayload(readPayload(entry));
+        }
+        return builder.build();
+    }
+
+    private static Date toDate(long timestamp) {
+        return timestamp != 0 ? new Date(timestamp) : null;
+    }
+
+    private static byte[] readPayload(Entry entry) {
+        if (entry.payloadLength < 0) {
+            return null;
+        }
+        byte[] payload = new byte[entry.payloadLength];
+        ByteBuffer buffer = entry.segment.buffer.duplicate();
+        buffer.position(entry.payloadOffset);
+        buffer.get(payload);
+        return payload;
+    }
+
+    // ------------------------------------------------------------------
+    //
+    // Private Methods: Segment Management
+    //
+    // ------------------------------------------------------------------
+
+    private void loadSegments() throws IOException {
+        final String prefix = this.name + "-";
+        File[] files = this.storeDirectory
+                .listFiles(f -> f.getName().startsWith(prefix) && f.getName().endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            throw new IOException("Cannot list " + this.storeDirectory);
+        }
+
+        long[] sequences = new long[files.length];
+        int count = 0;
+        for (File file : files) {
+            String sequence = file.getName().substring(prefix.length(),
+                    file.getName().length() - SEGMENT_SUFFIX.length());
+            try {
+                sequences[count++] = Long.parseLong(sequence);
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring unexpected file {}", file);
+                count--;
+            }
+        }
+        sequences = Arrays.copyOf(sequences, count);
+        Arrays.sort(sequences);
+
+        for (long sequence : sequences) {
+            Segment segment = new Segment(sequence, segmentFile(sequence));
+            segment.map(segment.file.length());
+            this.segments.addLast(segment);
+            replay(segment);
+        }
+    }
+
+    private File segmentFile(long sequence) {
+        return new File(this.storeDirectory, String.format("%s-%019d%s", this.name, sequence, SEGMENT_SUFFIX));
+    }
+
+    private void replay(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            ByteBuffer body = buffer.duplicate();
+            body.position(position + RECORD_HEADER_SIZE);
+            body.limit(position + RECORD_HEADER_SIZE + length);
+
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                logger.warn("Corrupted record found in {} at position {}, discarding the rest of the segment",
+                        segment.file, position);
+                break;
+            }
+
+            apply(segment, body);
+            position += RECORD_HEADER_SIZE + length;
+        }
+        segment.position = position;
+    }
+
+    private void apply(Segment segment, ByteBuffer body) {
+        byte type = body.get();
+        int id = body.getInt();
+
+        if (type == RECORD_STORED) {
+            Entry entry = new Entry(id, null, body.get(), body.get() != 0, body.getInt(), body.getLong());
+            entry.topic = getString(body);
+            entry.payloadLength = body.getInt();
+            entry.payloadOffset = body.position();
+            entry.segment = segment;
+
+            // A relocated message replaces the previous copy
+            Entry previous = this.entries.put(id, entry);
+            if (previous != null) {
+                this.unpublished.remove(previous);
+                previous.segment.liveMessages--;
+            }
+            this.unpublished.add(entry);
+            segment.liveMessages++;
+            this.nextId = Math.max(this.nextId, id + 1);
+            return;
+        }
+
+        Entry entry = this.entries.get(id);
+        if (entry == null) {
+            return;
+        }
+
+        switch (type) {
+        case RECORD_PUBLISHED:
+            this.unpublished.remove(entry);
+            entry.publishedOn = body.getLong();
+            entry.publishedMessageId = body.getInt();
+            entry.sessionId = getString(body);
+            break;
+        case RECORD_CONFIRMED:
+            entry.confirmedOn = body.getLong();
+            break;
+        case RECORD_DROPPED:
+            entry.droppedOn = body.getLong();
+            break;
+        case RECORD_UNPUBLISHED:
+            entry.publishedOn = 0;
+            this.unpublished.add(entry);
+            break;
+        default:
+            logger.warn("Unknown record type {} for message ID {}", type, id);
+        }
+    }
+
+    private void reclaimSegments() throws KuraStoreException {
+        Segment active = this.segments.peekLast();
+
+        if (this.segments.size() > RELOCATION_THRESHOLD) {
+            Segment head = this.segments.peekFirst();
+            if (head.liveMessages > 0) {
+                relocate(head);
+            }
+        }
+
+        while (this.segments.size() > 1 && this.segments.peekFirst().liveMessages <= 0
+                && this.segments.peekFirst() != active) {
+            Segment head = this.segments.removeFirst();
+            head.buffer = null;
+            if (!head.file.delete()) {
+                logger.warn("Cannot delete segment {}", head.file);
+            } else {
+                logger.debug("Deleted segment {}", head.file);
+            }
+        }
+    }
+
+    private void relocate(Segment segment) throws KuraStoreException {
+        logger.debug("Relocating {} messages from {}", segment.liveMessages, segment.file);
+
+        List<Entry> relocated = new ArrayList<>();
+        for (Entry entry : this.entries.values()) {
+            if (entry.segment == segment) {
+                relocated.add(entry);
+            }
+        }
+
+        try {
+            for (Entry entry : relocated) {
+                appendStored(entry, readPayload(entry));
+                if (entry.publishedOn != 0) {
+                    append(encodePublished(entry));
+                }
+                if (entry.confirmedOn != 0) {
+                    append(encodeTimestamp(RECORD_CONFIRMED, entry.id, entry.confirmedOn));
+                }
+                if (entry.droppedOn != 0) {
+                    append(encodeTimestamp(RECORD_DROPPED, entry.id, entry.droppedOn));
+                }
+                segment.liveMessages--;
+            }
+        } catch (IOException e) {
+            throw new KuraStoreException(e, "Cannot relocate messages");
+        }
+    }
+
+    private void appendStored(Entry entry, byte[] payload) throws IOException {
+        byte[] topic = entry.topic.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = payload != null ? payload.length : -1;
+
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + 1 + 1 + 4 + 8 + 4 + topic.length + 4 + Math.max(payloadLength, 0));
+        body.put(RECORD_STORED).putInt(entry.id).put((byte) entry.qos).put((byte) (entry.retain ? 1 : 0))
+                .putInt(entry.priority).putLong(entry.createdOn).putInt(topic.length).put(topic).putInt(payloadLength);
+        int payloadPosition = body.position();
+        if (payload != null) {
+            body.put(payload);
+        }
+
+        Segment segment = appendRecord(body);
+        entry.segment = segment;
+        entry.payloadOffset = segment.position - body.capacity() + payloadPosition;
+        entry.payloadLength = payloadLength;
+        segment.liveMessages++;
+    }
+
+    private void append(ByteBuffer body) throws KuraStoreException {
+        try {
+            appendRecord(body);
+        } catch (IOException e) {
+            throw new KuraStoreException(e, "Cannot update message");
+        }
+    }
+
+    private Segment appendRecord(ByteBuffer body) throws IOException {
+        body.flip();
+        int length = body.remaining();
+
+        Segment segment = this.segments.peekLast();
+        if (segment == null || segment.position + RECORD_HEADER_SIZE + length > segment.buffer.capacity()) {
+            segment = openSegment(RECORD_HEADER_SIZE + length);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.position(segment.position + RECORD_HEADER_SIZE);
+        buffer.put(body);
+        buffer.putInt(segment.position + 4, (int) crc.getValue());
+        buffer.putInt(segment.position, length);
+
+        segment.position += RECORD_HEADER_SIZE + length;
+        segment.dirty = true;
+        return segment;
+    }
+
+    private Segment openSegment(int minimumSize) throws IOException {
+        Segment last = this.segments.peekLast();
+        long sequence = last != null ? last.sequence + 1 : 0;
+
+        Segment segment = new Segment(sequence, segmentFile(sequence));
+        segment.map(Math.max(this.segmentSize, minimumSize));
+        this.segments.addLast(segment);
+
+        if (last != null && last.dirty) {
+            last.buffer.force();
+            last.dirty = false;
+        }
+
+        logger.debug("Opened segment {}", segment.file);
+        return segment;
+    }
+
+    private synchronized void flush() {
+        for (Segment segment : this.segments) {
+            if (segment.dirty) {
+                segment.buffer.force();
+                segment.dirty = false;
+            }
+        }
+    }
+
+    private void closeSegments() {
+        for (Segment segment : this.segments) {
+            segment.buffer = null;
+        }
+        this.segments.clear();
+        this.entries.clear();
+        this.unpublished.clear();
+        this.nextId = 1;
+    }
+
+    private static ByteBuffer encodePublished(Entry entry) {
+        byte[] sessionId = entry.sessionId != null ? entry.sessionId.getBytes(StandardCharsets.UTF_8) : null;
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + 8 + 4 + 4 + (sessionId != null ? sessionId.length : 0));
+        body.put(RECORD_PUBLISHED).putInt(entry.id).putLong(entry.publishedOn).putInt(entry.publishedMessageId);
+        putString(body, sessionId);
+        return body;
+    }
+
+    private static ByteBuffer encodeTimestamp(byte type, int id, long timestamp) {
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + 8);
+        body.put(type).putInt(id).putLong(timestamp);
+        return body;
+    }
+
+    private static ByteBuffer encodeUnpublished(int id) {
+        ByteBuffer body = ByteBuffer.allocate(1 + 4);
+        body.put(RECORD_UNPUBLISHED).putInt(id);
+        return body;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+        private final File file;
+        private MappedByteBuffer buffer;
+        private int position;
+        private int liveMessages;
+        private boolean dirty;
+
+        Segment(long sequence, File file) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+
+        void map(long size) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+                    FileChannel channel = raf.getChannel()) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final int id;
+        private final int qos;
+        private final boolean retain;
+        private final int priority;
+        private final long createdOn;
+        private String topic;
+        private long publishedOn;
+        private int publishedMessageId = -1;
+        private String sessionId;
+        private long confirmedOn;
+        private long droppedOn;
+
+        private Segment segment;
+        private int payloadOffset;
+        private int payloadLength;
+
+        Entry(int id, String topic, int qos, boolean retain, int priority, long createdOn) {
+            this.id = id;
+            this.topic = topic;
+            this.qos = qos;
+            this.retain = retain;
+            this.priority = priority;
+            this.createdOn = createdOn;
+        }
+
+        boolean isInFlight() {
+            return this.publishedOn != 0 && this.qos > 0 && this.confirmedOn == 0;
+        }
+
+        boolean isStale(long limit) {
+            return this.droppedOn != 0 && this.droppedOn <= limit
+                    || this.confirmedOn != 0 && this.confirmedOn <= limit
+                    || this.qos == 0 && this.publishedOn != 0 && this.publishedOn <= limit;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.system;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the facts about the device that are expensive to compute, typically because they require running an
+ * external command.
+ * <br>
+ * Every fact is computed at most once until it is invalidated: concurrent requests for a fact being computed wait
+ * for the same computation. Null values are not cached, so that facts depending on services not available yet are
+ * computed again on the next request.
+ */
+final class DeviceProfileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceProfileCache.class);
+
+    private final Map<String, FutureTask<String>> facts = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the value of a fact, computing it with the provided loader if it is not cached.
+     *
+     * @param key
+     *            the name of the fact
+     * @param loader
+     *            computes the value of the fact
+     * @return the value of the fact, or null if it cannot be computed
+     */
+    String get(final String key, final Callable<String> loader) {
+        FutureTask<String> task = this.facts.get(key);
+        if (task == null) {
+            final FutureTask<String> newTask = new FutureTask<>(loader);
+            task = this.facts.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+
+        try {
+            final String value = task.get();
+            if (value == null) {
+                this.facts.remove(key, task);
+            }
+            return value;
+        } catch (final ExecutionException e) {
+            logger.warn("Error computing {}", key, e.getCause());
+            this.facts.remove(key, task);
+            return null;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Computes in parallel the facts that are not cached yet.
+     *
+     * @param loaders
+     *            the loaders of the facts by name
+     */
+    void preload(final Map<String, Callable<String>> loaders) {
+        final AtomicInteger count = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(loaders.size(), Runtime.getRuntime().availableProcessors() * 2)), r -> {
+                    final Thread thread = new Thread(r, "DeviceProfileLoader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        for (final Map.Entry<String, Callable<String>> loader : loaders.entrySet()) {
+            final String key = loader.getKey();
+            executor.execute(() -> get(key, loader.getValue()));
+        }
+        // the threads terminate once all the facts have been computed
+        executor.shutdown();
+    }
+
+    /**
+     * Discards the cached value of a fact.
+     */
+    void invalidate(final String key) {
+        this.facts.remove(key);
+    }
+
+    /**
+     * Discards all the cached values.
+     */
+    void clear() {
+        this.facts.clear();
+    }
+}
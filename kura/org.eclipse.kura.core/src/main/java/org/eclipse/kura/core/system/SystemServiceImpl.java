@@ -26,15 +26,23 @@ import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.AccessController;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Dictionary;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -46,12 +54,18 @@ import org.eclipse.kura.core.util.NetUtil;
 import org.eclipse.kura.core.util.ProcessUtil;
 import org.eclipse.kura.core.util.SafeProcess;
 import org.eclipse.kura.net.NetInterface;
+import org.eclipse.kura.net.NetInterfaceAddedEvent;
 import org.eclipse.kura.net.NetInterfaceAddress;
+import org.eclipse.kura.net.NetInterfaceRemovedEvent;
 import org.eclipse.kura.net.NetworkService;
 import org.eclipse.kura.system.SystemService;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.ComponentException;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +76,12 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
     private static final String CLOUDBEES_SECURITY_SETTINGS_PATH = "/private/eurotech/settings-security.xml";
     private static final String KURA_PATH = "/opt/eclipse/kura";
 
+    private static final Path LINUX_HOSTNAME_PATH = Paths.get("/proc/sys/kernel/hostname");
+
+    // keys of the cached facts that have no corresponding property
+    private static final String PRIMARY_MAC_ADDRESS = "primary.mac.address";
+    private static final String DMIDECODE_SYSTEM = "dmidecode.system";
+
     private static boolean onCloudbees = false;
 
     private Properties kuraProperties;
@@ -69,6 +89,9 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
 
     private NetworkService networkService;
 
+    private final DeviceProfileCache deviceProfileCache = new DeviceProfileCache();
+    private ServiceRegistration<?> networkEventHandler;
+
     // ----------------------------------------------------------------
     //
     // Dependencies
@@ -447,6 +470,46 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
         } catch (IOException e) {
             throw new ComponentException("Error loading default properties", e);
         }
+
+        preloadDeviceProfile();
+
+        // the primary MAC address is computed again when the network interfaces change
+        BundleContext bundleContext = componentContext.getBundleContext();
+        if (bundleContext != null) {
+            Dictionary<String, Object> props = new Hashtable<>();
+            props.put(EventConstants.EVENT_TOPIC,
+                    new String[] { NetInterfaceAddedEvent.NETWORK_EVENT_INTERFACE_ADDED_TOPIC,
+                            NetInterfaceRemovedEvent.NETWORK_EVENT_INTERFACE_REMOVED_TOPIC });
+            this.networkEventHandler = bundleContext.registerService(EventHandler.class,
+                    event -> this.deviceProfileCache.invalidate(PRIMARY_MAC_ADDRESS), props);
+        }
+    }
+
+    /**
+     * Starts computing in parallel the facts about the device that require running external commands and do not
+     * change while Kura is running, so that they are available when the device profile is first published.
+     */
+    private void preloadDeviceProfile() {
+        Map<String, Callable<String>> loaders = new HashMap<>();
+        if (this.kuraProperties.getProperty(KEY_OS_VER) == null) {
+            loaders.put(KEY_OS_VER, this::loadOsVersion);
+        }
+        if (this.kuraProperties.getProperty(KEY_BIOS_VERSION) == null) {
+            loaders.put(KEY_BIOS_VERSION, this::loadBiosVersion);
+        }
+        if (this.kuraProperties.getProperty(KEY_FIRMWARE_VERSION) == null) {
+            loaders.put(KEY_FIRMWARE_VERSION, this::loadFirmwareVersion);
+        }
+        if (this.kuraProperties.getProperty(KEY_PART_NUMBER) == null) {
+            loaders.put(KEY_PART_NUMBER, this::loadPartNumber);
+        }
+        if (OS_LINUX.equals(getOsName()) && (this.kuraProperties.getProperty(KEY_MODEL_ID) == null
+                || this.kuraProperties.getProperty(KEY_MODEL_NAME) == null
+                || this.kuraProperties.getProperty(KEY_SERIAL_NUM) == null)) {
+            // model id, model name and serial number are all parsed from the same output
+            loaders.put(DMIDECODE_SYSTEM, this::loadDmidecodeSystem);
+        }
+        this.deviceProfileCache.preload(loaders);
     }
 
     protected String readResource(String resource) throws IOException {
@@ -454,6 +517,11 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
     }
 
     protected void deactivate(ComponentContext componentContext) {
+        if (this.networkEventHandler != null) {
+            this.networkEventHandler.unregister();
+            this.networkEventHandler = null;
+        }
+        this.deviceProfileCache.clear();
         this.componentContext = null;
         this.kuraProperties = null;
     }
@@ -483,6 +551,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
 
     @Override
     public String getPrimaryMacAddress() {
+        return this.deviceProfileCache.get(PRIMARY_MAC_ADDRESS, this::loadPrimaryMacAddress);
+    }
+
+    private String loadPrimaryMacAddress() {
         String primaryNetworkInterfaceName = getPrimaryNetworkInterfaceName();
         String macAddress = null;
         InetAddress ip;
@@ -648,6 +720,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
             return override;
         }
 
+        return this.deviceProfileCache.get(KEY_OS_VER, this::loadOsVersion);
+    }
+
+    private String loadOsVersion() {
         StringBuilder sbOsVersion = new StringBuilder();
         sbOsVersion.append(System.getProperty(KEY_OS_VER));
         if (OS_LINUX.equals(getOsName())) {
@@ -909,6 +985,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
             return override;
         }
 
+        return this.deviceProfileCache.get(KEY_BIOS_VERSION, this::loadBiosVersion);
+    }
+
+    private String loadBiosVersion() {
         String biosVersion = UNSUPPORTED;
 
         if (OS_LINUX.equals(getOsName())) {
@@ -953,7 +1033,8 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
                 deviceName = displayTmp;
             }
         } else if (OS_LINUX.equals(getOsName()) || OS_CLOUDBEES.equals(getOsName())) {
-            String displayTmp = runSystemCommand("hostname");
+            // the host name can change at runtime, it is read from the kernel rather than running hostname
+            String displayTmp = readLinuxHostname();
             if (displayTmp.length() > 0) {
                 deviceName = displayTmp;
             }
@@ -961,6 +1042,15 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
         return deviceName;
     }
 
+    private String readLinuxHostname() {
+        try {
+            return new String(Files.readAllBytes(LINUX_HOSTNAME_PATH), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            logger.debug("Cannot read {}, running hostname", LINUX_HOSTNAME_PATH, e);
+            return runSystemCommand("hostname");
+        }
+    }
+
     @Override
     public String getFirmwareVersion() {
         String override = this.kuraProperties.getProperty(KEY_FIRMWARE_VERSION);
@@ -968,6 +1058,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
             return override;
         }
 
+        return this.deviceProfileCache.get(KEY_FIRMWARE_VERSION, this::loadFirmwareVersion);
+    }
+
+    private String loadFirmwareVersion() {
         String fwVersion = UNSUPPORTED;
 
         if (OS_LINUX.equals(getOsName()) && getOsVersion() != null) {
@@ -988,6 +1082,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
             return override;
         }
 
+        return this.deviceProfileCache.get(KEY_MODEL_ID, this::loadModelId);
+    }
+
+    private String loadModelId() {
         String modelId = UNKNOWN;
 
         if (OS_MAC_OSX.equals(getOsName())) {
@@ -996,7 +1094,7 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
                 modelId = modelTmp;
             }
         } else if (OS_LINUX.equals(getOsName())) {
-            String modelTmp = runSystemCommand("dmidecode -t system");
+            String modelTmp = getDmidecodeSystem();
             if (modelTmp.contains("Version: ")) {
                 modelId = modelTmp.split("Version:\\s+")[1].split("\n")[0];
             }
@@ -1012,6 +1110,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
             return override;
         }
 
+        return this.deviceProfileCache.get(KEY_MODEL_NAME, this::loadModelName);
+    }
+
+    private String loadModelName() {
         String modelName = UNKNOWN;
 
         if (OS_MAC_OSX.equals(getOsName())) {
@@ -1021,7 +1123,7 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
                 modelName = modelTmp.split(":\\s+")[1];
             }
         } else if (OS_LINUX.equals(getOsName())) {
-            String modelTmp = runSystemCommand("dmidecode -t system");
+            String modelTmp = getDmidecodeSystem();
             if (modelTmp.contains("Product Name: ")) {
                 modelName = modelTmp.split("Product Name:\\s+")[1].split("\n")[0];
             }
@@ -1037,6 +1139,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
             return override;
         }
 
+        return this.deviceProfileCache.get(KEY_PART_NUMBER, this::loadPartNumber);
+    }
+
+    private String loadPartNumber() {
         String partNumber = UNSUPPORTED;
 
         if (OS_LINUX.equals(getOsName())) {
@@ -1056,6 +1162,10 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
             return override;
         }
 
+        return this.deviceProfileCache.get(KEY_SERIAL_NUM, this::loadSerialNumber);
+    }
+
+    private String loadSerialNumber() {
         String serialNum = UNKNOWN;
 
         if (OS_MAC_OSX.equals(getOsName())) {
@@ -1065,7 +1175,7 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
                 serialNum = serialTmp.split(":\\s+")[1];
             }
         } else if (OS_LINUX.equals(getOsName())) {
-            String serialTmp = runSystemCommand("dmidecode -t system");
+            String serialTmp = getDmidecodeSystem();
             if (serialTmp.contains("Serial Number: ")) {
                 serialNum = serialTmp.split("Serial Number:\\s+")[1].split("\n")[0];
             }
@@ -1074,6 +1184,15 @@ public class SystemServiceImpl extends SuperSystemService implements SystemServi
         return serialNum;
     }
 
+    private String getDmidecodeSystem() {
+        String dmidecode = this.deviceProfileCache.get(DMIDECODE_SYSTEM, this::loadDmidecodeSystem);
+        return dmidecode != null ? dmidecode : "";
+    }
+
+    private String loadDmidecodeSystem() {
+        return runSystemCommand("dmidecode -t system");
+    }
+
     @Override
     public char[] getJavaKeyStorePassword() throws InvalidKeyException, NoSuchAlgorithmException,
             NoSuchPaddingException, IllegalBlockSizeException, BadPaddingException, IOException {
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.eclipse.kura.core.util.SafeProcess.StreamHandler;
+
+/**
+ * Executes external commands, allowing up to a configurable number of them to run concurrently. Commands submitted
+ * while the limit is reached wait for a running one to complete, on the calling thread.
+ * <br>
+ * The concurrency limit of the runner returned by {@link #getDefault()}, used by {@link ProcessUtil}, can be set
+ * with the {@value #CONCURRENCY_PROPERTY} system property and defaults to {@value #DEFAULT_CONCURRENCY}.
+ */
+public class ProcessRunner {
+
+    public static final String CONCURRENCY_PROPERTY = "org.eclipse.kura.core.util.process.concurrency";
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final ProcessRunner s_default = new ProcessRunner(
+            Math.max(1, Integer.getInteger(CONCURRENCY_PROPERTY, DEFAULT_CONCURRENCY)));
+
+    private final int m_concurrency;
+    private final Semaphore m_permits;
+
+    private final AtomicInteger m_waiting = new AtomicInteger();
+    private final AtomicInteger m_running = new AtomicInteger();
+    private final AtomicLong m_executionCount = new AtomicLong();
+    private final AtomicLong m_timeoutCount = new AtomicLong();
+    private final AtomicLong m_totalQueueWait = new AtomicLong();
+    private final AtomicLong m_maxQueueWait = new AtomicLong();
+    private final AtomicLong m_totalExecutionTime = new AtomicLong();
+    private final AtomicLong m_maxExecutionTime = new AtomicLong();
+
+    /**
+     * Creates a runner that executes up to {@code concurrency} commands at the same time.
+     *
+     * @param concurrency
+     *            the maximum number of concurrent executions
+     */
+    public ProcessRunner(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("The concurrency must be greater than zero");
+        }
+        this.m_concurrency = concurrency;
+        this.m_permits = new Semaphore(concurrency, true);
+    }
+
+    /**
+     * Returns the runner shared by the whole framework.
+     */
+    public static ProcessRunner getDefault() {
+        return s_default;
+    }
+
+    public int getConcurrency() {
+        return this.m_concurrency;
+    }
+
+    /**
+     * Executes the command and buffers its output, waiting for its completion without any timeout.
+     *
+     * @param cmdarray
+     *            the command and its arguments
+     * @return the completed process
+     * @throws IOException
+     *             if the command cannot be executed
+     */
+    public SafeProcess exec(String[] cmdarray) throws IOException {
+        return exec(cmdarray, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes the command and buffers its output.
+     *
+     * @param cmdarray
+     *            the command and its arguments
+     * @param timeout
+     *            the maximum execution time, not including the time spent waiting for the concurrency limit. Zero
+     *            waits forever
+     * @param unit
+     *            the time unit of the timeout
+     * @return the completed process
+     * @throws IOException
+     *             if the command cannot be executed or does not complete within the timeout
+     */
+    public SafeProcess exec(String[] cmdarray, long timeout, TimeUnit unit) throws IOException {
+        final SafeProcess safeProcess = new SafeProcess();
+        run(cmdarray, timeout, unit, () -> safeProcess.exec(cmdarray, unit.toNanos(timeout)));
+        return safeProcess;
+    }
+
+    /**
+     * Executes the command, passing each line of its standard output and error to the provided listeners as soon
+     * as it is available. The listeners are invoked on two different threads.
+     *
+     * @param cmdarray
+     *            the command and its arguments
+     * @param outputListener
+     *            receives the lines of the standard output, can be null
+     * @param errorListener
+     *            receives the lines of the standard error, can be null
+     * @param timeout
+     *            the maximum execution time, not including the time spent waiting for the concurrency limit. Zero
+     *            waits forever
+     * @param unit
+     *            the time unit of the timeout
+     * @return the exit value of the process
+     * @throws IOException
+     *             if the command cannot be executed or does not complete within the timeout
+     */
+    public int exec(String[] cmdarray, Consumer<String> outputListener, Consumer<String> errorListener, long timeout,
+            TimeUnit unit) throws IOException {
+        final SafeProcess safeProcess = new SafeProcess();
+        run(cmdarray, timeout, unit, () -> safeProcess.exec(cmdarray, lineHandler(outputListener),
+                lineHandler(errorListener), unit.toNanos(timeout)));
+        return safeProcess.exitValue();
+    }
+
+    /**
+     * Returns a snapshot of the execution metrics of this runner.
+     */
+    public ProcessStatistics getStatistics() {
+        final long executions = this.m_executionCount.get();
+        return new ProcessStatistics(this.m_waiting.get(), this.m_running.get(), executions,
+                this.m_timeoutCount.get(), executions > 0 ? this.m_totalQueueWait.get() / executions : 0,
+                this.m_maxQueueWait.get(), executions > 0 ? this.m_totalExecutionTime.get() / executions : 0,
+                this.m_maxExecutionTime.get());
+    }
+
+    private void run(String[] cmdarray, long timeout, TimeUnit unit, Execution execution) throws IOException {
+        final long queued = System.nanoTime();
+        this.m_waiting.incrementAndGet();
+        try {
+            this.m_permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            this.m_waiting.decrementAndGet();
+        }
+
+        final long started = System.nanoTime();
+        this.m_running.incrementAndGet();
+        boolean completed = false;
+        try {
+            completed = execution.run();
+        } finally {
+            final long ended = System.nanoTime();
+            this.m_running.decrementAndGet();
+            this.m_permits.release();
+            record(started - queued, ended - started);
+        }
+        if (!completed) {
+            this.m_timeoutCount.incrementAndGet();
+            throw new IOException("Timeout executing " + Arrays.toString(cmdarray) + " after "
+                    + unit.toMillis(timeout) + " ms");
+        }
+    }
+
+    private void record(long queueWait, long executionTime) {
+        this.m_executionCount.incrementAndGet();
+        this.m_totalQueueWait.addAndGet(queueWait);
+        this.m_maxQueueWait.accumulateAndGet(queueWait, Math::max);
+        this.m_totalExecutionTime.addAndGet(executionTime);
+        this.m_maxExecutionTime.accumulateAndGet(executionTime, Math::max);
+    }
+
+    private static StreamHandler lineHandler(Consumer<String> listener) {
+        return (InputStream is) -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(is, Charset.defaultCharset()));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (listener != null) {
+                    listener.accept(line);
+                }
+            }
+        };
+    }
+
+    private interface Execution {
+
+        boolean run() throws IOException;
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.util;
+
+/**
+ * Execution metrics of a {@link ProcessRunner}. Times are expressed in nanoseconds, the queue wait is the time a
+ * command spent waiting for the concurrency limit of the runner.
+ */
+public final class ProcessStatistics {
+
+    private final int waitingCount;
+    private final int runningCount;
+    private final long executionCount;
+    private final long timeoutCount;
+    private final long averageQueueWait;
+    private final long maximumQueueWait;
+    private final long averageExecutionTime;
+    private final long maximumExecutionTime;
+
+    ProcessStatistics(int waitingCount, int runningCount, long executionCount, long timeoutCount,
+            long averageQueueWait, long maximumQueueWait, long averageExecutionTime, long maximumExecutionTime) {
+        this.waitingCount = waitingCount;
+        this.runningCount = runningCount;
+        this.executionCount = executionCount;
+        this.timeoutCount = timeoutCount;
+        this.averageQueueWait = averageQueueWait;
+        this.maximumQueueWait = maximumQueueWait;
+        this.averageExecutionTime = averageExecutionTime;
+        this.maximumExecutionTime = maximumExecutionTime;
+    }
+
+    /**
+     * Returns the number of commands waiting for the concurrency limit.
+     */
+    public int getWaitingCount() {
+        return this.waitingCount;
+    }
+
+    /**
+     * Returns the number of commands being executed.
+     */
+    public int getRunningCount() {
+        return this.runningCount;
+    }
+
+    /**
+     * Returns the number of completed executions, including the failed and timed out ones.
+     */
+    public long getExecutionCount() {
+        return this.executionCount;
+    }
+
+    public long getTimeoutCount() {
+        return this.timeoutCount;
+    }
+
+    public long getAverageQueueWait() {
+        return this.averageQueueWait;
+    }
+
+    public long getMaximumQueueWait() {
+        return this.maximumQueueWait;
+    }
+
+    public long getAverageExecutionTime() {
+        return this.averageExecutionTime;
+    }
+
+    public long getMaximumExecutionTime() {
+        return this.maximumExecutionTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessStatistics [waiting=" + this.waitingCount + ", running=" + this.runningCount + ", executions="
+                + this.executionCount + ", timeouts=" + this.timeoutCount + ", averageQueueWait="
+                + this.averageQueueWait + ", maximumQueueWait=" + this.maximumQueueWait + ", averageExecutionTime="
+                + this.averageExecutionTime + ", maximumExecutionTime=" + this.maximumExecutionTime + "]";
+    }
+}
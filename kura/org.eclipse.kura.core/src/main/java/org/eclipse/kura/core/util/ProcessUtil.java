@@ -13,20 +13,9 @@ package org.eclipse.kura.core.util;
 
 import java.io.IOException;
 import java.util.StringTokenizer;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class ProcessUtil {
 
-    private static final Logger s_logger = LoggerFactory.getLogger(ProcessUtil.class);
-
-    private static final ExecutorService s_processExecutor = Executors.newSingleThreadExecutor();
-
     public static SafeProcess exec(String command) throws IOException {
         // Use StringTokenizer since this is the method documented by Runtime
         StringTokenizer st = new StringTokenizer(command);
@@ -40,25 +29,12 @@ public class ProcessUtil {
         return exec(cmdArray);
     }
 
+    /**
+     * Executes the command on the {@link ProcessRunner#getDefault() default runner}, concurrently with the commands
+     * submitted by other threads up to the concurrency limit of the runner.
+     */
     public static SafeProcess exec(final String[] cmdarray) throws IOException {
-        // Serialize process executions. One at a time so we can consume all streams.
-        Future<SafeProcess> futureSafeProcess = s_processExecutor.submit(new Callable<SafeProcess>() {
-
-            @Override
-            public SafeProcess call() throws Exception {
-                Thread.currentThread().setName("SafeProcessExecutor");
-                SafeProcess safeProcess = new SafeProcess();
-                safeProcess.exec(cmdarray);
-                return safeProcess;
-            }
-        });
-
-        try {
-            return futureSafeProcess.get();
-        } catch (Exception e) {
-            s_logger.error("Error waiting from SafeProcess output", e);
-            throw new IOException(e);
-        }
+        return ProcessRunner.getDefault().exec(cmdarray);
     }
 
     /**
@@ -17,11 +17,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,11 +31,22 @@ public class SafeProcess {
 
     private static final Logger s_logger = LoggerFactory.getLogger(SafeProcess.class);
 
-    private static final ExecutorService s_streamGobblers = Executors.newFixedThreadPool(2);
+    /**
+     * Consumes the output of the processes. The number of threads is bounded by the number of processes that can be
+     * executed concurrently, see {@link ProcessRunner}.
+     */
+    private static final ExecutorService s_streamGobblers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "SafeProcess Stream Gobbler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The time allowed to the stream handlers and to the process for completing after a forced destroy */
+    private static final long DESTROY_GRACE_PERIOD_MILLIS = 1000;
 
     private Process m_process;
-    private Future<byte[]> m_futureInputGobbler;
-    private Future<byte[]> m_futureErrorGobbler;
+    private Future<?> m_futureInputGobbler;
+    private Future<?> m_futureErrorGobbler;
     private byte[] m_inBytes;
     private byte[] m_errBytes;
     private boolean m_waited;
@@ -66,47 +78,102 @@ public class SafeProcess {
     }
 
     void exec(String[] cmdarray) throws IOException {
+        exec(cmdarray, 0);
+    }
+
+    /**
+     * Executes the command and buffers its output.
+     *
+     * @param timeoutNanos
+     *            the maximum execution time, zero or a negative value waits forever
+     * @return false if the process has been destroyed because the timeout elapsed
+     */
+    boolean exec(String[] cmdarray, long timeoutNanos) throws IOException {
+        final ByteArrayOutputStream inBaos = new ByteArrayOutputStream(1024);
+        final ByteArrayOutputStream errBaos = new ByteArrayOutputStream(1024);
+        try {
+            return exec(cmdarray, is -> copy(is, inBaos), is -> copy(is, errBaos), timeoutNanos);
+        } finally {
+            this.m_inBytes = inBaos.toByteArray();
+            this.m_errBytes = errBaos.toByteArray();
+        }
+    }
+
+    /**
+     * Executes the command and waits for its completion, while the provided handlers consume the standard output
+     * and error streams of the process on separate threads.
+     *
+     * @param timeoutNanos
+     *            the maximum execution time, the process is forcibly destroyed after it elapses and the stream
+     *            handlers that do not complete shortly afterwards are cancelled. Zero or a negative value waits
+     *            forever
+     * @return false if the process has been destroyed because the timeout elapsed
+     */
+    boolean exec(String[] cmdarray, StreamHandler outputHandler, StreamHandler errorHandler, long timeoutNanos)
+            throws IOException {
         s_logger.debug("Executing: {}", Arrays.toString(cmdarray));
         ProcessBuilder pb = new ProcessBuilder(cmdarray);
         this.m_process = pb.start();
+        final Process process = this.m_process;
 
-        // process the input stream
-        this.m_futureInputGobbler = s_streamGobblers.submit(new Callable<byte[]>() {
-
-            @Override
-            public byte[] call() throws Exception {
-                Thread.currentThread().setName("SafeProcess InputStream Gobbler");
-                return readStreamFully(SafeProcess.this.m_process.getInputStream());
-            }
+        this.m_futureInputGobbler = s_streamGobblers.submit(() -> {
+            outputHandler.handle(process.getInputStream());
+            return null;
         });
-
-        // process the error stream
-        this.m_futureErrorGobbler = s_streamGobblers.submit(new Callable<byte[]>() {
-
-            @Override
-            public byte[] call() throws Exception {
-                Thread.currentThread().setName("SafeProcess ErrorStream Gobbler");
-                return readStreamFully(SafeProcess.this.m_process.getErrorStream());
-            }
+        this.m_futureErrorGobbler = s_streamGobblers.submit(() -> {
+            errorHandler.handle(process.getErrorStream());
+            return null;
         });
 
-        // wait for the process execution
+        boolean completed = true;
         try {
-            this.m_inBytes = this.m_futureInputGobbler.get();
-            this.m_errBytes = this.m_futureErrorGobbler.get();
-            this.m_exitValue = this.m_process.waitFor();
+            if (timeoutNanos > 0) {
+                completed = process.waitFor(timeoutNanos, TimeUnit.NANOSECONDS);
+                if (!completed) {
+                    s_logger.warn("Timeout executing: {}", Arrays.toString(cmdarray));
+                    process.destroyForcibly();
+                    // children of the process might still hold the streams open
+                    closeQuietly(process.getInputStream());
+                    closeQuietly(process.getErrorStream());
+                }
+            }
+            if (completed) {
+                // the streams are closed when the process terminates
+                this.m_futureInputGobbler.get();
+                this.m_futureErrorGobbler.get();
+                this.m_exitValue = process.waitFor();
+            } else {
+                // the handlers might not return even if their stream has been closed
+                awaitGobbler(this.m_futureInputGobbler);
+                awaitGobbler(this.m_futureErrorGobbler);
+                this.m_exitValue = process.waitFor(DESTROY_GRACE_PERIOD_MILLIS, TimeUnit.MILLISECONDS)
+                        ? process.exitValue() : -1;
+            }
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new IOException(e);
         } catch (ExecutionException e) {
-            throw new IOException(e);
+            throw new IOException(e.getCause());
         } finally {
-            closeQuietly(this.m_process.getInputStream());
-            closeQuietly(this.m_process.getErrorStream());
-            closeQuietly(this.m_process.getOutputStream());
-            this.m_process.destroy();
+            closeQuietly(process.getInputStream());
+            closeQuietly(process.getErrorStream());
+            closeQuietly(process.getOutputStream());
+            process.destroy();
             this.m_process = null;
             this.m_waited = true;
         }
+        return completed;
+    }
+
+    private static void awaitGobbler(Future<?> gobbler) throws InterruptedException {
+        try {
+            gobbler.get(DESTROY_GRACE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // the stream has been closed while being consumed
+        } catch (TimeoutException e) {
+            s_logger.warn("Stream handler of a destroyed process did not complete, cancelling it");
+            gobbler.cancel(true);
+        }
     }
 
     public int waitFor() throws InterruptedException {
@@ -130,14 +197,20 @@ public class SafeProcess {
         this.m_process = null;
     }
 
-    private byte[] readStreamFully(InputStream is) throws IOException {
+    /**
+     * Consumes a stream of a process.
+     */
+    interface StreamHandler {
+
+        void handle(InputStream is) throws IOException;
+    }
+
+    private static void copy(InputStream is, OutputStream os) throws IOException {
         int len;
         byte[] buf = new byte[1024];
-        ByteArrayOutputStream inBaos = new ByteArrayOutputStream(1024);
         while ((len = is.read(buf)) != -1) {
-            inBaos.write(buf, 0, len);
+            os.write(buf, 0, len);
         }
-        return inBaos.toByteArray();
     }
 
     private void closeQuietly(InputStream is) {
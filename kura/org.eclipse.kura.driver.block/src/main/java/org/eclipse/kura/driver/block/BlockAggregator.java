@@ -29,7 +29,7 @@ import java.util.stream.StreamSupport;
  * The block set resulting from the aggregation always has the following properties:
  * <ul>
  * <li>It does not contain prohibited blocks (see {@link ProhibitedBlock})</li>
- * <li>It does not contain overlapping blocks</li>
+ * <li>It does not contain overlapping blocks, unless a {@code maximumSize} is specified (see below)</li>
  * <li>For each pair of blocks (b1, b2) belonging to the set, {@code b1.getStart() != b2.getEnd()}</li>
  * </ul>
  *
@@ -64,6 +64,14 @@ import java.util.stream.StreamSupport;
  * transfered.
  * </p>
  *
+ * <p>
+ * This class also accepts a {@code maximumSize >= 0} parameter, if it is greater than 0 two input blocks will not be
+ * aggregated if the size of the resulting block would be greater than {@code maximumSize}. This can be used if the
+ * protocol limits the amount of data that can be transferred in a single request. If merging two overlapping input
+ * blocks would exceed the limit, the result will contain two overlapping blocks. Input blocks larger than
+ * {@code maximumSize} are not split.
+ * </p>
+ *
  * @param <T>
  *            The type of the blocks obtained as result of the aggregation process.
  */
@@ -72,6 +80,7 @@ public class BlockAggregator<T extends Block> {
     protected List<Block> blocks;
     private final BlockFactory<T> factory;
     private int minimumGapSize;
+    private int maximumSize;
 
     /**
      * Creates a new {@link BlockAggregator} instance that operates on the given list of blocks.
@@ -132,6 +141,22 @@ public class BlockAggregator<T extends Block> {
         this.minimumGapSize = minimumGapSize;
     }
 
+    /**
+     * Specifies the {@code maximumSize} parameter. The default for this parameter is 0, meaning that the size of the
+     * resulting blocks is not limited.
+     *
+     * @param maximumSize
+     *            the new value for the {@code maximumSize} parameter.
+     * @throws IllegalArgumentException
+     *             if the {@code maximumSize} argument is negative.
+     */
+    public void setMaximumSize(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size parameter must be non negative");
+        }
+        this.maximumSize = maximumSize;
+    }
+
     /**
      * Inserts a new {@link Block} into the input blocks list.
      *
@@ -156,6 +181,12 @@ public class BlockAggregator<T extends Block> {
             block.setEnd(Math.max(block.getEnd(), end));
         }
 
+        private boolean exceedsMaximumSize(Block next) {
+            return BlockAggregator.this.maximumSize > 0 && !(this.last instanceof ProhibitedBlock)
+                    && Math.max(this.last.getEnd(), next.getEnd())
+                            - this.last.getStart() > BlockAggregator.this.maximumSize;
+        }
+
         private void getNext() {
             if (!this.source.hasNext()) {
                 return;
@@ -171,7 +202,7 @@ public class BlockAggregator<T extends Block> {
                 if (this.last.getEnd() < next.getStart()) {
                     if (BlockAggregator.this.minimumGapSize > 0
                             && next.getStart() - this.last.getEnd() < BlockAggregator.this.minimumGapSize
-                            && !isTypeDifferent) {
+                            && !isTypeDifferent && !exceedsMaximumSize(next)) {
                         extend(this.last, next.getEnd());
                         continue;
                     } else {
@@ -184,7 +215,7 @@ public class BlockAggregator<T extends Block> {
                     throw new IllegalArgumentException("Conflicting blocks: " + this.last + " " + next);
                 }
 
-                if (isTypeDifferent) {
+                if (isTypeDifferent || exceedsMaximumSize(next)) {
                     this.source.previous();
                     break;
                 }
@@ -16,10 +16,19 @@ import static java.util.Objects.requireNonNull;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -64,6 +73,16 @@ import org.slf4j.LoggerFactory;
  * This class provides a default implementation for the {@link #read(List)}, {@link #write(List)} and
  * {@link #prepareRead(List)} methods of the {@link Driver} interface.
  * </p>
+ * <p>
+ * By default the tasks are run one after another. Implementors can enable the parallel execution of read tasks by
+ * overriding {@link #getReadParallelism()}, see {@link #runTasks(List)} and {@link #runLane(int, Queue)} for more
+ * details.
+ * </p>
+ * <p>
+ * Implementors can also enable the caching of read plans by overriding {@link #getPlanCacheSize()}, in this case
+ * the result of the aggregation process is reused by subsequent reads of the same set of channels and the minimum gap
+ * size can be adapted to the measured cost of the transfers, see {@link #isReadMinimumGapSizeAdaptive()}.
+ * </p>
  *
  * @param <T>
  *            the type of the domain, can be any type suitable for being used as an {@link HashMap} key
@@ -72,6 +91,22 @@ public abstract class AbstractBlockDriver<T> implements Driver {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractBlockDriver.class);
 
+    private static final AtomicInteger laneThreadCount = new AtomicInteger();
+
+    /** The maximum minimum gap size, in block addresses, that can be learned if the gap size is adaptive */
+    private static final int MAXIMUM_ADAPTIVE_GAP_SIZE = 512;
+
+    /** The minimum change of the learned gap size that causes a plan to be rebuilt */
+    private static final int MINIMUM_GAP_SIZE_CHANGE = 2;
+
+    private ExecutorService laneExecutor;
+
+    private LinkedHashMap<List<Object>, BlockPlan> planCache;
+
+    private final Map<T, TransferCostEstimator> transferCostEstimators = new HashMap<>();
+
+    private int planGeneration;
+
     /**
      * This method must provide a {@link BlockFactory} that can be used for creating {@link ToplevelBlockTask} instances
      * responsible of implementing the I/O operations for the specified domain.
@@ -122,6 +157,80 @@ public abstract class AbstractBlockDriver<T> implements Driver {
         return 0;
     }
 
+    /**
+     * <p>
+     * Returns the maximum number of read plans cached by this driver. The default is 0, that disables the cache.
+     * </p>
+     * <p>
+     * If the cache is enabled, {@link #read(List)} reuses the {@link BlockTask}s created for a previous read of the
+     * same list of channel configurations: the tasks are bound to private copies of the {@link ChannelRecord}s and
+     * the results are copied to the provided records after each execution. This requires {@link #toTasks(List, Mode)}
+     * to create tasks that only operate on the records provided as argument. The {@link PreparedRead} instances
+     * returned by {@link #prepareRead(List)} also collect timing metrics and adapt the minimum gap size if the cache
+     * is enabled.
+     * </p>
+     *
+     * @return the plan cache size
+     */
+    protected int getPlanCacheSize() {
+        return 0;
+    }
+
+    /**
+     * <p>
+     * Returns whether the minimum gap size used for read plans should be adapted to the measured cost of the
+     * transfers. The default is false. This setting is only effective if the plan cache is enabled.
+     * </p>
+     * <p>
+     * The execution times of the {@link ToplevelBlockTask}s of the plans are used to estimate, for each domain, the
+     * fixed overhead of a request and the cost of transferring a single block address. The minimum gap size for a
+     * domain is set to the ratio of the two, which is the largest gap for which reading the gap is cheaper than
+     * performing a separate request, but never below the value returned by
+     * {@link #getReadMinimumGapSizeForDomain(Object)}. The plans are rebuilt if the estimate changes significantly.
+     * </p>
+     *
+     * @return true if the minimum gap size should be adapted
+     */
+    protected boolean isReadMinimumGapSizeAdaptive() {
+        return false;
+    }
+
+    /**
+     * Called after each execution of a cached read plan or of a prepared read, if the plan cache is enabled. The
+     * default implementation logs the provided statistics at debug level.
+     *
+     * @param statistics
+     *            the statistics of the executed plan
+     */
+    protected void onPlanExecuted(BlockPlanStatistics statistics) {
+        logger.debug("Read plan executed: {}", statistics);
+    }
+
+    /**
+     * Discards the cached read plans and the learned transfer costs. Implementors must call this method if the
+     * result of {@link #toTasks(List, Mode)}, {@link #getTaskFactoryForDomain(Object, Mode)},
+     * {@link #getReadMinimumGapSizeForDomain(Object)} or {@link #beforeAggregation(Object, Mode, BlockTaskAggregator)}
+     * changes, for example after a configuration update. The plans of existing {@link PreparedRead} instances will be
+     * rebuilt at their next execution.
+     */
+    protected synchronized void invalidatePlans() {
+        this.planGeneration++;
+        this.planCache = null;
+        this.transferCostEstimators.clear();
+    }
+
+    private int getEffectiveReadMinimumGapSize(T domain) {
+        final int configured = getReadMinimumGapSizeForDomain(domain);
+        if (!isReadMinimumGapSizeAdaptive()) {
+            return configured;
+        }
+        final TransferCostEstimator estimator = this.transferCostEstimators.get(domain);
+        if (estimator == null) {
+            return configured;
+        }
+        return Math.max(configured, estimator.getBreakEvenGap(MAXIMUM_ADAPTIVE_GAP_SIZE));
+    }
+
     /**
      * This method is called immediately before an aggregation is performed for the specific domain and mode. This
      * method can be overridden by implementors in order to customize the {@link BlockTaskAggregator} provided as
@@ -160,8 +269,14 @@ public abstract class AbstractBlockDriver<T> implements Driver {
      *             if any exception is thrown during the process
      */
     protected List<BlockTask> optimize(List<ChannelRecord> records, Mode mode) throws KuraException {
+        return aggregate(records, mode, new HashMap<>()).stream().map(pair -> pair.second)
+                .collect(Collectors.toList());
+    }
+
+    private List<Pair<T, BlockTask>> aggregate(List<ChannelRecord> records, Mode mode, Map<T, Integer> gapSizes)
+            throws KuraException {
         try {
-            final ArrayList<BlockTask> resultTasks = new ArrayList<>();
+            final ArrayList<Pair<T, BlockTask>> resultTasks = new ArrayList<>();
             final HashSet<T> domainsWithUpdateTasks = new HashSet<>();
 
             final Function<Pair<T, BlockTask>, T> classifier;
@@ -185,15 +300,17 @@ public abstract class AbstractBlockDriver<T> implements Driver {
                 if (domainsWithUpdateTasks.contains(domain)) {
                     aggregator = new UpdateBlockTaskAggregator(entry.getValue(),
                             getTaskFactoryForDomain(domain, Mode.READ), getTaskFactoryForDomain(domain, Mode.WRITE));
-                    aggregator.setMinimumGapSize(getReadMinimumGapSizeForDomain(domain));
+                    aggregator.setMinimumGapSize(getEffectiveReadMinimumGapSize(domain));
                 } else {
                     aggregator = new BlockTaskAggregator(entry.getValue(), getTaskFactoryForDomain(domain, mode));
                     if (mode == Mode.READ) {
-                        aggregator.setMinimumGapSize(getReadMinimumGapSizeForDomain(domain));
+                        final int gapSize = getEffectiveReadMinimumGapSize(domain);
+                        gapSizes.put(domain, gapSize);
+                        aggregator.setMinimumGapSize(gapSize);
                     }
                 }
                 beforeAggregation(domain, mode, aggregator);
-                aggregator.stream().forEach(resultTasks::add);
+                aggregator.stream().forEach(task -> resultTasks.add(new Pair<>(domain, task)));
             });
 
             return resultTasks;
@@ -217,6 +334,130 @@ public abstract class AbstractBlockDriver<T> implements Driver {
         }
     }
 
+    /**
+     * Returns the maximum number of lanes that can be used for running the tasks of a read operation concurrently.
+     * The default implementation returns 1, disabling parallel execution.
+     * <p>
+     * The read operation holds the lock of this driver while the lanes other than lane 0 run in other threads, the
+     * tasks run by these lanes must therefore never call methods that synchronize on the driver, or the read
+     * operation will deadlock. Implementors returning a value greater than one must also override
+     * {@link #runLane(int, Queue)} for binding each lane to a dedicated client, guarded by its own lock.
+     * </p>
+     *
+     * @return the read parallelism
+     */
+    protected int getReadParallelism() {
+        return 1;
+    }
+
+    /**
+     * <p>
+     * Executes the provided list of {@link BlockTask}s. Implementors can override this method, for example for issuing
+     * the requests of all tasks before waiting for the responses.
+     * </p>
+     * <p>
+     * If {@link #getReadParallelism()} returns a value greater than one and all the provided tasks are in
+     * {@link Mode#READ} mode, the tasks are placed in a shared queue, largest blocks first, and are consumed by up to
+     * {@link #getReadParallelism()} lanes running concurrently, see {@link #runLane(int, Queue)}. Lane 0 runs in the
+     * calling thread, the other lanes run in a thread pool owned by this driver. This method returns when all lanes
+     * have completed. Since each {@link ChannelRecord} is updated only by the tasks of a single
+     * {@link ToplevelBlockTask}, no further merging of the results is required.
+     * </p>
+     * <p>
+     * Otherwise the default implementation calls {@link #runTask(BlockTask)} for each task, in order.
+     * </p>
+     *
+     * @param tasks
+     *            the {@link BlockTask}s to be run
+     */
+    protected void runTasks(List<BlockTask> tasks) {
+        final int parallelism = Math.min(getReadParallelism(), tasks.size());
+
+        if (parallelism <= 1 || !tasks.stream().allMatch(task -> task.getMode() == Mode.READ)) {
+            tasks.forEach(this::runTask);
+            return;
+        }
+
+        final List<BlockTask> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort(Comparator.comparingInt((BlockTask task) -> task.getEnd() - task.getStart()).reversed());
+        final Queue<BlockTask> queue = new ConcurrentLinkedQueue<>(sortedTasks);
+
+        final List<Future<?>> lanes = new ArrayList<>(parallelism - 1);
+        final ExecutorService executor = getLaneExecutor();
+        for (int i = 1; i < parallelism; i++) {
+            final int lane = i;
+            lanes.add(executor.submit(() -> runLane(lane, queue)));
+        }
+
+        runLane(0, queue);
+
+        boolean interrupted = false;
+        for (Future<?> lane : lanes) {
+            while (true) {
+                try {
+                    lane.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    logger.warn("Lane execution failed", e.getCause());
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the tasks of a parallel read operation on the given lane by taking them from the provided queue until it is
+     * empty. Implementors can override this method for binding each lane to a dedicated connection, an implementation
+     * that is not able to serve the lane can return without consuming any task, or stop consuming them, the remaining
+     * tasks will be run by the other lanes. Lane 0 is always run in the thread that invoked the read operation and
+     * must consume the whole queue.
+     * <p>
+     * The default implementation only runs lane 0, the other lanes return without consuming any task since the
+     * tasks of this driver might synchronize on it, see {@link #getReadParallelism()}.
+     * </p>
+     *
+     * @param lane
+     *            the lane index, in the range [0, {@link #getReadParallelism()})
+     * @param tasks
+     *            the shared queue of tasks to be run
+     */
+    protected void runLane(int lane, Queue<BlockTask> tasks) {
+        if (lane != 0) {
+            return;
+        }
+        BlockTask task;
+        while ((task = tasks.poll()) != null) {
+            runTask(task);
+        }
+    }
+
+    private synchronized ExecutorService getLaneExecutor() {
+        if (this.laneExecutor == null) {
+            this.laneExecutor = Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "BlockDriverLane-" + laneThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.laneExecutor;
+    }
+
+    /**
+     * Stops the threads used for running the lanes of parallel read operations, implementors should call this method
+     * when the driver is deactivated. A new thread pool is created if another parallel read operation is performed.
+     */
+    protected synchronized void shutdownLaneExecutor() {
+        if (this.laneExecutor != null) {
+            this.laneExecutor.shutdownNow();
+            this.laneExecutor = null;
+        }
+    }
+
     @Override
     public void registerChannelListener(final Map<String, Object> channelConfig, final ChannelListener listener)
             throws ConnectionException {
@@ -232,7 +473,11 @@ public abstract class AbstractBlockDriver<T> implements Driver {
     public synchronized void read(final List<ChannelRecord> records) throws ConnectionException {
         connect();
         try {
-            optimize(records, Mode.READ).forEach(this::runTask);
+            if (getPlanCacheSize() > 0) {
+                readUsingPlan(records);
+            } else {
+                runTasks(optimize(records, Mode.READ));
+            }
         } catch (Exception e) {
             logger.warn("Unexpected exception during read", e);
             for (ChannelRecord record : records) {
@@ -246,7 +491,7 @@ public abstract class AbstractBlockDriver<T> implements Driver {
     public synchronized void write(final List<ChannelRecord> records) throws ConnectionException {
         connect();
         try {
-            optimize(records, Mode.WRITE).forEach(this::runTask);
+            runTasks(optimize(records, Mode.WRITE));
         } catch (Exception e) {
             logger.warn("Unexpected exception during write", e);
             for (ChannelRecord record : records) {
@@ -256,6 +501,61 @@ public abstract class AbstractBlockDriver<T> implements Driver {
         }
     }
 
+    private void readUsingPlan(final List<ChannelRecord> records) throws KuraException {
+        final List<Object> key = new ArrayList<>(records.size() * 2);
+        for (ChannelRecord record : records) {
+            key.add(record.getChannelConfig());
+            key.add(record.getValueType());
+        }
+
+        if (this.planCache == null) {
+            this.planCache = new LinkedHashMap<List<Object>, BlockPlan>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, BlockPlan> eldest) {
+                    return size() > getPlanCacheSize();
+                }
+            };
+        }
+
+        BlockPlan plan = this.planCache.get(key);
+        if (plan == null) {
+            final List<ChannelRecord> planRecords = new ArrayList<>(records.size());
+            final List<Object> planKey = new ArrayList<>(key.size());
+            for (ChannelRecord record : records) {
+                final Map<String, Object> config = record.getChannelConfig();
+                final ChannelRecord planRecord = ChannelRecord.createReadRecord(record.getChannelName(),
+                        record.getValueType());
+                planRecord.setChannelConfig(config == null ? null : new HashMap<>(config));
+                planRecords.add(planRecord);
+                planKey.add(planRecord.getChannelConfig());
+                planKey.add(planRecord.getValueType());
+            }
+            plan = new BlockPlan(planRecords);
+            plan.build();
+            this.planCache.put(planKey, plan);
+        }
+
+        final long start = System.currentTimeMillis();
+        plan.execute();
+
+        for (int i = 0; i < records.size(); i++) {
+            final ChannelRecord source = plan.records.get(i);
+            final ChannelRecord target = records.get(i);
+            final ChannelStatus status = source.getChannelStatus();
+            if (status != null) {
+                target.setChannelStatus(status);
+            }
+            if ((status == null || status.getChannelFlag() == ChannelFlag.SUCCESS) && source.getValue() != null) {
+                target.setValue(source.getValue());
+            }
+            // records rejected by toTasks() are not updated by the plan executions
+            target.setTimestamp(Math.max(start, source.getTimestamp()));
+        }
+    }
+
     protected PreparedRead createPreparedRead(List<ChannelRecord> records, List<BlockTask> tasks) {
         return new BlockPreparedRead(records, tasks);
     }
@@ -263,6 +563,11 @@ public abstract class AbstractBlockDriver<T> implements Driver {
     @Override
     public synchronized PreparedRead prepareRead(List<ChannelRecord> records) {
         try {
+            if (getPlanCacheSize() > 0) {
+                final BlockPlan plan = new BlockPlan(records);
+                plan.build();
+                return new PlanPreparedRead(plan);
+            }
             return createPreparedRead(records, optimize(records, Mode.READ));
         } catch (KuraException e) {
             for (ChannelRecord record : records) {
@@ -291,9 +596,7 @@ public abstract class AbstractBlockDriver<T> implements Driver {
         public List<ChannelRecord> execute() throws ConnectionException, KuraException {
             synchronized (AbstractBlockDriver.this) {
                 connect();
-                for (BlockTask task : this.tasks) {
-                    runTask(task);
-                }
+                runTasks(this.tasks);
                 return this.records;
             }
         }
@@ -305,6 +608,109 @@ public abstract class AbstractBlockDriver<T> implements Driver {
 
     }
 
+    private final class PlanPreparedRead extends BlockPreparedRead {
+
+        private final BlockPlan plan;
+
+        PlanPreparedRead(BlockPlan plan) {
+            super(plan.records, Collections.emptyList());
+            this.plan = plan;
+        }
+
+        @Override
+        public List<ChannelRecord> execute() throws ConnectionException, KuraException {
+            synchronized (AbstractBlockDriver.this) {
+                connect();
+                this.plan.execute();
+                return this.plan.records;
+            }
+        }
+    }
+
+    /**
+     * The result of the aggregation of a list of records in {@link Mode#READ} mode, together with the information
+     * required for collecting timing metrics and for detecting if it should be rebuilt. Must be used while holding the
+     * driver lock.
+     */
+    private final class BlockPlan {
+
+        private final List<ChannelRecord> records;
+
+        private List<Pair<T, BlockTask>> domainTasks;
+        private List<BlockTask> tasks;
+        private Map<T, Integer> gapSizes;
+        private int generation;
+        private boolean stale;
+
+        private int totalBlockSize;
+        private int buildCount;
+        private long executionCount;
+        private long lastExecutionTime;
+        private long averageExecutionTime;
+        private long maximumExecutionTime;
+
+        BlockPlan(List<ChannelRecord> records) {
+            this.records = records;
+        }
+
+        void build() throws KuraException {
+            this.generation = AbstractBlockDriver.this.planGeneration;
+            this.gapSizes = new HashMap<>();
+            this.domainTasks = aggregate(this.records, Mode.READ, this.gapSizes);
+            this.tasks = this.domainTasks.stream().map(pair -> pair.second).collect(Collectors.toList());
+            this.totalBlockSize = this.tasks.stream().mapToInt(task -> task.getEnd() - task.getStart()).sum();
+            this.stale = false;
+            this.buildCount++;
+        }
+
+        void execute() throws KuraException {
+            if (this.stale || this.generation != AbstractBlockDriver.this.planGeneration) {
+                build();
+            }
+
+            final long start = System.nanoTime();
+            runTasks(this.tasks);
+            final long executionTime = System.nanoTime() - start;
+
+            if (isReadMinimumGapSizeAdaptive()) {
+                adapt();
+            }
+
+            this.executionCount++;
+            this.lastExecutionTime = executionTime;
+            this.averageExecutionTime += (executionTime - this.averageExecutionTime) / this.executionCount;
+            this.maximumExecutionTime = Math.max(this.maximumExecutionTime, executionTime);
+
+            onPlanExecuted(new BlockPlanStatistics(this.records.size(), this.tasks.size(), this.totalBlockSize,
+                    this.executionCount, this.buildCount, this.lastExecutionTime, this.averageExecutionTime,
+                    this.maximumExecutionTime));
+        }
+
+        private void adapt() {
+            for (Pair<T, BlockTask> pair : this.domainTasks) {
+                if (!(pair.second instanceof ToplevelBlockTask)) {
+                    continue;
+                }
+                final ToplevelBlockTask task = (ToplevelBlockTask) pair.second;
+                final long processingTime = task.getLastProcessingTime();
+                if (processingTime >= 0) {
+                    AbstractBlockDriver.this.transferCostEstimators
+                            .computeIfAbsent(pair.first, domain -> new TransferCostEstimator())
+                            .addSample(task.getEnd() - task.getStart(), processingTime);
+                }
+            }
+            for (Map.Entry<T, Integer> entry : this.gapSizes.entrySet()) {
+                final int current = entry.getValue();
+                final int learned = getEffectiveReadMinimumGapSize(entry.getKey());
+                if (Math.abs(learned - current) >= Math.max(MINIMUM_GAP_SIZE_CHANGE, current / 4)) {
+                    logger.debug("Minimum gap size for domain {} changed from {} to {}, rebuilding read plan",
+                            entry.getKey(), current, learned);
+                    this.stale = true;
+                }
+            }
+        }
+    }
+
     public static final class Pair<U, V> {
 
         private final U first;
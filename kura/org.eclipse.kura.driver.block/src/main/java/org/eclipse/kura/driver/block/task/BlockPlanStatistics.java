@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+
+package org.eclipse.kura.driver.block.task;
+
+/**
+ * Timing metrics of a cached read plan, reported by {@link AbstractBlockDriver} after each execution of the plan.
+ * Times are expressed in nanoseconds.
+ */
+public final class BlockPlanStatistics {
+
+    private final int channelCount;
+    private final int requestCount;
+    private final int totalBlockSize;
+    private final long executionCount;
+    private final int buildCount;
+    private final long lastExecutionTime;
+    private final long averageExecutionTime;
+    private final long maximumExecutionTime;
+
+    BlockPlanStatistics(int channelCount, int requestCount, int totalBlockSize, long executionCount, int buildCount,
+            long lastExecutionTime, long averageExecutionTime, long maximumExecutionTime) {
+        this.channelCount = channelCount;
+        this.requestCount = requestCount;
+        this.totalBlockSize = totalBlockSize;
+        this.executionCount = executionCount;
+        this.buildCount = buildCount;
+        this.lastExecutionTime = lastExecutionTime;
+        this.averageExecutionTime = averageExecutionTime;
+        this.maximumExecutionTime = maximumExecutionTime;
+    }
+
+    /**
+     * Returns the number of channels read by the plan.
+     */
+    public int getChannelCount() {
+        return this.channelCount;
+    }
+
+    /**
+     * Returns the number of {@link ToplevelBlockTask}s, and therefore of requests, of the plan.
+     */
+    public int getRequestCount() {
+        return this.requestCount;
+    }
+
+    /**
+     * Returns the sum of the sizes of the {@link ToplevelBlockTask}s of the plan, in block addresses.
+     */
+    public int getTotalBlockSize() {
+        return this.totalBlockSize;
+    }
+
+    /**
+     * Returns the number of times the plan has been executed.
+     */
+    public long getExecutionCount() {
+        return this.executionCount;
+    }
+
+    /**
+     * Returns the number of times the plan has been built, it is greater than one if the plan has been rebuilt
+     * because the minimum gap size has been adapted.
+     */
+    public int getBuildCount() {
+        return this.buildCount;
+    }
+
+    public long getLastExecutionTime() {
+        return this.lastExecutionTime;
+    }
+
+    public long getAverageExecutionTime() {
+        return this.averageExecutionTime;
+    }
+
+    public long getMaximumExecutionTime() {
+        return this.maximumExecutionTime;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockPlanStatistics [channels=" + this.channelCount + ", requests=" + this.requestCount
+                + ", totalBlockSize=" + this.totalBlockSize + ", executions=" + this.executionCount + ", builds="
+                + this.buildCount + ", lastExecutionTime=" + this.lastExecutionTime + ", averageExecutionTime="
+                + this.averageExecutionTime + ", maximumExecutionTime=" + this.maximumExecutionTime + "]";
+    }
+}
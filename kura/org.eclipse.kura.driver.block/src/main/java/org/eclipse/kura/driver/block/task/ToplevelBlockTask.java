@@ -71,6 +71,7 @@ public abstract class ToplevelBlockTask extends BlockTask {
 
     private final ArrayList<BlockTask> children = new ArrayList<>();
     private boolean isAborted;
+    private long lastProcessingTime = -1;
 
     public ToplevelBlockTask(int start, int end, Mode mode) {
         super(start, end, mode);
@@ -155,6 +156,23 @@ public abstract class ToplevelBlockTask extends BlockTask {
         onFailure(exception);
     }
 
+    /**
+     * Returns the time spent in the last successful invocation of {@link #processBuffer()} performed by
+     * {@link #run()}.
+     *
+     * @return the time in nanoseconds, or -1 if the last execution failed or the task has not been run yet
+     */
+    public long getLastProcessingTime() {
+        return this.lastProcessingTime;
+    }
+
+    private void processBufferTimed() throws IOException {
+        this.lastProcessingTime = -1;
+        final long start = System.nanoTime();
+        processBuffer();
+        this.lastProcessingTime = System.nanoTime() - start;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -162,11 +180,11 @@ public abstract class ToplevelBlockTask extends BlockTask {
     public void run() throws IOException {
         try {
             if (getMode() == Mode.READ) {
-                processBuffer();
+                processBufferTimed();
                 runChildren();
             } else {
                 runChildren();
-                processBuffer();
+                processBufferTimed();
                 onSuccess();
             }
         } catch (Exception e) {
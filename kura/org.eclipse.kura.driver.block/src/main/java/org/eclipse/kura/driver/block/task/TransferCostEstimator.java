@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+
+package org.eclipse.kura.driver.block.task;
+
+/**
+ * Estimates the cost of the transfers performed on a domain as a linear function of the block size,
+ * {@code cost = overhead + size * costPerAddress}, using a least squares fit with exponential forgetting of the
+ * observed (size, duration) samples.
+ * <p>
+ * Reading a gap between two blocks costs {@code gap * costPerAddress}, while performing a separate request costs
+ * {@code overhead}. The ratio of the two is the largest gap for which merging the blocks is convenient.
+ */
+final class TransferCostEstimator {
+
+    private static final double DECAY = 0.95;
+    private static final double MINIMUM_WEIGHT = 4;
+
+    private double weight;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+
+    void addSample(final int size, final long duration) {
+        this.weight = this.weight * DECAY + 1;
+        this.sumX = this.sumX * DECAY + size;
+        this.sumY = this.sumY * DECAY + duration;
+        this.sumXX = this.sumXX * DECAY + (double) size * size;
+        this.sumXY = this.sumXY * DECAY + (double) size * duration;
+    }
+
+    /**
+     * Returns the largest gap for which merging two blocks is cheaper than performing two requests.
+     *
+     * @return the gap in block addresses, or -1 if not enough samples with different sizes have been collected or if
+     *         they do not fit the model
+     */
+    int getBreakEvenGap(final int maximum) {
+        if (this.weight < MINIMUM_WEIGHT) {
+            return -1;
+        }
+        final double denominator = this.weight * this.sumXX - this.sumX * this.sumX;
+        if (denominator <= 1e-6 * this.weight * this.sumXX) {
+            return -1;
+        }
+        final double costPerAddress = (this.weight * this.sumXY - this.sumX * this.sumY) / denominator;
+        final double overhead = (this.sumY - costPerAddress * this.sumX) / this.weight;
+        if (overhead <= 0) {
+            return 0;
+        }
+        if (costPerAddress <= 0) {
+            return maximum;
+        }
+        return (int) Math.min(maximum, overhead / costPerAddress);
+    }
+}
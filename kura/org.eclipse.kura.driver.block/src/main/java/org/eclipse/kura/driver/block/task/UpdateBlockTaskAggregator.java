@@ -105,6 +105,16 @@ public class UpdateBlockTaskAggregator extends BlockTaskAggregator {
         this.readTaskAggregator.setMinimumGapSize(minimumGapSize);
     }
 
+    /**
+     * Sets the {@code maximumSize} that will be used for aggregating both the {@link ToplevelBlockTask} tasks
+     * in {@link Mode#READ} mode and the ones in {@link Mode#WRITE} mode.
+     */
+    @Override
+    public void setMaximumSize(int maximumSize) {
+        super.setMaximumSize(maximumSize);
+        this.readTaskAggregator.setMaximumSize(maximumSize);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+import java.util.List;
+
+import org.eclipse.kura.core.configuration.metatype.Tad;
+import org.eclipse.kura.core.configuration.metatype.Toption;
+import org.eclipse.kura.core.configuration.metatype.Tscalar;
+import org.eclipse.kura.driver.ChannelDescriptor;
+import org.eclipse.kura.util.collection.CollectionUtil;
+
+/**
+ * Modbus specific channel descriptor. The descriptor contains the following
+ * attribute definition identifiers.
+ *
+ * <ul>
+ * <li>unit.id</li> the Modbus unit identifier
+ * <li>primary.table</li> the primary table, see {@link ModbusTable}
+ * <li>memory.address</li> the zero based address in the primary table, all the registers of a multi register value
+ * must be within the table
+ * <li>data.type</li> the data type, see {@link ModbusDataType}
+ * <li>bit.index</li> the index of the bit in the register, for the {@link ModbusDataType#BIT} data type
+ * </ul>
+ */
+public final class ModbusChannelDescriptor implements ChannelDescriptor {
+
+    public static final String UNIT_ID = "unit.id";
+    public static final String PRIMARY_TABLE_ID = "primary.table";
+    public static final String MEMORY_ADDRESS_ID = "memory.address";
+    public static final String DATA_TYPE_ID = "data.type";
+    public static final String BIT_INDEX_ID = "bit.index";
+
+    private static Toption generateOption(Enum<?> value) {
+        Toption option = new Toption();
+        option.setLabel(value.name());
+        option.setValue(value.name());
+        return option;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object getDescriptor() {
+        final List<Tad> elements = CollectionUtil.newArrayList();
+
+        final Tad unitId = new Tad();
+        unitId.setName(UNIT_ID);
+        unitId.setId(UNIT_ID);
+        unitId.setDescription("Modbus unit identifier");
+        unitId.setType(Tscalar.INTEGER);
+        unitId.setRequired(true);
+        unitId.setMin("0");
+        unitId.setMax("255");
+        unitId.setDefault("1");
+
+        elements.add(unitId);
+
+        final Tad primaryTable = new Tad();
+        primaryTable.setName(PRIMARY_TABLE_ID);
+        primaryTable.setId(PRIMARY_TABLE_ID);
+        primaryTable.setDescription("Modbus primary table");
+        primaryTable.setType(Tscalar.STRING);
+        primaryTable.setRequired(true);
+        primaryTable.setDefault(ModbusTable.HOLDING_REGISTERS.name());
+
+        for (ModbusTable t : ModbusTable.values()) {
+            primaryTable.setOption(generateOption(t));
+        }
+
+        elements.add(primaryTable);
+
+        final Tad memoryAddress = new Tad();
+        memoryAddress.setName(MEMORY_ADDRESS_ID);
+        memoryAddress.setId(MEMORY_ADDRESS_ID);
+        memoryAddress.setDescription("Zero based address in the primary table");
+        memoryAddress.setType(Tscalar.INTEGER);
+        memoryAddress.setRequired(true);
+        memoryAddress.setMin("0");
+        memoryAddress.setMax("65535");
+        memoryAddress.setDefault("0");
+
+        elements.add(memoryAddress);
+
+        final Tad dataType = new Tad();
+        dataType.setName(DATA_TYPE_ID);
+        dataType.setId(DATA_TYPE_ID);
+        dataType.setDescription("Modbus data type, BOOL must be used for coils and discrete inputs");
+        dataType.setType(Tscalar.STRING);
+        dataType.setRequired(true);
+        dataType.setDefault(ModbusDataType.INT16.name());
+
+        for (ModbusDataType t : ModbusDataType.values()) {
+            dataType.setOption(generateOption(t));
+        }
+
+        elements.add(dataType);
+
+        final Tad bitIndex = new Tad();
+        bitIndex.setName(BIT_INDEX_ID);
+        bitIndex.setId(BIT_INDEX_ID);
+        bitIndex.setDescription("Index of the bit in the register, only used by the BIT data type");
+        bitIndex.setType(Tscalar.INTEGER);
+        bitIndex.setRequired(true);
+        bitIndex.setMin("0");
+        bitIndex.setMax("15");
+        bitIndex.setDefault("0");
+
+        elements.add(bitIndex);
+
+        return elements;
+    }
+
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+/**
+ * The data types supported by the driver. Multi register values are stored with the most significant register first.
+ * {@link #BOOL} is the only type supported by coils and discrete inputs, {@link #BIT} refers to a single bit of a
+ * register.
+ */
+public enum ModbusDataType {
+
+    BOOL,
+    BIT,
+    INT16,
+    UINT16,
+    INT32,
+    UINT32,
+    INT64,
+    FLOAT,
+    DOUBLE
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the set of channels that can be served by the same Modbus requests: the channels of a domain refer to
+ * the same unit and primary table, and therefore to the same read and write function codes.
+ */
+public class ModbusDomain {
+
+    private final int unitId;
+    private final ModbusTable table;
+
+    public ModbusDomain(int unitId, ModbusTable table) {
+        requireNonNull(table);
+        this.unitId = unitId;
+        this.table = table;
+    }
+
+    public int getUnitId() {
+        return unitId;
+    }
+
+    public ModbusTable getTable() {
+        return table;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * unitId + table.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ModbusDomain other = (ModbusDomain) obj;
+        return unitId == other.unitId && table == other.table;
+    }
+
+    @Override
+    public String toString() {
+        return "unit: " + unitId + " table: " + table;
+    }
+}
@@ -0,0 +1,487 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import org.eclipse.kura.KuraConnectionStatus;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.configuration.ConfigurableComponent;
+import org.eclipse.kura.driver.ChannelDescriptor;
+import org.eclipse.kura.driver.block.BlockFactory;
+import org.eclipse.kura.driver.block.task.AbstractBlockDriver;
+import org.eclipse.kura.driver.block.task.BlockTask;
+import org.eclipse.kura.driver.block.task.BlockTaskAggregator;
+import org.eclipse.kura.driver.block.task.Mode;
+import org.eclipse.kura.driver.block.task.ToplevelBlockTask;
+import org.eclipse.kura.internal.driver.modbus.ModbusOptions.ConnectionType;
+import org.eclipse.kura.internal.driver.modbus.task.ModbusTaskBuilder;
+import org.eclipse.kura.internal.driver.modbus.task.ModbusToplevelBlockTask;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolDevice;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolDeviceService;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolErrorCode;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolException;
+import org.eclipse.kura.usb.UsbService;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.io.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Kura ModbusDriver is a Modbus TCP and RTU Driver implementation for Kura Asset-Driver
+ * Topology.<br/>
+ * <br/>
+ *
+ * The channels are grouped by unit identifier and primary table, the channels of each group are served by as few
+ * requests as possible: adjacent addresses, and addresses closer than the configured minimum gap size, are read with
+ * a single request as long as the maximum PDU length is not exceeded.<br/>
+ * <br/>
+ *
+ * Modbus TCP connections are served by a {@link ModbusTcpTransport}: if the configured pipeline depth is greater
+ * than one, the requests of a read operation are sent without waiting for the previous responses, so that the time
+ * required for a read is not bounded by the sum of the device round trip times.<br/>
+ * <br/>
+ *
+ * The required properties are enlisted in {@link ModbusChannelDescriptor} and
+ * the driver connection specific properties are enlisted in
+ * {@link ModbusOptions}
+ *
+ * @see ModbusChannelDescriptor
+ * @see ModbusOptions
+ */
+public final class ModbusDriver extends AbstractBlockDriver<ModbusDomain> implements ConfigurableComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusDriver.class);
+
+    private static final int PLAN_CACHE_SIZE = 16;
+
+    private ModbusProtocolDeviceService modbus;
+
+    private ModbusTcpTransport transport;
+
+    private boolean connected;
+
+    private ModbusOptions options;
+
+    private ConnectionFactory connectionFactory;
+
+    private UsbService usbService;
+
+    public void setConnectionFactory(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void unsetConnectionFactory(ConnectionFactory connectionFactory) {
+        this.connectionFactory = null;
+    }
+
+    public void setUsbService(UsbService usbService) {
+        this.usbService = usbService;
+    }
+
+    public void unsetUsbService(UsbService usbService) {
+        this.usbService = null;
+    }
+
+    protected synchronized void activate(final ComponentContext componentContext,
+            final Map<String, Object> properties) {
+        logger.debug("Activating Modbus Driver...");
+        requireNonNull(properties, "Properties cannot be null");
+        logger.debug("Activating Modbus Driver... Done");
+    }
+
+    protected synchronized void deactivate(final ComponentContext componentContext) {
+        logger.debug("Deactivating Modbus Driver...");
+        try {
+            this.disconnect();
+        } catch (final ConnectionException e) {
+            logger.error("Error while disconnecting", e);
+        }
+        logger.debug("Deactivating Modbus Driver... Done");
+    }
+
+    public synchronized void updated(final Map<String, Object> properties) {
+        logger.debug("Updating Modbus Driver...");
+        requireNonNull(properties, "Properties cannot be null");
+        this.options = new ModbusOptions(properties);
+        invalidatePlans();
+        if (this.connected) {
+            try {
+                logger.info("Reconnecting after configuration update...");
+                disconnect();
+                connect();
+            } catch (ConnectionException e) {
+                logger.warn("Unable to reconnect after configuration update", e);
+            }
+        }
+        logger.debug("Updating Modbus Driver... Done");
+    }
+
+    private ModbusProtocolDeviceService createModbusDevice() {
+        final ModbusProtocolDevice device = new ModbusProtocolDevice();
+        device.setConnectionFactory(this.connectionFactory);
+        device.setUsbService(this.usbService);
+        return device;
+    }
+
+    @Override
+    public synchronized void connect() throws ConnectionException {
+        if (this.connected) {
+            return;
+        }
+        logger.debug("Connecting...");
+        if (this.options.getConnectionType() == ConnectionType.TCP) {
+            try {
+                this.transport = ModbusTcpTransport.open(this.options.getIp(), this.options.getPort(),
+                        this.options.getPipelineDepth(), this.options.getResponseTimeout());
+            } catch (Exception e) {
+                throw new ConnectionException("Unable to connect", e);
+            }
+            this.connected = true;
+            logger.debug("Connecting... Done");
+            return;
+        }
+        if (this.modbus == null) {
+            this.modbus = createModbusDevice();
+        }
+        try {
+            this.modbus.configureConnection(this.options.getConnectionConfig());
+            this.modbus.connect();
+        } catch (Exception e) {
+            closeDevice();
+            throw new ConnectionException("Unable to connect", e);
+        }
+        if (this.modbus.getConnectStatus() != KuraConnectionStatus.CONNECTED) {
+            closeDevice();
+            throw new ConnectionException("Unable to connect");
+        }
+        this.connected = true;
+        logger.debug("Connecting... Done");
+    }
+
+    @Override
+    public synchronized void disconnect() throws ConnectionException {
+        if (this.connected) {
+            logger.debug("Disconnecting...");
+            this.connected = false;
+            closeDevice();
+            logger.debug("Disconnecting... Done");
+        }
+    }
+
+    private void closeDevice() {
+        if (this.transport != null) {
+            this.transport.close();
+            this.transport = null;
+            return;
+        }
+        if (this.modbus == null) {
+            return;
+        }
+        try {
+            this.modbus.disconnect();
+        } catch (ModbusProtocolException e) {
+            logger.warn("Error while closing the connection", e);
+        }
+    }
+
+    @Override
+    protected int getReadMinimumGapSizeForDomain(ModbusDomain domain) {
+        return this.options.getMinimumGapSize() * domain.getTable().getElementSize();
+    }
+
+    @Override
+    protected void beforeAggregation(ModbusDomain domain, Mode mode, BlockTaskAggregator aggregator) {
+        aggregator.setMaximumSize(domain.getTable().getMaximumBlockSize(mode, this.options.getMaximumPduLength()));
+    }
+
+    @Override
+    protected int getPlanCacheSize() {
+        return PLAN_CACHE_SIZE;
+    }
+
+    @Override
+    protected BlockFactory<ToplevelBlockTask> getTaskFactoryForDomain(final ModbusDomain domain, final Mode mode) {
+        return (start, end) -> new ModbusToplevelBlockTask(ModbusDriver.this, mode, domain, start, end);
+    }
+
+    @Override
+    protected Stream<Pair<ModbusDomain, BlockTask>> toTasks(List<ChannelRecord> records, Mode mode) {
+        return ModbusTaskBuilder.build(records, mode);
+    }
+
+    @Override
+    public ChannelDescriptor getChannelDescriptor() {
+        return new ModbusChannelDescriptor();
+    }
+
+    @Override
+    protected void runTask(BlockTask task) {
+        try {
+            task.run();
+        } catch (ModbusIOException e) {
+            handleModbusIOException(e);
+        } catch (Exception e) {
+            logger.warn("Unexpected exception", e);
+        }
+    }
+
+    @Override
+    protected void runTasks(List<BlockTask> tasks) {
+        if (this.transport != null && this.options.getPipelineDepth() > 1 && tasks.stream()
+                .allMatch(task -> task instanceof ModbusToplevelBlockTask && task.getMode() == Mode.READ)) {
+            for (BlockTask task : tasks) {
+                ((ModbusToplevelBlockTask) task).sendRequest();
+            }
+        }
+        super.runTasks(tasks);
+    }
+
+    private void handleModbusIOException(ModbusIOException e) {
+        logger.warn("Modbus request failed", e);
+        if (e.isConnectionProblem()) {
+            logger.warn("Connection problems detected, disconnecting");
+            try {
+                disconnect();
+            } catch (ConnectionException e1) {
+                logger.warn("Error while disconnecting", e1);
+            }
+        }
+    }
+
+    /**
+     * Reads a block of elements from a primary table.
+     *
+     * @param domain
+     *            the unit and primary table to read from
+     * @param address
+     *            the address of the first element
+     * @param data
+     *            the destination buffer, it must contain one byte for each coil or discrete input and two bytes for
+     *            each register, registers are stored in big endian order
+     * @throws IOException
+     *             if the request fails
+     */
+    public synchronized void read(ModbusDomain domain, int address, byte[] data) throws IOException {
+        if (this.transport != null) {
+            awaitResponse(domain, address, data, sendRead(domain, address, data));
+            return;
+        }
+        final int unitId = domain.getUnitId();
+        try {
+            switch (domain.getTable()) {
+            case COILS:
+                fromBits(this.modbus.readCoils(unitId, address, data.length), data);
+                break;
+            case DISCRETE_INPUTS:
+                fromBits(this.modbus.readDiscreteInputs(unitId, address, data.length), data);
+                break;
+            case INPUT_REGISTERS:
+                fromRegisters(this.modbus.readInputRegisters(unitId, address, data.length / 2), data);
+                break;
+            case HOLDING_REGISTERS:
+                fromRegisters(this.modbus.readHoldingRegisters(unitId, address, data.length / 2), data);
+                break;
+            default:
+                throw new IllegalArgumentException();
+            }
+        } catch (ModbusProtocolException e) {
+            throw new ModbusIOException(domain + " address: " + address + " length: " + data.length, e,
+                    isDeviceConnectionProblem(e.getCode()));
+        }
+    }
+
+    /**
+     * Writes a block of elements to a primary table.
+     *
+     * @param domain
+     *            the unit and primary table to write to, it must be writable
+     * @param address
+     *            the address of the first element
+     * @param data
+     *            the data to be written, in the same format used by {@link #read(ModbusDomain, int, byte[])}
+     * @throws IOException
+     *             if the request fails
+     */
+    public synchronized void write(ModbusDomain domain, int address, byte[] data) throws IOException {
+        if (this.transport != null) {
+            awaitResponse(domain, address, data, sendWrite(domain, address, data));
+            return;
+        }
+        final int unitId = domain.getUnitId();
+        try {
+            switch (domain.getTable()) {
+            case COILS:
+                this.modbus.writeMultipleCoils(unitId, address, toBits(data));
+                break;
+            case HOLDING_REGISTERS:
+                this.modbus.writeMultipleRegister(unitId, address, toRegisters(data));
+                break;
+            default:
+                throw new IOException(domain.getTable() + " cannot be written");
+            }
+        } catch (ModbusProtocolException e) {
+            throw new ModbusIOException(domain + " address: " + address + " length: " + data.length, e,
+                    isDeviceConnectionProblem(e.getCode()));
+        }
+    }
+
+    /**
+     * Sends a read request on the Modbus TCP connection without waiting for the response.
+     *
+     * @param domain
+     *            the unit and primary table to read from
+     * @param address
+     *            the address of the first element
+     * @param data
+     *            the destination buffer, in the format described by {@link #read(ModbusDomain, int, byte[])}, it
+     *            will be filled when the returned future completes
+     * @return a future to be passed to {@link #awaitResponse(ModbusDomain, int, byte[], CompletableFuture)}
+     */
+    public synchronized CompletableFuture<Void> sendRead(ModbusDomain domain, int address, byte[] data) {
+        final ModbusTable table = domain.getTable();
+        return send(domain, ModbusPdu.readRequest(table, address, data), pdu -> ModbusPdu.readResponse(table, pdu, data));
+    }
+
+    /**
+     * Sends a write request on the Modbus TCP connection without waiting for the response.
+     *
+     * @param domain
+     *            the unit and primary table to write to, it must be writable
+     * @param address
+     *            the address of the first element
+     * @param data
+     *            the data to be written, in the format described by {@link #read(ModbusDomain, int, byte[])}
+     * @return a future to be passed to {@link #awaitResponse(ModbusDomain, int, byte[], CompletableFuture)}
+     */
+    public synchronized CompletableFuture<Void> sendWrite(ModbusDomain domain, int address, byte[] data) {
+        final ModbusTable table = domain.getTable();
+        if (!table.isWritable()) {
+            final CompletableFuture<Void> result = new CompletableFuture<>();
+            result.completeExceptionally(new IOException(table + " cannot be written"));
+            return result;
+        }
+        final byte[] request = ModbusPdu.writeRequest(table, address, data);
+        return send(domain, request, pdu -> ModbusPdu.writeResponse(table, request, pdu));
+    }
+
+    private CompletableFuture<Void> send(ModbusDomain domain, byte[] request, ResponseHandler handler) {
+        if (this.transport == null) {
+            final CompletableFuture<Void> result = new CompletableFuture<>();
+            result.completeExceptionally(new ModbusProtocolException(ModbusProtocolErrorCode.NOT_CONNECTED));
+            return result;
+        }
+        return this.transport.send(domain.getUnitId(), request).thenAccept(pdu -> {
+            try {
+                handler.handle(pdu);
+            } catch (ModbusProtocolException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Waits for the completion of a request sent using {@link #sendRead(ModbusDomain, int, byte[])} or
+     * {@link #sendWrite(ModbusDomain, int, byte[])}, for at most the configured response timeout.
+     *
+     * @throws IOException
+     *             if the request fails
+     */
+    public void awaitResponse(ModbusDomain domain, int address, byte[] data, CompletableFuture<Void> response)
+            throws IOException {
+        final String message = domain + " address: " + address + " length: " + data.length;
+        try {
+            response.get(this.options.getResponseTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ModbusIOException(message,
+                    new ModbusProtocolException(ModbusProtocolErrorCode.RESPONSE_TIMEOUT), true);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ModbusProtocolException) {
+                final ModbusProtocolErrorCode code = ((ModbusProtocolException) cause).getCode();
+                throw new ModbusIOException(message, cause, code == ModbusProtocolErrorCode.NOT_CONNECTED
+                        || code == ModbusProtocolErrorCode.RESPONSE_TIMEOUT);
+            }
+            throw new ModbusIOException(message, cause, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusIOException(message, e, false);
+        }
+    }
+
+    private static boolean isDeviceConnectionProblem(final ModbusProtocolErrorCode code) {
+        return code == ModbusProtocolErrorCode.NOT_CONNECTED || code == ModbusProtocolErrorCode.CONNECTION_FAILURE
+                || code == ModbusProtocolErrorCode.TRANSACTION_FAILURE
+                || code == ModbusProtocolErrorCode.RESPONSE_TIMEOUT;
+    }
+
+    private static void fromBits(boolean[] bits, byte[] data) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (bits[i] ? 1 : 0);
+        }
+    }
+
+    private static boolean[] toBits(byte[] data) {
+        final boolean[] bits = new boolean[data.length];
+        for (int i = 0; i < data.length; i++) {
+            bits[i] = data[i] != 0;
+        }
+        return bits;
+    }
+
+    private static void fromRegisters(int[] registers, byte[] data) {
+        for (int i = 0; i < registers.length; i++) {
+            data[2 * i] = (byte) (registers[i] >> 8);
+            data[2 * i + 1] = (byte) registers[i];
+        }
+    }
+
+    private static int[] toRegisters(byte[] data) {
+        final int[] registers = new int[data.length / 2];
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (data[2 * i] & 0xff) << 8 | data[2 * i + 1] & 0xff;
+        }
+        return registers;
+    }
+
+    private interface ResponseHandler {
+
+        public void handle(byte[] pdu) throws ModbusProtocolException;
+    }
+
+    @SuppressWarnings("serial")
+    private static class ModbusIOException extends IOException {
+
+        private final boolean connectionProblem;
+
+        public ModbusIOException(String message, Throwable cause, boolean connectionProblem) {
+            super(message + " error: " + (cause instanceof ModbusProtocolException
+                    ? ((ModbusProtocolException) cause).getCode() : cause.getMessage()), cause);
+            this.connectionProblem = connectionProblem;
+        }
+
+        public boolean isConnectionProblem() {
+            return this.connectionProblem;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.kura.protocol.modbus.ModbusProtocolDevice;
+import org.eclipse.kura.protocol.modbus.ModbusTransmissionMode;
+
+final class ModbusOptions {
+
+    enum ConnectionType {
+        TCP,
+        RTU
+    }
+
+    private static final String CONNECTION_TYPE_PROP_NAME = "connection.type";
+    private static final String IP_PROP_NAME = "host.ip";
+    private static final String PORT_PROP_NAME = "host.port";
+    private static final String SERIAL_PORT_PROP_NAME = "serial.port";
+    private static final String BAUD_RATE_PROP_NAME = "serial.baud.rate";
+    private static final String DATA_BITS_PROP_NAME = "serial.data.bits";
+    private static final String STOP_BITS_PROP_NAME = "serial.stop.bits";
+    private static final String PARITY_PROP_NAME = "serial.parity";
+    private static final String RESPONSE_TIMEOUT_PROP_NAME = "response.timeout";
+    private static final String MINIMUM_GAP_SIZE_PROP_NAME = "read.minimum.gap.size";
+    private static final String MAXIMUM_PDU_LENGTH_PROP_NAME = "maximum.pdu.length";
+    private static final String PIPELINE_DEPTH_PROP_NAME = "pipeline.depth";
+
+    private static final String CONNECTION_TYPE_DEFAULT = ConnectionType.TCP.name();
+    private static final String IP_DEFAULT = "";
+    private static final int PORT_DEFAULT = 502;
+    private static final String SERIAL_PORT_DEFAULT = "/dev/ttyUSB0";
+    private static final int BAUD_RATE_DEFAULT = 9600;
+    private static final int DATA_BITS_DEFAULT = 8;
+    private static final int STOP_BITS_DEFAULT = 1;
+    private static final int PARITY_DEFAULT = 0;
+    private static final int RESPONSE_TIMEOUT_DEFAULT = 1000;
+    private static final int MINIMUM_GAP_SIZE_DEFAULT = 0;
+    private static final int MAXIMUM_PDU_LENGTH_DEFAULT = 253;
+    private static final int PIPELINE_DEPTH_DEFAULT = 1;
+    private static final int PIPELINE_DEPTH_MAX = 16;
+
+    /** The smallest PDU able to carry a single write multiple registers request */
+    private static final int MAXIMUM_PDU_LENGTH_MIN = 8;
+
+    private final Map<String, Object> properties;
+
+    ModbusOptions(final Map<String, Object> properties) {
+        this.properties = properties;
+    }
+
+    ConnectionType getConnectionType() {
+        return ConnectionType
+                .valueOf((String) properties.getOrDefault(CONNECTION_TYPE_PROP_NAME, CONNECTION_TYPE_DEFAULT));
+    }
+
+    String getIp() {
+        return (String) properties.getOrDefault(IP_PROP_NAME, IP_DEFAULT);
+    }
+
+    int getPort() {
+        return (Integer) properties.getOrDefault(PORT_PROP_NAME, PORT_DEFAULT);
+    }
+
+    String getSerialPort() {
+        return (String) properties.getOrDefault(SERIAL_PORT_PROP_NAME, SERIAL_PORT_DEFAULT);
+    }
+
+    int getBaudRate() {
+        return (Integer) properties.getOrDefault(BAUD_RATE_PROP_NAME, BAUD_RATE_DEFAULT);
+    }
+
+    int getDataBits() {
+        return (Integer) properties.getOrDefault(DATA_BITS_PROP_NAME, DATA_BITS_DEFAULT);
+    }
+
+    int getStopBits() {
+        return (Integer) properties.getOrDefault(STOP_BITS_PROP_NAME, STOP_BITS_DEFAULT);
+    }
+
+    int getParity() {
+        return (Integer) properties.getOrDefault(PARITY_PROP_NAME, PARITY_DEFAULT);
+    }
+
+    int getResponseTimeout() {
+        return (Integer) properties.getOrDefault(RESPONSE_TIMEOUT_PROP_NAME, RESPONSE_TIMEOUT_DEFAULT);
+    }
+
+    /**
+     * Returns the minimum gap size for read requests, expressed in coils or registers.
+     */
+    int getMinimumGapSize() {
+        return (Integer) properties.getOrDefault(MINIMUM_GAP_SIZE_PROP_NAME, MINIMUM_GAP_SIZE_DEFAULT);
+    }
+
+    int getMaximumPduLength() {
+        final int length = (Integer) properties.getOrDefault(MAXIMUM_PDU_LENGTH_PROP_NAME,
+                MAXIMUM_PDU_LENGTH_DEFAULT);
+        return Math.min(MAXIMUM_PDU_LENGTH_DEFAULT, Math.max(MAXIMUM_PDU_LENGTH_MIN, length));
+    }
+
+    /**
+     * Returns the maximum number of outstanding requests on a Modbus TCP connection.
+     */
+    int getPipelineDepth() {
+        final int depth = (Integer) properties.getOrDefault(PIPELINE_DEPTH_PROP_NAME, PIPELINE_DEPTH_DEFAULT);
+        return Math.min(PIPELINE_DEPTH_MAX, Math.max(1, depth));
+    }
+
+    /**
+     * Returns the connection configuration in the format expected by
+     * {@link ModbusProtocolDevice#configureConnection(Properties)}.
+     */
+    Properties getConnectionConfig() {
+        final Properties config = new Properties();
+        config.setProperty("transmissionMode", ModbusTransmissionMode.RTU);
+        config.setProperty("respTimeout", Integer.toString(getResponseTimeout()));
+        if (getConnectionType() == ConnectionType.TCP) {
+            config.setProperty("connectionType", ModbusProtocolDevice.PROTOCOL_CONNECTION_TYPE_ETHER_TCP);
+            config.setProperty("ipAddress", getIp());
+            config.setProperty("ethport", Integer.toString(getPort()));
+        } else {
+            config.setProperty("connectionType", ModbusProtocolDevice.PROTOCOL_CONNECTION_TYPE_SERIAL);
+            config.setProperty("port", getSerialPort());
+            config.setProperty("baudRate", Integer.toString(getBaudRate()));
+            config.setProperty("bitsPerWord", Integer.toString(getDataBits()));
+            config.setProperty("stopBits", Integer.toString(getStopBits()));
+            config.setProperty("parity", Integer.toString(getParity()));
+        }
+        return config;
+    }
+}
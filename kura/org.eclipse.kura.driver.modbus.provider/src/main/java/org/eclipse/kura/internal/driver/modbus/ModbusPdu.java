@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+import org.eclipse.kura.protocol.modbus.ModbusProtocolErrorCode;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolException;
+
+/**
+ * Encodes and decodes the Modbus PDUs of the read and write multiple requests used by the driver. The data is
+ * represented in the same format used by {@link ModbusDriver#read(ModbusDomain, int, byte[])}: one byte per coil or
+ * discrete input and two big endian bytes per register.
+ */
+final class ModbusPdu {
+
+    private static final int EXCEPTION_FLAG = 0x80;
+
+    private ModbusPdu() {
+    }
+
+    static byte[] readRequest(final ModbusTable table, final int address, final byte[] data) {
+        final int count = data.length / table.getElementSize();
+        return new byte[] { (byte) table.getReadFunctionCode(), (byte) (address >> 8), (byte) address,
+                (byte) (count >> 8), (byte) count };
+    }
+
+    static byte[] writeRequest(final ModbusTable table, final int address, final byte[] data) {
+        final int count = data.length / table.getElementSize();
+        final int byteCount = table.isRegisterTable() ? data.length : (count + 7) / 8;
+
+        final byte[] pdu = new byte[6 + byteCount];
+        pdu[0] = (byte) table.getWriteFunctionCode();
+        pdu[1] = (byte) (address >> 8);
+        pdu[2] = (byte) address;
+        pdu[3] = (byte) (count >> 8);
+        pdu[4] = (byte) count;
+        pdu[5] = (byte) byteCount;
+
+        if (table.isRegisterTable()) {
+            System.arraycopy(data, 0, pdu, 6, data.length);
+        } else {
+            for (int i = 0; i < count; i++) {
+                if (data[i] != 0) {
+                    pdu[6 + i / 8] |= 1 << i % 8;
+                }
+            }
+        }
+        return pdu;
+    }
+
+    static void readResponse(final ModbusTable table, final byte[] pdu, final byte[] data)
+            throws ModbusProtocolException {
+        checkFunctionCode(pdu, table.getReadFunctionCode());
+
+        final int count = data.length / table.getElementSize();
+        final int byteCount = table.isRegisterTable() ? data.length : (count + 7) / 8;
+
+        if (pdu.length != byteCount + 2 || (pdu[1] & 0xff) != byteCount) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.INVALID_DATA_LENGTH,
+                    "expected " + byteCount + " bytes");
+        }
+
+        if (table.isRegisterTable()) {
+            System.arraycopy(pdu, 2, data, 0, data.length);
+        } else {
+            for (int i = 0; i < count; i++) {
+                data[i] = (byte) (pdu[2 + i / 8] >> i % 8 & 1);
+            }
+        }
+    }
+
+    static void writeResponse(final ModbusTable table, final byte[] request, final byte[] pdu)
+            throws ModbusProtocolException {
+        checkFunctionCode(pdu, table.getWriteFunctionCode());
+
+        if (pdu.length != 5) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.INVALID_DATA_LENGTH, "expected 5 bytes");
+        }
+        for (int i = 1; i < 5; i++) {
+            if (pdu[i] != request[i]) {
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                        "address or quantity mismatch");
+            }
+        }
+    }
+
+    private static void checkFunctionCode(final byte[] pdu, final int functionCode) throws ModbusProtocolException {
+        if (pdu.length < 2) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.INVALID_DATA_LENGTH, "response too short");
+        }
+        final int responseCode = pdu[0] & 0xff;
+        if (responseCode == (functionCode | EXCEPTION_FLAG)) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "exception code " + (pdu[1] & 0xff));
+        }
+        if (responseCode != functionCode) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "unexpected function code " + responseCode);
+        }
+    }
+}
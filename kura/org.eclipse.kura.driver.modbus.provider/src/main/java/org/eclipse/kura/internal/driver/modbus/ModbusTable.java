@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+import org.eclipse.kura.driver.block.task.Mode;
+import org.eclipse.kura.protocol.modbus.ModbusFunctionCodes;
+
+/**
+ * The Modbus primary tables. The addresses of the tables are mapped to the block addresses used by the driver as
+ * follows: each coil or discrete input takes one byte, each register takes two bytes.
+ */
+public enum ModbusTable {
+
+    COILS(1, 2000, 1968, ModbusFunctionCodes.READ_COIL_STATUS, ModbusFunctionCodes.FORCE_MULTIPLE_COILS),
+    DISCRETE_INPUTS(1, 2000, 0, ModbusFunctionCodes.READ_INPUT_STATUS, 0),
+    INPUT_REGISTERS(2, 125, 0, ModbusFunctionCodes.READ_INPUT_REGS, 0),
+    HOLDING_REGISTERS(2, 125, 123, ModbusFunctionCodes.READ_HOLDING_REGS, ModbusFunctionCodes.PRESET_MULTIPLE_REGS);
+
+    /** Size of the function code and of the byte count fields of a read response */
+    private static final int READ_RESPONSE_HEADER_SIZE = 2;
+
+    /** Size of the function code, address, quantity and byte count fields of a write request */
+    private static final int WRITE_REQUEST_HEADER_SIZE = 6;
+
+    private final int elementSize;
+    private final int maximumReadCount;
+    private final int maximumWriteCount;
+    private final int readFunctionCode;
+    private final int writeFunctionCode;
+
+    private ModbusTable(final int elementSize, final int maximumReadCount, final int maximumWriteCount,
+            final int readFunctionCode, final int writeFunctionCode) {
+        this.elementSize = elementSize;
+        this.maximumReadCount = maximumReadCount;
+        this.maximumWriteCount = maximumWriteCount;
+        this.readFunctionCode = readFunctionCode;
+        this.writeFunctionCode = writeFunctionCode;
+    }
+
+    /**
+     * Returns the number of block addresses occupied by a single element of this table.
+     *
+     * @return 1 for coils and discrete inputs, 2 for registers
+     */
+    public int getElementSize() {
+        return this.elementSize;
+    }
+
+    public boolean isRegisterTable() {
+        return this.elementSize == 2;
+    }
+
+    public boolean isWritable() {
+        return this.maximumWriteCount > 0;
+    }
+
+    /**
+     * Returns the function code used for reading multiple elements from this table.
+     */
+    public int getReadFunctionCode() {
+        return this.readFunctionCode;
+    }
+
+    /**
+     * Returns the function code used for writing multiple elements to this table, or 0 if the table is not writable.
+     */
+    public int getWriteFunctionCode() {
+        return this.writeFunctionCode;
+    }
+
+    /**
+     * Returns the maximum size in block addresses of a single request on this table, given the maximum length of
+     * the Modbus PDU. The result never exceeds the quantity limits defined by the Modbus specification.
+     *
+     * @param mode
+     *            the request {@link Mode}
+     * @param maximumPduLength
+     *            the maximum length in bytes of a Modbus PDU
+     * @return the maximum block size
+     */
+    public int getMaximumBlockSize(final Mode mode, final int maximumPduLength) {
+        final int limit;
+        final int payloadSize;
+        if (mode == Mode.READ) {
+            limit = this.maximumReadCount;
+            payloadSize = maximumPduLength - READ_RESPONSE_HEADER_SIZE;
+        } else {
+            limit = this.maximumWriteCount;
+            payloadSize = maximumPduLength - WRITE_REQUEST_HEADER_SIZE;
+        }
+        final int count = isRegisterTable() ? payloadSize / 2 : payloadSize * 8;
+        return Math.max(1, Math.min(limit, count)) * this.elementSize;
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kura.protocol.modbus.ModbusProtocolErrorCode;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Modbus TCP transport that allows multiple outstanding requests on a single connection.<br/>
+ * <br/>
+ *
+ * Requests are written to the socket as soon as a slot is available, up to the configured pipeline depth, without
+ * waiting for the previous responses. A dedicated thread reads whole frames into a reusable {@link ByteBuffer} and
+ * matches them to the pending requests using the MBAP transaction identifier, responses can therefore be received
+ * in any order.<br/>
+ * <br/>
+ *
+ * The futures returned by {@link #send(int, byte[])} are completed exceptionally with an {@link IOException} if the
+ * connection is lost and with a {@link ModbusProtocolException} if the device returns an unexpected response. The
+ * futures are completed by the reader thread, callers should not perform blocking operations in dependent stages.
+ */
+final class ModbusTcpTransport implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusTcpTransport.class);
+
+    private static final int MBAP_HEADER_SIZE = 7;
+    private static final int MAXIMUM_PDU_LENGTH = 253;
+
+    private final SocketChannel channel;
+    private final Semaphore slots;
+    private final long timeout;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(MBAP_HEADER_SIZE + MAXIMUM_PDU_LENGTH);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(MBAP_HEADER_SIZE + MAXIMUM_PDU_LENGTH);
+
+    private final Map<Integer, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    private final Thread reader;
+
+    private int nextTransactionId;
+    private volatile boolean closed;
+
+    private ModbusTcpTransport(final SocketChannel channel, final int depth, final long timeout) {
+        this.channel = channel;
+        this.slots = new Semaphore(depth);
+        this.timeout = timeout;
+        this.reader = new Thread(this::readResponses, "ModbusTcpTransport " + channel.socket().getRemoteSocketAddress());
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Opens a new connection.
+     *
+     * @param host
+     *            the device host name or address
+     * @param port
+     *            the device port
+     * @param depth
+     *            the maximum number of outstanding requests
+     * @param timeout
+     *            the timeout in milliseconds used for connecting and for waiting for a free request slot
+     * @return the connected transport
+     * @throws IOException
+     *             if the connection cannot be established
+     */
+    static ModbusTcpTransport open(final String host, final int port, final int depth, final int timeout)
+            throws IOException {
+        return open(new InetSocketAddress(host, port), depth, timeout);
+    }
+
+    static ModbusTcpTransport open(final SocketAddress address, final int depth, final int timeout)
+            throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().connect(address, timeout);
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        final ModbusTcpTransport transport = new ModbusTcpTransport(channel, depth, timeout);
+        transport.reader.start();
+        return transport;
+    }
+
+    /**
+     * Sends a request, waiting for a free slot if the maximum number of outstanding requests has been reached.
+     *
+     * @param unitId
+     *            the unit identifier
+     * @param pdu
+     *            the request PDU
+     * @return a future that will be completed with the response PDU
+     */
+    CompletableFuture<byte[]> send(final int unitId, final byte[] pdu) {
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+        try {
+            if (!this.slots.tryAcquire(this.timeout, TimeUnit.MILLISECONDS)) {
+                result.completeExceptionally(
+                        new ModbusProtocolException(ModbusProtocolErrorCode.RESPONSE_TIMEOUT, "no free request slot"));
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        result.whenComplete((response, ex) -> this.slots.release());
+
+        try {
+            synchronized (this.writeBuffer) {
+                if (this.closed) {
+                    throw new IOException("Connection closed");
+                }
+                final int transactionId = this.nextTransactionId;
+                this.nextTransactionId = this.nextTransactionId + 1 & 0xffff;
+
+                this.pendingRequests.put(transactionId, new PendingRequest(unitId, result));
+
+                this.writeBuffer.clear();
+                this.writeBuffer.putShort((short) transactionId);
+                this.writeBuffer.putShort((short) 0);
+                this.writeBuffer.putShort((short) (pdu.length + 1));
+                this.writeBuffer.put((byte) unitId);
+                this.writeBuffer.put(pdu);
+                this.writeBuffer.flip();
+
+                while (this.writeBuffer.hasRemaining()) {
+                    this.channel.write(this.writeBuffer);
+                }
+            }
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+            close(e);
+        }
+
+        return result;
+    }
+
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    @Override
+    public void close() {
+        close(new IOException("Connection closed"));
+    }
+
+    private void close(final Exception cause) {
+        synchronized (this.writeBuffer) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing the channel", e);
+        }
+        final IOException failure = cause instanceof IOException ? (IOException) cause
+                : new IOException("Connection closed", cause);
+        final Iterator<PendingRequest> iterator = this.pendingRequests.values().iterator();
+        while (iterator.hasNext()) {
+            final PendingRequest request = iterator.next();
+            iterator.remove();
+            request.response.completeExceptionally(failure);
+        }
+    }
+
+    private void readResponses() {
+        try {
+            while (!this.closed) {
+                this.readBuffer.clear();
+                this.readBuffer.limit(MBAP_HEADER_SIZE);
+                readFully();
+
+                final int transactionId = this.readBuffer.getShort(0) & 0xffff;
+                final int protocolId = this.readBuffer.getShort(2) & 0xffff;
+                final int length = this.readBuffer.getShort(4) & 0xffff;
+                final int unitId = this.readBuffer.get(6) & 0xff;
+
+                if (protocolId != 0 || length < 2 || length > MAXIMUM_PDU_LENGTH + 1) {
+                    throw new IOException("Invalid MBAP header, protocol id: " + protocolId + " length: " + length);
+                }
+
+                this.readBuffer.limit(MBAP_HEADER_SIZE + length - 1);
+                readFully();
+
+                final byte[] pdu = new byte[length - 1];
+                this.readBuffer.position(MBAP_HEADER_SIZE);
+                this.readBuffer.get(pdu);
+
+                final PendingRequest request = this.pendingRequests.remove(transactionId);
+                if (request == null) {
+                    logger.debug("Discarding response with unknown transaction id {}", transactionId);
+                } else if (request.unitId != unitId) {
+                    request.response.completeExceptionally(new ModbusProtocolException(
+                            ModbusProtocolErrorCode.TRANSACTION_FAILURE, "unexpected unit id " + unitId));
+                } else {
+                    request.response.complete(pdu);
+                }
+            }
+        } catch (Exception e) {
+            if (!this.closed) {
+                logger.warn("Error while reading Modbus responses", e);
+            }
+            close(e);
+        }
+    }
+
+    private void readFully() throws IOException {
+        while (this.readBuffer.hasRemaining()) {
+            if (this.channel.read(this.readBuffer) < 0) {
+                throw new EOFException("Connection closed by the device");
+            }
+        }
+    }
+
+    private static final class PendingRequest {
+
+        private final int unitId;
+        private final CompletableFuture<byte[]> response;
+
+        PendingRequest(final int unitId, final CompletableFuture<byte[]> response) {
+            this.unitId = unitId;
+            this.response = response;
+        }
+    }
+}
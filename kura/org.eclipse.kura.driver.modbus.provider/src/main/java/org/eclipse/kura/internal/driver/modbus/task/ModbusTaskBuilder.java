@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus.task;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.eclipse.kura.KuraErrorCode;
+import org.eclipse.kura.KuraException;
+import org.eclipse.kura.channel.ChannelFlag;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.channel.ChannelStatus;
+import org.eclipse.kura.driver.binary.BinaryData;
+import org.eclipse.kura.driver.binary.BinaryDataTypes;
+import org.eclipse.kura.driver.block.task.AbstractBlockDriver.Pair;
+import org.eclipse.kura.driver.block.task.BinaryDataTask;
+import org.eclipse.kura.driver.block.task.BitTask;
+import org.eclipse.kura.driver.block.task.BlockTask;
+import org.eclipse.kura.driver.block.task.Mode;
+import org.eclipse.kura.internal.driver.modbus.ModbusChannelDescriptor;
+import org.eclipse.kura.internal.driver.modbus.ModbusDataType;
+import org.eclipse.kura.internal.driver.modbus.ModbusDomain;
+import org.eclipse.kura.internal.driver.modbus.ModbusTable;
+import org.eclipse.kura.type.DataType;
+
+public final class ModbusTaskBuilder {
+
+    private static final int MAX_ADDRESS = 0xffff;
+
+    private ModbusTaskBuilder() {
+    }
+
+    private static int getIntProperty(ChannelRecord record, String propertyName, int min, int max)
+            throws KuraException {
+        final int value;
+        try {
+            value = Integer.parseInt(record.getChannelConfig().get(propertyName).toString());
+        } catch (Exception e) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, "Error retrieving " + propertyName);
+        }
+        if (value < min || value > max) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR,
+                    propertyName + " must be in the range [" + min + ", " + max + "]");
+        }
+        return value;
+    }
+
+    private static <E extends Enum<E>> E getEnumProperty(ChannelRecord record, String propertyName, Class<E> type)
+            throws KuraException {
+        try {
+            return Enum.valueOf(type, record.getChannelConfig().get(propertyName).toString());
+        } catch (Exception e) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, "Error retrieving " + propertyName);
+        }
+    }
+
+    private static void assertChannelType(ChannelRecord record, DataType channelType) throws KuraException {
+        if (channelType != record.getValueType()) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, "Channel value type must be " + channelType);
+        }
+    }
+
+    private static ModbusDomain getDomain(ChannelRecord record, Mode mode) throws KuraException {
+        final int unitId = getIntProperty(record, ModbusChannelDescriptor.UNIT_ID, 0, 255);
+        final ModbusTable table = getEnumProperty(record, ModbusChannelDescriptor.PRIMARY_TABLE_ID,
+                ModbusTable.class);
+        if (mode == Mode.WRITE && !table.isWritable()) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, table + " cannot be written");
+        }
+        return new ModbusDomain(unitId, table);
+    }
+
+    private static BlockTask build(ChannelRecord record, ModbusTable table, Mode mode) throws KuraException {
+
+        final int address = getIntProperty(record, ModbusChannelDescriptor.MEMORY_ADDRESS_ID, 0, MAX_ADDRESS);
+        final ModbusDataType dataType = getEnumProperty(record, ModbusChannelDescriptor.DATA_TYPE_ID,
+                ModbusDataType.class);
+
+        if (!table.isRegisterTable()) {
+            if (dataType != ModbusDataType.BOOL) {
+                throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR,
+                        table + " only supports the BOOL data type");
+            }
+            assertChannelType(record, DataType.BOOLEAN);
+            return new ModbusCoilTask(record, address, mode);
+        }
+
+        final int offset = address * table.getElementSize();
+
+        switch (dataType) {
+        case BIT:
+            assertChannelType(record, DataType.BOOLEAN);
+            final int bitIndex = getIntProperty(record, ModbusChannelDescriptor.BIT_INDEX_ID, 0, 15);
+            // registers are big endian, the high byte comes first
+            final int byteOffset = bitIndex < 8 ? offset + 1 : offset;
+            return new BitTask(record, byteOffset, bitIndex % 8, mode == Mode.WRITE ? Mode.UPDATE : Mode.READ);
+        case INT16:
+            return newRegisterTask(record, table, address, BinaryDataTypes.INT16_BE, mode);
+        case UINT16:
+            return newRegisterTask(record, table, address, BinaryDataTypes.UINT16_BE, mode);
+        case INT32:
+            return newRegisterTask(record, table, address, BinaryDataTypes.INT32_BE, mode);
+        case UINT32:
+            return newRegisterTask(record, table, address, BinaryDataTypes.UINT32_BE, mode);
+        case INT64:
+            return newRegisterTask(record, table, address, BinaryDataTypes.INT64_BE, mode);
+        case FLOAT:
+            return newRegisterTask(record, table, address, BinaryDataTypes.FLOAT_BE, mode);
+        case DOUBLE:
+            return newRegisterTask(record, table, address, BinaryDataTypes.DOUBLE_BE, mode);
+        default:
+            throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR,
+                    dataType + " is not supported by " + table + ", use BIT for single bits of a register");
+        }
+    }
+
+    private static <T> BlockTask newRegisterTask(ChannelRecord record, ModbusTable table, int address,
+            BinaryData<T> binaryDataType, Mode mode) throws KuraException {
+        final int registerCount = binaryDataType.getSize() / table.getElementSize();
+        if (address + registerCount - 1 > MAX_ADDRESS) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR,
+                    "The " + registerCount + " registers starting at " + ModbusChannelDescriptor.MEMORY_ADDRESS_ID
+                            + " " + address + " exceed the last register address " + MAX_ADDRESS);
+        }
+        return new BinaryDataTask<>(record, address * table.getElementSize(), binaryDataType, record.getValueType(),
+                mode);
+    }
+
+    public static Stream<Pair<ModbusDomain, BlockTask>> build(List<ChannelRecord> records, Mode mode) {
+        return records.stream().map(record -> {
+            try {
+                final ModbusDomain domain = getDomain(record, mode);
+                return new Pair<>(domain, build(record, domain.getTable(), mode));
+            } catch (Exception e) {
+                record.setTimestamp(System.currentTimeMillis());
+                record.setChannelStatus(new ChannelStatus(ChannelFlag.FAILURE, e.getMessage(), e));
+                return null;
+            }
+        }).filter(Objects::nonNull);
+    }
+
+}
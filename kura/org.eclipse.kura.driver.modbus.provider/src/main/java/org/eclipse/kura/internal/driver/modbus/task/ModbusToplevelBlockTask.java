@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+
+package org.eclipse.kura.internal.driver.modbus.task;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.kura.driver.binary.Buffer;
+import org.eclipse.kura.driver.binary.ByteArrayBuffer;
+import org.eclipse.kura.driver.block.task.Mode;
+import org.eclipse.kura.driver.block.task.ToplevelBlockTask;
+import org.eclipse.kura.internal.driver.modbus.ModbusDomain;
+import org.eclipse.kura.internal.driver.modbus.ModbusDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Performs a single Modbus request covering the addresses of this block, using the function code determined by the
+ * primary table of the {@link ModbusDomain} and by the {@link Mode}. On Modbus TCP connections the request can be
+ * sent in advance using {@link #sendRequest()}, in this case {@link #processBuffer()} only waits for the response.
+ */
+public class ModbusToplevelBlockTask extends ToplevelBlockTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusToplevelBlockTask.class);
+
+    private final ModbusDomain domain;
+    private final ModbusDriver driver;
+    private ByteArrayBuffer data;
+    private CompletableFuture<Void> response;
+
+    public ModbusToplevelBlockTask(ModbusDriver driver, Mode mode, ModbusDomain domain, int start, int end) {
+        super(start, end, mode);
+        this.domain = domain;
+        this.driver = driver;
+    }
+
+    public ModbusDomain getDomain() {
+        return this.domain;
+    }
+
+    /**
+     * Returns the address of the first element of this block in the primary table.
+     */
+    public int getAddress() {
+        return getStart() / this.domain.getTable().getElementSize();
+    }
+
+    /**
+     * Sends the read request of this block without waiting for the response.
+     */
+    public void sendRequest() {
+        final byte[] buffer = ((ByteArrayBuffer) getBuffer()).getBackingArray();
+        logger.debug("Sending read request, {} address: {} length: {}", this.domain, getAddress(), buffer.length);
+        this.response = this.driver.sendRead(this.domain, getAddress(), buffer);
+    }
+
+    @Override
+    public void processBuffer() throws IOException {
+        final byte[] buffer = ((ByteArrayBuffer) getBuffer()).getBackingArray();
+        if (this.response != null) {
+            final CompletableFuture<Void> pendingResponse = this.response;
+            this.response = null;
+            this.driver.awaitResponse(this.domain, getAddress(), buffer, pendingResponse);
+        } else if (getMode() == Mode.READ) {
+            logger.debug("Reading from device, {} address: {} length: {}", this.domain, getAddress(), buffer.length);
+            this.driver.read(this.domain, getAddress(), buffer);
+        } else {
+            logger.debug("Writing to device, {} address: {} length: {}", this.domain, getAddress(), buffer.length);
+            this.driver.write(this.domain, getAddress(), buffer);
+        }
+    }
+
+    @Override
+    public Buffer getBuffer() {
+        if (this.data == null) {
+            this.data = new ByteArrayBuffer(new byte[getEnd() - getStart()]);
+        }
+        return this.data;
+    }
+
+}
@@ -69,6 +69,9 @@ public interface OpcUaMessages {
     @En("Properties cannot be null")
     public String propertiesNonNull();
 
+    @En("Channel Listener cannot be null")
+    public String listenerNonNull();
+
     @En("OPC-UA Read Operation Failed")
     public String readFailed();
 
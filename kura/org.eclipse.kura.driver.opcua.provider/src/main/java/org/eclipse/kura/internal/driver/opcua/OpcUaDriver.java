@@ -15,7 +15,6 @@ package org.eclipse.kura.internal.driver.opcua;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
-import static org.eclipse.kura.KuraErrorCode.OPERATION_NOT_SUPPORTED;
 import static org.eclipse.kura.channel.ChannelFlag.FAILURE;
 import static org.eclipse.kura.channel.ChannelFlag.SUCCESS;
 
@@ -26,13 +25,14 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
-import org.eclipse.kura.KuraRuntimeException;
 import org.eclipse.kura.channel.ChannelFlag;
 import org.eclipse.kura.channel.ChannelRecord;
 import org.eclipse.kura.channel.ChannelStatus;
@@ -53,13 +53,19 @@ import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig;
 import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfigBuilder;
 import org.eclipse.milo.opcua.sdk.client.api.nodes.VariableNode;
 import org.eclipse.milo.opcua.stack.client.UaTcpStackClient;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,7 +74,8 @@ import io.netty.util.internal.StringUtil;
 /**
  * The Class {@link OpcUaDriver} is an OPC-UA Driver implementation for Kura Asset-Driver
  * Topology. Currently it only supports reading and writing from/to a specific
- * node. As of now, it doesn't support method execution or history read.
+ * node and monitoring nodes for changes using a subscription. As of now, it
+ * doesn't support method execution or history read.
  * <br/>
  * <br/>
  * This OPC-UA Driver can be used in cooperation with Kura Asset Model and in
@@ -104,6 +111,12 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
 
     private final AtomicBoolean isBusy = new AtomicBoolean();
 
+    /** Maximum number of nodes in a single Read request as advertised by the server, 0 if unlimited */
+    private volatile int maxNodesPerRead;
+
+    /** Notifies the registered Channel Listeners */
+    private final OpcUaListenerManager listenerManager = new OpcUaListenerManager();
+
     private <U> U runSafe(final Future<U> future) throws ExecutionException, InterruptedException, TimeoutException {
         try {
             return future.get(this.options.getRequestTimeout(), TimeUnit.MILLISECONDS);
@@ -198,6 +211,8 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
             logger.debug("Connecting...");
             newClient = new OpcUaClient(clientConfigBuilder.build());
             this.client = (OpcUaClient) runSafe(newClient.connect());
+            this.maxNodesPerRead = readMaxNodesPerRead(this.client);
+            this.listenerManager.onConnected(this.client, this.options);
 
             logger.info(message.connectingDone());
         } catch (final Exception e) {
@@ -233,6 +248,7 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
         }
         try {
             logger.info(message.disconnecting());
+            this.listenerManager.onDisconnected();
             shutdownClient(this.client);
             this.client = null;
             logger.info(message.disconnectingDone());
@@ -271,7 +287,7 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
         return new OpcUaChannelDescriptor();
     }
 
-    private Optional<TypedValue<?>> getTypedValue(final DataType expectedValueType, final Object containedValue) {
+    static Optional<TypedValue<?>> getTypedValue(final DataType expectedValueType, final Object containedValue) {
         try {
             switch (expectedValueType) {
             case LONG:
@@ -296,7 +312,48 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
         }
     }
 
-    private Object extractValue(final DataValue value) {
+    /**
+     * Returns the function converting the values read from the server to the provided type. Values which already
+     * have the Java type of the data type are wrapped directly, the others are converted by
+     * {@link #getTypedValue(DataType, Object)}.
+     *
+     * @param expectedValueType
+     *            the expected data type
+     * @return the conversion function
+     */
+    static Function<Object, Optional<TypedValue<?>>> getValueConverter(final DataType expectedValueType) {
+        if (isNull(expectedValueType)) {
+            return value -> Optional.empty();
+        }
+        switch (expectedValueType) {
+        case LONG:
+            return value -> value instanceof Long ? typed(TypedValues.newLongValue((Long) value))
+                    : getTypedValue(expectedValueType, value);
+        case FLOAT:
+            return value -> value instanceof Float ? typed(TypedValues.newFloatValue((Float) value))
+                    : getTypedValue(expectedValueType, value);
+        case DOUBLE:
+            return value -> value instanceof Double ? typed(TypedValues.newDoubleValue((Double) value))
+                    : getTypedValue(expectedValueType, value);
+        case INTEGER:
+            return value -> value instanceof Integer ? typed(TypedValues.newIntegerValue((Integer) value))
+                    : getTypedValue(expectedValueType, value);
+        case BOOLEAN:
+            return value -> value instanceof Boolean ? typed(TypedValues.newBooleanValue((Boolean) value))
+                    : getTypedValue(expectedValueType, value);
+        case STRING:
+            return value -> value instanceof String ? typed(TypedValues.newStringValue((String) value))
+                    : getTypedValue(expectedValueType, value);
+        default:
+            return value -> getTypedValue(expectedValueType, value);
+        }
+    }
+
+    private static Optional<TypedValue<?>> typed(final TypedValue<?> value) {
+        return Optional.of(value);
+    }
+
+    static Object extractValue(final DataValue value) {
         final Variant variant = value.getValue();
         requireNonNull(variant, message.errorNullVariant());
 
@@ -305,38 +362,77 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
         return result;
     }
 
-    private void checkStatus(final StatusCode status) throws IOException {
+    private static void checkStatus(final StatusCode status) throws IOException {
         requireNonNull(status, message.errorNullStatus());
         if (!status.isGood()) {
             throw new IOException(message.errorBadResultStatus(status.getValue()));
         }
     }
 
-    private void runReadRequest(OpcUaRequestInfo requestInfo) {
-        ChannelRecord record = requestInfo.channelRecord;
-        final VariableNode node = this.client.getAddressSpace().createVariableNode(requestInfo.nodeId);
-        Object readResult = null;
+    /**
+     * Reads the OperationLimits/MaxNodesPerRead property of the server.
+     *
+     * @return the maximum number of nodes per Read request, 0 if unlimited or unknown
+     */
+    private int readMaxNodesPerRead(final OpcUaClient client) {
         try {
-            logger.debug("reading:  namespace index: {} node id: {}", requestInfo.nodeNamespaceIndex,
-                    requestInfo.nodeId);
-            readResult = extractValue(runSafe(node.readValue()));
-            logger.debug("Read Successful");
+            final ReadValueId readValueId = new ReadValueId(
+                    Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerRead, AttributeId.Value.uid(),
+                    null, QualifiedName.NULL_VALUE);
+            final DataValue[] results = runSafe(
+                    client.read(0, TimestampsToReturn.Neither, Collections.singletonList(readValueId))).getResults();
+            final Object value = extractValue(results[0]);
+            if (value instanceof Number) {
+                logger.debug("MaxNodesPerRead: {}", value);
+                return ((Number) value).intValue();
+            }
         } catch (final Exception e) {
-            record.setChannelStatus(new ChannelStatus(ChannelFlag.FAILURE, message.readFailed(), e));
-            record.setTimestamp(System.currentTimeMillis());
-            logger.warn(message.readFailed(), e);
-            return;
+            logger.debug("Unable to read MaxNodesPerRead, assuming no limit", e);
         }
+        return 0;
+    }
 
-        final Optional<TypedValue<?>> typedValue = this.getTypedValue(requestInfo.dataType, readResult);
-        if (!typedValue.isPresent()) {
-            record.setChannelStatus(new ChannelStatus(FAILURE, message.errorValueTypeConversion(), null));
-            record.setTimestamp(System.currentTimeMillis());
+    /**
+     * Reads the values of the provided nodes using a Read request for every {@link #maxNodesPerRead} nodes. All the
+     * requests are sent before waiting for the responses.
+     *
+     * @param requestInfos
+     *            the requests, with the records to be updated with the results
+     * @param readValueIds
+     *            the {@link ReadValueId}s of the requests, in the same order
+     */
+    private void runReadRequests(final List<OpcUaRequestInfo> requestInfos, final List<ReadValueId> readValueIds) {
+        final int count = readValueIds.size();
+        if (count == 0) {
             return;
         }
-        record.setValue(typedValue.get());
-        record.setChannelStatus(new ChannelStatus(SUCCESS));
-        record.setTimestamp(System.currentTimeMillis());
+        final int chunkSize = this.maxNodesPerRead > 0 ? this.maxNodesPerRead : count;
+
+        final List<CompletableFuture<ReadResponse>> responses = new ArrayList<>();
+        for (int start = 0; start < count; start += chunkSize) {
+            logger.debug("reading {} nodes", Math.min(chunkSize, count - start));
+            responses.add(this.client.read(0, TimestampsToReturn.Neither,
+                    readValueIds.subList(start, Math.min(start + chunkSize, count))));
+        }
+
+        for (int i = 0; i < responses.size(); i++) {
+            final int start = i * chunkSize;
+            final int end = Math.min(start + chunkSize, count);
+            try {
+                final DataValue[] results = runSafe(responses.get(i)).getResults();
+                for (int j = start; j < end; j++) {
+                    final int index = j - start;
+                    requestInfos.get(j).setReadResult(
+                            nonNull(results) && index < results.length ? results[index] : null);
+                }
+                logger.debug("Read Successful");
+            } catch (final Exception e) {
+                logger.warn(message.readFailed(), e);
+                for (int j = start; j < end; j++) {
+                    requestInfos.get(j).setReadFailure(e);
+                }
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -348,22 +444,44 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
         if (isNull(this.client)) {
             this.connect();
         }
+        final List<OpcUaRequestInfo> requestInfos = new ArrayList<>(records.size());
+        final List<ReadValueId> readValueIds = new ArrayList<>(records.size());
         for (final ChannelRecord record : records) {
-            OpcUaRequestInfo.extract(record).ifPresent(this::runReadRequest);
+            OpcUaRequestInfo.extract(record).ifPresent(requestInfo -> {
+                requestInfos.add(requestInfo);
+                readValueIds.add(requestInfo.readValueId);
+            });
         }
+        runReadRequests(requestInfos, readValueIds);
     }
 
     /** {@inheritDoc} */
     @Override
     public void registerChannelListener(final Map<String, Object> channelConfig, final ChannelListener listener)
             throws ConnectionException {
-        throw new KuraRuntimeException(OPERATION_NOT_SUPPORTED);
+        requireNonNull(channelConfig, message.propertiesNonNull());
+        requireNonNull(listener, message.listenerNonNull());
+        if (this.isBusy.get()) {
+            throw new ConnectionException(message.errorDriverBusy());
+        }
+        if (isNull(this.client)) {
+            this.connect();
+        }
+        try {
+            this.listenerManager.register(channelConfig, listener);
+        } catch (final ExecutionException | TimeoutException e) {
+            throw new ConnectionException(e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException(e);
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public void unregisterChannelListener(final ChannelListener listener) throws ConnectionException {
-        throw new KuraRuntimeException(OPERATION_NOT_SUPPORTED);
+        requireNonNull(listener, message.listenerNonNull());
+        this.listenerManager.unregister(listener);
     }
 
     /**
@@ -382,6 +500,13 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
             }
         }
         this.extractProperties(properties);
+        if (this.listenerManager.hasListeners()) {
+            try {
+                connect();
+            } catch (final ConnectionException e) {
+                logger.error(message.connectionProblem(), e);
+            }
+        }
         logger.debug("Updating OPC-UA Driver... Done");
     }
 
@@ -423,6 +548,8 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
         private final int nodeNamespaceIndex;
         private final NodeId nodeId;
         private final ChannelRecord channelRecord;
+        private final ReadValueId readValueId;
+        private final Function<Object, Optional<TypedValue<?>>> valueConverter;
 
         public OpcUaRequestInfo(final ChannelRecord channelRecord, final DataType dataType,
                 final int nodeNamespaceIndex, final NodeId nodeId) {
@@ -430,6 +557,40 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
             this.nodeNamespaceIndex = nodeNamespaceIndex;
             this.nodeId = nodeId;
             this.channelRecord = channelRecord;
+            this.readValueId = new ReadValueId(nodeId, AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+            this.valueConverter = getValueConverter(dataType);
+        }
+
+        /**
+         * Updates the channel record with the result of the read.
+         *
+         * @param value
+         *            the value returned by the server, null if missing
+         */
+        void setReadResult(final DataValue value) {
+            final Object readResult;
+            try {
+                requireNonNull(value, message.errorNullResult());
+                checkStatus(value.getStatusCode());
+                readResult = extractValue(value);
+            } catch (final Exception e) {
+                setReadFailure(e);
+                return;
+            }
+
+            final Optional<TypedValue<?>> typedValue = this.valueConverter.apply(readResult);
+            if (!typedValue.isPresent()) {
+                fail(this.channelRecord, message.errorValueTypeConversion());
+                return;
+            }
+            this.channelRecord.setValue(typedValue.get());
+            this.channelRecord.setChannelStatus(new ChannelStatus(SUCCESS));
+            this.channelRecord.setTimestamp(System.currentTimeMillis());
+        }
+
+        void setReadFailure(final Exception e) {
+            this.channelRecord.setChannelStatus(new ChannelStatus(ChannelFlag.FAILURE, message.readFailed(), e));
+            this.channelRecord.setTimestamp(System.currentTimeMillis());
         }
 
         private static void fail(final ChannelRecord record, final String message) {
@@ -483,7 +644,10 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
         preparedRead.channelRecords = channelRecords;
 
         for (ChannelRecord record : channelRecords) {
-            OpcUaRequestInfo.extract(record).ifPresent(preparedRead.requestInfos::add);
+            OpcUaRequestInfo.extract(record).ifPresent(requestInfo -> {
+                preparedRead.requestInfos.add(requestInfo);
+                preparedRead.readValueIds.add(requestInfo.readValueId);
+            });
         }
         return preparedRead;
     }
@@ -491,6 +655,7 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
     private class OpcUaPreparedRead implements PreparedRead {
 
         private List<OpcUaRequestInfo> requestInfos = new ArrayList<>();
+        private List<ReadValueId> readValueIds = new ArrayList<>();
         private volatile List<ChannelRecord> channelRecords;
 
         @Override
@@ -502,9 +667,7 @@ public final class OpcUaDriver implements Driver, ConfigurableComponent {
                 OpcUaDriver.this.connect();
             }
 
-            for (OpcUaRequestInfo requestInfo : requestInfos) {
-                OpcUaDriver.this.runReadRequest(requestInfo);
-            }
+            OpcUaDriver.this.runReadRequests(this.requestInfos, this.readValueIds);
 
             return Collections.unmodifiableList(channelRecords);
         }
@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Eurotech
+ */
+package org.eclipse.kura.internal.driver.opcua;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+import static org.eclipse.kura.channel.ChannelFlag.FAILURE;
+import static org.eclipse.kura.channel.ChannelFlag.SUCCESS;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.channel.ChannelStatus;
+import org.eclipse.kura.channel.listener.ChannelEvent;
+import org.eclipse.kura.channel.listener.ChannelListener;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class {@link OpcUaListenerManager} notifies the {@link ChannelListener}s registered on the
+ * {@link OpcUaDriver} using a single OPC-UA subscription, with a monitored item for each listener. The server
+ * reports the value of the node only when it changes, so the listeners are notified without polling.
+ * <br/>
+ * <br/>
+ * The registrations survive the disconnection of the driver: the subscription and the monitored items are created
+ * again by {@link #onConnected(OpcUaClient, OpcUaOptions)}.
+ */
+final class OpcUaListenerManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpcUaListenerManager.class);
+
+    /** Channel configuration property containing the channel name, as defined by the Asset */
+    private static final String CHANNEL_NAME = "+name";
+
+    /** Channel configuration property containing the channel value type, as defined by the Asset */
+    private static final String CHANNEL_VALUE_TYPE = "+value.type";
+
+    private final Map<ChannelListener, Registration> registrations = new LinkedHashMap<>();
+
+    private final AtomicInteger clientHandles = new AtomicInteger();
+
+    private OpcUaClient client;
+
+    private OpcUaOptions options;
+
+    private UaSubscription subscription;
+
+    /**
+     * Registers the listener and starts monitoring the node referenced by the channel configuration if the driver is
+     * connected. The listener is not registered if the monitored item cannot be created.
+     *
+     * @param channelConfig
+     *            the channel configuration
+     * @param listener
+     *            the {@link ChannelListener}
+     * @throws IllegalArgumentException
+     *             if the channel configuration is not valid
+     * @throws ExecutionException
+     *             if the monitored item cannot be created
+     * @throws InterruptedException
+     *             if interrupted while waiting for the server
+     * @throws TimeoutException
+     *             if the server does not reply in time
+     */
+    synchronized void register(final Map<String, Object> channelConfig, final ChannelListener listener)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        requireNonNull(channelConfig);
+        requireNonNull(listener);
+
+        final Registration registration = new Registration(channelConfig, listener);
+        final Registration previous = this.registrations.put(listener, registration);
+        if (nonNull(previous)) {
+            deleteMonitoredItems(Collections.singletonList(previous));
+        }
+        if (nonNull(this.client)) {
+            boolean created = false;
+            try {
+                createMonitoredItems(Collections.singletonList(registration));
+                created = true;
+            } finally {
+                if (!created) {
+                    // otherwise the failed registration would be monitored again on every reconnection
+                    this.registrations.remove(listener);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unregisters the listener and stops monitoring the related node.
+     *
+     * @param listener
+     *            the {@link ChannelListener}
+     */
+    synchronized void unregister(final ChannelListener listener) {
+        final Registration registration = this.registrations.remove(listener);
+        if (nonNull(registration)) {
+            deleteMonitoredItems(Collections.singletonList(registration));
+        }
+        if (this.registrations.isEmpty()) {
+            deleteSubscription();
+        }
+    }
+
+    /**
+     * Creates the subscription and the monitored items for the registered listeners on the newly connected client.
+     *
+     * @param client
+     *            the connected {@link OpcUaClient}
+     * @param options
+     *            the current {@link OpcUaOptions}
+     */
+    synchronized void onConnected(final OpcUaClient client, final OpcUaOptions options) {
+        this.client = client;
+        this.options = options;
+        this.subscription = null;
+        if (this.registrations.isEmpty()) {
+            return;
+        }
+        try {
+            createMonitoredItems(new ArrayList<>(this.registrations.values()));
+        } catch (final Exception e) {
+            logger.warn("Unable to monitor the nodes for the registered channel listeners", e);
+        }
+    }
+
+    /**
+     * Forgets the subscription of the disconnected client; it is deleted by the server together with the session.
+     */
+    synchronized void onDisconnected() {
+        this.client = null;
+        this.subscription = null;
+        for (final Registration registration : this.registrations.values()) {
+            registration.monitoredItem = null;
+        }
+    }
+
+    synchronized boolean hasListeners() {
+        return !this.registrations.isEmpty();
+    }
+
+    private void createMonitoredItems(final List<Registration> toCreate)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        if (isNull(this.subscription)) {
+            this.subscription = get(this.client.getSubscriptionManager()
+                    .createSubscription(this.options.getSubscriptionPublishingInterval()));
+            logger.debug("Created subscription {}, revised publishing interval: {}",
+                    this.subscription.getSubscriptionId(), this.subscription.getRevisedPublishingInterval());
+        }
+
+        final List<MonitoredItemCreateRequest> requests = new ArrayList<>(toCreate.size());
+        for (final Registration registration : toCreate) {
+            final ReadValueId readValueId = new ReadValueId(registration.nodeId, AttributeId.Value.uid(), null,
+                    QualifiedName.NULL_VALUE);
+            final MonitoringParameters parameters = new MonitoringParameters(
+                    uint(this.clientHandles.incrementAndGet()), this.options.getSubscriptionSamplingInterval(), null,
+                    uint(this.options.getSubscriptionQueueSize()), true);
+            requests.add(new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters));
+        }
+
+        final List<UaMonitoredItem> items = get(this.subscription.createMonitoredItems(TimestampsToReturn.Both,
+                requests, (item, index) -> item.setValueConsumer(toCreate.get(index)::onValue)));
+
+        for (int i = 0; i < items.size(); i++) {
+            final UaMonitoredItem item = items.get(i);
+            final Registration registration = toCreate.get(i);
+            if (item.getStatusCode().isGood()) {
+                registration.monitoredItem = item;
+            } else {
+                logger.warn("Unable to monitor node {}: {}", registration.nodeId, item.getStatusCode());
+                registration.notifyFailure("Unable to monitor node: " + item.getStatusCode());
+            }
+        }
+    }
+
+    private void deleteMonitoredItems(final List<Registration> toDelete) {
+        if (isNull(this.subscription)) {
+            return;
+        }
+        final List<UaMonitoredItem> items = new ArrayList<>(toDelete.size());
+        for (final Registration registration : toDelete) {
+            if (nonNull(registration.monitoredItem)) {
+                items.add(registration.monitoredItem);
+                registration.monitoredItem = null;
+            }
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+        try {
+            get(this.subscription.deleteMonitoredItems(items));
+        } catch (final Exception e) {
+            logger.warn("Unable to delete the monitored items", e);
+        }
+    }
+
+    private void deleteSubscription() {
+        if (isNull(this.subscription) || isNull(this.client)) {
+            return;
+        }
+        try {
+            get(this.client.getSubscriptionManager().deleteSubscription(this.subscription.getSubscriptionId()));
+        } catch (final Exception e) {
+            logger.warn("Unable to delete the subscription", e);
+        }
+        this.subscription = null;
+    }
+
+    private <U> U get(final CompletableFuture<U> future)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        try {
+            return future.get(this.options.getRequestTimeout(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | InterruptedException | TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static final class Registration {
+
+        private final String channelName;
+        private final DataType valueType;
+        private final NodeId nodeId;
+        private final ChannelListener listener;
+        private volatile UaMonitoredItem monitoredItem;
+
+        Registration(final Map<String, Object> channelConfig, final ChannelListener listener) {
+            final Object name = channelConfig.get(CHANNEL_NAME);
+            final Object valueType = channelConfig.get(CHANNEL_VALUE_TYPE);
+            if (isNull(name) || isNull(valueType)) {
+                throw new IllegalArgumentException("Channel name and value type are required");
+            }
+            final int namespaceIndex = OpcUaChannelDescriptor.getNodeNamespaceIndex(channelConfig);
+            final NodeIdType nodeIdType = OpcUaChannelDescriptor.getNodeIdType(channelConfig);
+
+            this.channelName = name.toString();
+            this.valueType = DataType.getDataType(valueType.toString());
+            this.nodeId = OpcUaChannelDescriptor.getNodeId(channelConfig, namespaceIndex, nodeIdType);
+            this.listener = listener;
+        }
+
+        void onValue(final DataValue value) {
+            final ChannelRecord record = ChannelRecord.createReadRecord(this.channelName, this.valueType);
+            final long timestamp = nonNull(value.getSourceTime()) ? value.getSourceTime().getJavaTime()
+                    : System.currentTimeMillis();
+            record.setTimestamp(timestamp);
+
+            if (nonNull(value.getStatusCode()) && !value.getStatusCode().isGood()) {
+                record.setChannelStatus(
+                        new ChannelStatus(FAILURE, "Bad status: " + value.getStatusCode().getValue(), null));
+            } else {
+                try {
+                    final Optional<TypedValue<?>> typedValue = OpcUaDriver.getTypedValue(this.valueType,
+                            OpcUaDriver.extractValue(value));
+                    if (typedValue.isPresent()) {
+                        record.setValue(typedValue.get());
+                        record.setChannelStatus(new ChannelStatus(SUCCESS));
+                    } else {
+                        record.setChannelStatus(new ChannelStatus(FAILURE, "Value type conversion failed", null));
+                    }
+                } catch (final Exception e) {
+                    record.setChannelStatus(new ChannelStatus(FAILURE, e.getMessage(), e));
+                }
+            }
+            notify(record);
+        }
+
+        void notifyFailure(final String reason) {
+            final ChannelRecord record = ChannelRecord.createReadRecord(this.channelName, this.valueType);
+            record.setChannelStatus(new ChannelStatus(FAILURE, reason, null));
+            record.setTimestamp(System.currentTimeMillis());
+            notify(record);
+        }
+
+        private void notify(final ChannelRecord record) {
+            try {
+                this.listener.onChannelEvent(new ChannelEvent(record));
+            } catch (final Exception e) {
+                logger.warn("Channel listener failed", e);
+            }
+        }
+    }
+}
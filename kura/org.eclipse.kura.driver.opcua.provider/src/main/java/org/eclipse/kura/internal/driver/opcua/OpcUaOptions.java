@@ -131,6 +131,23 @@ final class OpcUaOptions {
      */
     private static final String SESSION_TIMEOUT = "session.timeout";
 
+    /**
+     * Configurable Property to set the publishing interval of the subscription used by the Channel Listeners (in
+     * milliseconds)
+     */
+    private static final String SUBSCRIPTION_PUBLISHING_INTERVAL = "subscription.publishing.interval";
+
+    /**
+     * Configurable Property to set the sampling interval of the items monitored for the Channel Listeners (in
+     * milliseconds)
+     */
+    private static final String SUBSCRIPTION_SAMPLING_INTERVAL = "subscription.sampling.interval";
+
+    /**
+     * Configurable Property to set the queue size of the items monitored for the Channel Listeners
+     */
+    private static final String SUBSCRIPTION_QUEUE_SIZE = "subscription.queue.size";
+
     /**
      * Configurable Property to set OPC-UA server username
      */
@@ -406,4 +423,47 @@ final class OpcUaOptions {
         return username;
     }
 
+    /**
+     * Returns the publishing interval of the subscription used by the Channel Listeners (in milliseconds)
+     *
+     * @return the publishing interval (in milliseconds)
+     */
+    double getSubscriptionPublishingInterval() {
+        double publishingInterval = 1000;
+        final Object interval = this.properties.get(SUBSCRIPTION_PUBLISHING_INTERVAL);
+        if (nonNull(interval) && (interval instanceof Integer)) {
+            publishingInterval = (Integer) interval;
+        }
+        return publishingInterval;
+    }
+
+    /**
+     * Returns the sampling interval of the items monitored for the Channel Listeners (in milliseconds); 0 means the
+     * fastest rate supported by the server and -1 the publishing interval of the subscription
+     *
+     * @return the sampling interval (in milliseconds)
+     */
+    double getSubscriptionSamplingInterval() {
+        double samplingInterval = 1000;
+        final Object interval = this.properties.get(SUBSCRIPTION_SAMPLING_INTERVAL);
+        if (nonNull(interval) && (interval instanceof Integer)) {
+            samplingInterval = (Integer) interval;
+        }
+        return samplingInterval;
+    }
+
+    /**
+     * Returns the queue size of the items monitored for the Channel Listeners
+     *
+     * @return the queue size
+     */
+    int getSubscriptionQueueSize() {
+        int queueSize = 10;
+        final Object size = this.properties.get(SUBSCRIPTION_QUEUE_SIZE);
+        if (nonNull(size) && (size instanceof Integer) && ((Integer) size) > 0) {
+            queueSize = (Integer) size;
+        }
+        return queueSize;
+    }
+
 }
@@ -57,6 +57,9 @@ public interface S7PlcMessages {
     @En("Unable to Connect...")
     public String connectionProblem();
 
+    @En("Unable to connect read lane, its tasks will be run by the other lanes. Lane: ")
+    public String errorConnectingLane();
+
     @En("Deactivating S7 PLC Driver.....")
     public String deactivating();
 
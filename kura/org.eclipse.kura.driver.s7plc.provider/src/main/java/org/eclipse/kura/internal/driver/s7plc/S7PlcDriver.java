@@ -15,8 +15,11 @@ package org.eclipse.kura.internal.driver.s7plc;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.stream.Stream;
 
 import org.eclipse.kura.KuraException;
@@ -52,7 +55,11 @@ import Moka7.S7Client;
  *
  * The required properties are enlisted in {@link S7PlcChannelDescriptor} and
  * the driver connection specific properties are enlisted in
- * {@link S7PlcOptions}
+ * {@link S7PlcOptions}<br/>
+ * <br/>
+ *
+ * If the read parallelism is greater than one, the read tasks are distributed among multiple connections to the
+ * PLC: the main connection and up to (parallelism - 1) lane connections, opened on demand.
  *
  * @see S7PlcChannelDescriptor
  * @see S7PlcOptions
@@ -63,8 +70,14 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
 
     private static final S7PlcMessages messages = LocalizationAdapter.adapt(S7PlcMessages.class);
 
+    private static final int PLAN_CACHE_SIZE = 16;
+
     private S7Client client = new S7Client();
 
+    private List<S7Client> laneClients = Collections.emptyList();
+
+    private final ThreadLocal<S7Client> laneClient = new ThreadLocal<>();
+
     private S7PlcOptions options;
 
     private CryptoService cryptoService;
@@ -91,6 +104,7 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
         } catch (final ConnectionException e) {
             logger.error(messages.errorDisconnecting(), e);
         }
+        shutdownLaneExecutor();
         logger.debug(messages.deactivatingDone());
     }
 
@@ -98,6 +112,9 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
         logger.debug(messages.updating());
         requireNonNull(properties, messages.propertiesNonNull());
         this.options = new S7PlcOptions(properties);
+        invalidatePlans();
+        disconnectLanes();
+        this.laneClients = createLaneClients(this.options.getReadParallelism() - 1);
         if (client.Connected) {
             try {
                 logger.info(messages.reconnectingAfterConfigurationUpdate());
@@ -116,10 +133,14 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
     }
 
     private void authenticate() throws ConnectionException {
+        setSessionPassword(this.client);
+    }
+
+    private void setSessionPassword(S7Client s7Client) throws ConnectionException {
         logger.debug(messages.authenticating());
         int code;
         try {
-            code = this.client.SetSessionPassword(decryptPassword(this.options.getPassword().toCharArray()));
+            code = s7Client.SetSessionPassword(decryptPassword(this.options.getPassword().toCharArray()));
         } catch (Exception e) {
             throw new ConnectionException(e);
         }
@@ -130,16 +151,20 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
 
     @Override
     public synchronized void connect() throws ConnectionException {
+        connect(this.client);
+    }
+
+    private void connect(S7Client s7Client) throws ConnectionException {
         try {
-            if (!this.client.Connected) {
+            if (!s7Client.Connected) {
                 logger.debug(messages.connecting());
-                client.SetConnectionType(S7.OP);
-                int code = this.client.ConnectTo(this.options.getIp(), this.options.getRack(), this.options.getSlot());
+                s7Client.SetConnectionType(S7.OP);
+                int code = s7Client.ConnectTo(this.options.getIp(), this.options.getRack(), this.options.getSlot());
                 if (code != 0) {
                     throw new ConnectionException(messages.errorConnectToFailed() + code);
                 }
                 if (this.options.shouldAuthenticate()) {
-                    authenticate();
+                    setSessionPassword(s7Client);
                 }
                 logger.debug(messages.connectingDone());
             }
@@ -150,18 +175,94 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
 
     @Override
     public synchronized void disconnect() throws ConnectionException {
+        disconnectLanes();
         if (this.client.Connected) {
             logger.debug(messages.disconnecting());
-            this.client.Disconnect();
+            disconnect(this.client);
             logger.debug(messages.disconnectingDone());
         }
     }
 
+    private void disconnectLanes() {
+        for (S7Client s7Client : this.laneClients) {
+            disconnect(s7Client);
+        }
+    }
+
+    private static void disconnect(S7Client s7Client) {
+        synchronized (s7Client) {
+            if (s7Client.Connected) {
+                s7Client.Disconnect();
+            }
+        }
+    }
+
+    private static List<S7Client> createLaneClients(int count) {
+        final List<S7Client> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new S7Client());
+        }
+        return result;
+    }
+
+    private S7Client getClient() {
+        final S7Client current = this.laneClient.get();
+        return current != null ? current : this.client;
+    }
+
+    @Override
+    protected int getReadParallelism() {
+        return this.options == null ? 1 : this.laneClients.size() + 1;
+    }
+
+    @Override
+    protected void runLane(int lane, Queue<BlockTask> tasks) {
+        if (lane == 0) {
+            super.runLane(lane, tasks);
+            return;
+        }
+        final S7Client s7Client = this.laneClients.get(lane - 1);
+        try {
+            synchronized (s7Client) {
+                connect(s7Client);
+            }
+        } catch (ConnectionException e) {
+            logger.warn(messages.errorConnectingLane() + lane, e);
+            return;
+        }
+        this.laneClient.set(s7Client);
+        try {
+            BlockTask task;
+            // a lane whose connection has been reset leaves the remaining tasks to the other lanes
+            while (isConnected(s7Client) && (task = tasks.poll()) != null) {
+                runTask(task);
+            }
+        } finally {
+            this.laneClient.remove();
+        }
+    }
+
+    private static boolean isConnected(S7Client s7Client) {
+        synchronized (s7Client) {
+            return s7Client.Connected;
+        }
+    }
+
     @Override
     protected int getReadMinimumGapSizeForDomain(S7PlcDomain domain) {
         return this.options.getMinimumGapSize();
     }
 
+    @Override
+    protected int getPlanCacheSize() {
+        return PLAN_CACHE_SIZE;
+    }
+
+    @Override
+    protected boolean isReadMinimumGapSizeAdaptive() {
+        return this.options != null && this.options.isMinimumGapSizeAdaptive();
+    }
+
     @Override
     protected BlockFactory<ToplevelBlockTask> getTaskFactoryForDomain(final S7PlcDomain domain, final Mode mode) {
         return (start, end) -> new S7PlcToplevelBlockTask(S7PlcDriver.this, mode, domain.getDB(), start, end);
@@ -192,6 +293,12 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
         logger.warn(messages.errorIOFailed(), e);
         if (e.getStatusCode() <= S7Client.errTCPConnectionReset) {
             logger.warn(messages.connectionProblemsDetected());
+            final S7Client current = this.laneClient.get();
+            if (current != null) {
+                // only the lane connection is reset, the thread running the read operation holds the driver lock
+                disconnect(current);
+                return;
+            }
             try {
                 disconnect();
             } catch (ConnectionException e1) {
@@ -200,16 +307,24 @@ public final class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implemen
         }
     }
 
-    public synchronized void write(int db, int offset, byte[] data) throws IOException {
-        int result = this.client.WriteArea(S7.S7AreaDB, db, offset, data.length, data);
+    public void write(int db, int offset, byte[] data) throws IOException {
+        final S7Client s7Client = getClient();
+        final int result;
+        synchronized (s7Client) {
+            result = s7Client.WriteArea(S7.S7AreaDB, db, offset, data.length, data);
+        }
         if (result != 0) {
             throw new Moka7Exception("DB: " + db + " off: " + offset + " len: " + data.length + " status: " + result,
                     result);
         }
     }
 
-    public synchronized void read(int db, int offset, byte[] data) throws IOException {
-        int result = this.client.ReadArea(S7.S7AreaDB, db, offset, data.length, data);
+    public void read(int db, int offset, byte[] data) throws IOException {
+        final S7Client s7Client = getClient();
+        final int result;
+        synchronized (s7Client) {
+            result = s7Client.ReadArea(S7.S7AreaDB, db, offset, data.length, data);
+        }
         if (result != 0) {
             throw new Moka7Exception("DB: " + db + " off: " + offset + " len: " + data.length + " status: " + result,
                     result);
@@ -23,6 +23,8 @@ final class S7PlcOptions {
     private static final String RACK_PROP_NAME = "rack";
     private static final String SLOT_PROP_NAME = "slot";
     private static final String MINIMUM_GAP_SIZE_PROP_NAME = "read.minimum.gap.size";
+    private static final String READ_PARALLELISM_PROP_NAME = "read.parallelism";
+    private static final String ADAPTIVE_GAP_SIZE_PROP_NAME = "read.minimum.gap.size.adaptive";
 
     private static final String IP_DEFAULT = "";
     private static final boolean AUTHENTICATE_DEFAULT = false;
@@ -30,6 +32,9 @@ final class S7PlcOptions {
     private static final int RACK_DEFAULT = 0;
     private static final int SLOT_DEFAULT = 2;
     private static final int MINIMUM_GAP_SIZE_DEFAULT = 0;
+    private static final int READ_PARALLELISM_DEFAULT = 1;
+    private static final int READ_PARALLELISM_MAX = 8;
+    private static final boolean ADAPTIVE_GAP_SIZE_DEFAULT = false;
 
     private final Map<String, Object> properties;
 
@@ -61,4 +66,14 @@ final class S7PlcOptions {
         return (Integer) properties.getOrDefault(MINIMUM_GAP_SIZE_PROP_NAME, MINIMUM_GAP_SIZE_DEFAULT);
     }
 
+    boolean isMinimumGapSizeAdaptive() {
+        return (Boolean) properties.getOrDefault(ADAPTIVE_GAP_SIZE_PROP_NAME, ADAPTIVE_GAP_SIZE_DEFAULT);
+    }
+
+    int getReadParallelism() {
+        final int parallelism = (Integer) properties.getOrDefault(READ_PARALLELISM_PROP_NAME,
+                READ_PARALLELISM_DEFAULT);
+        return Math.min(READ_PARALLELISM_MAX, Math.max(1, parallelism));
+    }
+
 }
@@ -70,6 +70,10 @@ public class LinuxNetworkUtil {
     }
 
     public static List<String> getAllInterfaceNames() throws KuraException {
+        SysfsNetworkState networkState = SysfsNetworkState.getInstance();
+        if (networkState.isAvailable()) {
+            return networkState.getInterfaceNames();
+        }
         try {
             IpAddrShow ipAddrShow = new IpAddrShow();
             LinuxIfconfig[] configs = ipAddrShow.exec();
@@ -415,6 +419,11 @@ public class LinuxNetworkUtil {
      * Note: the returned configuration is also stored in the static cache
      */
     public static LinuxIfconfig getInterfaceConfiguration(String ifaceName) throws KuraException {
+        // the peer address of point-to-point interfaces is not exposed by sysfs
+        SysfsNetworkState networkState = SysfsNetworkState.getInstance();
+        if (networkState.isAvailable() && !networkState.isPointToPoint(ifaceName)) {
+            return getInterfaceConfigurationSysfs(networkState, ifaceName);
+        }
         try {
             IpAddrShow ipAddrShow = new IpAddrShow(ifaceName);
             LinuxIfconfig[] configs = ipAddrShow.exec();
@@ -466,6 +475,34 @@ public class LinuxNetworkUtil {
         return null;
     }
 
+    private static LinuxIfconfig getInterfaceConfigurationSysfs(SysfsNetworkState networkState, String ifaceName) {
+        LinuxIfconfig config = networkState.getInterfaceConfiguration(ifaceName);
+        if (config == null) {
+            // a PPP link went down and its interface cannot be found
+            if (ifaceName.matches(PPP_IFACE_REGEX)) {
+                File pppFile = new File(NetworkServiceImpl.PPP_PEERS_DIR + ifaceName);
+                if (pppFile.exists()) {
+                    config = new LinuxIfconfig(ifaceName);
+                    config.setType(NetInterfaceType.valueOf(MODEM));
+                }
+            }
+            return config;
+        }
+
+        // the driver is cached with the previous configuration, ethtool only runs the first time
+        if (config.getType() == NetInterfaceType.ETHERNET || config.getType() == NetInterfaceType.WIFI) {
+            try {
+                Map<String, String> driver = getEthernetDriver(ifaceName);
+                config.setDriver(driver);
+            } catch (KuraException e) {
+                logger.error("getInterfaceConfiguration() :: failed to obtain driver information - {}", e);
+            }
+        }
+
+        ifconfigs.put(ifaceName, config);
+        return config;
+    }
+
     @Deprecated
     private static LinuxIfconfig getInterfaceConfigurationInternal(String ifaceName) throws KuraException {
         // ignore logical interfaces like "1-1.2"
@@ -0,0 +1,422 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.linux.net.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kura.core.util.ProcessRunner;
+import org.eclipse.kura.net.NetInterfaceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the state of the network interfaces from {@code /sys/class/net} instead of running and parsing the output of
+ * {@code ip}, {@code ifconfig}, {@code ethtool} or {@code iw}. The IPv4 addresses, which are not exposed by sysfs, are
+ * obtained from the kernel through {@link NetworkInterface}.
+ * <br>
+ * Listeners registered with {@link #addListener(NetworkStateListener)} are notified when the link state or the
+ * addresses of an interface change. The changes are received from the kernel netlink events relayed by
+ * {@code ip monitor}; if it is not available, the state exposed by sysfs is checked every
+ * {@value #POLL_INTERVAL} ms, which does not require executing any command.
+ */
+public class SysfsNetworkState {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysfsNetworkState.class);
+
+    private static final String SYS_CLASS_NET = "/sys/class/net";
+
+    private static final long POLL_INTERVAL = 2000;
+    private static final String[] MONITOR_CMD = { "ip", "-o", "monitor", "link", "address" };
+
+    // from linux/if.h and linux/if_arp.h
+    private static final int IFF_UP = 0x1;
+    private static final int IFF_POINTOPOINT = 0x10;
+    private static final int IFF_MULTICAST = 0x1000;
+    private static final int ARPHRD_ETHER = 1;
+    private static final int ARPHRD_PPP = 512;
+    private static final int ARPHRD_LOOPBACK = 772;
+
+    private static final SysfsNetworkState s_instance = new SysfsNetworkState(new File(SYS_CLASS_NET));
+
+    private final File sysClassNet;
+    private final List<NetworkStateListener> listeners = new CopyOnWriteArrayList<>();
+    private Thread watcher;
+
+    /**
+     * Receives the notifications of the changes of the state of the network interfaces.
+     */
+    public interface NetworkStateListener {
+
+        /**
+         * Invoked when the link state or the addresses of an interface might have changed. The notification is
+         * delivered on a dedicated thread and must not block.
+         *
+         * @param interfaceName
+         *            the name of the interface
+         */
+        void onNetworkStateChanged(String interfaceName);
+    }
+
+    SysfsNetworkState(File sysClassNet) {
+        this.sysClassNet = sysClassNet;
+    }
+
+    public static SysfsNetworkState getInstance() {
+        return s_instance;
+    }
+
+    /**
+     * Returns true if the network interfaces are exposed by sysfs on this system.
+     */
+    public boolean isAvailable() {
+        return this.sysClassNet.isDirectory();
+    }
+
+    public boolean exists(String interfaceName) {
+        return new File(this.sysClassNet, interfaceName).isDirectory();
+    }
+
+    /**
+     * Returns the names of all the network interfaces, sorted by interface index.
+     */
+    public List<String> getInterfaceNames() {
+        String[] names = this.sysClassNet.list();
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        List<String> ifaces = new ArrayList<>(Arrays.asList(names));
+        Map<String, Integer> indexes = new HashMap<>();
+        for (String iface : ifaces) {
+            Integer index = readInt(iface, "ifindex");
+            indexes.put(iface, index != null ? index : Integer.MAX_VALUE);
+        }
+        Collections.sort(ifaces, Comparator.comparing(indexes::get));
+        return ifaces;
+    }
+
+    /**
+     * Returns true if the interface is administratively up.
+     */
+    public boolean isUp(String interfaceName) {
+        return (getFlags(interfaceName) & IFF_UP) != 0;
+    }
+
+    public boolean isPointToPoint(String interfaceName) {
+        return (getFlags(interfaceName) & IFF_POINTOPOINT) != 0;
+    }
+
+    /**
+     * Returns true unless the operational state of the interface is down. Like for {@code ip link}, interfaces whose
+     * state is unknown, like ppp interfaces, are considered up.
+     */
+    public boolean isLinkUp(String interfaceName) {
+        String operState = read(interfaceName, "operstate");
+        return operState != null && !"down".equals(operState);
+    }
+
+    /**
+     * Returns true if the physical link of the interface is detected. The carrier of an interface which is not up
+     * cannot be detected.
+     */
+    public boolean hasCarrier(String interfaceName) {
+        Integer carrier = readInt(interfaceName, "carrier");
+        return carrier != null && carrier == 1;
+    }
+
+    /**
+     * Returns the MTU of the interface, or -1 if the interface is not found.
+     */
+    public int getMtu(String interfaceName) {
+        Integer mtu = readInt(interfaceName, "mtu");
+        return mtu != null ? mtu : -1;
+    }
+
+    /**
+     * Returns the hardware address of the interface, or null if it has none.
+     */
+    public String getMacAddress(String interfaceName) {
+        String address = read(interfaceName, "address");
+        return address != null && !address.isEmpty() ? address : null;
+    }
+
+    public boolean isWireless(String interfaceName) {
+        File iface = new File(this.sysClassNet, interfaceName);
+        return new File(iface, "wireless").exists() || new File(iface, "phy80211").exists();
+    }
+
+    public NetInterfaceType getType(String interfaceName) {
+        Integer type = readInt(interfaceName, "type");
+        if (type == null) {
+            return NetInterfaceType.UNKNOWN;
+        }
+        switch (type) {
+        case ARPHRD_ETHER:
+            return isWireless(interfaceName) ? NetInterfaceType.WIFI : NetInterfaceType.ETHERNET;
+        case ARPHRD_PPP:
+            return NetInterfaceType.MODEM;
+        case ARPHRD_LOOPBACK:
+            return NetInterfaceType.LOOPBACK;
+        default:
+            return NetInterfaceType.UNKNOWN;
+        }
+    }
+
+    /**
+     * Returns the value of a counter of the interface, like {@code rx_bytes} or {@code tx_errors}.
+     *
+     * @param interfaceName
+     *            the name of the interface
+     * @param counter
+     *            the name of the counter in the {@code statistics} directory of the interface
+     * @return the value of the counter, or -1 if it is not available
+     */
+    public long getCounter(String interfaceName, String counter) {
+        String value = read(interfaceName, "statistics/" + counter);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the state of the interface, or null if the interface is not found. The returned configuration does not
+     * include the driver and the peer address of point-to-point interfaces.
+     */
+    public LinuxIfconfig getInterfaceConfiguration(String interfaceName) {
+        if (!exists(interfaceName)) {
+            return null;
+        }
+        int flags = getFlags(interfaceName);
+
+        LinuxIfconfig config = new LinuxIfconfig(interfaceName);
+        config.setType(getType(interfaceName));
+        config.setUp((flags & IFF_UP) != 0);
+        config.setMulticast((flags & IFF_MULTICAST) != 0);
+        config.setLinkUp(isLinkUp(interfaceName));
+        config.setMtu(getMtu(interfaceName));
+        config.setMacAddress(getMacAddress(interfaceName));
+
+        try {
+            NetworkInterface iface = NetworkInterface.getByName(interfaceName);
+            if (iface != null) {
+                for (InterfaceAddress address : iface.getInterfaceAddresses()) {
+                    if (address.getAddress() instanceof Inet4Address) {
+                        config.setInetAddress(address.getAddress().getHostAddress());
+                        config.setInetMask(prefixToMask(address.getNetworkPrefixLength()));
+                        InetAddress broadcast = address.getBroadcast();
+                        config.setInetBcast(broadcast != null ? broadcast.getHostAddress() : null);
+                        break;
+                    }
+                }
+            }
+        } catch (SocketException e) {
+            logger.warn("Failed to get the addresses of {}", interfaceName, e);
+        }
+        return config;
+    }
+
+    /**
+     * Registers a listener for the changes of the state of the network interfaces, starting to watch them if this is
+     * the first listener.
+     */
+    public synchronized void addListener(NetworkStateListener listener) {
+        this.listeners.add(listener);
+        if (this.watcher == null) {
+            this.watcher = new Thread(this::watch, "NetworkStateWatcher");
+            this.watcher.setDaemon(true);
+            this.watcher.start();
+        }
+    }
+
+    /**
+     * Unregisters a listener, stopping to watch the network interfaces if it was the last one.
+     */
+    public synchronized void removeListener(NetworkStateListener listener) {
+        this.listeners.remove(listener);
+        if (this.listeners.isEmpty() && this.watcher != null) {
+            this.watcher.interrupt();
+            this.watcher = null;
+        }
+    }
+
+    void fireNetworkStateChanged(String interfaceName) {
+        for (NetworkStateListener listener : this.listeners) {
+            try {
+                listener.onNetworkStateChanged(interfaceName);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to notify the network state change of {}", interfaceName, e);
+            }
+        }
+    }
+
+    private void watch() {
+        // ip monitor runs until it is destroyed, so it must not take a permit of the shared runner
+        ProcessRunner runner = new ProcessRunner(1);
+        try {
+            logger.info("Watching the network interfaces with ip monitor");
+            runner.exec(MONITOR_CMD, this::onMonitorLine, null, 0, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            logger.debug("ip monitor failed", e);
+        }
+        logger.info("ip monitor is not available, polling the network interfaces every {} ms", POLL_INTERVAL);
+        poll();
+    }
+
+    private void onMonitorLine(String line) {
+        String interfaceName = parseMonitorLine(line);
+        if (interfaceName != null) {
+            logger.debug("Network state changed: {}", line);
+            fireNetworkStateChanged(interfaceName);
+        }
+    }
+
+    /**
+     * Extracts the interface name from a line printed by {@code ip -o monitor}, like
+     * {@code 2: eth0: <BROADCAST,MULTICAST,UP,LOWER_UP> mtu 1500 ...} or {@code Deleted 3: wlan0    inet ...}.
+     */
+    static String parseMonitorLine(String line) {
+        String s = line.trim();
+        if (s.startsWith("[")) {
+            s = s.substring(s.indexOf(']') + 1).trim();
+        }
+        if (s.startsWith("Deleted ")) {
+            s = s.substring(8);
+        }
+        int start = s.indexOf(": ");
+        if (start < 1 || !Character.isDigit(s.charAt(0))) {
+            return null;
+        }
+        s = s.substring(start + 2).trim();
+        int end = 0;
+        while (end < s.length() && !Character.isWhitespace(s.charAt(end))) {
+            end++;
+        }
+        String interfaceName = s.substring(0, end);
+        if (interfaceName.endsWith(":")) {
+            interfaceName = interfaceName.substring(0, interfaceName.length() - 1);
+        }
+        // vlan interfaces are printed as eth0.1@eth0
+        int at = interfaceName.indexOf('@');
+        if (at > 0) {
+            interfaceName = interfaceName.substring(0, at);
+        }
+        return interfaceName.isEmpty() ? null : interfaceName;
+    }
+
+    private void poll() {
+        Map<String, String> states = new HashMap<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            pollOnce(states);
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void pollOnce(Map<String, String> states) {
+        List<String> interfaceNames = getInterfaceNames();
+        for (String interfaceName : interfaceNames) {
+            String state = getState(interfaceName);
+            String previous = states.put(interfaceName, state);
+            if (previous != null && !previous.equals(state)) {
+                fireNetworkStateChanged(interfaceName);
+            }
+        }
+        states.keySet().retainAll(interfaceNames);
+    }
+
+    private String getState(String interfaceName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getFlags(interfaceName)).append(' ').append(read(interfaceName, "operstate")).append(' ')
+                .append(read(interfaceName, "carrier"));
+        try {
+            NetworkInterface iface = NetworkInterface.getByName(interfaceName);
+            if (iface != null) {
+                for (InterfaceAddress address : iface.getInterfaceAddresses()) {
+                    sb.append(' ').append(address.getAddress().getHostAddress()).append('/')
+                            .append(address.getNetworkPrefixLength());
+                }
+            }
+        } catch (SocketException e) {
+            logger.debug("Failed to get the addresses of {}", interfaceName, e);
+        }
+        return sb.toString();
+    }
+
+    private int getFlags(String interfaceName) {
+        String flags = read(interfaceName, "flags");
+        if (flags == null) {
+            return 0;
+        }
+        try {
+            return Integer.decode(flags);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Integer readInt(String interfaceName, String attribute) {
+        String value = read(interfaceName, attribute);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Returns null if the attribute does not exist or cannot be read, like the carrier of an interface which is down
+     */
+    private String read(String interfaceName, String attribute) {
+        File file = new File(new File(this.sysClassNet, interfaceName), attribute);
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String prefixToMask(int prefix) {
+        int mask = prefix == 0 ? 0 : 0xffffffff << 32 - prefix;
+        return new StringBuilder().append(mask >>> 24).append('.').append(mask >> 16 & 0xff).append('.')
+                .append(mask >> 8 & 0xff).append('.').append(mask & 0xff).toString();
+    }
+}
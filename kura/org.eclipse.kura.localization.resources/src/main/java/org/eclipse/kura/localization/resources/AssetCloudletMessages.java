@@ -97,4 +97,7 @@ public interface AssetCloudletMessages {
     @En("Asset not found")
     public String assetNotFound();
 
-}
\ No newline at end of file
+    @En("Read timed out")
+    public String readTimedOut();
+
+}
@@ -281,4 +281,31 @@ public interface AssetMessages {
     @En("Failed close prepared read")
     public String errorClosingPreparingRead();
 
+    @En("Report the value of the channel only when it changes")
+    public String reportOnChange();
+
+    @En("Minimum absolute change of a numeric value to be reported, zero disables the check")
+    public String deadbandAbsolute();
+
+    @En("Minimum change of a numeric value to be reported, in percent of the last reported value")
+    public String deadbandPercent();
+
+    @En("Maximum time in milliseconds between two reports of the channel, zero disables it")
+    public String maxSilence();
+
+    @En("Name of the scan group the channel belongs to, leave empty to read the channel on demand")
+    public String scanGroup();
+
+    @En("Comma separated list of scan groups in the name=period format, the period is in milliseconds")
+    public String scanGroups();
+
+    @En("Invalid scan group {0}, it will be ignored")
+    public String errorInvalidScanGroup(String scanGroup);
+
+    @En("Scan group {1} of channel {0} is not defined, the channel will be read on demand")
+    public String scanGroupNotDefined(String channelName, String scanGroup);
+
+    @En("Failed to read scan group {0}")
+    public String errorReadingScanGroup(String scanGroup);
+
 }
@@ -238,6 +238,9 @@ public interface WireMessages {
     @En("Dectivating Timer...Done")
     public String deactivatingTimerDone();
 
+    @En("Timer statistics ==> {0}")
+    public String timerStatistics(String statistics);
+
     @En("Deactivating Wire Asset...")
     public String deactivatingWireAsset();
 
@@ -376,6 +379,9 @@ public interface WireMessages {
     @En("Interval cannot be less than or equal to zero")
     public String intervalNonLessThanEqualToZero();
 
+    @En("Invalid overrun policy")
+    public String invalidOverrunPolicy();
+
     @En("Invalid time unit")
     public String invalidTimeUnit();
 
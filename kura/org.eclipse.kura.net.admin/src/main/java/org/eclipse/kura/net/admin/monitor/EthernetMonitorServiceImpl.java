@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -29,6 +30,8 @@ import org.eclipse.kura.linux.net.dhcp.DhcpServerManager;
 import org.eclipse.kura.linux.net.route.RouteService;
 import org.eclipse.kura.linux.net.route.RouteServiceImpl;
 import org.eclipse.kura.linux.net.util.LinuxNetworkUtil;
+import org.eclipse.kura.linux.net.util.SysfsNetworkState;
+import org.eclipse.kura.linux.net.util.SysfsNetworkState.NetworkStateListener;
 import org.eclipse.kura.net.EthernetMonitorService;
 import org.eclipse.kura.net.IP4Address;
 import org.eclipse.kura.net.IPAddress;
@@ -67,7 +70,8 @@ public class EthernetMonitorServiceImpl implements EthernetMonitorService, Event
     private static Object lock = new Object();
 
     private static Map<String, Future<?>> tasks;
-    private static Map<String, AtomicBoolean> stopThreads;
+    // also read by the network state listener, without holding the lock
+    private static volatile Map<String, AtomicBoolean> stopThreads;
 
     private EventAdmin eventAdmin;
     private NetworkAdminService netAdminService;
@@ -79,6 +83,9 @@ public class EthernetMonitorServiceImpl implements EthernetMonitorService, Event
     private final Map<String, EthernetInterfaceConfigImpl> newNetworkConfiguration = new HashMap<>();
     private ExecutorService executor;
 
+    // wakes up the monitor of an interface as soon as its state changes
+    private final NetworkStateListener networkStateListener = this::onNetworkStateChanged;
+
     // ----------------------------------------------------------------
     //
     // Dependencies
@@ -148,10 +155,14 @@ public class EthernetMonitorServiceImpl implements EthernetMonitorService, Event
         // Initialize monitors
         initializeMonitors();
 
+        SysfsNetworkState.getInstance().addListener(this.networkStateListener);
+
         logger.debug("Done Activating EthernetMonitor Service...");
     }
 
     protected void deactivate(ComponentContext componentContext) {
+        SysfsNetworkState.getInstance().removeListener(this.networkStateListener);
+
         for (String key : tasks.keySet()) {
             synchronized (lock) {
                 stopMonitor(key);
@@ -507,7 +518,7 @@ public class EthernetMonitorServiceImpl implements EthernetMonitorService, Event
                 tasks = new HashMap<>();
             }
             if (stopThreads == null) {
-                stopThreads = new HashMap<>();
+                stopThreads = new ConcurrentHashMap<>();
             }
 
             // Ensure monitor doesn't already exist for this interface
@@ -559,6 +570,15 @@ public class EthernetMonitorServiceImpl implements EthernetMonitorService, Event
         this.netAdminService.manageDhcpServer(interfaceName, false);
     }
 
+    private void onNetworkStateChanged(String interfaceName) {
+        // the events of the interfaces that are not monitored, or of all of them before any monitor is started, are
+        // ignored
+        Map<String, AtomicBoolean> monitors = stopThreads;
+        if (monitors != null && monitors.containsKey(interfaceName)) {
+            monitorNotify(interfaceName);
+        }
+    }
+
     private void monitorNotify(String interfaceName) {
         Object o = stopThreads.get(interfaceName);
         if (o != null) {
@@ -39,6 +39,8 @@ import org.eclipse.kura.linux.net.util.IwLinkTool;
 import org.eclipse.kura.linux.net.util.LinkTool;
 import org.eclipse.kura.linux.net.util.LinuxNetworkUtil;
 import org.eclipse.kura.linux.net.util.ScanTool;
+import org.eclipse.kura.linux.net.util.SysfsNetworkState;
+import org.eclipse.kura.linux.net.util.SysfsNetworkState.NetworkStateListener;
 import org.eclipse.kura.linux.net.util.iwconfigLinkTool;
 import org.eclipse.kura.linux.net.wifi.WifiOptions;
 import org.eclipse.kura.net.IPAddress;
@@ -96,6 +98,13 @@ public class WifiMonitorServiceImpl implements WifiClientMonitorService, EventHa
     private NetworkConfiguration currentNetworkConfiguration;
     private NetworkConfiguration newNetConfiguration;
 
+    // wakes up the monitor as soon as the state of a wireless interface changes
+    private final NetworkStateListener networkStateListener = interfaceName -> {
+        if (SysfsNetworkState.getInstance().isWireless(interfaceName)) {
+            monitorNotify();
+        }
+    };
+
     public void setNetworkService(NetworkService networkService) {
         this.networkService = networkService;
     }
@@ -152,9 +161,11 @@ public class WifiMonitorServiceImpl implements WifiClientMonitorService, EventHa
         } catch (KuraException e) {
             logger.error("Could not update list of interfaces", e);
         }
+        SysfsNetworkState.getInstance().addListener(this.networkStateListener);
     }
 
     protected void deactivate(ComponentContext componentContext) {
+        SysfsNetworkState.getInstance().removeListener(this.networkStateListener);
         this.listeners = null;
         if (monitorTask != null && !monitorTask.isDone()) {
             stopThread.set(true);
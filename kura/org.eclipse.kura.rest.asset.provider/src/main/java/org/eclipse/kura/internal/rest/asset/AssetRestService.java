@@ -12,10 +12,14 @@ package org.eclipse.kura.internal.rest.asset;
 
 import static org.eclipse.kura.internal.rest.asset.Validable.validate;
 
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Base64.Encoder;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.RolesAllowed;
@@ -32,6 +36,7 @@ import javax.ws.rs.core.Response;
 import org.eclipse.kura.KuraException;
 import org.eclipse.kura.asset.Asset;
 import org.eclipse.kura.asset.AssetService;
+import org.eclipse.kura.asset.provider.ParallelAssetReader;
 import org.eclipse.kura.channel.Channel;
 import org.eclipse.kura.channel.ChannelRecord;
 import org.eclipse.kura.type.TypedValue;
@@ -40,7 +45,9 @@ import org.osgi.framework.InvalidSyntaxException;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializer;
 
@@ -51,13 +58,24 @@ public class AssetRestService {
     private static final String BAD_READ_REQUEST_ERROR_MESSAGE = "Bad request, expected request format: { \"channels\": [ \"channel-1\", \"channel-2\"]}";
     private static final Encoder BASE64_ENCODER = Base64.getEncoder();
 
+    private static final int READ_THREADS = 4;
+    private static final long READ_TIMEOUT_SECONDS = 10;
+
     private AssetService assetService;
     private Gson channelSerializer;
+    private ParallelAssetReader assetReader;
 
     protected void setAssetService(AssetService assetService) {
         this.assetService = assetService;
     }
 
+    protected synchronized void deactivate() {
+        if (assetReader != null) {
+            assetReader.shutdown();
+            assetReader = null;
+        }
+    }
+
     @GET
     @RolesAllowed("assets")
     @Produces(MediaType.APPLICATION_JSON)
@@ -67,6 +85,44 @@ public class AssetRestService {
                 .map(reference -> (String) reference.getProperty("kura.service.pid")).collect(Collectors.toList());
     }
 
+    /**
+     * Reads all the channels of all the assets concurrently. Assets attached to the same driver are read one after
+     * the other, an asset that fails or does not complete within {@value #READ_TIMEOUT_SECONDS} seconds is reported
+     * with an error message, without affecting the results of the others.
+     * <br>
+     * The route has two segments and does not end with a channel operation, so it cannot be confused with the routes
+     * of an asset, whatever its pid.
+     */
+    @GET
+    @RolesAllowed("assets")
+    @Path("/_read/all")
+    @Produces(MediaType.APPLICATION_JSON)
+    public JsonElement readAll() {
+        final List<ParallelAssetReader.Read> reads = new ArrayList<>();
+        for (final Asset asset : assetService.listAssets()) {
+            reads.add(new ParallelAssetReader.Read(assetService.getAssetPid(asset), asset, Collections.emptySet()));
+        }
+
+        final JsonArray response = new JsonArray();
+        if (reads.isEmpty()) {
+            return response;
+        }
+        for (final ParallelAssetReader.Result result : getAssetReader().read(reads)) {
+            final JsonObject assetResult = new JsonObject();
+            assetResult.addProperty("name", result.getAssetName());
+            if (result.isSuccessful()) {
+                assetResult.add("channels", getChannelSerializer().toJsonTree(result.getChannelRecords()));
+            } else if (result.isTimedOut()) {
+                assetResult.addProperty("error", "Read timed out");
+            } else {
+                assetResult.addProperty("error",
+                        Optional.ofNullable(result.getError().getMessage()).orElse("Read failed"));
+            }
+            response.add(assetResult);
+        }
+        return response;
+    }
+
     @GET
     @RolesAllowed("assets")
     @Path("/{pid}")
@@ -117,6 +173,14 @@ public class AssetRestService {
         return asset;
     }
 
+    private synchronized ParallelAssetReader getAssetReader() {
+        if (assetReader == null) {
+            assetReader = new ParallelAssetReader("AssetRestReader", READ_THREADS, READ_TIMEOUT_SECONDS,
+                    TimeUnit.SECONDS);
+        }
+        return assetReader;
+    }
+
     private Gson getChannelSerializer() {
         if (channelSerializer == null) {
             channelSerializer = new GsonBuilder().registerTypeAdapter(TypedValue.class,
@@ -19,8 +19,10 @@ import static java.util.Objects.requireNonNull;
 import static org.eclipse.kura.channel.ChannelType.READ_WRITE;
 import static org.eclipse.kura.channel.ChannelType.WRITE;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -44,6 +46,7 @@ import org.eclipse.kura.wire.WireEnvelope;
 import org.eclipse.kura.wire.WireHelperService;
 import org.eclipse.kura.wire.WireReceiver;
 import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordSchema;
 import org.eclipse.kura.wire.WireSupport;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.wireadmin.Wire;
@@ -75,6 +78,12 @@ import org.slf4j.LoggerFactory;
  * </pre>
  *
  * <br/>
+ * Channels configured for report-on-change are part of the emitted {@link WireRecord} only when their value
+ * changes, no record is emitted if none of the read channels has to be reported.<br/>
+ * <br/>
+ * The channels that belong to a scan group are read and emitted at the rate of the scan group, the other channels
+ * are read every time a {@link WireEnvelope} is received.<br/>
+ * <br/>
  * Also note that, if the channel name is equal to the received value of the
  * channel wire field name, then it would be considered as a WRITE wire field
  * value to the specific channel. <br/>
@@ -113,6 +122,23 @@ public final class WireAsset extends BaseAsset implements WireEmitter, WireRecei
 
     private WireSupport wireSupport;
 
+    private static final int RECORD_SCHEMA_CACHE_SIZE = 16;
+
+    /**
+     * Shared by the emitted records containing the same channels, indexed by channel names. More than one schema is
+     * needed if some channels are reported only on change.
+     */
+    private final Map<List<String>, WireRecordSchema> recordSchemas = new LinkedHashMap<List<String>, WireRecordSchema>(
+            RECORD_SCHEMA_CACHE_SIZE, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<List<String>, WireRecordSchema> eldest) {
+            return size() > RECORD_SCHEMA_CACHE_SIZE;
+        }
+    };
+
     /**
      * Binds the Wire Helper Service.
      *
@@ -217,7 +243,10 @@ public final class WireAsset extends BaseAsset implements WireEmitter, WireRecei
 
         if (hasReadChannels()) {
             try {
-                emitChannelRecords(readAllChannels());
+                final List<ChannelRecord> channelRecords = readChangedChannels();
+                if (!channelRecords.isEmpty()) {
+                    emitChannelRecords(channelRecords);
+                }
             } catch (final KuraException e) {
                 logger.error(message.errorPerformingRead(), e);
             }
@@ -230,6 +259,17 @@ public final class WireAsset extends BaseAsset implements WireEmitter, WireRecei
         }
     }
 
+    /**
+     * Emits the changed channels of a scan group, independently from the received {@link WireEnvelope}s.
+     */
+    @Override
+    protected void onScanGroupRead(final String scanGroup, final List<ChannelRecord> channelRecords) {
+        final List<ChannelRecord> changedRecords = filterChangedChannels(channelRecords);
+        if (!changedRecords.isEmpty()) {
+            emitChannelRecords(changedRecords);
+        }
+    }
+
     /**
      * Determine the channels to write
      *
@@ -283,33 +323,91 @@ public final class WireAsset extends BaseAsset implements WireEmitter, WireRecei
             throw new IllegalArgumentException(message.channelRecordsNonEmpty());
         }
 
-        final Map<String, TypedValue<?>> wireRecordProperties = new HashMap<>();
+        String assetName = null;
         try {
-            wireRecordProperties.put(ASSET_NAME, TypedValues.newStringValue(getKuraServicePid()));
+            assetName = getKuraServicePid();
         } catch (KuraException e) {
             logger.error(message.configurationNonNull(), e);
         }
 
+        final WireRecordSchema schema = getRecordSchema(channelRecords);
+        final WireRecord wireRecord;
+        if (nonNull(schema)) {
+            final TypedValue<?>[] values = new TypedValue<?>[schema.size()];
+            values[0] = nonNull(assetName) ? TypedValues.newStringValue(assetName) : null;
+            for (int i = 0; i < channelRecords.size(); i++) {
+                final ChannelRecord channelRecord = channelRecords.get(i);
+                final ChannelStatus channelStatus = channelRecord.getChannelStatus();
+                if (channelStatus.getChannelFlag() == ChannelFlag.FAILURE) {
+                    logErrorMessage(channelStatus);
+                    continue;
+                }
+                values[1 + 2 * i] = channelRecord.getValue();
+                values[2 + 2 * i] = TypedValues.newLongValue(channelRecord.getTimestamp());
+            }
+            wireRecord = new WireRecord(schema, values);
+        } else {
+            wireRecord = new WireRecord(toProperties(assetName, channelRecords));
+        }
+        this.wireSupport.emit(Arrays.asList(wireRecord));
+    }
+
+    /**
+     * Returns the {@link WireRecordSchema} for the provided channel records, containing the asset name followed by
+     * the value and the timestamp of each channel. The schema of a previous emit is reused if it contained the same
+     * channels.
+     *
+     * @return the schema, or null if the property names of the channels are not unique
+     */
+    private WireRecordSchema getRecordSchema(final List<ChannelRecord> channelRecords) {
+        final List<String> channelNames = new ArrayList<>(channelRecords.size());
+        for (final ChannelRecord channelRecord : channelRecords) {
+            channelNames.add(channelRecord.getChannelName());
+        }
+        synchronized (this.recordSchemas) {
+            if (this.recordSchemas.containsKey(channelNames)) {
+                return this.recordSchemas.get(channelNames);
+            }
+        }
+
+        final List<String> keys = new ArrayList<>(1 + 2 * channelNames.size());
+        keys.add(ASSET_NAME);
+        for (final String channelName : channelNames) {
+            keys.add(channelName);
+            keys.add(channelName + PROPERTY_SEPARATOR + TIMESTAMP);
+        }
+        WireRecordSchema schema;
+        try {
+            schema = new WireRecordSchema(keys);
+        } catch (final IllegalArgumentException e) {
+            logger.debug("Channel names clash, emitting map based records", e);
+            schema = null;
+        }
+        synchronized (this.recordSchemas) {
+            this.recordSchemas.put(channelNames, schema);
+        }
+        return schema;
+    }
+
+    private Map<String, TypedValue<?>> toProperties(final String assetName,
+            final List<ChannelRecord> channelRecords) {
+        final Map<String, TypedValue<?>> wireRecordProperties = new HashMap<>();
+        if (nonNull(assetName)) {
+            wireRecordProperties.put(ASSET_NAME, TypedValues.newStringValue(assetName));
+        }
+
         for (final ChannelRecord channelRecord : channelRecords) {
             final ChannelStatus channelStatus = channelRecord.getChannelStatus();
-            final ChannelFlag channelFlag = channelStatus.getChannelFlag();
-            final String channelName = channelRecord.getChannelName();
-
-            final TypedValue<?> typedValue;
-            if (channelFlag == ChannelFlag.FAILURE) {
+            if (channelStatus.getChannelFlag() == ChannelFlag.FAILURE) {
                 logErrorMessage(channelStatus);
                 continue;
-            } else {
-                typedValue = channelRecord.getValue();
             }
-
-            wireRecordProperties.put(channelName, typedValue);
-
+            final String channelName = channelRecord.getChannelName();
+            wireRecordProperties.put(channelName, channelRecord.getValue());
             wireRecordProperties.put(channelName + PROPERTY_SEPARATOR + TIMESTAMP,
                     TypedValues.newLongValue(channelRecord.getTimestamp()));
         }
-        final WireRecord wireRecord = new WireRecord(wireRecordProperties);
-        this.wireSupport.emit(Arrays.asList(wireRecord));
+        return wireRecordProperties;
     }
 
     private void logErrorMessage(final ChannelStatus channelStatus) {
@@ -16,11 +16,13 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Consumer;
 
 import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.configuration.ConfigurationService;
@@ -30,6 +32,7 @@ import org.eclipse.kura.wire.WireEmitter;
 import org.eclipse.kura.wire.WireEnvelope;
 import org.eclipse.kura.wire.WireHelperService;
 import org.eclipse.kura.wire.WireReceiver;
+import org.eclipse.kura.wire.WireRecord;
 import org.eclipse.kura.wire.WireSupport;
 import org.osgi.service.wireadmin.Wire;
 import org.slf4j.Logger;
@@ -38,7 +41,10 @@ import org.slf4j.LoggerFactory;
 public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
 
     private static final String DISCARD_ENVELOPES_PROP_NAME = "discard.envelopes";
+    private static final String DISCARD_POLICY_PROP_NAME = "discard.policy";
     private static final String QUEUE_CAPACITY_PROP_NAME = "queue.capacity";
+    private static final String WAIT_STRATEGY_PROP_NAME = "wait.strategy";
+    private static final String MAX_DRAIN_PROP_NAME = "emit.max.envelopes";
 
     private static final Logger logger = LoggerFactory.getLogger(Fifo.class);
     private static final WireMessages message = LocalizationAdapter.adapt(WireMessages.class);
@@ -46,7 +52,7 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
     private volatile WireHelperService wireHelperService;
     private WireSupport wireSupport;
 
-    private FifoEmitterThread emitterThread;
+    private volatile FifoEmitterThread emitterThread;
 
     public void bindWireHelperService(final WireHelperService wireHelperService) {
         if (isNull(this.wireHelperService)) {
@@ -80,8 +86,16 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
                 + "-EmitterThread";
         int queueCapacity = (Integer) properties.getOrDefault(QUEUE_CAPACITY_PROP_NAME, 50);
         boolean discardEnvelopes = (Boolean) properties.getOrDefault(DISCARD_ENVELOPES_PROP_NAME, false);
+        DiscardPolicy discardPolicy = DiscardPolicy.NONE;
+        if (discardEnvelopes) {
+            discardPolicy = DiscardPolicy
+                    .valueOf(((String) properties.getOrDefault(DISCARD_POLICY_PROP_NAME, "newest")).toUpperCase());
+        }
+        WaitStrategy waitStrategy = WaitStrategy
+                .valueOf(((String) properties.getOrDefault(WAIT_STRATEGY_PROP_NAME, "blocking")).toUpperCase());
+        int maxDrain = Math.max(1, (Integer) properties.getOrDefault(MAX_DRAIN_PROP_NAME, 1));
 
-        restartEmitterThread(threadName, queueCapacity, discardEnvelopes);
+        restartEmitterThread(threadName, queueCapacity, discardPolicy, waitStrategy, maxDrain);
 
         logger.info(message.updatingFifoDone());
     }
@@ -93,23 +107,30 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
         }
     }
 
-    private synchronized void restartEmitterThread(String threadName, int queueCapacity, boolean discardEnvelopes) {
+    private synchronized void restartEmitterThread(String threadName, int queueCapacity,
+            DiscardPolicy discardPolicy, WaitStrategy waitStrategy, int maxDrain) {
         stopEmitterThread();
 
-        logger.debug("Creating new emitter thread: {}, queue capacity: {}, discard envelopes: {}", threadName,
-                queueCapacity, discardEnvelopes);
-        emitterThread = new FifoEmitterThread(threadName, queueCapacity, discardEnvelopes);
+        logger.debug(
+                "Creating new emitter thread: {}, queue capacity: {}, discard policy: {}, wait strategy: {}, max envelopes per emit: {}",
+                threadName, queueCapacity, discardPolicy, waitStrategy, maxDrain);
+        emitterThread = new FifoEmitterThread(threadName, queueCapacity, discardPolicy, waitStrategy, maxDrain);
         emitterThread.start();
     }
 
     @Override
     public void onWireReceive(WireEnvelope wireEnvelope) {
         requireNonNull(wireEnvelope, message.wireEnvelopeNonNull());
-        if (emitterThread != null) {
-            emitterThread.submit(wireEnvelope);
+        final FifoEmitterThread thread = emitterThread;
+        if (thread != null) {
+            thread.submit(wireEnvelope);
         }
     }
 
+    FifoEmitterThread getEmitterThread() {
+        return emitterThread;
+    }
+
     @Override
     public Object polled(Wire wire) {
         return this.wireSupport.polled(wire);
@@ -130,108 +151,246 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
         this.wireSupport.producersConnected(wires);
     }
 
-    private class FifoEmitterThread extends Thread {
+    /**
+     * The behavior of the threads waiting for an envelope to be submitted or for free space in the queue.
+     */
+    enum WaitStrategy {
+        /** The waiting threads are suspended and signalled, lowest CPU usage. */
+        BLOCKING,
+        /** The waiting threads busy-spin, lowest latency but a CPU core is used while waiting. */
+        SPIN,
+        /** The waiting threads yield the processor between checks. */
+        YIELD
+    }
+
+    /**
+     * The behavior in case of full queue.
+     */
+    enum DiscardPolicy {
+        /** The submitting thread blocks until the envelope can be enqueued. */
+        NONE,
+        /** The submitted envelope is dropped. */
+        NEWEST,
+        /** The oldest envelope in the queue is dropped to make room for the submitted one. */
+        OLDEST
+    }
+
+    class FifoEmitterThread extends Thread {
+
+        private static final long DROP_REPORT_INTERVAL_NANOS = 10_000_000_000L;
 
-        private Lock lock = new ReentrantLock();
+        private final RingBuffer<WireEnvelope> queue;
+        private final WaitStrategy waitStrategy;
+        private final DiscardPolicy discardPolicy;
+        private final int maxDrain;
 
-        private Condition producer = lock.newCondition();
-        private Condition consumer = lock.newCondition();
+        private volatile boolean run = true;
 
-        private boolean run = true;
-        private ArrayList<WireEnvelope> queue;
-        private int queueCapacity;
+        // used only by the blocking wait strategy
+        private final Lock lock = new ReentrantLock();
+        private final Condition notEmpty = this.lock.newCondition();
+        private final Condition notFull = this.lock.newCondition();
+        private volatile boolean consumerWaiting;
+        private final AtomicInteger producersWaiting = new AtomicInteger();
 
-        private Consumer<WireEnvelope> submitter;
+        private final AtomicLong submittedEnvelopes = new AtomicLong();
+        private final AtomicLong droppedEnvelopes = new AtomicLong();
+        private long emittedEnvelopes;
+        private long reportedDroppedEnvelopes;
+        private long lastDropReport = System.nanoTime();
 
-        public FifoEmitterThread(String threadName, int queueCapacity, boolean discardEnvelopes) {
-            this.queue = new ArrayList<WireEnvelope>();
-            this.queueCapacity = queueCapacity;
+        public FifoEmitterThread(String threadName, int queueCapacity, DiscardPolicy discardPolicy,
+                WaitStrategy waitStrategy, int maxDrain) {
+            this.queue = new RingBuffer<>(queueCapacity);
+            this.discardPolicy = discardPolicy;
+            this.waitStrategy = waitStrategy;
+            this.maxDrain = maxDrain;
             setName(threadName);
-            if (discardEnvelopes) {
-                submitter = getEnvelopeDiscardingSubmitter();
+        }
+
+        public void shutdown() {
+            run = false;
+            try {
+                lock.lock();
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void submit(WireEnvelope envelope) {
+            if (!run) {
+                return;
+            }
+
+            boolean submitted = queue.offer(envelope);
+            if (!submitted) {
+                switch (discardPolicy) {
+                case NEWEST:
+                    break;
+                case OLDEST:
+                    while (!submitted) {
+                        if (queue.poll() != null) {
+                            droppedEnvelopes.incrementAndGet();
+                        }
+                        submitted = queue.offer(envelope);
+                    }
+                    break;
+                default:
+                    submitted = awaitSpace(envelope);
+                }
+            }
+
+            if (submitted) {
+                submittedEnvelopes.incrementAndGet();
+                signalNotEmpty();
+                logger.debug("envelope submitted");
             } else {
-                submitter = getEmitterBlockingSubmitter();
+                droppedEnvelopes.incrementAndGet();
+                logger.debug("envelope discarded");
             }
         }
 
-        private Consumer<WireEnvelope> getEnvelopeDiscardingSubmitter() {
-            return (envelope) -> {
+        private boolean awaitSpace(WireEnvelope envelope) {
+            if (waitStrategy != WaitStrategy.BLOCKING) {
+                while (run) {
+                    if (queue.offer(envelope)) {
+                        return true;
+                    }
+                    idle();
+                }
+                return false;
+            }
+
+            try {
+                lock.lock();
+                producersWaiting.incrementAndGet();
+                while (run) {
+                    if (queue.offer(envelope)) {
+                        return true;
+                    }
+                    notFull.await();
+                }
+            } catch (InterruptedException e) {
+                logger.warn(message.fifoInterruptedWhileSubmitting(), e);
+                Thread.currentThread().interrupt();
+            } finally {
+                producersWaiting.decrementAndGet();
+                lock.unlock();
+            }
+            return false;
+        }
+
+        private void signalNotEmpty() {
+            if (waitStrategy == WaitStrategy.BLOCKING && consumerWaiting) {
                 try {
                     lock.lock();
-                    if (!run || queue.size() >= queueCapacity) {
-                        logger.debug("envelope discarded");
-                        return;
-                    } else {
-                        queue.add(envelope);
-                        producer.signal();
-                        logger.debug("envelope submitted");
-                    }
+                    notEmpty.signal();
                 } finally {
                     lock.unlock();
                 }
-            };
+            }
         }
 
-        private Consumer<WireEnvelope> getEmitterBlockingSubmitter() {
-            return (envelope) -> {
+        private void signalNotFull() {
+            if (waitStrategy == WaitStrategy.BLOCKING && producersWaiting.get() > 0) {
                 try {
                     lock.lock();
-                    while (run && queue.size() >= queueCapacity) {
-                        consumer.await();
-                    }
-                    if (!run) {
-                        return;
-                    }
-                    queue.add(envelope);
-                    producer.signal();
-                    logger.debug("envelope submitted");
-                } catch (InterruptedException e) {
-                    logger.warn(message.fifoInterruptedWhileSubmitting(), e);
+                    notFull.signalAll();
                 } finally {
                     lock.unlock();
                 }
-            };
+            }
         }
 
-        public void shutdown() {
+        private void awaitEnvelopes() throws InterruptedException {
+            if (waitStrategy != WaitStrategy.BLOCKING) {
+                while (run && queue.isEmpty()) {
+                    idle();
+                }
+                return;
+            }
+
             try {
                 lock.lock();
-                run = false;
-                producer.signalAll();
-                consumer.signalAll();
+                consumerWaiting = true;
+                while (run && queue.isEmpty()) {
+                    notEmpty.await();
+                }
             } finally {
+                consumerWaiting = false;
                 lock.unlock();
             }
         }
 
-        public void submit(WireEnvelope envelope) {
-            submitter.accept(envelope);
+        private void idle() {
+            if (waitStrategy == WaitStrategy.YIELD) {
+                Thread.yield();
+            }
+        }
+
+        private void reportDroppedEnvelopes() {
+            long now = System.nanoTime();
+            if (now - lastDropReport < DROP_REPORT_INTERVAL_NANOS) {
+                return;
+            }
+            long dropped = droppedEnvelopes.get();
+            if (dropped != reportedDroppedEnvelopes) {
+                logger.warn("{} envelopes dropped in the last {} s, queue depth: {}/{}",
+                        dropped - reportedDroppedEnvelopes, (now - lastDropReport) / 1_000_000_000L, queue.size(),
+                        queue.capacity());
+                reportedDroppedEnvelopes = dropped;
+            }
+            lastDropReport = now;
+        }
+
+        int getQueueDepth() {
+            return queue.size();
+        }
+
+        long getSubmittedEnvelopes() {
+            return submittedEnvelopes.get();
+        }
+
+        long getDroppedEnvelopes() {
+            return droppedEnvelopes.get();
         }
 
         @Override
         public void run() {
+            final List<WireEnvelope> envelopes = new ArrayList<>(maxDrain);
             while (run) {
                 try {
-                    WireEnvelope next = null;
-                    try {
-                        lock.lock();
-                        while (run && queue.isEmpty()) {
-                            producer.await();
-                        }
-                        if (!run) {
-                            break;
+                    awaitEnvelopes();
+                    if (!run) {
+                        break;
+                    }
+
+                    envelopes.clear();
+                    queue.drainTo(envelopes, maxDrain);
+                    signalNotFull();
+                    if (envelopes.isEmpty()) {
+                        continue;
+                    }
+
+                    if (envelopes.size() == 1) {
+                        wireSupport.emit(envelopes.get(0).getRecords());
+                    } else {
+                        List<WireRecord> records = new ArrayList<>();
+                        for (WireEnvelope envelope : envelopes) {
+                            records.addAll(envelope.getRecords());
                         }
-                        next = queue.remove(0);
-                        consumer.signal();
-                    } finally {
-                        lock.unlock();
+                        wireSupport.emit(records);
                     }
-                    wireSupport.emit(next.getRecords());
+                    emittedEnvelopes += envelopes.size();
+                    reportDroppedEnvelopes();
                 } catch (Exception e) {
                     logger.warn(message.fifoUnexpectedExceptionWhileDispatching(), e);
                 }
             }
-            logger.debug("exiting");
+            logger.debug("exiting, emitted envelopes: {}, dropped envelopes: {}", emittedEnvelopes,
+                    droppedEnvelopes.get());
         }
     }
 }
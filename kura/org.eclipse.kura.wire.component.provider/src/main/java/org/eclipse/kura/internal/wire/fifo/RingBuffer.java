@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.fifo;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue backed by a preallocated array.
+ * <p>
+ * Each slot carries a sequence number telling whether it can be written or read at a given position: producers and
+ * consumers claim positions with a single compare-and-set on the tail and head counters respectively and never wait
+ * for each other, except for the short window between claiming a slot and publishing its sequence.
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+final class RingBuffer<E> {
+
+    private final int capacity;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    RingBuffer(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Inserts the element at the tail of the queue if it is not full.
+     *
+     * @param element
+     *            the element, not null
+     * @return true if the element has been inserted, false if the queue is full
+     */
+    boolean offer(final E element) {
+        while (true) {
+            final long position = this.tail.get();
+            final int index = (int) (position % this.capacity);
+            final long difference = this.sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements.lazySet(index, element);
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the head of the queue.
+     *
+     * @return the element, or null if the queue is empty
+     */
+    E poll() {
+        while (true) {
+            final long position = this.head.get();
+            final int index = (int) (position % this.capacity);
+            final long difference = this.sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    final E element = this.elements.get(index);
+                    this.elements.lazySet(index, null);
+                    this.sequences.set(index, position + this.capacity);
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes up to {@code maxElements} elements from the head of the queue and adds them to the provided list.
+     *
+     * @param target
+     *            the list receiving the elements
+     * @param maxElements
+     *            the maximum number of elements to remove
+     * @return the number of elements removed
+     */
+    int drainTo(final List<? super E> target, final int maxElements) {
+        int count = 0;
+        E element;
+        while (count < maxElements && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of elements in the queue; the value is approximate if the queue is being modified.
+     *
+     * @return the number of elements
+     */
+    int size() {
+        final long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, this.capacity));
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+}
@@ -17,9 +17,14 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -56,7 +61,12 @@ import org.slf4j.LoggerFactory;
  * <br/>
  *
  * For every {@link WireRecord} as found in {@link WireEnvelope} will be wrapped inside a Kura
- * Payload and will be sent to the Cloud Platform.
+ * Payload and will be sent to the Cloud Platform.<br/>
+ * <br/>
+ *
+ * If batching is enabled, the {@link WireRecord}s are accumulated across {@link WireEnvelope}s, separately for each
+ * resolved topic, and published in a single Kura Payload (see {@link WireRecordBatch}) when the configured number of
+ * records or estimated size is reached, or when the oldest record has waited for the configured maximum latency.
  */
 public final class CloudPublisher implements WireReceiver, CloudClientListener, ConfigurableComponent {
 
@@ -120,6 +130,11 @@ public final class CloudPublisher implements WireReceiver, CloudClientListener,
 
     private WireSupport wireSupport;
 
+    /** The pending batches by application topic, guarded by itself. */
+    private final Map<String, WireRecordBatch> batches = new HashMap<>();
+
+    private ScheduledExecutorService batchExecutor;
+
     // ----------------------------------------------------------------
     //
     // Dependencies
@@ -186,6 +201,9 @@ public final class CloudPublisher implements WireReceiver, CloudClientListener,
      */
     public void updated(final Map<String, Object> properties) {
         logger.debug(message.updatingCloudPublisher());
+        // Publish the records batched with the old options
+        publishAllBatches();
+
         // Update properties
         this.cloudPublisherOptions = new CloudPublisherOptions(properties);
 
@@ -205,7 +223,18 @@ public final class CloudPublisher implements WireReceiver, CloudClientListener,
      */
     protected void deactivate(final ComponentContext componentContext) {
         logger.debug(message.deactivatingCloudPublisher());
-        // close the client
+        // publish the pending batches and close the client
+        publishAllBatches();
+        synchronized (this.batches) {
+            if (!this.batches.isEmpty()) {
+                logger.warn("Dropping {} batches which could not be published", this.batches.size());
+                this.batches.clear();
+            }
+            if (nonNull(this.batchExecutor)) {
+                this.batchExecutor.shutdownNow();
+                this.batchExecutor = null;
+            }
+        }
         closeCloudClient();
 
         if (nonNull(this.cloudServiceTracker)) {
@@ -342,25 +371,138 @@ public final class CloudPublisher implements WireReceiver, CloudClientListener,
         requireNonNull(wireRecords, message.wireRecordsNonNull());
 
         try {
+            if (this.cloudPublisherOptions.isBatchEnabled()) {
+                batch(wireRecords);
+                return;
+            }
+
             for (final WireRecord dataRecord : wireRecords) {
                 // prepare the topic
                 final String appTopic = buildPublishAppTopic(dataRecord);
 
                 final KuraPayload kuraPayload = buildKuraPayload(dataRecord);
-                if (this.cloudPublisherOptions.isControlMessage()) {
-                    this.cloudClient.controlPublish(appTopic, kuraPayload,
-                            this.cloudPublisherOptions.getPublishingQos(),
-                            this.cloudPublisherOptions.getPublishingRetain(),
-                            this.cloudPublisherOptions.getPublishingPriority());
+                publish(appTopic, kuraPayload);
+            }
+        } catch (final Exception e) {
+            logger.error(message.errorPublishingWireRecords(), e);
+        }
+    }
+
+    /**
+     * Publishes the provided Kura Payload with the configured options
+     *
+     * @param appTopic
+     *            the application topic
+     * @param kuraPayload
+     *            the Kura Payload
+     * @throws KuraException
+     *             if the publishing fails
+     */
+    private void publish(final String appTopic, final KuraPayload kuraPayload) throws KuraException {
+        final CloudClient client = this.cloudClient;
+        requireNonNull(client, message.cloudClientNonNull());
+
+        if (this.cloudPublisherOptions.isControlMessage()) {
+            client.controlPublish(appTopic, kuraPayload, this.cloudPublisherOptions.getPublishingQos(),
+                    this.cloudPublisherOptions.getPublishingRetain(),
+                    this.cloudPublisherOptions.getPublishingPriority());
+        } else {
+            client.publish(appTopic, kuraPayload, this.cloudPublisherOptions.getPublishingQos(),
+                    this.cloudPublisherOptions.getPublishingRetain(),
+                    this.cloudPublisherOptions.getPublishingPriority());
+        }
+    }
+
+    /**
+     * Adds the provided {@link WireRecord}s to the batches of their topics, publishing the batches which are full.
+     * A batch which cannot be published is kept and published again after the maximum latency; meanwhile its oldest
+     * records are dropped to keep it within the configured size.
+     *
+     * @param wireRecords
+     *            the provided list of {@link WireRecord}s
+     */
+    private void batch(final List<WireRecord> wireRecords) {
+        final int batchSize = this.cloudPublisherOptions.getBatchSize();
+        final int batchMaxBytes = this.cloudPublisherOptions.getBatchMaxBytes();
+
+        synchronized (this.batches) {
+            for (final WireRecord dataRecord : wireRecords) {
+                final String appTopic = buildPublishAppTopic(dataRecord);
+
+                WireRecordBatch batch = this.batches.get(appTopic);
+                if (isNull(batch)) {
+                    batch = new WireRecordBatch();
+                    this.batches.put(appTopic, batch);
+                    scheduleBatchPublish(appTopic, batch);
+                }
+
+                batch.add(dataRecord);
+                if (batch.size() < batchSize && (batchMaxBytes <= 0 || batch.getEstimatedSize() < batchMaxBytes)) {
+                    continue;
+                }
+                if (batch.isPublishFailed()) {
+                    batch.dropOldest(batchSize, batchMaxBytes);
+                } else if (publishBatch(appTopic, batch)) {
+                    this.batches.remove(appTopic);
                 } else {
-                    this.cloudClient.publish(appTopic, kuraPayload, this.cloudPublisherOptions.getPublishingQos(),
-                            this.cloudPublisherOptions.getPublishingRetain(),
-                            this.cloudPublisherOptions.getPublishingPriority());
+                    batch.setPublishFailed();
                 }
+            }
+        }
+    }
 
+    /**
+     * Schedules the publishing of the provided batch after the configured maximum latency, unless it has already
+     * been published.
+     */
+    private void scheduleBatchPublish(final String appTopic, final WireRecordBatch batch) {
+        if (isNull(this.batchExecutor)) {
+            this.batchExecutor = Executors.newSingleThreadScheduledExecutor(
+                    runnable -> new Thread(runnable, "CloudPublisherBatch"));
+        }
+        this.batchExecutor.schedule(() -> {
+            synchronized (this.batches) {
+                if (this.batches.get(appTopic) != batch) {
+                    return;
+                }
+                if (publishBatch(appTopic, batch)) {
+                    this.batches.remove(appTopic);
+                } else if (nonNull(this.batchExecutor)) {
+                    scheduleBatchPublish(appTopic, batch);
+                }
             }
+        }, this.cloudPublisherOptions.getBatchMaxLatency(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publishes all the pending batches, keeping the ones which cannot be published
+     */
+    private void publishAllBatches() {
+        synchronized (this.batches) {
+            for (final Entry<String, WireRecordBatch> entry : new ArrayList<>(this.batches.entrySet())) {
+                if (publishBatch(entry.getKey(), entry.getValue())) {
+                    this.batches.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the provided batch
+     *
+     * @return true if the batch has been published, false if the publishing failed
+     */
+    private boolean publishBatch(final String appTopic, final WireRecordBatch batch) {
+        final int dropped = batch.takeDroppedCount();
+        if (dropped > 0) {
+            logger.warn("Dropped {} records of the batch for {} while it could not be published", dropped, appTopic);
+        }
+        try {
+            publish(appTopic, batch.toKuraPayload(this.cloudPublisherOptions.getBatchEncoding()));
+            return true;
         } catch (final Exception e) {
             logger.error(message.errorPublishingWireRecords(), e);
+            return false;
         }
     }
 
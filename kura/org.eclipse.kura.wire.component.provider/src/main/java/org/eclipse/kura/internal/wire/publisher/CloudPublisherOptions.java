@@ -47,6 +47,17 @@ final class CloudPublisherOptions {
     /** The Constant denoting MQTT topic. */
     private static final String CONF_TOPIC = "publish.topic";
 
+    /** The Constant denoting the maximum number of records published in a single message. */
+    private static final String CONF_BATCH_SIZE = "publish.batch.size";
+
+    /** The Constant denoting the maximum estimated size of the records published in a single message. */
+    private static final String CONF_BATCH_MAX_BYTES = "publish.batch.max.bytes";
+
+    /** The Constant denoting the maximum time a record can wait before being published. */
+    private static final String CONF_BATCH_MAX_LATENCY = "publish.batch.max.latency";
+
+    private static final String CONF_BATCH_ENCODING = "publish.batch.encoding";
+
     private static final String DEFAULT_CLOUD_SERVICE_PID = "org.eclipse.kura.cloud.CloudService";
 
     /** The Constant application to perform (either publish or subscribe). */
@@ -64,6 +75,24 @@ final class CloudPublisherOptions {
     /** The Constant denoting default MQTT topic. */
     private static final String DEFAULT_TOPIC = "A1/$assetName";
 
+    private static final int DEFAULT_BATCH_SIZE = 1;
+
+    private static final int DEFAULT_BATCH_MAX_BYTES = 0;
+
+    private static final int DEFAULT_BATCH_MAX_LATENCY = 1000;
+
+    private static final BatchEncoding DEFAULT_BATCH_ENCODING = BatchEncoding.ARRAY;
+
+    /**
+     * The ways of encoding the records of a batch in a single Kura Payload.
+     */
+    enum BatchEncoding {
+        /** A metric for each property of each record, named {@code <property>[<record index>]}. */
+        ARRAY,
+        /** A metric for each property, holding the packed values of all the records. */
+        COLUMNAR
+    }
+
     private final Map<String, Object> properties;
 
     /**
@@ -174,4 +203,74 @@ final class CloudPublisherOptions {
         }
         return isControlMessage;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the maximum number of {@link org.eclipse.kura.wire.WireRecord}s published in a single message. Batching
+     * is disabled if the returned value is 1.
+     *
+     * @return the batch size
+     */
+    int getBatchSize() {
+        int batchSize = DEFAULT_BATCH_SIZE;
+        final Object size = this.properties.get(CONF_BATCH_SIZE);
+        if (nonNull(size) && size instanceof Integer) {
+            batchSize = Math.max(1, (Integer) size);
+        }
+        return batchSize;
+    }
+
+    /**
+     * Returns the estimated size in bytes of the records after which a batch is published, 0 for no limit.
+     *
+     * @return the maximum batch size in bytes
+     */
+    int getBatchMaxBytes() {
+        int batchMaxBytes = DEFAULT_BATCH_MAX_BYTES;
+        final Object maxBytes = this.properties.get(CONF_BATCH_MAX_BYTES);
+        if (nonNull(maxBytes) && maxBytes instanceof Integer) {
+            batchMaxBytes = Math.max(0, (Integer) maxBytes);
+        }
+        return batchMaxBytes;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a record waits in a batch before being published.
+     *
+     * @return the maximum batch latency
+     */
+    int getBatchMaxLatency() {
+        int batchMaxLatency = DEFAULT_BATCH_MAX_LATENCY;
+        final Object maxLatency = this.properties.get(CONF_BATCH_MAX_LATENCY);
+        if (nonNull(maxLatency) && maxLatency instanceof Integer) {
+            batchMaxLatency = Math.max(1, (Integer) maxLatency);
+        }
+        return batchMaxLatency;
+    }
+
+    /**
+     * Returns how the records of a batch are encoded in the published message.
+     *
+     * @return the batch encoding
+     */
+    BatchEncoding getBatchEncoding() {
+        BatchEncoding batchEncoding = DEFAULT_BATCH_ENCODING;
+        final Object encoding = this.properties.get(CONF_BATCH_ENCODING);
+        if (nonNull(encoding) && encoding instanceof String) {
+            try {
+                batchEncoding = BatchEncoding.valueOf(((String) encoding).toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // use the default
+            }
+        }
+        return batchEncoding;
+    }
+
+    /**
+     * Returns true if the records have to be published in batches.
+     *
+     * @return true if batching is enabled
+     */
+    boolean isBatchEnabled() {
+        return getBatchSize() > 1;
+    }
+}
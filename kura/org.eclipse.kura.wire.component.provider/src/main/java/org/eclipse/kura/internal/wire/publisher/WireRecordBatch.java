@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.publisher;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.kura.internal.wire.publisher.CloudPublisherOptions.BatchEncoding;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.wire.WireRecord;
+
+/**
+ * The Class WireRecordBatch accumulates the {@link WireRecord}s to be published in a single Kura Payload.
+ * <br/>
+ * <br/>
+ * The payload always contains the {@value #RECORDS_METRIC} metric with the number of records. With the
+ * {@link BatchEncoding#ARRAY} encoding each property of each record becomes a metric named
+ * {@code <property>[<record index>]}. With the {@link BatchEncoding#COLUMNAR} encoding each property present in all
+ * the records with the same type becomes a single metric named {@code <property>:<type>}, whose value is a byte array
+ * with the values of all the records packed as by {@link DataOutputStream} (strings as modified UTF-8, byte arrays
+ * prefixed by their length); the other properties are encoded as with {@link BatchEncoding#ARRAY}.
+ */
+final class WireRecordBatch {
+
+    static final String RECORDS_METRIC = "records";
+
+    private static final int MAX_PACKED_STRING_LENGTH = 65535 / 3;
+
+    private final List<WireRecord> records = new ArrayList<>();
+    private long estimatedSize;
+    private boolean publishFailed;
+    private int droppedCount;
+
+    /**
+     * Adds a record to the batch.
+     *
+     * @param wireRecord
+     *            the {@link WireRecord} to add
+     * @throws NullPointerException
+     *             if the argument is null
+     */
+    void add(final WireRecord wireRecord) {
+        requireNonNull(wireRecord);
+        this.records.add(wireRecord);
+        this.estimatedSize += estimateSize(wireRecord);
+    }
+
+    /**
+     * Removes the oldest records until the batch contains at most the provided number of records and, if
+     * {@code maxBytes} is positive, its estimated size does not exceed it, keeping at least the latest record.
+     *
+     * @param maxRecords
+     *            the maximum number of records
+     * @param maxBytes
+     *            the maximum estimated size, or 0 for no limit
+     * @return the number of records removed
+     */
+    int dropOldest(final int maxRecords, final long maxBytes) {
+        int dropped = 0;
+        long droppedSize = 0;
+        final int size = this.records.size();
+        while (size - dropped > 1 && (size - dropped > maxRecords
+                || maxBytes > 0 && this.estimatedSize - droppedSize > maxBytes)) {
+            droppedSize += estimateSize(this.records.get(dropped));
+            dropped++;
+        }
+        this.records.subList(0, dropped).clear();
+        this.estimatedSize -= droppedSize;
+        this.droppedCount += dropped;
+        return dropped;
+    }
+
+    /**
+     * Returns the number of records removed by {@link #dropOldest(int, long)} since the last call, resetting it.
+     *
+     * @return the number of records dropped
+     */
+    int takeDroppedCount() {
+        final int result = this.droppedCount;
+        this.droppedCount = 0;
+        return result;
+    }
+
+    boolean isPublishFailed() {
+        return this.publishFailed;
+    }
+
+    void setPublishFailed() {
+        this.publishFailed = true;
+    }
+
+    int size() {
+        return this.records.size();
+    }
+
+    /**
+     * Returns the estimated size in bytes of the names and of the values of the records in the batch.
+     *
+     * @return the estimated size
+     */
+    long getEstimatedSize() {
+        return this.estimatedSize;
+    }
+
+    /**
+     * Builds the Kura Payload containing all the records in the batch.
+     *
+     * @param encoding
+     *            the {@link BatchEncoding} to use
+     * @return the Kura Payload
+     */
+    KuraPayload toKuraPayload(final BatchEncoding encoding) {
+        final KuraPayload kuraPayload = new KuraPayload();
+        kuraPayload.addMetric(RECORDS_METRIC, this.records.size());
+
+        final Map<String, DataType> columns = encoding == BatchEncoding.COLUMNAR ? findColumns()
+                : new LinkedHashMap<>();
+        for (final Entry<String, DataType> column : columns.entrySet()) {
+            kuraPayload.addMetric(column.getKey() + ":" + column.getValue().name(),
+                    packColumn(column.getKey(), column.getValue()));
+        }
+
+        for (int i = 0; i < this.records.size(); i++) {
+            for (final Entry<String, TypedValue<?>> entry : this.records.get(i).getProperties().entrySet()) {
+                if (!columns.containsKey(entry.getKey())) {
+                    kuraPayload.addMetric(entry.getKey() + "[" + i + "]", entry.getValue().getValue());
+                }
+            }
+        }
+        return kuraPayload;
+    }
+
+    /**
+     * Returns the properties which are present in all the records with the same type and can be packed.
+     */
+    private Map<String, DataType> findColumns() {
+        final Map<String, DataType> columns = new LinkedHashMap<>();
+        for (final Entry<String, TypedValue<?>> entry : this.records.get(0).getProperties().entrySet()) {
+            columns.put(entry.getKey(), entry.getValue().getType());
+        }
+        for (final WireRecord wireRecord : this.records) {
+            final Map<String, TypedValue<?>> properties = wireRecord.getProperties();
+            columns.entrySet().removeIf(column -> {
+                final TypedValue<?> value = properties.get(column.getKey());
+                return value == null || value.getType() != column.getValue() || !isPackable(value);
+            });
+        }
+        return columns;
+    }
+
+    private byte[] packColumn(final String name, final DataType type) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (final WireRecord wireRecord : this.records) {
+                final Object value = wireRecord.getProperties().get(name).getValue();
+                switch (type) {
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case BYTE_ARRAY:
+                    out.writeInt(((byte[]) value).length);
+                    out.write((byte[]) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case FLOAT:
+                    out.writeFloat((Float) value);
+                    break;
+                case INTEGER:
+                    out.writeInt((Integer) value);
+                    break;
+                case LONG:
+                    out.writeLong((Long) value);
+                    break;
+                case STRING:
+                    out.writeUTF((String) value);
+                    break;
+                default:
+                    throw new IllegalArgumentException(type.name());
+                }
+            }
+        } catch (final IOException e) {
+            // not thrown by ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean isPackable(final TypedValue<?> typedValue) {
+        final Object value = typedValue.getValue();
+        if (value == null) {
+            return false;
+        }
+        // the modified UTF-8 encoding of DataOutputStream is limited to 65535 bytes
+        return typedValue.getType() != DataType.STRING || ((String) value).length() <= MAX_PACKED_STRING_LENGTH;
+    }
+
+    private static long estimateSize(final WireRecord wireRecord) {
+        long size = 0;
+        for (final Entry<String, TypedValue<?>> entry : wireRecord.getProperties().entrySet()) {
+            size += entry.getKey().length() + estimateSize(entry.getValue());
+        }
+        return size;
+    }
+
+    private static int estimateSize(final TypedValue<?> typedValue) {
+        switch (typedValue.getType()) {
+        case BOOLEAN:
+            return 1;
+        case BYTE_ARRAY:
+            return typedValue.getValue() != null ? ((byte[]) typedValue.getValue()).length : 0;
+        case FLOAT:
+        case INTEGER:
+            return 4;
+        case DOUBLE:
+        case LONG:
+            return 8;
+        case STRING:
+            return typedValue.getValue() != null ? ((String) typedValue.getValue()).length() : 0;
+        default:
+            return 8;
+        }
+    }
+}
@@ -49,8 +49,16 @@ public final class EmitJob implements Job {
     @Override
     public void execute(final JobExecutionContext context) throws JobExecutionException {
         final TimerJobDataMap dataMap = (TimerJobDataMap) context.getJobDetail().getJobDataMap();
-        final WireSupport wireSupport = dataMap.getWireSupport();
+        emit(dataMap.getWireSupport());
+    }
 
+    /**
+     * Emits a {@link WireRecord} containing the current time.
+     *
+     * @param wireSupport
+     *            the {@link WireSupport} of the emitting timer
+     */
+    static void emit(final WireSupport wireSupport) {
         final long currentTime = new Date().getTime();
         final TypedValue<Long> timestamp = TypedValues.newLongValue(currentTime);
         final Map<String, TypedValue<?>> timerProperties = new HashMap<>();
@@ -18,6 +18,7 @@ import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.kura.configuration.ConfigurableComponent;
@@ -35,7 +36,6 @@ import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
-import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.impl.StdSchedulerFactory;
@@ -45,6 +45,9 @@ import org.slf4j.LoggerFactory;
 /**
  * The Class Timer represents a Wire Component which triggers a ticking event on
  * every interval as configured. It fires the event on every tick.
+ * <br>
+ * Simple intervals are scheduled by the {@link TimerEngine}, on the thread of the configured timer group, while
+ * CRON expressions are scheduled by Quartz.
  */
 public class Timer implements WireEmitter, ConfigurableComponent {
 
@@ -61,6 +64,9 @@ public class Timer implements WireEmitter, ConfigurableComponent {
     /** Job Key for Quartz Scheduling */
     private JobKey jobKey;
 
+    /** Tick of the simple interval scheduling */
+    private TimerEngine.Tick tick;
+
     private TimerOptions timerOptions;
 
     private volatile WireHelperService wireHelperService;
@@ -142,9 +148,7 @@ public class Timer implements WireEmitter, ConfigurableComponent {
         logger.debug(message.deactivatingTimer());
 
         try {
-            if (nonNull(this.jobKey)) {
-                getScheduler().deleteJob(this.jobKey);
-            }
+            cancelSchedules();
         } catch (final SchedulerException e) {
             logger.error(message.schedulerException(), e);
         } finally {
@@ -166,6 +170,20 @@ public class Timer implements WireEmitter, ConfigurableComponent {
         return scheduler;
     }
 
+    protected TimerEngine getTimerEngine() {
+        return TimerEngine.getDefault();
+    }
+
+    /**
+     * Returns the execution metrics of the simple interval scheduling.
+     *
+     * @return the statistics, or null if the timer is not scheduled with a simple interval
+     */
+    public TimerStatistics getStatistics() {
+        final TimerEngine.Tick currentTick = this.tick;
+        return nonNull(currentTick) ? currentTick.getStatistics() : null;
+    }
+
     private static void shutdownScheduler() {
         synchronized (instanceCount) {
             if (scheduler != null) {
@@ -187,6 +205,7 @@ public class Timer implements WireEmitter, ConfigurableComponent {
      *             if job scheduling fails
      */
     private void doUpdate() throws SchedulerException {
+        cancelSchedules();
         if ("SIMPLE".equalsIgnoreCase(this.timerOptions.getType())) {
             scheduleSimpleInterval(
                     this.timerOptions.getSimpleInterval() * this.timerOptions.getSimpleTimeUnitMultiplier());
@@ -197,36 +216,41 @@ public class Timer implements WireEmitter, ConfigurableComponent {
     }
 
     /**
-     * Creates a trigger based on the provided interval
+     * Cancels the current scheduling, if any
+     *
+     * @throws SchedulerException
+     *             if the Quartz job cannot be deleted
+     */
+    private void cancelSchedules() throws SchedulerException {
+        if (nonNull(this.tick)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(message.timerStatistics(String.valueOf(this.tick.getStatistics())));
+            }
+            this.tick.cancel();
+            this.tick = null;
+        }
+        if (nonNull(this.jobKey)) {
+            getScheduler().deleteJob(this.jobKey);
+            this.jobKey = null;
+        }
+    }
+
+    /**
+     * Schedules the emission on the {@link TimerEngine} based on the provided interval
      *
      * @param interval
      *            the interval in milliseconds
-     * @throws SchedulerException
-     *             if scheduling fails
      * @throws IllegalArgumentException
-     *             if the interval is less than or equal to zero
+     *             if the interval is less than or equal to zero or the overrun policy is not valid
      */
-    private void scheduleSimpleInterval(final long interval) throws SchedulerException {
+    private void scheduleSimpleInterval(final long interval) {
         if (interval <= 0) {
             throw new IllegalArgumentException(message.intervalNonLessThanEqualToZero());
         }
-        final Scheduler scheduler = getScheduler();
-
-        final int id = nextJobId.incrementAndGet();
-        if (nonNull(this.jobKey)) {
-            scheduler.deleteJob(this.jobKey);
-        }
-        this.jobKey = new JobKey("emitJob" + id, GROUP_ID);
-        final Trigger trigger = TriggerBuilder.newTrigger().withIdentity("emitTrigger" + id, GROUP_ID)
-                .withSchedule(
-                        SimpleScheduleBuilder.simpleSchedule().withIntervalInMilliseconds(interval).repeatForever())
-                .build();
-
-        final TimerJobDataMap jobDataMap = new TimerJobDataMap();
-        jobDataMap.putWireSupport(this.wireSupport);
-        final JobDetail job = JobBuilder.newJob(EmitJob.class).withIdentity(this.jobKey).setJobData(jobDataMap).build();
-
-        scheduler.scheduleJob(job, trigger);
+        final WireSupport currentWireSupport = this.wireSupport;
+        this.tick = getTimerEngine().schedule(this.timerOptions.getSimpleGroup(), interval, TimeUnit.MILLISECONDS,
+                this.timerOptions.isSimpleAligned(), this.timerOptions.getSimpleOverrunPolicy(),
+                () -> EmitJob.emit(currentWireSupport));
     }
 
     /**
@@ -244,9 +268,6 @@ public class Timer implements WireEmitter, ConfigurableComponent {
         final Scheduler scheduler = getScheduler();
 
         final int id = nextJobId.incrementAndGet();
-        if (nonNull(this.jobKey)) {
-            scheduler.deleteJob(this.jobKey);
-        }
         this.jobKey = new JobKey("emitJob" + id, GROUP_ID);
         final Trigger trigger = TriggerBuilder.newTrigger().withIdentity("emitTrigger" + id, GROUP_ID)
                 .withSchedule(CronScheduleBuilder.cronSchedule(expression)).build();
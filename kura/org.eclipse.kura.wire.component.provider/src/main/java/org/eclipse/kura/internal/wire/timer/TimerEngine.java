@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.timer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the periodic ticks of the {@link Timer} components without relying on Quartz.
+ * <br>
+ * Ticks are grouped by name and every group is served by its own thread, that is started when the first tick of
+ * the group is scheduled and terminates when the last one is cancelled. A slow wire graph therefore delays only the
+ * timers of its own group. The thread waits for the deadlines with nanosecond resolution, allowing intervals of a
+ * few milliseconds.
+ * <br>
+ * Ticks are executed at fixed rate: the n-th execution is scheduled at {@code start + n * interval} regardless of
+ * the duration of the previous executions. If aligned, the start is the first multiple of the interval since the
+ * epoch, so that for example a timer with an interval of one minute ticks at the beginning of every minute. When a
+ * tick execution lasts more than the interval, the deadlines that are missed are handled according to the
+ * {@link OverrunPolicy} of the tick.
+ */
+final class TimerEngine {
+
+    /**
+     * Defines how the deadlines that elapse while a tick is still being executed are handled.
+     */
+    enum OverrunPolicy {
+        /** The missed ticks are dropped, the next tick happens at the next deadline in the future. */
+        SKIP,
+        /** The missed ticks are replaced by a single tick, executed immediately. */
+        COALESCE,
+        /** The missed ticks are executed one after the other, until the schedule is caught up. */
+        QUEUE
+    }
+
+    /** Maximum number of missed ticks retained by the {@link OverrunPolicy#QUEUE} policy */
+    static final int MAX_QUEUED_TICKS = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(TimerEngine.class);
+
+    private static final TimerEngine DEFAULT = new TimerEngine();
+
+    private final Map<String, Group> groups = new HashMap<>();
+
+    /**
+     * Returns the engine shared by all the timers.
+     *
+     * @return the default engine
+     */
+    static TimerEngine getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Starts the periodic execution of the provided task.
+     *
+     * @param groupName
+     *            the name of the group, the task is executed by the thread of the group
+     * @param interval
+     *            the interval between two executions
+     * @param unit
+     *            the time unit of the interval
+     * @param aligned
+     *            if true the executions are aligned to the multiples of the interval since the epoch, otherwise the
+     *            first execution happens immediately
+     * @param overrunPolicy
+     *            the handling of the deadlines that elapse during an execution
+     * @param task
+     *            the task to be executed
+     * @return the {@link Tick} that can be used to retrieve the statistics and to cancel the execution
+     * @throws IllegalArgumentException
+     *             if the interval is less than or equal to zero
+     */
+    synchronized Tick schedule(final String groupName, final long interval, final TimeUnit unit,
+            final boolean aligned, final OverrunPolicy overrunPolicy, final Runnable task) {
+        requireNonNull(groupName);
+        requireNonNull(overrunPolicy);
+        requireNonNull(task);
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The interval must be greater than zero");
+        }
+
+        final long intervalNanos = unit.toNanos(interval);
+        long firstDeadline = System.nanoTime();
+        if (aligned) {
+            final long wallClock = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            firstDeadline += (intervalNanos - wallClock % intervalNanos) % intervalNanos;
+        }
+
+        final Group group = this.groups.computeIfAbsent(groupName, Group::new);
+        final Tick tick = new Tick(group, intervalNanos, overrunPolicy, task, firstDeadline);
+        group.add(tick);
+        return tick;
+    }
+
+    private synchronized void cancel(final Tick tick) {
+        if (tick.cancelled) {
+            return;
+        }
+        tick.cancelled = true;
+        final Group group = tick.group;
+        if (group.remove(tick)) {
+            this.groups.remove(group.name);
+        }
+    }
+
+    /**
+     * A periodic task scheduled by a {@link TimerEngine}.
+     */
+    final class Tick implements Comparable<Tick> {
+
+        private final Group group;
+        private final long interval;
+        private final OverrunPolicy overrunPolicy;
+        private final Runnable task;
+
+        private long deadline;
+        private long overrunHorizon;
+        private volatile boolean cancelled;
+
+        private volatile long tickCount;
+        private volatile long overrunCount;
+        private volatile long droppedCount;
+        private volatile long totalLatency;
+        private volatile long maximumLatency;
+        private volatile long lastLatency;
+
+        private Tick(final Group group, final long interval, final OverrunPolicy overrunPolicy, final Runnable task,
+                final long firstDeadline) {
+            this.group = group;
+            this.interval = interval;
+            this.overrunPolicy = overrunPolicy;
+            this.task = task;
+            this.deadline = firstDeadline;
+            this.overrunHorizon = firstDeadline;
+        }
+
+        /**
+         * Stops the tick, an execution already in progress is not interrupted.
+         */
+        void cancel() {
+            TimerEngine.this.cancel(this);
+        }
+
+        /**
+         * Returns a snapshot of the execution metrics of this tick.
+         */
+        TimerStatistics getStatistics() {
+            final long ticks = this.tickCount;
+            return new TimerStatistics(ticks, this.overrunCount, this.droppedCount,
+                    ticks > 0 ? this.totalLatency / ticks : 0, this.maximumLatency, this.lastLatency);
+        }
+
+        @Override
+        public int compareTo(final Tick other) {
+            return Long.signum(this.deadline - other.deadline);
+        }
+
+        private void execute(final long now) {
+            final long latency = now - this.deadline;
+            this.lastLatency = latency;
+            this.totalLatency += latency;
+            if (latency > this.maximumLatency) {
+                this.maximumLatency = latency;
+            }
+            this.tickCount++;
+
+            try {
+                this.task.run();
+            } catch (final RuntimeException e) {
+                logger.warn("Timer tick in group {} failed", this.group.name, e);
+            }
+
+            final long end = System.nanoTime();
+            final long nextDeadline = this.deadline + this.interval;
+            if (end - nextDeadline < 0) {
+                this.deadline = nextDeadline;
+                return;
+            }
+
+            // account each missed deadline once, even if it is executed late by the QUEUE policy
+            final long firstUncounted = Math.max(nextDeadline, this.overrunHorizon + this.interval);
+            if (end - firstUncounted >= 0) {
+                final long overruns = (end - firstUncounted) / this.interval + 1;
+                this.overrunCount += overruns;
+                this.overrunHorizon = firstUncounted + (overruns - 1) * this.interval;
+            }
+
+            final long missed = (end - nextDeadline) / this.interval + 1;
+            switch (this.overrunPolicy) {
+            case SKIP:
+                this.droppedCount += missed;
+                this.deadline = nextDeadline + missed * this.interval;
+                break;
+            case COALESCE:
+                this.droppedCount += missed - 1;
+                this.deadline = nextDeadline + (missed - 1) * this.interval;
+                break;
+            default:
+                final long dropped = Math.max(0, missed - MAX_QUEUED_TICKS);
+                this.droppedCount += dropped;
+                this.deadline = nextDeadline + dropped * this.interval;
+                break;
+            }
+        }
+    }
+
+    /**
+     * A set of ticks executed by the same thread.
+     */
+    private static final class Group implements Runnable {
+
+        private final String name;
+        private final PriorityQueue<Tick> ticks = new PriorityQueue<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = this.lock.newCondition();
+
+        /** The ticks that have not been cancelled, including the one being executed */
+        private int liveTicks;
+
+        private boolean stopped;
+
+        private Group(final String name) {
+            this.name = name;
+            final Thread thread = new Thread(this, "WireTimer-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void add(final Tick tick) {
+            this.lock.lock();
+            try {
+                this.ticks.add(tick);
+                this.liveTicks++;
+                this.changed.signal();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Removes the tick and stops the thread if it was the last one.
+         *
+         * @return true if the group has been stopped
+         */
+        private boolean remove(final Tick tick) {
+            this.lock.lock();
+            try {
+                // the tick is not in the queue while it is being executed
+                this.ticks.remove(tick);
+                this.stopped = --this.liveTicks == 0;
+                this.changed.signal();
+                return this.stopped;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            this.lock.lock();
+            try {
+                while (!this.stopped) {
+                    final Tick tick = this.ticks.peek();
+                    if (tick == null) {
+                        this.changed.await();
+                        continue;
+                    }
+                    final long now = System.nanoTime();
+                    if (tick.deadline - now > 0) {
+                        this.changed.awaitNanos(tick.deadline - now);
+                        continue;
+                    }
+
+                    this.ticks.poll();
+                    this.lock.unlock();
+                    try {
+                        tick.execute(now);
+                    } finally {
+                        this.lock.lock();
+                    }
+                    if (!tick.cancelled) {
+                        this.ticks.add(tick);
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
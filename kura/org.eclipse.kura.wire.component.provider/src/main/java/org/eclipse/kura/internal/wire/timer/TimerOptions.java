@@ -40,6 +40,14 @@ final class TimerOptions {
 
     private static final String PROP_INTERVAL_TYPE = "type";
 
+    private static final String PROP_SIMPLE_GROUP = "simple.group";
+
+    private static final String PROP_SIMPLE_ALIGNED = "simple.aligned";
+
+    private static final String PROP_SIMPLE_OVERRUN_POLICY = "simple.overrun.policy";
+
+    private static final String DEFAULT_GROUP = "default";
+
     private final Map<String, Object> properties;
 
     /**
@@ -115,4 +123,38 @@ final class TimerOptions {
 
         return timeUnit.toMillis(1);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the name of the group whose thread executes the ticks.
+     *
+     * @return the group name
+     */
+    String getSimpleGroup() {
+        final Object group = this.properties.get(PROP_SIMPLE_GROUP);
+        if (nonNull(group) && group instanceof String && !((String) group).trim().isEmpty()) {
+            return ((String) group).trim();
+        }
+        return DEFAULT_GROUP;
+    }
+
+    /**
+     * Returns whether the ticks are aligned to the multiples of the interval since the epoch.
+     *
+     * @return true if the ticks are aligned
+     */
+    boolean isSimpleAligned() {
+        final Object aligned = this.properties.get(PROP_SIMPLE_ALIGNED);
+        return nonNull(aligned) && aligned instanceof Boolean && (Boolean) aligned;
+    }
+
+    TimerEngine.OverrunPolicy getSimpleOverrunPolicy() throws IllegalArgumentException {
+        final Object policy = this.properties.getOrDefault(PROP_SIMPLE_OVERRUN_POLICY,
+                TimerEngine.OverrunPolicy.COALESCE.name());
+        for (final TimerEngine.OverrunPolicy overrunPolicy : TimerEngine.OverrunPolicy.values()) {
+            if (overrunPolicy.name().equals(policy)) {
+                return overrunPolicy;
+            }
+        }
+        throw new IllegalArgumentException(message.invalidOverrunPolicy());
+    }
+}
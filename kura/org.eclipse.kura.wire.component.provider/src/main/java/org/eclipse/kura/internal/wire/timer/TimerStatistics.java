@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.timer;
+
+/**
+ * Execution metrics of a {@link Timer}. Latencies are expressed in nanoseconds and measure how late a tick has been
+ * executed with respect to its deadline.
+ */
+public final class TimerStatistics {
+
+    private final long tickCount;
+    private final long overrunCount;
+    private final long droppedCount;
+    private final long averageLatency;
+    private final long maximumLatency;
+    private final long lastLatency;
+
+    TimerStatistics(final long tickCount, final long overrunCount, final long droppedCount,
+            final long averageLatency, final long maximumLatency, final long lastLatency) {
+        this.tickCount = tickCount;
+        this.overrunCount = overrunCount;
+        this.droppedCount = droppedCount;
+        this.averageLatency = averageLatency;
+        this.maximumLatency = maximumLatency;
+        this.lastLatency = lastLatency;
+    }
+
+    /**
+     * Returns the number of executed ticks.
+     */
+    public long getTickCount() {
+        return this.tickCount;
+    }
+
+    /**
+     * Returns the number of deadlines that elapsed while a previous tick was still being executed.
+     */
+    public long getOverrunCount() {
+        return this.overrunCount;
+    }
+
+    /**
+     * Returns the number of ticks that have not been executed because of the overrun policy.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount;
+    }
+
+    public long getAverageLatency() {
+        return this.averageLatency;
+    }
+
+    public long getMaximumLatency() {
+        return this.maximumLatency;
+    }
+
+    public long getLastLatency() {
+        return this.lastLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "TimerStatistics [ticks=" + this.tickCount + ", overruns=" + this.overrunCount + ", dropped="
+                + this.droppedCount + ", averageLatency=" + this.averageLatency + ", maximumLatency="
+                + this.maximumLatency + ", lastLatency=" + this.lastLatency + "]";
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static java.util.Objects.isNull;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The Class WireDispatchOptions captures the configuration of the delivery of the emitted
+ * {@link org.eclipse.kura.wire.WireEnvelope}s to the connected Wire Receivers.
+ */
+final class WireDispatchOptions {
+
+    /**
+     * The policy applied when the queue of an asynchronous wire is full.
+     */
+    enum BackPressurePolicy {
+        /** The emitter waits until the envelope can be queued */
+        BLOCK,
+        /** The new envelope is discarded */
+        DROP_NEWEST,
+        /** The oldest queued envelope is discarded */
+        DROP_OLDEST
+    }
+
+    private static final String ASYNC = "dispatch.async";
+
+    private static final String QUEUE_CAPACITY = "dispatch.queue.capacity";
+
+    private static final String BACK_PRESSURE_POLICY = "dispatch.back.pressure.policy";
+
+    private static final String EMIT_EVENT_ENABLED = "emit.event.enabled";
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    private final Map<String, Object> properties;
+
+    /**
+     * Instantiates a new Wire Dispatch options.
+     *
+     * @param properties
+     *            the configured properties, can be null
+     */
+    WireDispatchOptions(final Map<String, Object> properties) {
+        this.properties = isNull(properties) ? Collections.<String, Object> emptyMap() : properties;
+    }
+
+    /**
+     * Returns true if the envelopes are delivered to each wire by a dedicated thread instead of the emitter's thread.
+     *
+     * @return true if the dispatch is asynchronous
+     */
+    boolean isAsync() {
+        final Object async = this.properties.get(ASYNC);
+        return async instanceof Boolean && (Boolean) async;
+    }
+
+    /**
+     * Returns the maximum number of envelopes waiting to be delivered on each wire.
+     *
+     * @return the queue capacity
+     */
+    int getQueueCapacity() {
+        final Object capacity = this.properties.get(QUEUE_CAPACITY);
+        if (capacity instanceof Integer && (Integer) capacity > 0) {
+            return (Integer) capacity;
+        }
+        return DEFAULT_QUEUE_CAPACITY;
+    }
+
+    /**
+     * Returns the {@link BackPressurePolicy} applied when the queue of a wire is full.
+     *
+     * @return the back pressure policy
+     */
+    BackPressurePolicy getBackPressurePolicy() {
+        final Object policy = this.properties.get(BACK_PRESSURE_POLICY);
+        if (policy instanceof String) {
+            try {
+                return BackPressurePolicy.valueOf(((String) policy).trim().toUpperCase().replace('-', '_'));
+            } catch (final IllegalArgumentException e) {
+                // fall back to the default
+            }
+        }
+        return BackPressurePolicy.BLOCK;
+    }
+
+    /**
+     * Returns true if an event is posted on {@link org.eclipse.kura.wire.WireSupport#EMIT_EVENT_TOPIC} for every emit.
+     *
+     * @return true if the emit events are enabled
+     */
+    boolean isEmitEventEnabled() {
+        final Object enabled = this.properties.get(EMIT_EVENT_ENABLED);
+        return !(enabled instanceof Boolean) || (Boolean) enabled;
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.kura.internal.wire.helper.WireDispatchOptions.BackPressurePolicy;
+import org.eclipse.kura.wire.WireEnvelope;
+import org.osgi.service.wireadmin.Wire;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class WireDispatcher delivers the {@link WireEnvelope}s emitted on a single {@link Wire} using a dedicated
+ * thread and a bounded queue, so that a slow Wire Receiver does not block the emitter nor the other receivers
+ * connected to it. The envelopes are delivered in the order in which they have been emitted.
+ * <br/>
+ * <br/>
+ * The thread is started on the first dispatch and terminates after being idle for {@value #KEEP_ALIVE_SECONDS}
+ * seconds.
+ */
+final class WireDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireDispatcher.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final long DROP_LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final Wire wire;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile long lastDropLog = System.nanoTime();
+
+    /**
+     * Instantiates a new dispatcher.
+     *
+     * @param wire
+     *            the {@link Wire} to update
+     * @param name
+     *            the name of the delivery thread
+     * @param options
+     *            the {@link WireDispatchOptions}
+     * @throws NullPointerException
+     *             if any of the arguments is null
+     */
+    WireDispatcher(final Wire wire, final String name, final WireDispatchOptions options) {
+        requireNonNull(wire);
+        requireNonNull(name);
+        requireNonNull(options);
+
+        this.wire = wire;
+        this.executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(options.getQueueCapacity()), runnable -> {
+                    final Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }, getRejectedExecutionHandler(options.getBackPressurePolicy()));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues the envelope for delivery, applying the configured {@link BackPressurePolicy} if the queue is full.
+     *
+     * @param wireEnvelope
+     *            the {@link WireEnvelope} to deliver
+     */
+    void dispatch(final WireEnvelope wireEnvelope) {
+        this.executor.execute(() -> {
+            try {
+                this.wire.update(wireEnvelope);
+            } catch (final Exception e) {
+                logger.error("Error while delivering envelope on wire {}", this.wire, e);
+            }
+        });
+    }
+
+    /**
+     * Stops the delivery; the envelopes still in the queue are discarded.
+     */
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private RejectedExecutionHandler getRejectedExecutionHandler(final BackPressurePolicy policy) {
+        switch (policy) {
+        case DROP_NEWEST:
+            return (runnable, executor) -> onDrop(executor);
+        case DROP_OLDEST:
+            return (runnable, executor) -> {
+                if (!executor.isShutdown()) {
+                    executor.getQueue().poll();
+                    onDrop(executor);
+                    executor.execute(runnable);
+                }
+            };
+        case BLOCK:
+        default:
+            return (runnable, executor) -> {
+                try {
+                    while (!executor.isShutdown()) {
+                        if (executor.getQueue().offer(runnable, 1, TimeUnit.SECONDS)) {
+                            return;
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException(e);
+                }
+            };
+        }
+    }
+
+    private void onDrop(final ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        final long count = this.dropped.incrementAndGet();
+        final long now = System.nanoTime();
+        if (now - this.lastDropLog >= DROP_LOG_INTERVAL) {
+            this.lastDropLog = now;
+            logger.warn("Wire {} is not keeping up, {} envelopes dropped so far", this.wire, count);
+        }
+    }
+}
@@ -17,6 +17,9 @@ import static java.util.Objects.requireNonNull;
 import static org.eclipse.kura.configuration.ConfigurationService.KURA_SERVICE_PID;
 import static org.osgi.framework.Constants.SERVICE_PID;
 
+import java.util.Map;
+
+import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.localization.LocalizationAdapter;
 import org.eclipse.kura.localization.resources.WireMessages;
 import org.eclipse.kura.util.service.ServiceUtil;
@@ -33,13 +36,19 @@ import org.osgi.service.event.EventAdmin;
 /**
  * The Class WireHelperServiceImpl is the implementation of
  * {@link WireHelperService}
+ * <br/>
+ * <br/>
+ * The configured {@link WireDispatchOptions} are applied to the {@link WireSupport} instances created after the
+ * configuration has been updated.
  */
-public final class WireHelperServiceImpl implements WireHelperService {
+public final class WireHelperServiceImpl implements WireHelperService, ConfigurableComponent {
 
     private static final WireMessages wireMessages = LocalizationAdapter.adapt(WireMessages.class);
 
     private volatile EventAdmin eventAdmin;
 
+    private volatile WireDispatchOptions dispatchOptions = new WireDispatchOptions(null);
+
     /**
      * Binds the Event Admin Service.
      *
@@ -64,6 +73,26 @@ public final class WireHelperServiceImpl implements WireHelperService {
         }
     }
 
+    /**
+     * OSGi Service Component callback for activation.
+     *
+     * @param properties
+     *            the service properties
+     */
+    protected void activate(final Map<String, Object> properties) {
+        updated(properties);
+    }
+
+    /**
+     * OSGi Service Component callback for updating.
+     *
+     * @param properties
+     *            the updated service properties
+     */
+    public void updated(final Map<String, Object> properties) {
+        this.dispatchOptions = new WireDispatchOptions(properties);
+    }
+
     /** {@inheritDoc} */
     @Override
     public String getPid(final WireComponent wireComponent) {
@@ -161,6 +190,6 @@ public final class WireHelperServiceImpl implements WireHelperService {
     /** {@inheritDoc} */
     @Override
     public WireSupport newWireSupport(final WireComponent wireComponent) {
-        return new WireSupportImpl(wireComponent, this, this.eventAdmin);
+        return new WireSupportImpl(wireComponent, this, this.eventAdmin, this.dispatchOptions);
     }
 }
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.kura.internal.wire.helper;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
 import java.util.Arrays;
@@ -36,6 +37,11 @@ import org.osgi.service.wireadmin.Wire;
 
 /**
  * The Class WireSupportImpl implements {@link WireSupport}
+ * <br/>
+ * <br/>
+ * If the asynchronous dispatch is enabled in the {@link WireDispatchOptions}, the emitted envelopes are delivered
+ * to each outgoing wire by a dedicated {@link WireDispatcher} and {@link #emit(List)} does not wait for the Wire
+ * Receivers; otherwise they are delivered sequentially on the emitter's thread.
  */
 final class WireSupportImpl implements WireSupport {
 
@@ -43,6 +49,10 @@ final class WireSupportImpl implements WireSupport {
 
     private final EventAdmin eventAdmin;
 
+    private final WireDispatchOptions options;
+
+    private volatile List<WireDispatcher> dispatchers;
+
     private List<Wire> incomingWires;
 
     private List<Wire> outgoingWires;
@@ -67,6 +77,25 @@ final class WireSupportImpl implements WireSupport {
      */
     WireSupportImpl(final WireComponent wireSupporter, final WireHelperService wireHelperService,
             final EventAdmin eventAdmin) {
+        this(wireSupporter, wireHelperService, eventAdmin, new WireDispatchOptions(null));
+    }
+
+    /**
+     * Instantiates a new wire support implementation.
+     *
+     * @param wireSupporter
+     *            the wire supporter
+     * @param wireHelperService
+     *            the Wire Helper service
+     * @param eventAdmin
+     *            the Event Admin service
+     * @param options
+     *            the {@link WireDispatchOptions}
+     * @throws NullPointerException
+     *             if any of the provided arguments is null
+     */
+    WireSupportImpl(final WireComponent wireSupporter, final WireHelperService wireHelperService,
+            final EventAdmin eventAdmin, final WireDispatchOptions options) {
         requireNonNull(wireSupporter, message.wireSupportedComponentNonNull());
         requireNonNull(wireHelperService, message.wireHelperServiceNonNull());
         requireNonNull(eventAdmin, message.eventAdminNonNull());
@@ -77,26 +106,49 @@ final class WireSupportImpl implements WireSupport {
         this.pid = wireHelperService.getPid(wireSupporter);
         this.wireSupporter = wireSupporter;
         this.eventAdmin = eventAdmin;
+        this.options = requireNonNull(options);
+        this.dispatchers = Collections.emptyList();
     }
 
     /** {@inheritDoc} */
     @Override
     public synchronized void consumersConnected(final Wire[] wires) {
-        this.outgoingWires = Arrays.asList(wires);
+        this.outgoingWires = isNull(wires) ? Collections.<Wire> emptyList() : Arrays.asList(wires);
+        if (this.options.isAsync()) {
+            final List<WireDispatcher> oldDispatchers = this.dispatchers;
+            final List<WireDispatcher> newDispatchers = CollectionUtil.newArrayList();
+            for (final Wire wire : this.outgoingWires) {
+                newDispatchers.add(new WireDispatcher(wire, "WireDispatcher-" + this.pid, this.options));
+            }
+            this.dispatchers = newDispatchers;
+            for (final WireDispatcher dispatcher : oldDispatchers) {
+                dispatcher.shutdown();
+            }
+        }
     }
 
     /** {@inheritDoc} */
     @Override
-    public synchronized void emit(final List<WireRecord> wireRecords) {
+    public void emit(final List<WireRecord> wireRecords) {
         requireNonNull(wireRecords, message.wireRecordsNonNull());
         if (this.wireSupporter instanceof WireEmitter) {
             final WireEnvelope wei = new WireEnvelope(emitterPid, wireRecords);
-            for (final Wire wire : this.outgoingWires) {
-                wire.update(wei);
+            if (this.options.isAsync()) {
+                for (final WireDispatcher dispatcher : this.dispatchers) {
+                    dispatcher.dispatch(wei);
+                }
+            } else {
+                synchronized (this) {
+                    for (final Wire wire : this.outgoingWires) {
+                        wire.update(wei);
+                    }
+                }
+            }
+            if (this.options.isEmitEventEnabled()) {
+                final Map<String, Object> properties = CollectionUtil.newHashMap();
+                properties.put("emitter", pid);
+                this.eventAdmin.postEvent(new Event(WireSupport.EMIT_EVENT_TOPIC, properties));
             }
-            final Map<String, Object> properties = CollectionUtil.newHashMap();
-            properties.put("emitter", pid);
-            this.eventAdmin.postEvent(new Event(WireSupport.EMIT_EVENT_TOPIC, properties));
         }
     }
 
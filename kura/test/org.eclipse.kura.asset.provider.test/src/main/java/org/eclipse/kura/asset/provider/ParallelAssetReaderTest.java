@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.asset.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.kura.KuraException;
+import org.eclipse.kura.asset.Asset;
+import org.eclipse.kura.asset.AssetConfiguration;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.type.DataType;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelAssetReaderTest {
+
+    private final ParallelAssetReader reader = new ParallelAssetReader("test", 4, 2, TimeUnit.SECONDS);
+
+    @After
+    public void tearDown() {
+        this.reader.shutdown();
+    }
+
+    @Test
+    public void testAssetsOfDifferentDriversAreReadConcurrently() throws KuraException {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        List<ChannelRecord> records = Collections.singletonList(ChannelRecord.createReadRecord("ch", DataType.INTEGER));
+
+        Asset asset1 = mockAsset("driver1");
+        when(asset1.readAllChannels()).thenAnswer(invocation -> {
+            barrier.await(1, TimeUnit.SECONDS);
+            return records;
+        });
+        Asset asset2 = mockAsset("driver2");
+        when(asset2.readAllChannels()).thenAnswer(invocation -> {
+            barrier.await(1, TimeUnit.SECONDS);
+            return records;
+        });
+
+        List<ParallelAssetReader.Result> results = this.reader
+                .read(Arrays.asList(new ParallelAssetReader.Read("asset1", asset1, Collections.emptySet()),
+                        new ParallelAssetReader.Read("asset2", asset2, Collections.emptySet())));
+
+        assertEquals(2, results.size());
+        assertEquals("asset1", results.get(0).getAssetName());
+        assertEquals("asset2", results.get(1).getAssetName());
+        for (ParallelAssetReader.Result result : results) {
+            assertTrue(result.isSuccessful());
+            assertSame(records, result.getChannelRecords());
+        }
+    }
+
+    @Test
+    public void testAssetsOfTheSameDriverAreReadSequentially() throws KuraException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maximumActive = new AtomicInteger();
+
+        List<ParallelAssetReader.Read> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Asset asset = mockAsset("driver");
+            when(asset.readAllChannels()).thenAnswer(invocation -> {
+                maximumActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                active.decrementAndGet();
+                return Collections.emptyList();
+            });
+            reads.add(new ParallelAssetReader.Read("asset" + i, asset, Collections.emptySet()));
+        }
+
+        for (ParallelAssetReader.Result result : this.reader.read(reads)) {
+            assertTrue(result.isSuccessful());
+        }
+        assertEquals(1, maximumActive.get());
+    }
+
+    @Test
+    public void testPartialResults() throws KuraException, InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Asset slowAsset = mockAsset("driver1");
+        when(slowAsset.readAllChannels()).thenAnswer(invocation -> {
+            release.await();
+            return Collections.emptyList();
+        });
+        Asset failingAsset = mockAsset("driver2");
+        when(failingAsset.read(Collections.singleton("ch"))).thenThrow(new KuraException(null, "failed"));
+        Asset asset = mockAsset("driver3");
+        when(asset.readAllChannels()).thenReturn(Collections.emptyList());
+
+        try {
+            List<ParallelAssetReader.Result> results = this.reader.read(Arrays.asList(
+                    new ParallelAssetReader.Read("slow", slowAsset, Collections.emptySet()),
+                    new ParallelAssetReader.Read("failing", failingAsset, Collections.singleton("ch")),
+                    new ParallelAssetReader.Read("asset", asset, Collections.emptySet())));
+
+            assertFalse(results.get(0).isSuccessful());
+            assertTrue(results.get(0).isTimedOut());
+            assertFalse(results.get(1).isSuccessful());
+            assertFalse(results.get(1).isTimedOut());
+            assertTrue(results.get(1).getError() instanceof KuraException);
+            assertTrue(results.get(2).isSuccessful());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static Asset mockAsset(String driverPid) {
+        Asset asset = mock(Asset.class);
+        when(asset.getAssetConfiguration())
+                .thenReturn(new AssetConfiguration("description", driverPid, new HashMap<>()));
+        return asset;
+    }
+}
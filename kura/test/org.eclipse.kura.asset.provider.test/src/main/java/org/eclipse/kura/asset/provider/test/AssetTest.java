@@ -369,7 +369,8 @@ public final class AssetTest {
 
         List<AD> ads = ocd.getAD();
         assertNotNull(ads);
-        assertEquals(10, ads.size()); // description, driver, 8 from BaseChannelDescriptor and StubChannelDescriptor
+        // description, driver, 18 from BaseChannelDescriptor and StubChannelDescriptor, scan groups
+        assertEquals(21, ads.size());
 
         assertEquals("asset.desc", ads.get(0).getId());
         assertEquals("driver.pid", ads.get(1).getId());
@@ -9,6 +9,7 @@
  *******************************************************************************/
 package org.eclipse.kura.asset.provider.test;
 
+import org.eclipse.kura.asset.provider.ParallelAssetReaderTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
@@ -18,6 +19,6 @@ import org.junit.runners.Suite.SuiteClasses;
  * execute
  */
 @RunWith(Suite.class)
-@SuiteClasses({ AssetTest.class })
+@SuiteClasses({ AssetTest.class, ParallelAssetReaderTest.class })
 public final class AssetTestsSuite {
 }
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+
+import org.eclipse.kura.KuraInvalidMessageException;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.message.KuraPosition;
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+public class CloudPayloadProtoBufStreamEncoderTest {
+
+    private static KuraPayload createPayload() {
+        KuraPayload payload = new KuraPayload();
+        payload.setTimestamp(new Date(1490000000000L));
+
+        KuraPosition position = new KuraPosition();
+        position.setLatitude(45.1);
+        position.setLongitude(13.2);
+        position.setAltitude(-3.0);
+        position.setTimestamp(new Date(1490000000123L));
+        position.setSatellites(7);
+        position.setStatus(4);
+        payload.setPosition(position);
+
+        payload.addMetric("double", 1.5d);
+        payload.addMetric("float", -2.5f);
+        payload.addMetric("long", Long.MAX_VALUE);
+        payload.addMetric("int", -1);
+        payload.addMetric("bool", true);
+        payload.addMetric("string", "caf\u00e9");
+        payload.addMetric("bytes", new byte[] { 1, 2, 3 });
+        payload.addMetric("null", null);
+
+        payload.setBody(new byte[] { 4, 5 });
+        return payload;
+    }
+
+    @Test
+    public void testSameBytesAsBuilderEncoder() throws Exception {
+        KuraPayload payload = createPayload();
+
+        byte[] expected = new CloudPayloadProtoBufEncoderImpl(payload).getBytes();
+        byte[] actual = new CloudPayloadProtoBufStreamEncoder(payload).getBytes();
+
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testEmptyPayload() throws Exception {
+        byte[] bytes = new CloudPayloadProtoBufStreamEncoder(new KuraPayload()).getBytes();
+        assertEquals(0, bytes.length);
+
+        KuraPayload decoded = new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray();
+        assertNull(decoded.getTimestamp());
+        assertNull(decoded.getPosition());
+        assertNull(decoded.getBody());
+        assertEquals(0, decoded.metrics().size());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        KuraPayload payload = createPayload();
+        byte[] bytes = new CloudPayloadProtoBufStreamEncoder(payload).getBytes();
+
+        KuraPayload decoded = new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray();
+        KuraPayload expected = new CloudPayloadProtoBufDecoderImpl(bytes).buildFromByteArray();
+
+        assertEquals(expected.getTimestamp(), decoded.getTimestamp());
+        assertEquals(expected.getPosition().getLatitude(), decoded.getPosition().getLatitude());
+        assertEquals(expected.getPosition().getAltitude(), decoded.getPosition().getAltitude());
+        assertEquals(expected.getPosition().getTimestamp(), decoded.getPosition().getTimestamp());
+        assertEquals(expected.getPosition().getSatellites(), decoded.getPosition().getSatellites());
+        assertNull(decoded.getPosition().getSpeed());
+        assertArrayEquals(expected.getBody(), decoded.getBody());
+
+        assertEquals(7, decoded.metricNames().size());
+        for (String name : expected.metricNames()) {
+            if ("bytes".equals(name)) {
+                assertArrayEquals((byte[]) expected.getMetric(name), (byte[]) decoded.getMetric(name));
+            } else {
+                assertEquals(expected.getMetric(name), decoded.getMetric(name));
+            }
+        }
+    }
+
+    @Test
+    public void testDecodedMetricsAreModifiable() throws Exception {
+        byte[] bytes = new CloudPayloadProtoBufStreamEncoder(createPayload()).getBytes();
+        KuraPayload decoded = new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray();
+
+        decoded.addMetric("added", 1);
+        decoded.removeMetric("int");
+
+        assertEquals(7, decoded.metrics().size());
+        assertEquals(1, decoded.getMetric("added"));
+        assertNull(decoded.getMetric("int"));
+        assertEquals("caf\u00e9", decoded.getMetric("string"));
+
+        decoded.removeAllMetrics();
+        assertEquals(0, decoded.metrics().size());
+    }
+
+    @Test
+    public void testUnknownMetricType() throws Exception {
+        // type 99 is not a ValueType
+        byte[] bytes = encodeMetric("metric", 99, true);
+
+        assertRejected(bytes);
+    }
+
+    @Test
+    public void testMalformedMetric() throws Exception {
+        // the metric declares a longer name than its own length
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(buffer);
+        out.writeTag(CloudPayloadProtoBufStreamEncoder.PAYLOAD_METRIC, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeRawVarint32(4);
+        out.writeTag(CloudPayloadProtoBufStreamEncoder.METRIC_NAME, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeRawVarint32(10);
+        out.writeRawBytes(new byte[] { 'a', 'b' });
+        out.writeTag(CloudPayloadProtoBufStreamEncoder.PAYLOAD_BODY, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeBytesNoTag(ByteString.copyFrom(new byte[12]));
+        out.flush();
+
+        assertRejected(buffer.toByteArray());
+    }
+
+    @Test
+    public void testMissingMetricType() throws Exception {
+        assertRejected(encodeMetric("metric", 0, false));
+    }
+
+    private static byte[] encodeMetric(String name, int type, boolean withType) throws IOException {
+        ByteArrayOutputStream metric = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(metric);
+        out.writeString(CloudPayloadProtoBufStreamEncoder.METRIC_NAME, name);
+        if (withType) {
+            out.writeEnum(CloudPayloadProtoBufStreamEncoder.METRIC_TYPE, type);
+        }
+        out.writeInt32(CloudPayloadProtoBufStreamEncoder.METRIC_INT_VALUE, 1);
+        out.flush();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        out = CodedOutputStream.newInstance(buffer);
+        out.writeBytes(CloudPayloadProtoBufStreamEncoder.PAYLOAD_METRIC, ByteString.copyFrom(metric.toByteArray()));
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static void assertRejected(byte[] bytes) throws IOException {
+        // the stream decoder rejects the same messages as the builder decoder
+        try {
+            new CloudPayloadProtoBufDecoderImpl(bytes).buildFromByteArray();
+            fail("Invalid message expected");
+        } catch (KuraInvalidMessageException e) {
+            // expected
+        }
+        try {
+            new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray();
+            fail("Invalid message expected");
+        } catch (KuraInvalidMessageException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws Exception {
+        KuraPayload payload = new KuraPayload();
+        payload.setBody(new byte[4096]);
+
+        byte[] bytes = new CloudPayloadGZipEncoder(new CloudPayloadProtoBufStreamEncoder(payload)).getBytes();
+        KuraPayload decoded = new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray();
+
+        assertArrayEquals(payload.getBody(), decoded.getBody());
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.kura.message.KuraPayload;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MetricNameDictionaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCompressAndExpand() {
+        MetricNameDictionary dictionary = new MetricNameDictionary();
+
+        KuraPayload payload = new KuraPayload();
+        payload.addMetric("channel", 1);
+        payload.addMetric("channel_timestamp", 2L);
+        payload.setBody(new byte[] { 1 });
+
+        Map<String, Integer> newEntries = new HashMap<>();
+        KuraPayload compressed = dictionary.compress(payload, newEntries);
+
+        assertEquals(2, newEntries.size());
+        assertTrue(compressed.metricNames().contains("~" + Integer.toString(newEntries.get("channel"), 36)));
+        assertEquals(payload.getBody(), compressed.getBody());
+
+        // the entries are returned until they are announced
+        newEntries.clear();
+        dictionary.compress(payload, newEntries);
+        assertEquals(2, newEntries.size());
+
+        // the names are assigned only once
+        dictionary.announced(newEntries);
+        newEntries.clear();
+        assertEquals(compressed.metrics(), dictionary.compress(payload, newEntries).metrics());
+        assertTrue(newEntries.isEmpty());
+
+        MetricNameDictionary remote = new MetricNameDictionary();
+        remote.learn(MetricNameDictionary.toPayload(dictionary.getEntries()));
+
+        KuraPayload expanded = remote.expand(compressed);
+        assertEquals(payload.metrics(), expanded.metrics());
+    }
+
+    @Test
+    public void testPrefixedNamesAreEscaped() {
+        MetricNameDictionary dictionary = new MetricNameDictionary();
+
+        KuraPayload payload = new KuraPayload();
+        payload.addMetric("~0", "value");
+
+        Map<String, Integer> newEntries = new HashMap<>();
+        KuraPayload compressed = dictionary.compress(payload, newEntries);
+
+        assertTrue(newEntries.isEmpty());
+        assertEquals("value", compressed.getMetric("~~0"));
+        assertEquals("value", dictionary.expand(compressed).getMetric("~0"));
+    }
+
+    @Test
+    public void testMaxSize() {
+        MetricNameDictionary dictionary = new MetricNameDictionary(1);
+
+        KuraPayload payload = new KuraPayload();
+        payload.addMetric("a", 1);
+        payload.addMetric("b", 2);
+
+        Map<String, Integer> newEntries = new HashMap<>();
+        KuraPayload compressed = dictionary.compress(payload, newEntries);
+
+        assertEquals(1, newEntries.size());
+        assertEquals(payload.metrics(), dictionary.expand(compressed).metrics());
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        File file = new File(this.folder.getRoot(), "dictionary/cloud.properties");
+        MetricNameDictionary dictionary = new MetricNameDictionary(file);
+
+        KuraPayload payload = new KuraPayload();
+        payload.addMetric("a", 1);
+        payload.addMetric("b", 2);
+
+        Map<String, Integer> newEntries = new HashMap<>();
+        KuraPayload compressed = dictionary.compress(payload, newEntries);
+        assertTrue(file.isFile());
+
+        // a restarted dictionary expands the stored messages to the same names
+        MetricNameDictionary restarted = new MetricNameDictionary(file);
+        assertEquals(dictionary.getEntries(), restarted.getEntries());
+        assertEquals(payload.metrics(), restarted.expand(compressed).metrics());
+
+        payload.addMetric("c", 3);
+        newEntries.clear();
+        restarted.compress(payload, newEntries);
+        assertEquals(1, newEntries.size());
+        assertEquals(2, (int) newEntries.get("c"));
+    }
+
+    @Test
+    public void testNotPersistedNamesAreNotAliased() throws IOException {
+        // the parent of the dictionary file is a regular file
+        File file = new File(this.folder.newFile(), "cloud.properties");
+        MetricNameDictionary dictionary = new MetricNameDictionary(file);
+
+        KuraPayload payload = new KuraPayload();
+        payload.addMetric("a", 1);
+
+        Map<String, Integer> newEntries = new HashMap<>();
+        KuraPayload compressed = dictionary.compress(payload, newEntries);
+
+        assertTrue(newEntries.isEmpty());
+        assertTrue(dictionary.getEntries().isEmpty());
+        assertEquals(payload.metrics(), compressed.metrics());
+    }
+}
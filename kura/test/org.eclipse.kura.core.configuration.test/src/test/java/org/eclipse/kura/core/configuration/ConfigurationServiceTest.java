@@ -23,6 +23,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -1577,6 +1578,11 @@ public class ConfigurationServiceTest {
                 }
             }
 
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+
             @Override
             XmlComponentConfigurations loadEncryptedSnapshotFileContent(long snapshotID) throws KuraException {
                 calls[1]++;
@@ -1728,6 +1734,340 @@ public class ConfigurationServiceTest {
         d1.delete();
     }
 
+    @Test
+    public void testSnapshotCache() throws Throwable {
+        final String dir = "dirSnapshotCache";
+        File d1 = new File(dir);
+        d1.mkdirs();
+        d1.deleteOnExit();
+
+        ConfigurationServiceImpl cs = new ConfigurationServiceImpl() {
+
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+        };
+
+        CryptoService cryptoServiceMock = mock(CryptoService.class);
+        cs.setCryptoService(cryptoServiceMock);
+        Answer<char[]> identity = new Answer<char[]>() {
+
+            @Override
+            public char[] answer(InvocationOnMock invocation) throws Throwable {
+                return (char[]) invocation.getArguments()[0];
+            }
+        };
+        when(cryptoServiceMock.encryptAes((char[]) anyObject())).thenAnswer(identity);
+        when(cryptoServiceMock.decryptAes((char[]) anyObject())).thenAnswer(identity);
+
+        SystemService systemServiceMock = mock(SystemService.class);
+        cs.setSystemService(systemServiceMock);
+        when(systemServiceMock.getKuraSnapshotsCount()).thenReturn(10);
+
+        List<ComponentConfigurationImpl> configs = new ArrayList<ComponentConfigurationImpl>();
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("string", "value");
+        props.put("long", 10L);
+        props.put("array", new Integer[] { 1, 2, 3 });
+        configs.add(new ComponentConfigurationImpl("pid1", null, props));
+        configs.add(new ComponentConfigurationImpl("pid2", null, new HashMap<String, Object>()));
+
+        long sid = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", configs);
+
+        // the cache is not written with every snapshot, but when the configurations are loaded from the XML
+        File cache = new File(d1, "snapshot.cache");
+        assertFalse("snapshot cache not created", cache.exists());
+
+        ConfigurationServiceImpl cs1 = new ConfigurationServiceImpl() {
+
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+        };
+        cs1.setCryptoService(cryptoServiceMock);
+        cs1.setSystemService(systemServiceMock);
+        TestUtil.invokePrivate(cs1, "loadStartupConfigurations");
+        assertTrue("snapshot cache created", cache.exists());
+
+        // a new instance loads the configurations from the cache, without decrypting the snapshot again
+        ConfigurationServiceImpl cs2 = new ConfigurationServiceImpl() {
+
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+        };
+        CryptoService cryptoServiceMock2 = mock(CryptoService.class);
+        cs2.setCryptoService(cryptoServiceMock2);
+        when(cryptoServiceMock2.decryptAes((char[]) anyObject())).thenAnswer(identity);
+        cs2.setSystemService(systemServiceMock);
+
+        List<ComponentConfigurationImpl> loaded = (List<ComponentConfigurationImpl>) TestUtil.invokePrivate(cs2,
+                "loadStartupConfigurations");
+
+        verify(cryptoServiceMock2, times(1)).decryptAes((char[]) anyObject());
+        assertEquals(2, loaded.size());
+        assertEquals("pid1", loaded.get(0).getPid());
+        Map<String, Object> loadedProps = loaded.get(0).getConfigurationProperties();
+        assertEquals("value", loadedProps.get("string"));
+        assertEquals(10L, loadedProps.get("long"));
+        assertArrayEquals(new Integer[] { 1, 2, 3 }, (Integer[]) loadedProps.get("array"));
+        assertTrue(loaded.get(1).getConfigurationProperties().isEmpty());
+
+        // or written by another version, which may upgrade the configurations differently
+        ConfigurationServiceImpl cs3 = new ConfigurationServiceImpl() {
+
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+
+            @Override
+            String getSnapshotCacheVersion() {
+                return "2.0.0";
+            }
+        };
+        cs3.setCryptoService(cryptoServiceMock2);
+        assertNull(TestUtil.invokePrivate(cs3, "readSnapshotCache", sid));
+
+        // the cache is ignored once the snapshot file changes
+        File snapshot = new File(d1, "snapshot_" + sid + ".xml");
+        assertTrue(snapshot.setLastModified(snapshot.lastModified() - 10000));
+        assertNull(TestUtil.invokePrivate(cs2, "readSnapshotCache", sid));
+
+        for (File f : d1.listFiles()) {
+            f.delete();
+        }
+        d1.delete();
+    }
+
+    @Test
+    public void testDeltaSnapshot() throws Throwable {
+        final String dir = "dirDeltaSnapshot";
+        File d1 = new File(dir);
+        d1.mkdirs();
+        d1.deleteOnExit();
+
+        ConfigurationServiceImpl cs = prepareDeltaSnapshotService(dir, 10);
+
+        long baseSid = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", prepareDeltaConfigs("value"));
+        File base = new File(d1, "snapshot_" + baseSid + ".xml");
+        assertFalse("full snapshot written", readFirstLine(base).startsWith(SnapshotCodec.DELTA_HEADER));
+
+        // only one of the configurations changed, the next snapshot is written as a delta against the full one
+        List<ComponentConfigurationImpl> configs = prepareDeltaConfigs("changed");
+        configs.remove(3);
+        long sid = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", configs);
+        File delta = new File(d1, "snapshot_" + sid + ".xml");
+        assertEquals(SnapshotCodec.deltaHeader(baseSid), readFirstLine(delta));
+        assertTrue("base kept", base.exists());
+
+        List<ComponentConfiguration> loaded = cs.getSnapshot(sid);
+        assertEquals(3, loaded.size());
+        for (ComponentConfiguration config : loaded) {
+            Object expected = "pid0".equals(config.getPid()) ? "changed" : "value";
+            assertEquals(expected, config.getConfigurationProperties().get("string"));
+            assertNotEquals("pid3", config.getPid());
+        }
+
+        for (File f : d1.listFiles()) {
+            f.delete();
+        }
+        d1.delete();
+    }
+
+    @Test
+    public void testGarbageCollectionKeepsDeltaBase() throws Throwable {
+        final String dir = "dirGcDeltaBase";
+        File d1 = new File(dir);
+        d1.mkdirs();
+        d1.deleteOnExit();
+
+        ConfigurationServiceImpl cs = prepareDeltaSnapshotService(dir, 10);
+
+        long baseSid = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", prepareDeltaConfigs("value"));
+        long delta1 = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", prepareDeltaConfigs("delta1"));
+        long delta2 = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", prepareDeltaConfigs("delta2"));
+
+        SystemService systemServiceMock = mock(SystemService.class);
+        when(systemServiceMock.getKuraSnapshotsCount()).thenReturn(1);
+        cs.setSystemService(systemServiceMock);
+
+        TestUtil.invokePrivate(cs, "garbageCollectionOldSnapshots");
+
+        assertTrue("base of the remaining delta not deleted", new File(d1, "snapshot_" + baseSid + ".xml").exists());
+        assertFalse("file deleted", new File(d1, "snapshot_" + delta1 + ".xml").exists());
+        assertTrue("file not deleted", new File(d1, "snapshot_" + delta2 + ".xml").exists());
+        assertEquals("delta2", cs.getSnapshot(delta2).get(0).getConfigurationProperties().get("string"));
+
+        for (File f : d1.listFiles()) {
+            f.delete();
+        }
+        d1.delete();
+    }
+
+    @Test
+    public void testSnapshotIndexFollowsDirectoryChanges() throws Throwable {
+        final String dir = "dirSnapshotIndex";
+        File d1 = new File(dir);
+        d1.mkdirs();
+        d1.deleteOnExit();
+
+        ConfigurationServiceImpl cs = prepareDeltaSnapshotService(dir, 10);
+
+        long sid = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", prepareDeltaConfigs("value"));
+        assertEquals(new TreeSet<Long>(Arrays.asList(sid)), cs.getSnapshots());
+
+        // the index is kept as long as the directory is not modified
+        long modified = d1.lastModified();
+        File external = new File(d1, "snapshot_1.xml");
+        external.createNewFile();
+        assertTrue(d1.setLastModified(modified));
+        assertEquals(new TreeSet<Long>(Arrays.asList(sid)), cs.getSnapshots());
+
+        // and reloaded once it changes
+        assertTrue(d1.setLastModified(modified - 10000));
+        assertEquals(new TreeSet<Long>(Arrays.asList(1L, sid)), cs.getSnapshots());
+
+        for (File f : d1.listFiles()) {
+            f.delete();
+        }
+        d1.delete();
+    }
+
+    @Test
+    public void testPlainSnapshotsFallbackSkipsDeltas() throws Throwable {
+        final String dir = "dirPlainSnapshotsDelta";
+        File d1 = new File(dir);
+        d1.mkdirs();
+        d1.deleteOnExit();
+
+        File plain = new File(dir, "snapshot_100.xml");
+        FileWriter fw = new FileWriter(plain);
+        fw.append(prepareSnapshotXML());
+        fw.close();
+
+        ConfigurationServiceImpl cs = new ConfigurationServiceImpl() {
+
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+        };
+
+        CryptoService cryptoServiceMock = mock(CryptoService.class);
+        cs.setCryptoService(cryptoServiceMock);
+        when(cryptoServiceMock.encryptAes((char[]) anyObject())).thenReturn("encrypted".toCharArray());
+
+        assertTrue((Boolean) TestUtil.invokePrivate(cs, "allSnapshotsUnencrypted"));
+
+        // a delta snapshot is always encrypted, its base cannot be a plain snapshot
+        File delta = new File(dir, "snapshot_200.xml");
+        String deltaContent = SnapshotCodec.deltaHeader(100) + "\nencrypted";
+        fw = new FileWriter(delta);
+        fw.append(deltaContent);
+        fw.close();
+        assertTrue(d1.setLastModified(d1.lastModified() - 10000));
+
+        assertFalse((Boolean) TestUtil.invokePrivate(cs, "allSnapshotsUnencrypted"));
+
+        TestUtil.invokePrivate(cs, "encryptPlainSnapshots");
+
+        verify(cryptoServiceMock, times(1)).encryptAes((char[]) anyObject());
+        assertEquals(SnapshotCodec.deltaHeader(100), readFirstLine(delta));
+        assertEquals(deltaContent.length(), delta.length());
+
+        for (File f : d1.listFiles()) {
+            f.delete();
+        }
+        d1.delete();
+    }
+
+    private ConfigurationServiceImpl prepareDeltaSnapshotService(final String dir, int snapshotsCount)
+            throws KuraException {
+        ConfigurationServiceImpl cs = new ConfigurationServiceImpl() {
+
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+        };
+
+        CryptoService cryptoServiceMock = mock(CryptoService.class);
+        cs.setCryptoService(cryptoServiceMock);
+        Answer<char[]> identity = new Answer<char[]>() {
+
+            @Override
+            public char[] answer(InvocationOnMock invocation) throws Throwable {
+                return (char[]) invocation.getArguments()[0];
+            }
+        };
+        when(cryptoServiceMock.encryptAes((char[]) anyObject())).thenAnswer(identity);
+        when(cryptoServiceMock.decryptAes((char[]) anyObject())).thenAnswer(identity);
+
+        SystemService systemServiceMock = mock(SystemService.class);
+        cs.setSystemService(systemServiceMock);
+        when(systemServiceMock.getKuraSnapshotsCount()).thenReturn(snapshotsCount);
+
+        return cs;
+    }
+
+    private List<ComponentConfigurationImpl> prepareDeltaConfigs(String firstValue) {
+        List<ComponentConfigurationImpl> configs = new ArrayList<ComponentConfigurationImpl>();
+        for (int i = 0; i < 4; i++) {
+            Map<String, Object> props = new HashMap<String, Object>();
+            props.put("string", i == 0 ? firstValue : "value");
+            props.put("long", (long) i);
+            configs.add(new ComponentConfigurationImpl("pid" + i, null, props));
+        }
+        return configs;
+    }
+
+    private String readFirstLine(File file) throws IOException {
+        BufferedReader br = new BufferedReader(new FileReader(file));
+        try {
+            return br.readLine();
+        } finally {
+            br.close();
+        }
+    }
+
+    @Test
+    public void testDecryptPasswordsWithCurrentCryptoService() throws KuraException {
+        ConfigurationServiceImpl cs = new ConfigurationServiceImpl();
+
+        CryptoService cryptoServiceMock = mock(CryptoService.class);
+        cs.setCryptoService(cryptoServiceMock);
+        when(cryptoServiceMock.decryptAes("encrypted".toCharArray())).thenReturn("decrypted".toCharArray());
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("password", new Password("encrypted"));
+        props.put("passwords", new Password[] { new Password("encrypted") });
+
+        cs.decryptConfigurationProperties(props);
+
+        assertEquals("decrypted", new String(((Password) props.get("password")).getPassword()));
+        assertEquals("decrypted", new String(((Password[]) props.get("passwords"))[0].getPassword()));
+
+        // the decrypted passwords are not kept, a rebound CryptoService decrypts them again
+        cs.unsetCryptoService(cryptoServiceMock);
+        CryptoService cryptoServiceMock2 = mock(CryptoService.class);
+        cs.setCryptoService(cryptoServiceMock2);
+        when(cryptoServiceMock2.decryptAes("encrypted".toCharArray())).thenReturn("decrypted2".toCharArray());
+
+        props.put("password", new Password("encrypted"));
+        props.put("passwords", new Password[] { new Password("encrypted") });
+
+        cs.decryptConfigurationProperties(props);
+
+        assertEquals("decrypted2", new String(((Password) props.get("password")).getPassword()));
+        assertEquals("decrypted2", new String(((Password[]) props.get("passwords"))[0].getPassword()));
+        verify(cryptoServiceMock, times(2)).decryptAes("encrypted".toCharArray());
+        verify(cryptoServiceMock2, times(2)).decryptAes("encrypted".toCharArray());
+    }
+
     private String prepareSnapshotXML() throws Exception {
         XmlComponentConfigurations cfgs = prepareSnapshot();
 
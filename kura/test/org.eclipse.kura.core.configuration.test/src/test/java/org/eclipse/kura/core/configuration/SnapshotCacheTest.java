@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.configuration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.configuration.Password;
+import org.junit.Test;
+
+public class SnapshotCacheTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("string", "välue");
+        props.put("long", 1L);
+        props.put("double", 2.5d);
+        props.put("float", 3.5f);
+        props.put("integer", 4);
+        props.put("byte", (byte) 5);
+        props.put("char", 'c');
+        props.put("boolean", true);
+        props.put("short", (short) 6);
+        props.put("password", new Password("encrypted"));
+        props.put("null", null);
+        props.put("strings", new String[] { "a", null, "b" });
+        props.put("passwords", new Password[] { new Password("p1") });
+        List<ComponentConfigurationImpl> configs = new ArrayList<ComponentConfigurationImpl>();
+        configs.add(new ComponentConfigurationImpl("pid1", null, props));
+        configs.add(new ComponentConfigurationImpl("pid2", null, null));
+
+        byte[] cache = SnapshotCache.encode("1.0.0", 1L, 2L, 3L, configs);
+        List<ComponentConfigurationImpl> decoded = SnapshotCache.decode(cache, "1.0.0", 1L, 2L, 3L);
+
+        assertEquals(2, decoded.size());
+        assertEquals("pid1", decoded.get(0).getPid());
+        Map<String, Object> decodedProps = decoded.get(0).getConfigurationProperties();
+        assertEquals(props.size(), decodedProps.size());
+        for (String key : Arrays.asList("string", "long", "double", "float", "integer", "byte", "char", "boolean",
+                "short")) {
+            assertEquals(key, props.get(key), decodedProps.get(key));
+        }
+        assertEquals("encrypted", new String(((Password) decodedProps.get("password")).getPassword()));
+        assertNull(decodedProps.get("null"));
+        assertArrayEquals(new String[] { "a", null, "b" }, (String[]) decodedProps.get("strings"));
+        assertEquals("p1", new String(((Password[]) decodedProps.get("passwords"))[0].getPassword()));
+        assertEquals("pid2", decoded.get(1).getPid());
+        assertNull(decoded.get(1).getConfigurationProperties());
+    }
+
+    @Test
+    public void testStale() throws Exception {
+        List<ComponentConfigurationImpl> configs = new ArrayList<ComponentConfigurationImpl>();
+        byte[] cache = SnapshotCache.encode("1.0.0", 1L, 2L, 3L, configs);
+
+        assertNull(SnapshotCache.decode(cache, "1.0.0", 1L, 2L, 4L));
+        assertNull(SnapshotCache.decode(cache, "1.0.0", 1L, 5L, 3L));
+        assertNull(SnapshotCache.decode(cache, "1.0.0", 6L, 2L, 3L));
+    }
+
+    @Test
+    public void testStaleVersion() throws Exception {
+        // the configurations must be upgraded again by a new version
+        List<ComponentConfigurationImpl> configs = new ArrayList<ComponentConfigurationImpl>();
+        byte[] cache = SnapshotCache.encode("1.0.0", 1L, 2L, 3L, configs);
+
+        assertNull(SnapshotCache.decode(cache, "1.1.0", 1L, 2L, 3L));
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("list", new ArrayList<String>());
+        List<ComponentConfigurationImpl> configs = new ArrayList<ComponentConfigurationImpl>();
+        configs.add(new ComponentConfigurationImpl("pid", null, props));
+
+        assertNull(SnapshotCache.encode("1.0.0", 1L, 2L, 3L, configs));
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.configuration.Password;
+import org.junit.Test;
+
+public class SnapshotCodecTest {
+
+    @Test
+    public void testCompressRoundTrip() throws Exception {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\"?>");
+        for (int i = 0; i < 100; i++) {
+            sb.append("<property name=\"p").append(i).append("\">è</property>");
+        }
+        String xml = sb.toString();
+
+        String compressed = SnapshotCodec.compress(xml);
+
+        assertTrue(compressed.startsWith(SnapshotCodec.COMPRESSED_PREFIX));
+        assertTrue(compressed.length() < xml.length());
+        assertEquals(xml, SnapshotCodec.decompress(compressed));
+    }
+
+    @Test
+    public void testDecompressLegacyContent() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><configurations/>";
+
+        assertEquals(xml, SnapshotCodec.decompress(xml));
+    }
+
+    @Test
+    public void testDeltaHeader() {
+        assertEquals(Long.valueOf(1234L), SnapshotCodec.parseDeltaHeader(SnapshotCodec.deltaHeader(1234L)));
+        assertNull(SnapshotCodec.parseDeltaHeader("<?xml version=\"1.0\"?>"));
+        assertNull(SnapshotCodec.parseDeltaHeader(SnapshotCodec.DELTA_HEADER + "abc"));
+        assertNull(SnapshotCodec.parseDeltaHeader(null));
+    }
+
+    @Test
+    public void testDeltaContent() throws Exception {
+        String content = SnapshotCodec.deltaContent(Arrays.asList("pid.1", "pid,2"), "<xml/>");
+
+        assertEquals(Arrays.asList("pid.1", "pid,2"), SnapshotCodec.parseRemovedPids(content));
+        assertEquals("<xml/>", SnapshotCodec.deltaXml(content));
+
+        content = SnapshotCodec.deltaContent(Collections.<String> emptyList(), "<xml/>");
+
+        assertTrue(SnapshotCodec.parseRemovedPids(content).isEmpty());
+        assertNull(SnapshotCodec.parseRemovedPids("<xml/>"));
+    }
+
+    @Test
+    public void testMerge() {
+        List<ComponentConfigurationImpl> base = new ArrayList<ComponentConfigurationImpl>();
+        base.add(config("a", "value", 1));
+        base.add(config("b", "value", 1));
+        base.add(config("c", "value", 1));
+        List<ComponentConfigurationImpl> delta = new ArrayList<ComponentConfigurationImpl>();
+        delta.add(config("b", "value", 2));
+        delta.add(config("d", "value", 1));
+
+        List<ComponentConfigurationImpl> merged = SnapshotCodec.merge(base, delta, Arrays.asList("c"));
+
+        assertEquals(3, merged.size());
+        assertEquals("a", merged.get(0).getPid());
+        assertEquals("b", merged.get(1).getPid());
+        assertEquals(2, merged.get(1).getConfigurationProperties().get("value"));
+        assertEquals("d", merged.get(2).getPid());
+    }
+
+    @Test
+    public void testFingerprint() {
+        Map<String, Object> first = new LinkedHashMap<String, Object>();
+        first.put("a", 1);
+        first.put("b", new String[] { "x", "y" });
+        Map<String, Object> second = new LinkedHashMap<String, Object>();
+        second.put("b", new String[] { "x", "y" });
+        second.put("a", 1);
+
+        assertEquals(SnapshotCodec.fingerprint(new ComponentConfigurationImpl("pid", null, first)),
+                SnapshotCodec.fingerprint(new ComponentConfigurationImpl("pid", null, second)));
+
+        second.put("a", 1L);
+
+        assertNotEquals(SnapshotCodec.fingerprint(new ComponentConfigurationImpl("pid", null, first)),
+                SnapshotCodec.fingerprint(new ComponentConfigurationImpl("pid", null, second)));
+    }
+
+    @Test
+    public void testFingerprintArrays() {
+        // elements containing the separators of a textual representation of the array
+        assertNotEquals(SnapshotCodec.fingerprint(config("pid", "a", new String[] { "a, b" })),
+                SnapshotCodec.fingerprint(config("pid", "a", new String[] { "a", "b" })));
+        assertNotEquals(SnapshotCodec.fingerprint(config("pid", "a", new String[] { null })),
+                SnapshotCodec.fingerprint(config("pid", "a", new String[] { "null" })));
+        assertNotEquals(SnapshotCodec.fingerprint(config("pid", "a", new String[] { "" })),
+                SnapshotCodec.fingerprint(config("pid", "a", new String[] {})));
+        assertNotEquals(SnapshotCodec.fingerprint(config("pid", "a", new Password[] { new Password("x") })),
+                SnapshotCodec.fingerprint(config("pid", "a", new Password[] { new Password("y") })));
+    }
+
+    private static ComponentConfigurationImpl config(String pid, String key, Object value) {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(key, value);
+        return new ComponentConfigurationImpl(pid, null, properties);
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class DeviceProfileCacheTest {
+
+    private final DeviceProfileCache cache = new DeviceProfileCache();
+
+    @Test
+    public void testComputedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "value" + loads.incrementAndGet();
+
+        assertEquals("value1", this.cache.get("key", loader));
+        assertEquals("value1", this.cache.get("key", loader));
+        assertEquals(1, loads.get());
+
+        this.cache.invalidate("key");
+
+        assertEquals("value2", this.cache.get("key", loader));
+    }
+
+    @Test
+    public void testNullAndFailuresNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(this.cache.get("key", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(this.cache.get("key", () -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("failure");
+        }));
+        assertEquals("value", this.cache.get("key", () -> {
+            loads.incrementAndGet();
+            return "value";
+        }));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testPreloadSharedWithGet() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Map<String, Callable<String>> loaders = new HashMap<>();
+        for (String key : new String[] { "a", "b" }) {
+            loaders.put(key, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                release.await();
+                return key;
+            });
+        }
+
+        this.cache.preload(loaders);
+
+        // the facts are computed in parallel, a request waits for the running computation
+        assertEquals(true, started.await(1, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals("a", this.cache.get("a", () -> "other"));
+        assertEquals("b", this.cache.get("b", () -> "other"));
+        assertEquals(2, loads.get());
+    }
+}
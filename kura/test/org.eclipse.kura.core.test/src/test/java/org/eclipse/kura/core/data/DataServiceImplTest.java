@@ -9,33 +9,43 @@
 package org.eclipse.kura.core.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.kura.KuraNotConnectedException;
 import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.KuraTooManyInflightMessagesException;
 import org.eclipse.kura.core.testutil.TestUtil;
+import org.eclipse.kura.data.DataTransportService;
 import org.eclipse.kura.data.DataTransportToken;
 import org.eclipse.kura.db.H2DbService;
 import org.eclipse.kura.status.CloudConnectionStatusEnum;
 import org.eclipse.kura.status.CloudConnectionStatusService;
 import org.eclipse.kura.watchdog.WatchdogService;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.osgi.service.component.ComponentContext;
 
 public class DataServiceImplTest {
@@ -75,6 +85,7 @@ public class DataServiceImplTest {
         svc.setH2DbService(dbServiceMock);
 
         verify(storeMock, times(1)).start(dbServiceMock, hkInterval, age, capacity);
+        assertTrue((boolean) TestUtil.invokePrivate(svc, "isStoreAvailable"));
 
         Map<DataTransportToken, Integer> ifMsgs = (Map<DataTransportToken, Integer>) TestUtil.getFieldValue(svc,
                 "inFlightMsgIds");
@@ -109,6 +120,7 @@ public class DataServiceImplTest {
         svc.setH2DbService(dbServiceMock);
 
         verify(storeMock, times(1)).start(dbServiceMock, 900, 60, 10000);
+        assertFalse((boolean) TestUtil.invokePrivate(svc, "isStoreAvailable"));
     }
 
     @Test
@@ -529,4 +541,160 @@ public class DataServiceImplTest {
         verify(congestionMock, times(1)).schedule((Runnable) anyObject(), eq(100L), eq(TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testPublishWindow() throws Throwable {
+        // the window stops at the in-flight limit and the confirmations free it again
+
+        DataServiceImpl svc = new DataServiceImpl();
+        DataStore storeMock = setUpWindowedPublisher(svc, 3, 2);
+        DataTransportService dtsMock = (DataTransportService) TestUtil.getFieldValue(svc, "dataTransportService");
+
+        DataTransportToken token1 = new DataTransportToken(11, "session");
+        DataTransportToken token2 = new DataTransportToken(12, "session");
+        when(dtsMock.publish("a", null, 1, false)).thenReturn(token1);
+        when(dtsMock.publish("b", null, 1, false)).thenReturn(token2);
+        when(dtsMock.publish("c", null, 1, false)).thenReturn(new DataTransportToken(13, "session"));
+
+        Object publishManager = newPublishManager(svc);
+        assertTrue((boolean) TestUtil.invokePrivate(publishManager, "publishMessages",
+                Arrays.asList(message(1, "a"), message(2, "b"), message(3, "c"))));
+
+        verify(dtsMock, times(0)).publish("c", null, 1, false);
+        List<DataMessage> published = capturePublished(storeMock).get(0);
+        assertEquals(2, published.size());
+        assertEquals(1, published.get(0).getId());
+        assertEquals(11, published.get(0).getPublishedMessageId());
+        assertEquals("session", published.get(0).getSessionId());
+        assertEquals(12, published.get(1).getPublishedMessageId());
+
+        Map<DataTransportToken, Integer> inFlightMsgIds = (Map<DataTransportToken, Integer>) TestUtil
+                .getFieldValue(svc, "inFlightMsgIds");
+        assertEquals(2, inFlightMsgIds.size());
+
+        // a full window does not publish anything
+        try {
+            TestUtil.invokePrivate(publishManager, "publishMessages", Arrays.asList(message(3, "c")));
+            fail("Exception expected");
+        } catch (KuraTooManyInflightMessagesException e) {
+            // expected
+        }
+
+        when(storeMock.get(1)).thenReturn(message(1, "a"));
+        when(storeMock.get(2)).thenReturn(message(2, "b"));
+        svc.onMessageConfirmed(token1);
+        svc.onMessageConfirmed(token2);
+
+        verify(storeMock, times(1)).confirmed(1);
+        verify(storeMock, times(1)).confirmed(2);
+        assertTrue(inFlightMsgIds.isEmpty());
+
+        assertTrue((boolean) TestUtil.invokePrivate(publishManager, "publishMessages",
+                Arrays.asList(message(3, "c"))));
+        assertEquals(Arrays.asList(3), new ArrayList<>(inFlightMsgIds.values()));
+    }
+
+    @Test
+    public void testPublishWindowFailure() throws Throwable {
+        // the messages published before a failure are still marked as published
+
+        DataServiceImpl svc = new DataServiceImpl();
+        DataStore storeMock = setUpWindowedPublisher(svc, 3, 9);
+        DataTransportService dtsMock = (DataTransportService) TestUtil.getFieldValue(svc, "dataTransportService");
+
+        when(dtsMock.publish("a", null, 1, false)).thenReturn(new DataTransportToken(11, "session"));
+        when(dtsMock.publish("b", null, 1, false)).thenThrow(new KuraNotConnectedException("test"));
+
+        Object publishManager = newPublishManager(svc);
+        try {
+            TestUtil.invokePrivate(publishManager, "publishMessages",
+                    Arrays.asList(message(1, "a"), message(2, "b"), message(3, "c")));
+            fail("Exception expected");
+        } catch (KuraNotConnectedException e) {
+            // expected
+        }
+
+        verify(dtsMock, times(0)).publish("c", null, 1, false);
+        List<DataMessage> published = capturePublished(storeMock).get(0);
+        assertEquals(1, published.size());
+        assertEquals(1, published.get(0).getId());
+    }
+
+    @Test
+    public void testPublishWindowNewSession() throws Throwable {
+        // the in-flight messages of the previous session are published again in the next window
+
+        DataServiceImpl svc = new DataServiceImpl();
+        DataStore storeMock = setUpWindowedPublisher(svc, 3, 2);
+        DataTransportService dtsMock = (DataTransportService) TestUtil.getFieldValue(svc, "dataTransportService");
+
+        svc.setCloudConnectionStatusService(mock(CloudConnectionStatusService.class));
+
+        when(dtsMock.publish("a", null, 1, false)).thenReturn(new DataTransportToken(11, "session1"))
+                .thenReturn(new DataTransportToken(1, "session2"));
+        when(dtsMock.publish("b", null, 1, false)).thenReturn(new DataTransportToken(12, "session1"))
+                .thenReturn(new DataTransportToken(2, "session2"));
+
+        Object publishManager = newPublishManager(svc);
+        List<DataMessage> window = Arrays.asList(message(1, "a"), message(2, "b"));
+        TestUtil.invokePrivate(publishManager, "publishMessages", window);
+
+        svc.onConnectionEstablished(true);
+
+        verify(storeMock, times(1)).unpublishAllInFlighMessages();
+        Map<DataTransportToken, Integer> inFlightMsgIds = (Map<DataTransportToken, Integer>) TestUtil
+                .getFieldValue(svc, "inFlightMsgIds");
+        assertTrue(inFlightMsgIds.isEmpty());
+
+        assertTrue((boolean) TestUtil.invokePrivate(publishManager, "publishMessages", window));
+
+        List<DataMessage> published = capturePublished(storeMock).get(1);
+        assertEquals(2, published.size());
+        assertEquals("session2", published.get(0).getSessionId());
+        assertEquals(2, published.get(1).getPublishedMessageId());
+        assertEquals(1, (int) inFlightMsgIds.get(new DataTransportToken(1, "session2")));
+        assertEquals(2, (int) inFlightMsgIds.get(new DataTransportToken(2, "session2")));
+    }
+
+    private DataStore setUpWindowedPublisher(DataServiceImpl svc, int windowSize, int maxInFlight)
+            throws NoSuchFieldException {
+
+        DataStore storeMock = mock(DataStore.class);
+        TestUtil.setFieldValue(svc, "store", storeMock);
+
+        svc.setDataTransportService(mock(DataTransportService.class));
+
+        ComponentContext ctxMock = mock(ComponentContext.class);
+        TestUtil.setFieldValue(svc, "dataServiceListeners", new DataServiceListenerS(ctxMock));
+        TestUtil.setFieldValue(svc, "inFlightMsgIds", new ConcurrentHashMap<>());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("publisher.window-size", windowSize);
+        properties.put("in-flight-messages.max-number", maxInFlight);
+        properties.put("in-flight-messages.republish-on-new-session", true);
+        properties.put("enable.rate.limit", false);
+        TestUtil.setFieldValue(svc, "dataServiceOptions", new DataServiceOptions(properties));
+
+        return storeMock;
+    }
+
+    private static Object newPublishManager(DataServiceImpl svc) throws ReflectiveOperationException {
+        Constructor<?> constructor = Class.forName(DataServiceImpl.class.getName() + "$PublishManager")
+                .getDeclaredConstructor(DataServiceImpl.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(svc);
+    }
+
+    private static DataMessage message(int id, String topic) {
+        return new DataMessage.Builder(id).withTopic(topic).withQos(1).withPriority(5).build();
+    }
+
+    private static List<List<DataMessage>> capturePublished(DataStore storeMock) throws KuraStoreException {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(storeMock, atLeastOnce()).published(captor.capture());
+        List<List<DataMessage>> result = new ArrayList<>();
+        for (List<?> messages : captor.getAllValues()) {
+            result.add((List<DataMessage>) messages);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.kura.KuraStoreCapacityReachedException;
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.eclipse.kura.core.testutil.TestUtil;
+import org.eclipse.kura.db.H2DbService;
+import org.h2.Driver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DbDataStoreTest {
+
+    private static final AtomicInteger DB_COUNT = new AtomicInteger();
+
+    private String url;
+    private Connection keepAlive;
+    private H2DbService dbServiceMock;
+    private DbDataStore store;
+
+    @Before
+    public void setUp() throws Throwable {
+        // the in-memory database lives as long as one of its connections is open
+        this.url = "jdbc:h2:mem:dbdatastoretest" + DB_COUNT.incrementAndGet();
+        this.keepAlive = Driver.load().connect(this.url, new Properties());
+
+        this.dbServiceMock = mock(H2DbService.class);
+        when(this.dbServiceMock.getConnection()).thenAnswer(invocation -> openConnection());
+
+        this.store = new DbDataStore("ds_messages");
+        TestUtil.setFieldValue(this.store, "dbService", this.dbServiceMock);
+        TestUtil.setFieldValue(this.store, "capacity", 100);
+        TestUtil.invokePrivate(this.store, "execute", new Class<?>[] { String.class, Integer[].class },
+                TestUtil.getFieldValue(this.store, "sqlCreateTable"), new Integer[0]);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        this.keepAlive.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testGroupCommit() throws Exception {
+        final int count = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        List<Future<DataMessage>> results = new ArrayList<>();
+
+        Queue<?> pendingMessages = (Queue<?>) TestUtil.getFieldValue(this.store, "pendingMessages");
+        synchronized (this.store) {
+            for (int i = 0; i < count; i++) {
+                final String topic = "topic/" + i;
+                results.add(executor.submit(() -> this.store.store(topic, new byte[] { 1 }, 1, false, 5)));
+            }
+            // all the callers enqueue their message while the monitor is held
+            while (pendingMessages.size() < count) {
+                Thread.sleep(10);
+            }
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Future<DataMessage> result : results) {
+            ids.add(result.get().getId());
+        }
+        executor.shutdown();
+
+        assertEquals(count, ids.size());
+        assertEquals(count, TestUtil.getFieldValue(this.store, "messageCount"));
+        // the table creation, the initial count query and a single transaction for all the messages
+        verify(this.dbServiceMock, times(3)).getConnection();
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        TestUtil.setFieldValue(this.store, "capacity", 2);
+
+        this.store.store("a", null, 1, false, 5);
+        this.store.store("b", null, 1, false, 5);
+        try {
+            this.store.store("c", null, 1, false, 5);
+            fail("Capacity exception expected");
+        } catch (KuraStoreCapacityReachedException e) {
+            // expected
+        }
+
+        // life-cycle and cloudlet messages bypass the capacity check
+        assertNotNull(this.store.store("d", null, 1, false, 0));
+        assertNotNull(this.store.store("e", null, 1, false, 1));
+        assertEquals(4, TestUtil.getFieldValue(this.store, "messageCount"));
+    }
+
+    @Test
+    public void testIdentityGeneratorReset() throws Exception {
+        Connection failing = mock(Connection.class);
+        when(failing.prepareStatement(TestUtil.getFieldValue(this.store, "sqlStore").toString(),
+                Statement.RETURN_GENERATED_KEYS))
+                        .thenThrow(new SQLException("Numeric value out of range", "22003", 22003));
+        // the first connection is used to count the messages
+        when(this.dbServiceMock.getConnection()).thenAnswer(invocation -> openConnection()).thenReturn(failing)
+                .thenAnswer(invocation -> openConnection());
+
+        DataMessage message = this.store.store("a", null, 1, false, 5);
+
+        assertEquals(1, message.getId());
+        assertEquals("a", this.store.get(message.getId()).getTopic());
+    }
+
+    @Test(timeout = 10000)
+    public void testUnexpectedErrorFailsTheBatch() throws Exception {
+        TestUtil.setFieldValue(this.store, "messageCount", 0);
+        doThrow(new IllegalStateException("broken")).when(this.dbServiceMock).getConnection();
+
+        try {
+            this.store.store("a", null, 1, false, 5);
+            fail("Store exception expected");
+        } catch (KuraStoreException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        Queue<?> pendingMessages = (Queue<?>) TestUtil.getFieldValue(this.store, "pendingMessages");
+        assertTrue(pendingMessages.isEmpty());
+
+        doAnswer(invocation -> openConnection()).when(this.dbServiceMock).getConnection();
+        assertFalse(this.store.store("b", null, 1, false, 5).getId() < 0);
+    }
+
+    @Test
+    public void testNextMessagesWindow() throws Exception {
+        DataMessage low = this.store.store("low", null, 1, false, 7);
+        DataMessage high = this.store.store("high", null, 1, false, 2);
+        DataMessage qos0 = this.store.store("qos0", null, 0, false, 5);
+
+        List<DataMessage> window = this.store.getNextMessages(2);
+
+        assertEquals(2, window.size());
+        assertEquals(high.getId(), window.get(0).getId());
+        assertEquals(qos0.getId(), window.get(1).getId());
+
+        this.store.published(Arrays.asList(
+                new DataMessage.Builder(high.getId()).withPublishedMessageId(42).withSessionId("session").build(),
+                window.get(1)));
+
+        window = this.store.getNextMessages(2);
+        assertEquals(1, window.size());
+        assertEquals(low.getId(), window.get(0).getId());
+
+        // only the QoS > 0 message waits for a confirmation
+        List<DataMessage> inFlight = this.store.allInFlightMessagesNoPayload();
+        assertEquals(1, inFlight.size());
+        assertEquals(42, inFlight.get(0).getPublishedMessageId());
+        assertEquals("session", inFlight.get(0).getSessionId());
+
+        // a new session puts the unconfirmed messages back in the window
+        this.store.unpublishAllInFlighMessages();
+        window = this.store.getNextMessages(5);
+        assertEquals(2, window.size());
+        assertEquals(high.getId(), window.get(0).getId());
+        assertEquals(low.getId(), window.get(1).getId());
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = Driver.load().connect(this.url, new Properties());
+        connection.setAutoCommit(false);
+        return connection;
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.eclipse.kura.core.data.DataStore;
+import org.junit.Test;
+
+public class MemoryQueueDataStoreTest {
+
+    @Test
+    public void testQueuedMessagesSkipTheStore() throws KuraStoreException {
+        DataStore storeMock = mock(DataStore.class);
+        MemoryQueueDataStore store = new MemoryQueueDataStore(storeMock, 10, () -> true);
+
+        DataMessage message = store.store("topic", new byte[] { 1 }, 0, false, 5);
+        assertTrue(message.getId() < 0);
+
+        assertEquals(message.getId(), store.getNextMessage().getId());
+        store.published(message.getId());
+        assertNull(store.getNextMessage());
+
+        verify(storeMock, never()).store(anyString(), (byte[]) anyObject(), anyInt(), anyBoolean(), anyInt());
+        verify(storeMock, never()).published(anyInt());
+    }
+
+    @Test
+    public void testPersistentMessages() throws KuraStoreException {
+        DataStore storeMock = mock(DataStore.class);
+        MemoryQueueDataStore store = new MemoryQueueDataStore(storeMock, 1, () -> true);
+
+        // QoS > 0, high priority and overflowing messages go to the persistent store
+        store.store("a", null, 1, false, 5);
+        store.store("b", null, 0, false, 1);
+        store.store("c", null, 0, false, 5);
+        store.store("d", null, 0, false, 5);
+
+        verify(storeMock, times(1)).store("a", null, 1, false, 5);
+        verify(storeMock, times(1)).store("b", null, 0, false, 1);
+        verify(storeMock, never()).store("c", null, 0, false, 5);
+        verify(storeMock, times(1)).store("d", null, 0, false, 5);
+    }
+
+    @Test
+    public void testNextMessageOrder() throws KuraStoreException {
+        DataStore storeMock = mock(DataStore.class);
+        MemoryQueueDataStore store = new MemoryQueueDataStore(storeMock, 10, () -> true);
+
+        DataMessage queued = store.store("queued", null, 0, false, 5);
+
+        DataMessage stored = new DataMessage.Builder(1).withTopic("stored").withPriority(2)
+                .withCreatedOn(new Date()).build();
+        when(storeMock.getNextMessage()).thenReturn(stored);
+        when(storeMock.getNextMessages(10)).thenReturn(Collections.singletonList(stored));
+        when(storeMock.store("stored", null, 1, false, 2)).thenReturn(stored);
+        store.store("stored", null, 1, false, 2);
+
+        assertEquals(stored.getId(), store.getNextMessage().getId());
+        assertEquals(2, store.getNextMessages(10).size());
+        assertEquals(queued.getId(), store.getNextMessages(10).get(1).getId());
+    }
+
+    @Test
+    public void testWriteBehindWhenDisconnected() throws KuraStoreException {
+        AtomicBoolean connected = new AtomicBoolean(true);
+        DataStore storeMock = mock(DataStore.class);
+        MemoryQueueDataStore store = new MemoryQueueDataStore(storeMock, 10, connected::get);
+
+        store.store("a", null, 0, false, 5);
+        connected.set(false);
+        store.store("b", null, 0, false, 5);
+
+        verify(storeMock, times(1)).store("a", null, 0, false, 5);
+        verify(storeMock, times(1)).store("b", null, 0, false, 5);
+
+        store.persistQueuedMessages();
+        verify(storeMock, times(1)).store(eq("a"), (byte[]) anyObject(), anyInt(), anyBoolean(), anyInt());
+    }
+
+    @Test
+    public void testQueuedMessagesInInsertionOrder() throws KuraStoreException {
+        DataStore storeMock = mock(DataStore.class);
+        MemoryQueueDataStore store = new MemoryQueueDataStore(storeMock, 10, () -> true);
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(store.store("topic" + i, null, 0, false, 5).getId());
+        }
+
+        // a persistent message with the same priority and creation time was stored before
+        DataMessage first = store.getNextMessages(1).get(0);
+        DataMessage stored = new DataMessage.Builder(1).withTopic("stored").withPriority(5)
+                .withCreatedOn(first.getCreatedOn()).build();
+        when(storeMock.getNextMessages(10)).thenReturn(Collections.singletonList(stored));
+        ids.add(0, stored.getId());
+
+        List<Integer> nextIds = new ArrayList<>();
+        for (DataMessage message : store.getNextMessages(10)) {
+            if (message.getCreatedOn().equals(first.getCreatedOn())) {
+                nextIds.add(message.getId());
+            }
+        }
+        assertEquals(ids.subList(0, nextIds.size()), nextIds);
+    }
+
+    @Test
+    public void testMovedMessagesKeepTheirId() throws KuraStoreException {
+        DataStore storeMock = mock(DataStore.class);
+        MemoryQueueDataStore store = new MemoryQueueDataStore(storeMock, 10, () -> true);
+
+        DataMessage queued = store.store("topic", new byte[] { 1 }, 0, false, 5);
+
+        DataMessage stored = new DataMessage.Builder(42).withTopic("topic").withPriority(5).withCreatedOn(new Date())
+                .withPayload(new byte[] { 1 }).build();
+        when(storeMock.store("topic", new byte[] { 1 }, 0, false, 5)).thenReturn(stored);
+        when(storeMock.getNextMessage()).thenReturn(stored);
+        when(storeMock.getNextMessages(10)).thenReturn(Collections.singletonList(stored));
+        when(storeMock.get(42)).thenReturn(stored);
+        store.persistQueuedMessages();
+
+        // the message is returned and accepted with the ID returned when it was queued
+        assertEquals(queued.getId(), store.getNextMessage().getId());
+        assertEquals(queued.getId(), store.getNextMessages(10).get(0).getId());
+        assertEquals("topic", store.get(queued.getId()).getTopic());
+
+        store.published(queued.getId());
+        verify(storeMock, times(1)).published(42);
+
+        // and forgotten once published
+        assertEquals(42, store.getNextMessages(10).get(0).getId());
+    }
+}
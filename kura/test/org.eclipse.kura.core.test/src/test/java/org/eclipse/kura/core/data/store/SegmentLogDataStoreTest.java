@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.kura.KuraStoreCapacityReachedException;
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentLogDataStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SegmentLogDataStore startStore(int segmentSize, int capacity) throws KuraStoreException {
+        SegmentLogDataStore store = new SegmentLogDataStore("ds_messages", folder.getRoot().getAbsolutePath(),
+                segmentSize);
+        store.start(null, 900, 60, capacity);
+        return store;
+    }
+
+    @Test
+    public void testNextMessageOrder() throws KuraStoreException {
+        SegmentLogDataStore store = startStore(4096, 100);
+
+        DataMessage low = store.store("topic/low", new byte[] { 1 }, 0, false, 7);
+        DataMessage high = store.store("topic/high", new byte[] { 2 }, 1, true, 2);
+
+        DataMessage next = store.getNextMessage();
+        assertEquals(high.getId(), next.getId());
+        assertEquals("topic/high", next.getTopic());
+        assertArrayEquals(new byte[] { 2 }, next.getPayload());
+
+        store.published(high.getId(), 42, "session");
+        assertEquals(low.getId(), store.getNextMessage().getId());
+
+        store.published(low.getId());
+        assertNull(store.getNextMessage());
+
+        List<DataMessage> inFlight = store.allInFlightMessagesNoPayload();
+        assertEquals(1, inFlight.size());
+        assertEquals(42, inFlight.get(0).getPublishedMessageId());
+        assertNull(inFlight.get(0).getPayload());
+
+        store.stop();
+    }
+
+    @Test
+    public void testNextMessagesWindow() throws KuraStoreException {
+        SegmentLogDataStore store = startStore(4096, 100);
+
+        DataMessage low = store.store("low", null, 1, false, 7);
+        DataMessage high = store.store("high", null, 1, false, 2);
+        DataMessage qos0 = store.store("qos0", null, 0, false, 5);
+
+        List<DataMessage> window = store.getNextMessages(2);
+        assertEquals(2, window.size());
+        assertEquals(high.getId(), window.get(0).getId());
+        assertEquals(qos0.getId(), window.get(1).getId());
+
+        store.published(Arrays.asList(
+                new DataMessage.Builder(high.getId()).withPublishedMessageId(42).withSessionId("session").build(),
+                window.get(1)));
+
+        window = store.getNextMessages(2);
+        assertEquals(1, window.size());
+        assertEquals(low.getId(), window.get(0).getId());
+
+        List<DataMessage> inFlight = store.allInFlightMessagesNoPayload();
+        assertEquals(1, inFlight.size());
+        assertEquals(42, inFlight.get(0).getPublishedMessageId());
+
+        store.unpublishAllInFlighMessages();
+        window = store.getNextMessages(5);
+        assertEquals(2, window.size());
+        assertEquals(high.getId(), window.get(0).getId());
+        assertEquals(low.getId(), window.get(1).getId());
+
+        store.stop();
+    }
+
+    @Test
+    public void testReplay() throws KuraStoreException {
+        SegmentLogDataStore store = startStore(4096, 100);
+
+        DataMessage published = store.store("a", new byte[] { 1, 2, 3 }, 1, false, 5);
+        DataMessage confirmed = store.store("b", new byte[] { 4 }, 1, false, 5);
+        DataMessage pending = store.store("c", null, 0, false, 5);
+
+        store.published(published.getId(), 1, "session");
+        store.published(confirmed.getId(), 2, "session");
+        store.confirmed(confirmed.getId());
+        store.stop();
+
+        store = startStore(4096, 100);
+
+        assertEquals(pending.getId(), store.getNextMessage().getId());
+        assertNull(store.getNextMessage().getPayload());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, store.get(published.getId()).getPayload());
+        assertNotNull(store.get(confirmed.getId()).getConfirmedOn());
+
+        List<DataMessage> inFlight = store.allInFlightMessagesNoPayload();
+        assertEquals(1, inFlight.size());
+        assertEquals(published.getId(), inFlight.get(0).getId());
+
+        store.unpublishAllInFlighMessages();
+        assertEquals(published.getId(), store.getNextMessage().getId());
+
+        DataMessage next = store.store("d", null, 0, false, 5);
+        assertEquals(pending.getId() + 1, next.getId());
+
+        store.stop();
+    }
+
+    @Test
+    public void testCapacity() throws KuraStoreException {
+        SegmentLogDataStore store = startStore(4096, 1);
+
+        store.store("a", null, 0, false, 5);
+        try {
+            store.store("b", null, 0, false, 5);
+            fail("Capacity exceeded");
+        } catch (KuraStoreCapacityReachedException e) {
+            // expected
+        }
+
+        // life-cycle messages bypass the capacity check
+        store.store("c", null, 0, false, 0);
+
+        store.stop();
+    }
+
+    @Test
+    public void testSegmentReclaim() throws KuraStoreException {
+        SegmentLogDataStore store = startStore(4096, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            DataMessage message = store.store("topic", new byte[512], 0, false, 5);
+            store.published(message.getId());
+        }
+        assertEquals(true, folder.getRoot().listFiles().length > 1);
+
+        store.deleteStaleMessages(-1);
+
+        File[] segments = folder.getRoot().listFiles();
+        assertEquals(1, segments.length);
+        assertNull(store.getNextMessage());
+
+        store.stop();
+    }
+}
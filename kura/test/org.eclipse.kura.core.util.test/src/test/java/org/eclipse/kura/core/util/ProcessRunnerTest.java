@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.kura.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessRunnerTest {
+
+    private static final String[] SLEEP = { "/bin/sh", "-c", "sleep 0.5" };
+
+    @Before
+    public void setup() {
+        assumeFalse(System.getProperty("os.name").contains("indows"));
+    }
+
+    @Test
+    public void testConcurrentExecutions() throws Exception {
+        ProcessRunner runner = new ProcessRunner(2);
+        CountDownLatch done = new CountDownLatch(2);
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 2; i++) {
+            new Thread(() -> {
+                try {
+                    runner.exec(SLEEP);
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(errors.isEmpty());
+        assertTrue("elapsed " + elapsed, elapsed < 900);
+        ProcessStatistics statistics = runner.getStatistics();
+        assertEquals(2, statistics.getExecutionCount());
+        assertEquals(0, statistics.getRunningCount());
+        assertTrue(statistics.getMaximumQueueWait() < TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        ProcessRunner runner = new ProcessRunner(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        for (int i = 0; i < 2; i++) {
+            new Thread(() -> {
+                try {
+                    runner.exec(SLEEP);
+                } catch (IOException e) {
+                    // checked below
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        ProcessStatistics statistics = runner.getStatistics();
+        assertEquals(2, statistics.getExecutionCount());
+        assertTrue(statistics.getMaximumQueueWait() >= TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    public void testStreamingLines() throws Exception {
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+        List<String> error = Collections.synchronizedList(new ArrayList<>());
+
+        int exitValue = new ProcessRunner(1).exec(
+                new String[] { "/bin/sh", "-c", "echo line1; echo line2; echo error 1>&2; exit 3" }, output::add,
+                error::add, 5, TimeUnit.SECONDS);
+
+        assertEquals(3, exitValue);
+        assertEquals(Arrays.asList("line1", "line2"), output);
+        assertEquals(Arrays.asList("error"), error);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        ProcessRunner runner = new ProcessRunner(1);
+
+        long start = System.nanoTime();
+        try {
+            runner.exec(new String[] { "/bin/sh", "-c", "echo started; exec sleep 10" }, 200, TimeUnit.MILLISECONDS);
+            fail("timeout expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Timeout"));
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, runner.getStatistics().getTimeoutCount());
+
+        SafeProcess process = runner.exec(new String[] { "/bin/sh", "-c", "echo done" }, 5, TimeUnit.SECONDS);
+        assertEquals(0, process.exitValue());
+        assertEquals("done", IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8).trim());
+    }
+}
@@ -9,11 +9,15 @@
 package org.eclipse.kura.core.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.eclipse.kura.core.testutil.TestUtil;
@@ -129,4 +133,28 @@ public class SafeProcessTest {
         assertNull(TestUtil.getFieldValue(process, "m_errBytes"));
         assertNull(TestUtil.getFieldValue(process, "m_process"));
     }
+
+    @Test(timeout = 10000)
+    public void testTimeoutCancelsStuckHandlers() throws Exception {
+        if (win) {
+            return;
+        }
+        CountDownLatch interrupted = new CountDownLatch(1);
+        // a handler that ignores the end of its stream
+        SafeProcess.StreamHandler stuckHandler = is -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        };
+
+        SafeProcess process = new SafeProcess();
+        boolean completed = process.exec(new String[] { "/bin/sh", "-c", "sleep 30" }, stuckHandler, is -> {
+        }, TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertFalse(completed);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertNull(TestUtil.getFieldValue(process, "m_process"));
+    }
 }
@@ -18,9 +18,12 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,6 +37,7 @@ import org.eclipse.kura.driver.block.BlockFactory;
 import org.eclipse.kura.driver.block.ProhibitedBlock;
 import org.eclipse.kura.driver.block.task.AbstractBlockDriver;
 import org.eclipse.kura.driver.block.task.AbstractBlockDriver.Pair;
+import org.eclipse.kura.driver.block.task.BlockPlanStatistics;
 import org.eclipse.kura.driver.block.task.BlockTask;
 import org.eclipse.kura.driver.block.task.BlockTaskAggregator;
 import org.eclipse.kura.driver.block.task.Mode;
@@ -186,6 +190,115 @@ public class AbstractBlockDriverTest {
         }
     }
 
+    @Test
+    public void shouldReuseCachedPlans() throws ConnectionException {
+        RecordingBlockFactory factory = new RecordingBlockFactory();
+        TestDriver driver = new TestDriver().withRecordTasks(1).withPlanCacheSize(4)
+                .withBlockFactoryProvider((domain, mode) -> factory);
+
+        driver.read(rangeRecords(0, 3, 3, 5, 5, 10));
+        assertEquals(1, factory.blocks.size());
+
+        List<ChannelRecord> records = rangeRecords(0, 3, 3, 5, 5, 10);
+        driver.read(records);
+
+        assertEquals(1, factory.blocks.size());
+        for (ChannelRecord record : records) {
+            assertEquals(true, record.getValue().getValue());
+        }
+        BlockPlanStatistics statistics = driver.statistics.get(driver.statistics.size() - 1);
+        assertEquals(3, statistics.getChannelCount());
+        assertEquals(1, statistics.getRequestCount());
+        assertEquals(2, statistics.getExecutionCount());
+        assertEquals(1, statistics.getBuildCount());
+    }
+
+    @Test
+    public void shouldRebuildPlansAfterInvalidation() throws ConnectionException, KuraException {
+        RecordingBlockFactory factory = new RecordingBlockFactory();
+        TestDriver driver = new TestDriver().withRecordTasks(1).withPlanCacheSize(4)
+                .withBlockFactoryProvider((domain, mode) -> factory);
+
+        driver.read(rangeRecords(0, 3, 3, 5));
+        driver.prepareRead(rangeRecords(0, 3, 3, 5)).execute();
+        assertEquals(2, factory.blocks.size());
+
+        driver.invalidatePlans();
+
+        driver.read(rangeRecords(0, 3, 3, 5));
+        assertEquals(3, factory.blocks.size());
+    }
+
+    @Test
+    public void shouldAdaptMinimumGapSize() throws ConnectionException {
+        // the simulated transfer cost is 1000 + 10 * size, reading gaps smaller than 100 is convenient
+        RecordingBlockFactory factory = new RecordingBlockFactory();
+        TestDriver driver = new TestDriver().withRecordTasks(1).withPlanCacheSize(4).withAdaptiveGapSize()
+                .withBlockFactoryProvider((domain, mode) -> factory);
+
+        List<ChannelRecord> records = rangeRecords(0, 2, 50, 60, 200, 230);
+        driver.read(records);
+        assertEquals(3, driver.statistics.get(0).getRequestCount());
+
+        for (int i = 0; i < 10; i++) {
+            driver.read(records);
+        }
+
+        BlockPlanStatistics statistics = driver.statistics.get(driver.statistics.size() - 1);
+        assertEquals(2, statistics.getRequestCount());
+        assertEquals(2, statistics.getBuildCount());
+        List<ToplevelBlockTask> lastBlocks = factory.blocks.subList(factory.blocks.size() - 2, factory.blocks.size());
+        assertTrue(lastBlocks.stream().anyMatch(block -> block.getStart() == 0 && block.getEnd() == 60));
+        assertTrue(lastBlocks.stream().anyMatch(block -> block.getStart() == 200 && block.getEnd() == 230));
+        for (ChannelRecord record : records) {
+            assertEquals(true, record.getValue().getValue());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotRunDefaultLanesConcurrentlyWithTheReadOperation() throws ConnectionException {
+        List<Pair<Integer, BlockTask>> tasks = new ArrayList<>();
+        for (int domain = 0; domain < 4; domain++) {
+            tasks.addAll(testTasks(domain, Mode.READ, 0, 3));
+        }
+        List<ChannelRecord> records = getRecords(tasks);
+        TestDriver driver = new TestDriver().withTasks(tasks).withReadParallelism(4);
+        // tasks synchronizing on the driver, as the I/O methods of some drivers do, must not deadlock the read
+        driver.withBlockFactoryProvider((domain, mode) -> (start, end) -> new ToplevelBlockTask(start, end, mode) {
+
+            @Override
+            public void processBuffer() throws IOException {
+                synchronized (driver) {
+                    assertEquals(0, start);
+                }
+            }
+
+            @Override
+            public Buffer getBuffer() {
+                return null;
+            }
+        });
+
+        driver.read(records);
+
+        for (ChannelRecord record : records) {
+            assertEquals(true, record.getValue().getValue());
+        }
+    }
+
+    private List<ChannelRecord> rangeRecords(int... ranges) {
+        List<ChannelRecord> result = new ArrayList<>(ranges.length / 2);
+        for (int i = 0; i < ranges.length; i += 2) {
+            ChannelRecord record = ChannelRecord.createReadRecord("test" + i, DataType.BOOLEAN);
+            Map<String, Object> config = new HashMap<>();
+            config.put("start", ranges[i]);
+            config.put("end", ranges[i + 1]);
+            record.setChannelConfig(config);
+            result.add(record);
+        }
+        return result;
+    }
+
     private List<Pair<Integer, BlockTask>> testTasks(int domain, Mode mode, int... ranges) {
         assertTrue(ranges.length % 2 == 0);
         List<Pair<Integer, BlockTask>> result = new ArrayList<>(ranges.length / 2);
@@ -232,10 +345,41 @@ public class AbstractBlockDriverTest {
 
     }
 
+    private class RecordingBlockFactory implements BlockFactory<ToplevelBlockTask> {
+
+        private final List<ToplevelBlockTask> blocks = new ArrayList<>();
+
+        @Override
+        public ToplevelBlockTask build(int start, int end) {
+            ToplevelBlockTask block = new ToplevelBlockTask(start, end, Mode.READ) {
+
+                @Override
+                public void processBuffer() throws IOException {
+                }
+
+                @Override
+                public Buffer getBuffer() {
+                    return null;
+                }
+
+                @Override
+                public long getLastProcessingTime() {
+                    return 1000 + 10 * (getEnd() - getStart());
+                }
+            };
+            this.blocks.add(block);
+            return block;
+        }
+    }
+
     private class TestTask extends UpdateBlockTask {
 
         public TestTask(int start, int end, Mode mode) {
-            super(ChannelRecord.createReadRecord("test", DataType.BOOLEAN), start, end, mode);
+            this(ChannelRecord.createReadRecord("test", DataType.BOOLEAN), start, end, mode);
+        }
+
+        public TestTask(ChannelRecord record, int start, int end, Mode mode) {
+            super(record, start, end, mode);
         }
 
         public ChannelRecord getRecord() {
@@ -279,12 +423,64 @@ public class AbstractBlockDriverTest {
         private Consumer<List<BlockTask>> afterAggregation;
         private Consumer<BlockTaskAggregator> beforeAggregation;
         private int minimumGapSize;
+        private Function<ChannelRecord, Pair<Integer, BlockTask>> recordTasks;
+        private int planCacheSize;
+        private boolean adaptiveGapSize;
+        private int readParallelism = 1;
+        private final List<BlockPlanStatistics> statistics = new ArrayList<>();
 
         public TestDriver withTasks(List<Pair<Integer, BlockTask>> tasks) {
             this.tasks = tasks;
             return this;
         }
 
+        public TestDriver withRecordTasks(int domain) {
+            this.recordTasks = record -> new Pair<>(domain,
+                    new TestTask(record, (Integer) record.getChannelConfig().get("start"),
+                            (Integer) record.getChannelConfig().get("end"), Mode.READ));
+            return this;
+        }
+
+        public TestDriver withPlanCacheSize(int planCacheSize) {
+            this.planCacheSize = planCacheSize;
+            return this;
+        }
+
+        public TestDriver withAdaptiveGapSize() {
+            this.adaptiveGapSize = true;
+            return this;
+        }
+
+        public TestDriver withReadParallelism(int readParallelism) {
+            this.readParallelism = readParallelism;
+            return this;
+        }
+
+        @Override
+        protected int getReadParallelism() {
+            return this.readParallelism;
+        }
+
+        @Override
+        protected int getPlanCacheSize() {
+            return this.planCacheSize;
+        }
+
+        @Override
+        protected boolean isReadMinimumGapSizeAdaptive() {
+            return this.adaptiveGapSize;
+        }
+
+        @Override
+        protected void onPlanExecuted(BlockPlanStatistics statistics) {
+            this.statistics.add(statistics);
+        }
+
+        @Override
+        protected synchronized void invalidatePlans() {
+            super.invalidatePlans();
+        }
+
         public TestDriver withMinimumGapSize(int minimumGapSize) {
             this.minimumGapSize = minimumGapSize;
             return this;
@@ -347,6 +543,9 @@ public class AbstractBlockDriverTest {
 
         @Override
         protected Stream<Pair<Integer, BlockTask>> toTasks(List<ChannelRecord> records, Mode mode) {
+            if (this.recordTasks != null) {
+                return records.stream().map(this.recordTasks);
+            }
             return this.tasks.stream();
         }
 
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.driver.modbus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.KuraConnectionStatus;
+import org.eclipse.kura.KuraErrorCode;
+import org.eclipse.kura.KuraException;
+import org.eclipse.kura.channel.ChannelFlag;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.core.testutil.TestUtil;
+import org.eclipse.kura.driver.PreparedRead;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolDeviceService;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolErrorCode;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolException;
+import org.eclipse.kura.type.BooleanValue;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.IntegerValue;
+import org.eclipse.kura.type.LongValue;
+import org.eclipse.kura.type.TypedValue;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ModbusDriverTest {
+
+    @Test
+    public void testReadCoalescesRegisters() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, i, ModbusDataType.INT16, DataType.INTEGER));
+        }
+
+        driver.read(records);
+
+        verify(modbus, times(1)).readHoldingRegisters(1, 0, 125);
+        verify(modbus, times(1)).readHoldingRegisters(1, 125, 75);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(ChannelFlag.SUCCESS, records.get(i).getChannelStatus().getChannelFlag());
+            assertEquals(new IntegerValue(i), records.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void testReadMaximumPduLength() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("maximum.pdu.length", 22);
+        ModbusDriver driver = createDriver(modbus, properties);
+
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(createRecord(1, ModbusTable.INPUT_REGISTERS, i, ModbusDataType.INT16, DataType.INTEGER));
+        }
+
+        driver.read(records);
+
+        verify(modbus, times(1)).readInputRegisters(1, 0, 10);
+        verify(modbus, times(1)).readInputRegisters(1, 10, 10);
+    }
+
+    @Test
+    public void testReadMinimumGapSize() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, 0, ModbusDataType.INT16, DataType.INTEGER));
+        records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, 5, ModbusDataType.UINT32, DataType.LONG));
+
+        driver.read(records);
+
+        verify(modbus, times(1)).readHoldingRegisters(1, 0, 1);
+        verify(modbus, times(1)).readHoldingRegisters(1, 5, 2);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("connection.type", "RTU");
+        properties.put("read.minimum.gap.size", 5);
+        driver.updated(properties);
+
+        driver.read(records);
+
+        verify(modbus, times(1)).readHoldingRegisters(1, 0, 7);
+        assertEquals(new IntegerValue(0), records.get(0).getValue());
+        assertEquals(new LongValue(5 << 16 | 6), records.get(1).getValue());
+    }
+
+    @Test
+    public void testReadGroupsByUnitAndTable() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, 3, ModbusDataType.INT16, DataType.INTEGER));
+        records.add(createRecord(2, ModbusTable.HOLDING_REGISTERS, 4, ModbusDataType.INT16, DataType.INTEGER));
+        records.add(createRecord(1, ModbusTable.INPUT_REGISTERS, 4, ModbusDataType.INT16, DataType.INTEGER));
+        records.add(createRecord(1, ModbusTable.COILS, 1, ModbusDataType.BOOL, DataType.BOOLEAN));
+        records.add(createRecord(1, ModbusTable.COILS, 2, ModbusDataType.BOOL, DataType.BOOLEAN));
+        records.add(createRecord(1, ModbusTable.DISCRETE_INPUTS, 1, ModbusDataType.BOOL, DataType.BOOLEAN));
+
+        driver.read(records);
+
+        verify(modbus, times(1)).readHoldingRegisters(1, 3, 1);
+        verify(modbus, times(1)).readHoldingRegisters(2, 4, 1);
+        verify(modbus, times(1)).readInputRegisters(1, 4, 1);
+        verify(modbus, times(1)).readCoils(1, 1, 2);
+        verify(modbus, times(1)).readDiscreteInputs(1, 1, 1);
+
+        assertEquals(new BooleanValue(true), records.get(3).getValue());
+        assertEquals(new BooleanValue(false), records.get(4).getValue());
+        assertEquals(new BooleanValue(true), records.get(5).getValue());
+    }
+
+    @Test
+    public void testReadBit() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        when(modbus.readHoldingRegisters(1, 0, 1)).thenReturn(new int[] { 0x8001 });
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int bit : new int[] { 0, 1, 15 }) {
+            ChannelRecord record = createRecord(1, ModbusTable.HOLDING_REGISTERS, 0, ModbusDataType.BIT,
+                    DataType.BOOLEAN);
+            record.getChannelConfig().put(ModbusChannelDescriptor.BIT_INDEX_ID, bit);
+            records.add(record);
+        }
+
+        driver.read(records);
+
+        verify(modbus, times(1)).readHoldingRegisters(1, 0, 1);
+        assertEquals(new BooleanValue(true), records.get(0).getValue());
+        assertEquals(new BooleanValue(false), records.get(1).getValue());
+        assertEquals(new BooleanValue(true), records.get(2).getValue());
+    }
+
+    @Test
+    public void testReadRejectsValuesPastTheLastRegister() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, 65534, ModbusDataType.INT32, DataType.INTEGER));
+        records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, 65535, ModbusDataType.INT32, DataType.INTEGER));
+        records.add(createRecord(1, ModbusTable.INPUT_REGISTERS, 65533, ModbusDataType.DOUBLE, DataType.DOUBLE));
+        records.add(createRecord(1, ModbusTable.INPUT_REGISTERS, 65535, ModbusDataType.INT16, DataType.INTEGER));
+
+        driver.read(records);
+
+        verify(modbus, times(1)).readHoldingRegisters(1, 65534, 2);
+        verify(modbus, times(1)).readInputRegisters(1, 65535, 1);
+        assertEquals(ChannelFlag.SUCCESS, records.get(0).getChannelStatus().getChannelFlag());
+        assertEquals(ChannelFlag.FAILURE, records.get(1).getChannelStatus().getChannelFlag());
+        assertEquals(ChannelFlag.FAILURE, records.get(2).getChannelStatus().getChannelFlag());
+        assertEquals(ChannelFlag.SUCCESS, records.get(3).getChannelStatus().getChannelFlag());
+        assertEquals(KuraErrorCode.CONFIGURATION_ERROR,
+                ((KuraException) records.get(1).getChannelStatus().getException()).getCode());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        records.add(createWriteRecord(1, ModbusTable.HOLDING_REGISTERS, 10, ModbusDataType.INT32,
+                new IntegerValue(0x12345678)));
+        records.add(createWriteRecord(1, ModbusTable.HOLDING_REGISTERS, 12, ModbusDataType.INT16,
+                new IntegerValue(-1)));
+        records.add(createWriteRecord(1, ModbusTable.COILS, 3, ModbusDataType.BOOL, new BooleanValue(true)));
+        records.add(createWriteRecord(1, ModbusTable.COILS, 4, ModbusDataType.BOOL, new BooleanValue(false)));
+        records.add(createWriteRecord(1, ModbusTable.INPUT_REGISTERS, 0, ModbusDataType.INT16, new IntegerValue(1)));
+
+        driver.write(records);
+
+        ArgumentCaptor<int[]> registers = ArgumentCaptor.forClass(int[].class);
+        verify(modbus, times(1)).writeMultipleRegister(eq(1), eq(10),
+                registers.capture());
+        assertArrayEquals(new int[] { 0x1234, 0x5678, 0xffff }, registers.getValue());
+
+        ArgumentCaptor<boolean[]> coils = ArgumentCaptor.forClass(boolean[].class);
+        verify(modbus, times(1)).writeMultipleCoils(eq(1), eq(3),
+                coils.capture());
+        assertArrayEquals(new boolean[] { true, false }, coils.getValue());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(ChannelFlag.SUCCESS, records.get(i).getChannelStatus().getChannelFlag());
+        }
+        assertEquals(ChannelFlag.FAILURE, records.get(4).getChannelStatus().getChannelFlag());
+    }
+
+    @Test
+    public void testPreparedRead() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, i, ModbusDataType.INT16, DataType.INTEGER));
+        }
+
+        try (PreparedRead preparedRead = driver.prepareRead(records)) {
+            preparedRead.execute();
+            preparedRead.execute();
+        }
+
+        verify(modbus, times(2)).readHoldingRegisters(1, 0, 10);
+        assertEquals(new IntegerValue(9), records.get(9).getValue());
+    }
+
+    @Test
+    public void testTransactionFailureDisconnects() throws Exception {
+        ModbusProtocolDeviceService modbus = mockDevice();
+        when(modbus.readHoldingRegisters(anyInt(), anyInt(), anyInt()))
+                .thenThrow(new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE));
+        ModbusDriver driver = createDriver(modbus, new HashMap<>());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        records.add(createRecord(1, ModbusTable.HOLDING_REGISTERS, 0, ModbusDataType.INT16, DataType.INTEGER));
+
+        driver.read(records);
+
+        assertEquals(ChannelFlag.FAILURE, records.get(0).getChannelStatus().getChannelFlag());
+        verify(modbus, times(1)).disconnect();
+
+        driver.read(records);
+
+        verify(modbus, times(2)).connect();
+    }
+
+    private static ModbusProtocolDeviceService mockDevice() throws ModbusProtocolException {
+        ModbusProtocolDeviceService modbus = mock(ModbusProtocolDeviceService.class);
+        when(modbus.getConnectStatus()).thenReturn(KuraConnectionStatus.CONNECTED);
+        // each register contains its address, odd coils and discrete inputs are on
+        when(modbus.readHoldingRegisters(anyInt(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> registers(invocation.getArguments()));
+        when(modbus.readInputRegisters(anyInt(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> registers(invocation.getArguments()));
+        when(modbus.readCoils(anyInt(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> bits(invocation.getArguments()));
+        when(modbus.readDiscreteInputs(anyInt(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> bits(invocation.getArguments()));
+        return modbus;
+    }
+
+    private static int[] registers(Object[] args) {
+        int address = (Integer) args[1];
+        int[] result = new int[(Integer) args[2]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = address + i;
+        }
+        return result;
+    }
+
+    private static boolean[] bits(Object[] args) {
+        int address = (Integer) args[1];
+        boolean[] result = new boolean[(Integer) args[2]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (address + i) % 2 == 1;
+        }
+        return result;
+    }
+
+    private static ModbusDriver createDriver(ModbusProtocolDeviceService modbus, Map<String, Object> properties)
+            throws NoSuchFieldException {
+        // these tests target the ModbusProtocolDeviceService path, TCP is served by ModbusTcpTransport
+        properties.putIfAbsent("connection.type", "RTU");
+        ModbusDriver driver = new ModbusDriver();
+        driver.activate(null, properties);
+        driver.updated(properties);
+        TestUtil.setFieldValue(driver, "modbus", modbus);
+        return driver;
+    }
+
+    private static Map<String, Object> createConfig(int unitId, ModbusTable table, int address,
+            ModbusDataType dataType) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ModbusChannelDescriptor.UNIT_ID, unitId);
+        config.put(ModbusChannelDescriptor.PRIMARY_TABLE_ID, table.name());
+        config.put(ModbusChannelDescriptor.MEMORY_ADDRESS_ID, address);
+        config.put(ModbusChannelDescriptor.DATA_TYPE_ID, dataType.name());
+        return config;
+    }
+
+    private static ChannelRecord createRecord(int unitId, ModbusTable table, int address, ModbusDataType dataType,
+            DataType valueType) {
+        ChannelRecord record = ChannelRecord.createReadRecord("channel" + address, valueType);
+        record.setChannelConfig(createConfig(unitId, table, address, dataType));
+        return record;
+    }
+
+    private static ChannelRecord createWriteRecord(int unitId, ModbusTable table, int address,
+            ModbusDataType dataType, TypedValue<?> value) {
+        ChannelRecord record = ChannelRecord.createWriteRecord("channel" + address, value);
+        record.setChannelConfig(createConfig(unitId, table, address, dataType));
+        return record;
+    }
+}
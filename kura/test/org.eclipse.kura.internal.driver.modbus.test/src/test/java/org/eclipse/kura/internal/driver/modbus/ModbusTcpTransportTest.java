@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.driver.modbus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kura.channel.ChannelFlag;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.protocol.modbus.ModbusProtocolException;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.IntegerValue;
+import org.junit.After;
+import org.junit.Test;
+
+public class ModbusTcpTransportTest {
+
+    private FakeDevice device;
+
+    @After
+    public void tearDown() throws IOException {
+        if (this.device != null) {
+            this.device.close();
+        }
+    }
+
+    @Test
+    public void testResponsesAreMatchedByTransactionId() throws Exception {
+        this.device = new FakeDevice(3);
+
+        try (ModbusTcpTransport transport = ModbusTcpTransport.open("127.0.0.1", this.device.getPort(), 3, 1000)) {
+            List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                byte[] data = new byte[2];
+                responses.add(transport.send(1, ModbusPdu.readRequest(ModbusTable.HOLDING_REGISTERS, i * 10, data)));
+            }
+
+            for (int i = 0; i < 3; i++) {
+                byte[] data = new byte[2];
+                ModbusPdu.readResponse(ModbusTable.HOLDING_REGISTERS, responses.get(i).get(1, TimeUnit.SECONDS),
+                        data);
+                assertEquals(i * 10, (data[0] & 0xff) << 8 | data[1] & 0xff);
+            }
+        }
+        assertEquals(3, this.device.getMaximumOutstandingRequests());
+    }
+
+    @Test
+    public void testDepthLimitsOutstandingRequests() throws Exception {
+        this.device = new FakeDevice(1);
+
+        try (ModbusTcpTransport transport = ModbusTcpTransport.open("127.0.0.1", this.device.getPort(), 1, 1000)) {
+            List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                responses.add(transport.send(1, ModbusPdu.readRequest(ModbusTable.HOLDING_REGISTERS, i, new byte[2])));
+            }
+            for (CompletableFuture<byte[]> response : responses) {
+                response.get(1, TimeUnit.SECONDS);
+            }
+        }
+        assertEquals(1, this.device.getMaximumOutstandingRequests());
+    }
+
+    @Test
+    public void testExceptionResponse() throws Exception {
+        this.device = new FakeDevice(1);
+
+        try (ModbusTcpTransport transport = ModbusTcpTransport.open("127.0.0.1", this.device.getPort(), 1, 1000)) {
+            byte[] pdu = transport.send(1, ModbusPdu.readRequest(ModbusTable.COILS, 0, new byte[8])).get(1,
+                    TimeUnit.SECONDS);
+            try {
+                ModbusPdu.readResponse(ModbusTable.COILS, pdu, new byte[8]);
+            } catch (ModbusProtocolException e) {
+                assertTrue(!transport.isClosed());
+                return;
+            }
+        }
+        throw new AssertionError("exception response not detected");
+    }
+
+    @Test
+    public void testCloseFailsPendingRequests() throws Exception {
+        this.device = new FakeDevice(2);
+
+        ModbusTcpTransport transport = ModbusTcpTransport.open("127.0.0.1", this.device.getPort(), 2, 1000);
+        CompletableFuture<byte[]> response = transport.send(1,
+                ModbusPdu.readRequest(ModbusTable.HOLDING_REGISTERS, 0, new byte[2]));
+        transport.close();
+
+        try {
+            response.get(1, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            return;
+        }
+        throw new AssertionError("pending request not failed");
+    }
+
+    @Test
+    public void testDriverPipelinesReads() throws Exception {
+        this.device = new FakeDevice(3);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("connection.type", "TCP");
+        properties.put("host.ip", "127.0.0.1");
+        properties.put("host.port", this.device.getPort());
+        properties.put("pipeline.depth", 4);
+        properties.put("maximum.pdu.length", 22);
+
+        ModbusDriver driver = new ModbusDriver();
+        driver.activate(null, properties);
+        driver.updated(properties);
+
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ChannelRecord record = ChannelRecord.createReadRecord("channel" + i, DataType.INTEGER);
+            Map<String, Object> config = new HashMap<>();
+            config.put(ModbusChannelDescriptor.UNIT_ID, 1);
+            config.put(ModbusChannelDescriptor.PRIMARY_TABLE_ID, ModbusTable.HOLDING_REGISTERS.name());
+            config.put(ModbusChannelDescriptor.MEMORY_ADDRESS_ID, i);
+            config.put(ModbusChannelDescriptor.DATA_TYPE_ID, ModbusDataType.INT16.name());
+            record.setChannelConfig(config);
+            records.add(record);
+        }
+
+        try {
+            driver.read(records);
+        } finally {
+            driver.deactivate(null);
+        }
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals(ChannelFlag.SUCCESS, records.get(i).getChannelStatus().getChannelFlag());
+            assertEquals(new IntegerValue(i), records.get(i).getValue());
+        }
+        assertEquals(3, this.device.getMaximumOutstandingRequests());
+    }
+
+    /**
+     * A Modbus TCP device that waits for a batch of requests before answering them in reverse order. Holding
+     * registers contain their address, coils answer with an illegal data address exception.
+     */
+    private static class FakeDevice {
+
+        private final ServerSocket serverSocket;
+        private final int batchSize;
+        private volatile int maximumOutstandingRequests;
+
+        FakeDevice(int batchSize) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.batchSize = batchSize;
+            Thread thread = new Thread(this::serve);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return this.serverSocket.getLocalPort();
+        }
+
+        int getMaximumOutstandingRequests() {
+            return this.maximumOutstandingRequests;
+        }
+
+        void close() throws IOException {
+            this.serverSocket.close();
+        }
+
+        private void serve() {
+            try (Socket socket = this.serverSocket.accept()) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                while (true) {
+                    List<byte[]> batch = new ArrayList<>();
+                    batch.add(readFrame(in));
+                    // collect any other request already in flight
+                    socket.setSoTimeout(200);
+                    try {
+                        while (batch.size() < this.batchSize) {
+                            batch.add(readFrame(in));
+                        }
+                    } catch (SocketTimeoutException e) {
+                        // no more requests
+                    }
+                    socket.setSoTimeout(0);
+                    this.maximumOutstandingRequests = Math.max(this.maximumOutstandingRequests, batch.size());
+                    Collections.reverse(batch);
+                    for (byte[] frame : batch) {
+                        out.write(respond(frame));
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // connection closed
+            }
+        }
+
+        private static byte[] readFrame(DataInputStream in) throws IOException {
+            byte[] header = new byte[7];
+            in.readFully(header);
+            int length = (header[4] & 0xff) << 8 | header[5] & 0xff;
+            byte[] frame = new byte[6 + length];
+            System.arraycopy(header, 0, frame, 0, 7);
+            in.readFully(frame, 7, length - 1);
+            return frame;
+        }
+
+        private static byte[] respond(byte[] request) {
+            int functionCode = request[7];
+            int address = (request[8] & 0xff) << 8 | request[9] & 0xff;
+            int count = (request[10] & 0xff) << 8 | request[11] & 0xff;
+
+            byte[] pdu;
+            if (functionCode == 3) {
+                pdu = new byte[2 + 2 * count];
+                pdu[0] = 3;
+                pdu[1] = (byte) (2 * count);
+                for (int i = 0; i < count; i++) {
+                    pdu[2 + 2 * i] = (byte) (address + i >> 8);
+                    pdu[3 + 2 * i] = (byte) (address + i);
+                }
+            } else {
+                pdu = new byte[] { (byte) (functionCode | 0x80), 2 };
+            }
+
+            byte[] response = new byte[7 + pdu.length];
+            System.arraycopy(request, 0, response, 0, 4);
+            response[4] = (byte) (pdu.length + 1 >> 8);
+            response[5] = (byte) (pdu.length + 1);
+            response[6] = request[6];
+            System.arraycopy(pdu, 0, response, 7, pdu.length);
+            return response;
+        }
+    }
+}
@@ -12,25 +12,33 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import org.eclipse.kura.KuraException;
 import org.eclipse.kura.channel.ChannelFlag;
 import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.channel.listener.ChannelEvent;
+import org.eclipse.kura.channel.listener.ChannelListener;
 import org.eclipse.kura.core.testutil.TestUtil;
 import org.eclipse.kura.crypto.CryptoService;
 import org.eclipse.kura.driver.Driver.ConnectionException;
@@ -38,14 +46,20 @@ import org.eclipse.kura.driver.PreparedRead;
 import org.eclipse.kura.type.DataType;
 import org.eclipse.kura.type.TypedValue;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
-import org.eclipse.milo.opcua.sdk.client.api.AddressSpace;
-import org.eclipse.milo.opcua.sdk.client.api.nodes.VariableNode;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.sdk.client.subscriptions.OpcUaSubscriptionManager;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.IdType;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.junit.Test;
 
 public class OpcUaDriverTest {
@@ -153,21 +167,17 @@ public class OpcUaDriverTest {
 
         OpcUaDriver svc = new OpcUaDriver();
 
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("request.timeout", 1);
+        TestUtil.setFieldValue(svc, "options", new OpcUaOptions(properties, mock(CryptoService.class)));
+
         OpcUaClient clientMock = mock(OpcUaClient.class);
         TestUtil.setFieldValue(svc, "client", clientMock);
 
-        AddressSpace asMock = mock(AddressSpace.class);
-        when(clientMock.getAddressSpace()).thenReturn(asMock);
-
-        doAnswer(invocation -> {
-            NodeId nodeId = invocation.getArgumentAt(0, NodeId.class);
-
-            assertEquals(1, ((UInteger) nodeId.getIdentifier()).intValue());
-            assertEquals(1, nodeId.getNamespaceIndex().intValue());
-            assertEquals(IdType.Numeric, nodeId.getType());
-
-            return null; // cause exception later on
-        }).when(asMock).createVariableNode(anyObject());
+        ReadResponse response = mock(ReadResponse.class);
+        when(response.getResults())
+                .thenReturn(new DataValue[] { new DataValue(new StatusCode(StatusCodes.Bad_NodeIdUnknown)) });
+        when(clientMock.read(anyDouble(), any(), any())).thenReturn(CompletableFuture.completedFuture(response));
 
         List<ChannelRecord> records = new ArrayList<>();
         ChannelRecord record = ChannelRecord.createReadRecord("ch1", DataType.BOOLEAN);
@@ -230,6 +240,7 @@ public class OpcUaDriverTest {
         assertEquals(123, record.getValue().getValue());
     }
 
+    @SuppressWarnings("unchecked")
     protected void prepareForSuccessfulRead(OpcUaDriver svc, String val)
             throws NoSuchFieldException, InterruptedException, ExecutionException, TimeoutException {
 
@@ -242,27 +253,70 @@ public class OpcUaDriverTest {
         OpcUaClient clientMock = mock(OpcUaClient.class);
         TestUtil.setFieldValue(svc, "client", clientMock);
 
-        AddressSpace asMock = mock(AddressSpace.class);
-        when(clientMock.getAddressSpace()).thenReturn(asMock);
-
         Variant variant = new Variant(val);
         DataValue value = new DataValue(variant, StatusCode.GOOD);
 
-        CompletableFuture<DataValue> futureValue = mock(CompletableFuture.class);
-        when(futureValue.get(1000, TimeUnit.MILLISECONDS)).thenReturn(value);
-
-        VariableNode node = mock(VariableNode.class);
-        when(node.readValue()).thenReturn(futureValue);
-
         doAnswer(invocation -> {
-            NodeId nodeId = invocation.getArgumentAt(0, NodeId.class);
+            List<ReadValueId> readValueIds = invocation.getArgumentAt(2, List.class);
+            assertEquals(1, readValueIds.size());
 
+            NodeId nodeId = readValueIds.get(0).getNodeId();
             assertEquals(1, ((UInteger) nodeId.getIdentifier()).intValue());
             assertEquals(1, nodeId.getNamespaceIndex().intValue());
             assertEquals(IdType.Numeric, nodeId.getType());
 
-            return node;
-        }).when(asMock).createVariableNode(anyObject());
+            ReadResponse response = mock(ReadResponse.class);
+            when(response.getResults()).thenReturn(new DataValue[] { value });
+            return CompletableFuture.completedFuture(response);
+        }).when(clientMock).read(anyDouble(), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReadChunks() throws Exception {
+        OpcUaDriver svc = new OpcUaDriver();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("request.timeout", 1);
+        TestUtil.setFieldValue(svc, "options", new OpcUaOptions(properties, mock(CryptoService.class)));
+        TestUtil.setFieldValue(svc, "maxNodesPerRead", 2);
+
+        OpcUaClient clientMock = mock(OpcUaClient.class);
+        TestUtil.setFieldValue(svc, "client", clientMock);
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<ReadValueId> readValueIds = invocation.getArgumentAt(2, List.class);
+            chunkSizes.add(readValueIds.size());
+
+            DataValue[] results = new DataValue[readValueIds.size()];
+            for (int i = 0; i < results.length; i++) {
+                UInteger id = (UInteger) readValueIds.get(i).getNodeId().getIdentifier();
+                results[i] = new DataValue(new Variant(id.intValue() * 10), StatusCode.GOOD);
+            }
+            ReadResponse response = mock(ReadResponse.class);
+            when(response.getResults()).thenReturn(results);
+            return CompletableFuture.completedFuture(response);
+        }).when(clientMock).read(anyDouble(), any(), any());
+
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            ChannelRecord record = ChannelRecord.createReadRecord("ch" + i, DataType.INTEGER);
+            Map<String, Object> channelConfig = new HashMap<>();
+            channelConfig.put("node.namespace.index", "1");
+            channelConfig.put("node.id.type", "NUMERIC");
+            channelConfig.put("node.id", Integer.toString(i));
+            record.setChannelConfig(channelConfig);
+            records.add(record);
+        }
+
+        List<ChannelRecord> result = svc.prepareRead(records).execute();
+
+        assertEquals(Arrays.asList(2, 1), chunkSizes);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ChannelFlag.SUCCESS, result.get(i).getChannelStatus().getChannelFlag());
+            assertEquals((i + 1) * 10, result.get(i).getValue().getValue());
+        }
     }
 
     @Test
@@ -312,4 +366,79 @@ public class OpcUaDriverTest {
         assertEquals(123, record.getValue().getValue());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testChannelListener() throws Exception {
+        OpcUaDriver svc = new OpcUaDriver();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("request.timeout", 1);
+        properties.put("subscription.publishing.interval", 500);
+        OpcUaOptions options = new OpcUaOptions(properties, mock(CryptoService.class));
+        TestUtil.setFieldValue(svc, "options", options);
+
+        OpcUaClient clientMock = mock(OpcUaClient.class);
+        TestUtil.setFieldValue(svc, "client", clientMock);
+
+        OpcUaSubscriptionManager managerMock = mock(OpcUaSubscriptionManager.class);
+        when(clientMock.getSubscriptionManager()).thenReturn(managerMock);
+        UaSubscription subscriptionMock = mock(UaSubscription.class);
+        when(managerMock.createSubscription(anyDouble())).thenReturn(CompletableFuture.completedFuture(subscriptionMock));
+        when(managerMock.deleteSubscription(any())).thenReturn(CompletableFuture.completedFuture(subscriptionMock));
+
+        UaMonitoredItem itemMock = mock(UaMonitoredItem.class);
+        when(itemMock.getStatusCode()).thenReturn(StatusCode.GOOD);
+        AtomicReference<Consumer<DataValue>> valueConsumer = new AtomicReference<>();
+        doAnswer(invocation -> {
+            valueConsumer.set(invocation.getArgumentAt(0, Consumer.class));
+            return null;
+        }).when(itemMock).setValueConsumer(any(Consumer.class));
+
+        doAnswer(invocation -> {
+            List<MonitoredItemCreateRequest> requests = invocation.getArgumentAt(1, List.class);
+            assertEquals(1, requests.size());
+            assertEquals(1, ((UInteger) requests.get(0).getItemToMonitor().getNodeId().getIdentifier()).intValue());
+            assertEquals(10, requests.get(0).getRequestedParameters().getQueueSize().intValue());
+
+            invocation.getArgumentAt(2, BiConsumer.class).accept(itemMock, 0);
+            return CompletableFuture.completedFuture(Collections.singletonList(itemMock));
+        }).when(subscriptionMock).createMonitoredItems(any(TimestampsToReturn.class), any(List.class),
+                any(BiConsumer.class));
+        when(subscriptionMock.deleteMonitoredItems(any()))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(StatusCode.GOOD)));
+
+        OpcUaListenerManager listenerManager = (OpcUaListenerManager) TestUtil.getFieldValue(svc,
+                "listenerManager");
+        listenerManager.onConnected(clientMock, options);
+
+        Map<String, Object> channelConfig = new HashMap<>();
+        channelConfig.put("+name", "ch1");
+        channelConfig.put("+value.type", "INTEGER");
+        channelConfig.put("node.namespace.index", "1");
+        channelConfig.put("node.id.type", "NUMERIC");
+        channelConfig.put("node.id", "1");
+
+        List<ChannelEvent> events = new ArrayList<>();
+        ChannelListener listener = events::add;
+        svc.registerChannelListener(channelConfig, listener);
+
+        verify(managerMock).createSubscription(500.0);
+
+        valueConsumer.get().accept(new DataValue(new Variant(42), StatusCode.GOOD));
+        valueConsumer.get().accept(new DataValue(new Variant(1), StatusCode.BAD));
+
+        assertEquals(2, events.size());
+        ChannelRecord record = events.get(0).getChannelRecord();
+        assertEquals("ch1", record.getChannelName());
+        assertEquals(ChannelFlag.SUCCESS, record.getChannelStatus().getChannelFlag());
+        assertEquals(42, record.getValue().getValue());
+        assertEquals(ChannelFlag.FAILURE, events.get(1).getChannelRecord().getChannelStatus().getChannelFlag());
+
+        svc.unregisterChannelListener(listener);
+
+        assertFalse(listenerManager.hasListeners());
+        verify(subscriptionMock).deleteMonitoredItems(Collections.singletonList(itemMock));
+        verify(managerMock).deleteSubscription(any());
+    }
+
 }
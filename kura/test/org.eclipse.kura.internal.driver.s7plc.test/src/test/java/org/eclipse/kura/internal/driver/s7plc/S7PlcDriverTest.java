@@ -10,8 +10,14 @@ package org.eclipse.kura.internal.driver.s7plc;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -19,11 +25,20 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.kura.KuraErrorCode;
 import org.eclipse.kura.KuraException;
+import org.eclipse.kura.channel.ChannelFlag;
+import org.eclipse.kura.channel.ChannelRecord;
 import org.eclipse.kura.core.testutil.TestUtil;
 import org.eclipse.kura.crypto.CryptoService;
 import org.eclipse.kura.driver.ChannelDescriptor;
@@ -31,6 +46,8 @@ import org.eclipse.kura.driver.block.BlockFactory;
 import org.eclipse.kura.driver.block.task.BlockTask;
 import org.eclipse.kura.driver.block.task.Mode;
 import org.eclipse.kura.driver.block.task.ToplevelBlockTask;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.IntegerValue;
 import org.junit.Test;
 
 import Moka7.S7;
@@ -353,4 +370,156 @@ public class S7PlcDriverTest {
 
         verify(s7Mock, times(1)).WriteArea(S7.S7AreaDB, db, offset, data.length, data);
     }
+
+    @Test
+    public void testParallelRead() throws Exception {
+        // each DB is read by a different lane, the reads must be concurrent for the barrier to be passed
+
+        CyclicBarrier barrier = new CyclicBarrier(3);
+
+        S7PlcDriver svc = createParallelDriver(3);
+
+        S7Client s7Mock = mockClient(barrier);
+        TestUtil.setFieldValue(svc, CLIENT_FIELD, s7Mock);
+        List<S7Client> laneMocks = Arrays.asList(mockClient(barrier), mockClient(barrier));
+        TestUtil.setFieldValue(svc, "laneClients", laneMocks);
+
+        List<ChannelRecord> records = createRecords(3);
+
+        svc.read(records);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ChannelFlag.SUCCESS, records.get(i).getChannelStatus().getChannelFlag());
+            assertEquals(new IntegerValue(i + 1), records.get(i).getValue());
+        }
+        verify(s7Mock, times(1)).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class));
+        for (S7Client laneMock : laneMocks) {
+            verify(laneMock, times(1)).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class));
+        }
+    }
+
+    @Test
+    public void testParallelReadWithLaneConnectionFailure() throws Exception {
+        // lanes that fail to connect leave their tasks to the main connection
+
+        S7PlcDriver svc = createParallelDriver(3);
+
+        S7Client s7Mock = mockClient(null);
+        TestUtil.setFieldValue(svc, CLIENT_FIELD, s7Mock);
+        S7Client laneMock = mockClient(null);
+        doReturn(1).when(laneMock).ConnectTo(anyString(), anyInt(), anyInt());
+        TestUtil.setFieldValue(svc, "laneClients", Arrays.asList(laneMock, laneMock));
+
+        List<ChannelRecord> records = createRecords(3);
+
+        svc.read(records);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ChannelFlag.SUCCESS, records.get(i).getChannelStatus().getChannelFlag());
+            assertEquals(new IntegerValue(i + 1), records.get(i).getValue());
+        }
+        verify(s7Mock, times(3)).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class));
+        verify(laneMock, times(0)).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class));
+    }
+
+    @Test
+    public void testParallelReadWithLaneConnectionReset() throws Exception {
+        // a lane whose connection is reset stops and leaves the remaining tasks to the main connection
+
+        S7PlcDriver svc = createParallelDriver(2);
+
+        CountDownLatch laneReset = new CountDownLatch(1);
+        S7Client s7Mock = mockClient(null);
+        doAnswer(invocation -> {
+            laneReset.await(5, TimeUnit.SECONDS);
+            byte[] data = (byte[]) invocation.getArguments()[4];
+            data[0] = (byte) (int) (Integer) invocation.getArguments()[1];
+            return 0;
+        }).when(s7Mock).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class));
+        TestUtil.setFieldValue(svc, CLIENT_FIELD, s7Mock);
+        S7Client laneMock = mockClient(null);
+        doReturn(S7Client.errTCPConnectionReset).when(laneMock).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(),
+                any(byte[].class));
+        doAnswer(invocation -> {
+            laneMock.Connected = false;
+            laneReset.countDown();
+            return null;
+        }).when(laneMock).Disconnect();
+        TestUtil.setFieldValue(svc, "laneClients", Arrays.asList(laneMock));
+
+        List<ChannelRecord> records = createRecords(4);
+
+        svc.read(records);
+
+        int failures = 0;
+        for (ChannelRecord record : records) {
+            if (record.getChannelStatus().getChannelFlag() != ChannelFlag.SUCCESS) {
+                failures++;
+            }
+        }
+        assertEquals(1, failures);
+        verify(laneMock, times(1)).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class));
+        verify(s7Mock, times(3)).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class));
+    }
+
+    @Test
+    public void testDeactivateStopsLanes() throws Exception {
+        S7PlcDriver svc = createParallelDriver(2);
+
+        TestUtil.setFieldValue(svc, CLIENT_FIELD, mockClient(null));
+        TestUtil.setFieldValue(svc, "laneClients", Arrays.asList(mockClient(null)));
+
+        svc.read(createRecords(2));
+
+        ExecutorService laneExecutor = (ExecutorService) TestUtil.getFieldValue(svc, "laneExecutor");
+        assertNotNull(laneExecutor);
+
+        svc.deactivate(null);
+
+        assertTrue(laneExecutor.isShutdown());
+        assertNull(TestUtil.getFieldValue(svc, "laneExecutor"));
+    }
+
+    private static S7PlcDriver createParallelDriver(int parallelism) {
+        S7PlcDriver svc = new S7PlcDriver();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("host.ip", "127.0.0.1");
+        properties.put("read.parallelism", parallelism);
+        svc.updated(properties);
+
+        return svc;
+    }
+
+    private static S7Client mockClient(CyclicBarrier barrier) {
+        S7Client s7Mock = mock(S7Client.class);
+        when(s7Mock.ConnectTo(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            s7Mock.Connected = true;
+            return 0;
+        });
+        // the first byte of each DB contains the DB number
+        when(s7Mock.ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), any(byte[].class))).thenAnswer(invocation -> {
+            if (barrier != null) {
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+            byte[] data = (byte[]) invocation.getArguments()[4];
+            data[0] = (byte) (int) (Integer) invocation.getArguments()[1];
+            return 0;
+        });
+        return s7Mock;
+    }
+
+    private static List<ChannelRecord> createRecords(int dbCount) {
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int db = 1; db <= dbCount; db++) {
+            ChannelRecord record = ChannelRecord.createReadRecord("db" + db, DataType.INTEGER);
+            Map<String, Object> config = new HashMap<>();
+            config.put("data.block.no", db);
+            config.put("offset", 0);
+            config.put("s7.data.type", "BYTE");
+            record.setChannelConfig(config);
+            records.add(record);
+        }
+        return records;
+    }
 }
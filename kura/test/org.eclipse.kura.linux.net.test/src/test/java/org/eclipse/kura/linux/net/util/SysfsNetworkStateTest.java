@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.linux.net.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.core.testutil.TestUtil;
+import org.eclipse.kura.linux.net.util.SysfsNetworkState.NetworkStateListener;
+import org.eclipse.kura.net.NetInterfaceType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SysfsNetworkStateTest {
+
+    private File sysClassNet;
+    private SysfsNetworkState networkState;
+
+    @Before
+    public void setUp() throws IOException {
+        this.sysClassNet = Files.createTempDirectory("sysfs").toFile();
+        this.networkState = new SysfsNetworkState(this.sysClassNet);
+
+        writeInterface("lo", 1, 772, "0x9", "unknown", "1", "00:00:00:00:00:00", 65536);
+        writeInterface("eth0", 2, 1, "0x1003", "up", "1", "b8:27:eb:01:02:03", 1500);
+        writeInterface("wlan0", 3, 1, "0x2", "down", null, "b8:27:eb:04:05:06", 1500);
+        new File(this.sysClassNet, "wlan0/wireless").mkdir();
+        writeInterface("ppp0", 4, 512, "0x10d1", "unknown", "1", "", 1500);
+        write("eth0/statistics/rx_bytes", "123456");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        delete(this.sysClassNet);
+    }
+
+    @Test
+    public void testInterfaceNames() {
+        assertTrue(this.networkState.isAvailable());
+        assertEquals(Arrays.asList("lo", "eth0", "wlan0", "ppp0"), this.networkState.getInterfaceNames());
+        assertTrue(this.networkState.exists("eth0"));
+        assertFalse(this.networkState.exists("eth1"));
+    }
+
+    @Test
+    public void testInterfaceState() {
+        assertEquals(NetInterfaceType.LOOPBACK, this.networkState.getType("lo"));
+        assertEquals(NetInterfaceType.ETHERNET, this.networkState.getType("eth0"));
+        assertEquals(NetInterfaceType.WIFI, this.networkState.getType("wlan0"));
+        assertEquals(NetInterfaceType.MODEM, this.networkState.getType("ppp0"));
+        assertEquals(NetInterfaceType.UNKNOWN, this.networkState.getType("eth1"));
+
+        assertTrue(this.networkState.isUp("eth0"));
+        assertFalse(this.networkState.isUp("wlan0"));
+        assertTrue(this.networkState.isLinkUp("eth0"));
+        assertFalse(this.networkState.isLinkUp("wlan0"));
+        assertTrue(this.networkState.isLinkUp("ppp0"));
+        assertTrue(this.networkState.hasCarrier("eth0"));
+        assertFalse(this.networkState.hasCarrier("wlan0"));
+        assertTrue(this.networkState.isPointToPoint("ppp0"));
+        assertFalse(this.networkState.isPointToPoint("eth0"));
+
+        assertEquals(1500, this.networkState.getMtu("eth0"));
+        assertEquals(-1, this.networkState.getMtu("eth1"));
+        assertEquals("b8:27:eb:01:02:03", this.networkState.getMacAddress("eth0"));
+        assertNull(this.networkState.getMacAddress("ppp0"));
+        assertEquals(123456, this.networkState.getCounter("eth0", "rx_bytes"));
+        assertEquals(-1, this.networkState.getCounter("eth0", "tx_bytes"));
+    }
+
+    @Test
+    public void testInterfaceConfiguration() {
+        LinuxIfconfig config = this.networkState.getInterfaceConfiguration("eth0");
+
+        assertEquals("eth0", config.getName());
+        assertEquals(NetInterfaceType.ETHERNET, config.getType());
+        assertTrue(config.isUp());
+        assertTrue(config.isLinkUp());
+        assertTrue(config.isMulticast());
+        assertEquals(1500, config.getMtu());
+        assertEquals("b8:27:eb:01:02:03", config.getMacAddress());
+
+        config = this.networkState.getInterfaceConfiguration("wlan0");
+
+        assertEquals(NetInterfaceType.WIFI, config.getType());
+        assertFalse(config.isUp());
+        assertFalse(config.isLinkUp());
+        assertFalse(config.isMulticast());
+
+        assertNull(this.networkState.getInterfaceConfiguration("eth1"));
+    }
+
+    @Test
+    public void testParseMonitorLine() {
+        assertEquals("eth0", SysfsNetworkState.parseMonitorLine(
+                "2: eth0: <NO-CARRIER,BROADCAST,MULTICAST,UP> mtu 1500 qdisc pfifo_fast state DOWN"));
+        assertEquals("wlan0",
+                SysfsNetworkState.parseMonitorLine("3: wlan0    inet 192.168.1.10/24 brd 192.168.1.255 scope global"));
+        assertEquals("wlan0", SysfsNetworkState.parseMonitorLine("Deleted 3: wlan0    inet 192.168.1.10/24"));
+        assertEquals("eth0.1", SysfsNetworkState.parseMonitorLine("[LINK]5: eth0.1@eth0: <BROADCAST> mtu 1500"));
+        assertNull(SysfsNetworkState.parseMonitorLine("Deleted 192.168.1.0/24 dev wlan0"));
+        assertNull(SysfsNetworkState.parseMonitorLine(""));
+    }
+
+    @Test
+    public void testPollNotifiesChanges() throws IOException, NoSuchFieldException {
+        List<String> changed = new ArrayList<>();
+        // registered without starting the watcher thread
+        @SuppressWarnings("unchecked")
+        List<NetworkStateListener> listeners = (List<NetworkStateListener>) TestUtil
+                .getFieldValue(this.networkState, "listeners");
+        listeners.add(changed::add);
+        Map<String, String> states = new HashMap<>();
+
+        this.networkState.pollOnce(states);
+        this.networkState.pollOnce(states);
+
+        assertTrue(changed.isEmpty());
+
+        write("eth0/operstate", "down");
+        write("eth0/carrier", "0");
+        this.networkState.pollOnce(states);
+
+        assertEquals(Arrays.asList("eth0"), changed);
+    }
+
+    private void writeInterface(String name, int index, int type, String flags, String operState, String carrier,
+            String address, int mtu) throws IOException {
+        new File(this.sysClassNet, name + "/statistics").mkdirs();
+        write(name + "/ifindex", Integer.toString(index));
+        write(name + "/type", Integer.toString(type));
+        write(name + "/flags", flags);
+        write(name + "/operstate", operState);
+        if (carrier != null) {
+            write(name + "/carrier", carrier);
+        }
+        write(name + "/address", address);
+        write(name + "/mtu", Integer.toString(mtu));
+    }
+
+    private void write(String path, String value) throws IOException {
+        Files.write(new File(this.sysClassNet, path).toPath(), (value + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
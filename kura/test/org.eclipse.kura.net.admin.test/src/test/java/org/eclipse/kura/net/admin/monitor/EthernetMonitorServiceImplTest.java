@@ -25,7 +25,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.kura.KuraErrorCode;
 import org.eclipse.kura.KuraException;
@@ -176,6 +178,24 @@ public class EthernetMonitorServiceImplTest {
         assertNull(tasks);
     }
 
+    @Test
+    public void testNetworkStateChangedWithoutMonitors() throws Throwable {
+        // the events of the interfaces that are not monitored are ignored
+
+        EthernetMonitorServiceImpl svc = new EthernetMonitorServiceImpl();
+
+        TestUtil.setFieldValue(svc, "stopThreads", null);
+        TestUtil.invokePrivate(svc, "onNetworkStateChanged", "wlan0");
+
+        Map<String, AtomicBoolean> stopThreads = new ConcurrentHashMap<>();
+        stopThreads.put("eth0", new AtomicBoolean(false));
+        TestUtil.setFieldValue(svc, "stopThreads", stopThreads);
+        TestUtil.invokePrivate(svc, "onNetworkStateChanged", "wlan0");
+        TestUtil.invokePrivate(svc, "onNetworkStateChanged", "eth0");
+
+        TestUtil.setFieldValue(svc, "stopThreads", null);
+    }
+
     @Test
     public void testDisableInterface() throws Throwable {
         // make external calls to disable the interface
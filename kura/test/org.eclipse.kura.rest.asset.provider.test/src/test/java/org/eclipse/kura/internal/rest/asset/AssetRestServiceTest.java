@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.rest.asset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.eclipse.kura.KuraErrorCode;
+import org.eclipse.kura.KuraException;
+import org.eclipse.kura.asset.Asset;
+import org.eclipse.kura.asset.AssetConfiguration;
+import org.eclipse.kura.asset.AssetService;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.TypedValues;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+public class AssetRestServiceTest {
+
+    private final AssetRestService service = new AssetRestService();
+
+    @After
+    public void tearDown() {
+        this.service.deactivate();
+    }
+
+    @Test
+    public void testReadAll() throws KuraException {
+        ChannelRecord record = ChannelRecord.createReadRecord("ch", DataType.INTEGER);
+        record.setValue(TypedValues.newIntegerValue(42));
+
+        Asset asset = mockAsset(new AssetConfiguration("description", "driver", new HashMap<>()));
+        when(asset.readAllChannels()).thenReturn(Collections.singletonList(record));
+        // the assets without a configuration are read as well
+        Asset unconfiguredAsset = mockAsset(null);
+        when(unconfiguredAsset.readAllChannels()).thenReturn(Collections.singletonList(record));
+        Asset failingAsset = mockAsset(new AssetConfiguration("description", "driver", new HashMap<>()));
+        when(failingAsset.readAllChannels()).thenThrow(new KuraException(KuraErrorCode.INTERNAL_ERROR, "broken"));
+
+        AssetService assetService = mock(AssetService.class);
+        when(assetService.listAssets()).thenReturn(Arrays.asList(asset, unconfiguredAsset, failingAsset));
+        when(assetService.getAssetPid(asset)).thenReturn("asset");
+        when(assetService.getAssetPid(unconfiguredAsset)).thenReturn("unconfigured");
+        when(assetService.getAssetPid(failingAsset)).thenReturn("failing");
+        this.service.setAssetService(assetService);
+
+        JsonArray response = this.service.readAll().getAsJsonArray();
+
+        assertEquals(3, response.size());
+        for (int i = 0; i < 2; i++) {
+            JsonObject result = response.get(i).getAsJsonObject();
+            assertEquals(i == 0 ? "asset" : "unconfigured", result.get("name").getAsString());
+            assertFalse(result.has("error"));
+            JsonObject channel = result.getAsJsonArray("channels").get(0).getAsJsonObject();
+            assertEquals("ch", channel.get("name").getAsString());
+            assertEquals(42, channel.get("value").getAsInt());
+        }
+        JsonObject failed = response.get(2).getAsJsonObject();
+        assertEquals("failing", failed.get("name").getAsString());
+        assertFalse(failed.has("channels"));
+        assertEquals(new KuraException(KuraErrorCode.INTERNAL_ERROR, "broken").getMessage(),
+                failed.get("error").getAsString());
+    }
+
+    @Test
+    public void testReadAllWithoutAssets() {
+        AssetService assetService = mock(AssetService.class);
+        when(assetService.listAssets()).thenReturn(Collections.emptyList());
+        this.service.setAssetService(assetService);
+
+        assertEquals(0, this.service.readAll().getAsJsonArray().size());
+    }
+
+    private static Asset mockAsset(AssetConfiguration configuration) {
+        Asset asset = mock(Asset.class);
+        when(asset.getAssetConfiguration()).thenReturn(configuration);
+        return asset;
+    }
+}
@@ -9,15 +9,24 @@
 package org.eclipse.kura.internal.wire.asset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.kura.asset.AssetConfiguration;
 import org.eclipse.kura.configuration.ConfigurationService;
@@ -31,11 +40,14 @@ import org.eclipse.kura.channel.ChannelRecord;
 import org.eclipse.kura.channel.ChannelStatus;
 import org.eclipse.kura.type.BooleanValue;
 import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.DoubleValue;
+import org.eclipse.kura.type.IntegerValue;
 import org.eclipse.kura.type.LongValue;
 import org.eclipse.kura.type.StringValue;
 import org.eclipse.kura.type.TypedValue;
 import org.eclipse.kura.wire.WireEnvelope;
 import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordSchema;
 import org.eclipse.kura.wire.WireSupport;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -142,4 +154,198 @@ public class WireAssetTest {
         verify(mockDriver).write(any());
     }
 
+    @Test
+    public void testEmitSharesSchema() throws NoSuchFieldException, ConnectionException {
+        Map<String, Channel> channels = new HashMap<>();
+        channels.put("ch1", new Channel("ch1", ChannelType.READ, DataType.INTEGER, new HashMap<>()));
+        channels.put("ch2", new Channel("ch2", ChannelType.READ, DataType.INTEGER, new HashMap<>()));
+
+        AssetConfiguration assetConfiguration = new AssetConfiguration("description", "driverPid", channels);
+
+        Map<String, Object> assetProperties = new HashMap<>();
+        assetProperties.put(ConfigurationService.KURA_SERVICE_PID, "componentName");
+
+        WireAsset wireAsset = new WireAsset();
+        TestUtil.setFieldValue(wireAsset, "kuraServicePid", "componentName");
+        TestUtil.setFieldValue(wireAsset, "properties", assetProperties);
+        TestUtil.setFieldValue(wireAsset, "assetConfiguration", assetConfiguration);
+
+        Driver mockDriver = mock(Driver.class);
+        wireAsset.setDriver(mockDriver);
+
+        doAnswer(invocation -> {
+            List<ChannelRecord> records = (List<ChannelRecord>) invocation.getArguments()[0];
+            for (ChannelRecord record : records) {
+                if ("ch1".equals(record.getChannelName())) {
+                    record.setValue(new IntegerValue(7));
+                    record.setTimestamp(42);
+                    record.setChannelStatus(new ChannelStatus(ChannelFlag.SUCCESS));
+                } else {
+                    record.setChannelStatus(new ChannelStatus(ChannelFlag.FAILURE));
+                }
+            }
+            return null;
+        }).when(mockDriver).read(any());
+
+        List<WireRecord> emitted = new ArrayList<>();
+        WireSupport mockWireSupport = mock(WireSupport.class);
+        TestUtil.setFieldValue(wireAsset, "wireSupport", mockWireSupport);
+        doAnswer(invocation -> {
+            emitted.addAll((List<WireRecord>) invocation.getArguments()[0]);
+            return null;
+        }).when(mockWireSupport).emit(any());
+
+        WireEnvelope wireEnvelope = new WireEnvelope("pid", Collections.emptyList());
+        wireAsset.onWireReceive(wireEnvelope);
+        wireAsset.onWireReceive(wireEnvelope);
+
+        assertEquals(2, emitted.size());
+        WireRecordSchema schema = emitted.get(0).getSchema();
+        assertSame(schema, emitted.get(1).getSchema());
+        assertEquals(5, schema.size());
+
+        // the failed channel is not part of the record
+        Map<String, TypedValue<?>> properties = emitted.get(1).getProperties();
+        assertEquals(3, properties.size());
+        assertEquals(new StringValue("componentName"), properties.get("assetName"));
+        assertEquals(new IntegerValue(7), properties.get("ch1"));
+        assertEquals(new LongValue(42), properties.get("ch1_timestamp"));
+        assertFalse(properties.containsKey("ch2"));
+        assertEquals(3, new HashMap<>(properties).size());
+    }
+
+    @Test
+    public void testReportOnChange() throws NoSuchFieldException, ConnectionException {
+        Map<String, Object> ch1Config = new HashMap<>();
+        ch1Config.put("+report.on.change", "true");
+        ch1Config.put("+deadband.absolute", "0.5");
+        Map<String, Object> ch2Config = new HashMap<>();
+        ch2Config.put("+report.on.change", "true");
+
+        Map<String, Channel> channels = new HashMap<>();
+        channels.put("ch1", new Channel("ch1", ChannelType.READ, DataType.DOUBLE, ch1Config));
+        channels.put("ch2", new Channel("ch2", ChannelType.READ, DataType.INTEGER, ch2Config));
+
+        AssetConfiguration assetConfiguration = new AssetConfiguration("description", "driverPid", channels);
+
+        WireAsset wireAsset = new WireAsset();
+        TestUtil.setFieldValue(wireAsset, "kuraServicePid", "componentName");
+        TestUtil.setFieldValue(wireAsset, "assetConfiguration", assetConfiguration);
+
+        Driver mockDriver = mock(Driver.class);
+        wireAsset.setDriver(mockDriver);
+
+        double[] ch1Values = { 1.0, 1.2, 1.6, 1.6, 1.8 };
+        int[] ch2Values = { 5, 5, 5, 6, 6 };
+        int[] tick = new int[1];
+        doAnswer(invocation -> {
+            List<ChannelRecord> records = (List<ChannelRecord>) invocation.getArguments()[0];
+            for (ChannelRecord record : records) {
+                if ("ch1".equals(record.getChannelName())) {
+                    record.setValue(new DoubleValue(ch1Values[tick[0]]));
+                } else {
+                    record.setValue(new IntegerValue(ch2Values[tick[0]]));
+                }
+                record.setTimestamp(tick[0]);
+                record.setChannelStatus(new ChannelStatus(ChannelFlag.SUCCESS));
+            }
+            tick[0]++;
+            return null;
+        }).when(mockDriver).read(any());
+
+        List<WireRecord> emitted = new ArrayList<>();
+        WireSupport mockWireSupport = mock(WireSupport.class);
+        TestUtil.setFieldValue(wireAsset, "wireSupport", mockWireSupport);
+        doAnswer(invocation -> {
+            emitted.addAll((List<WireRecord>) invocation.getArguments()[0]);
+            return null;
+        }).when(mockWireSupport).emit(any());
+
+        WireEnvelope wireEnvelope = new WireEnvelope("pid", Collections.emptyList());
+        for (int i = 0; i < ch1Values.length; i++) {
+            wireAsset.onWireReceive(wireEnvelope);
+        }
+
+        // the first read reports every channel, the second and the last ones report nothing
+        assertEquals(3, emitted.size());
+        Map<String, TypedValue<?>> properties = emitted.get(0).getProperties();
+        assertEquals(5, properties.size());
+        assertEquals(new DoubleValue(1.0), properties.get("ch1"));
+        assertEquals(new IntegerValue(5), properties.get("ch2"));
+
+        // ch1 moved by more than the deadband from the last reported value
+        properties = emitted.get(1).getProperties();
+        assertEquals(3, properties.size());
+        assertEquals(new DoubleValue(1.6), properties.get("ch1"));
+        assertEquals(new LongValue(2), properties.get("ch1_timestamp"));
+
+        properties = emitted.get(2).getProperties();
+        assertEquals(3, properties.size());
+        assertEquals(new IntegerValue(6), properties.get("ch2"));
+        assertFalse(properties.containsKey("ch1"));
+    }
+
+    @Test
+    public void testScanGroups() throws Exception {
+        Map<String, Object> ch1Config = new HashMap<>();
+        ch1Config.put("+scan.group", "fast");
+
+        Map<String, Channel> channels = new HashMap<>();
+        channels.put("ch1", new Channel("ch1", ChannelType.READ, DataType.INTEGER, ch1Config));
+        channels.put("ch2", new Channel("ch2", ChannelType.READ, DataType.INTEGER, new HashMap<>()));
+
+        AssetConfiguration assetConfiguration = new AssetConfiguration("description", "driverPid", channels);
+
+        Map<String, Object> assetProperties = new HashMap<>();
+        assetProperties.put(ConfigurationService.KURA_SERVICE_PID, "componentName");
+        assetProperties.put("scan.groups", "fast=20, invalid");
+
+        WireAsset wireAsset = new WireAsset();
+        TestUtil.setFieldValue(wireAsset, "kuraServicePid", "componentName");
+        TestUtil.setFieldValue(wireAsset, "properties", assetProperties);
+        TestUtil.setFieldValue(wireAsset, "assetConfiguration", assetConfiguration);
+
+        Driver mockDriver = mock(Driver.class);
+        doAnswer(invocation -> {
+            List<ChannelRecord> records = (List<ChannelRecord>) invocation.getArguments()[0];
+            for (ChannelRecord record : records) {
+                record.setValue(new IntegerValue(record.getChannelName().length()));
+                record.setTimestamp(42);
+                record.setChannelStatus(new ChannelStatus(ChannelFlag.SUCCESS));
+            }
+            return null;
+        }).when(mockDriver).read(any());
+
+        List<WireRecord> emitted = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch scans = new CountDownLatch(3);
+        WireSupport mockWireSupport = mock(WireSupport.class);
+        TestUtil.setFieldValue(wireAsset, "wireSupport", mockWireSupport);
+        doAnswer(invocation -> {
+            emitted.addAll((List<WireRecord>) invocation.getArguments()[0]);
+            scans.countDown();
+            return null;
+        }).when(mockWireSupport).emit(any());
+
+        wireAsset.setDriver(mockDriver);
+        try {
+            assertTrue(scans.await(5, TimeUnit.SECONDS));
+            // only the channel that does not belong to a scan group is read when an envelope is received
+            wireAsset.onWireReceive(new WireEnvelope("pid", Collections.emptyList()));
+        } finally {
+            wireAsset.setDriver(null);
+        }
+
+        int envelopeRecords = 0;
+        for (WireRecord record : new ArrayList<>(emitted)) {
+            Set<String> keys = record.getProperties().keySet();
+            if (keys.contains("ch2")) {
+                assertEquals(new HashSet<>(Arrays.asList("assetName", "ch2", "ch2_timestamp")), keys);
+                envelopeRecords++;
+            } else {
+                assertEquals(new HashSet<>(Arrays.asList("assetName", "ch1", "ch1_timestamp")), keys);
+            }
+        }
+        assertEquals(1, envelopeRecords);
+    }
+
 }
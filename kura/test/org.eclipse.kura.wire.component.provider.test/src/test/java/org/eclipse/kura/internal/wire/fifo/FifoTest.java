@@ -15,6 +15,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -183,6 +184,115 @@ public class FifoTest {
         assertEquals(1, wiresLatch.getCount());
     }
 
+    @Test
+    public void testDiscardOldest() throws InterruptedException {
+        CountDownLatch blockLatch = new CountDownLatch(1);
+        List<Long> emitted = new ArrayList<>();
+
+        Fifo fifo = new Fifo();
+        WireHelperService wireHelperServiceMock = mock(WireHelperService.class);
+        fifo.bindWireHelperService(wireHelperServiceMock);
+        when(wireHelperServiceMock.newWireSupport(fifo)).thenReturn(new RecordingWireSupport(emitted, blockLatch));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("discard.envelopes", true);
+        properties.put("discard.policy", "oldest");
+        properties.put("queue.capacity", 2);
+        fifo.activate(properties);
+
+        // the first envelope blocks the emitter thread, the queue keeps the last two
+        for (long i = 0; i < 6; i++) {
+            fifo.onWireReceive(createWireEnvelope(i));
+            Thread.sleep(10);
+        }
+        assertEquals(2, fifo.getEmitterThread().getQueueDepth());
+        assertEquals(3, fifo.getEmitterThread().getDroppedEnvelopes());
+
+        blockLatch.countDown();
+        Thread.sleep(200);
+        fifo.deactivate();
+
+        assertEquals(Arrays.asList(0L, 4L, 5L), emitted);
+    }
+
+    @Test
+    public void testMultiDrain() throws InterruptedException {
+        CountDownLatch blockLatch = new CountDownLatch(1);
+        List<Long> emitted = new ArrayList<>();
+        RecordingWireSupport wireSupport = new RecordingWireSupport(emitted, blockLatch);
+
+        Fifo fifo = new Fifo();
+        WireHelperService wireHelperServiceMock = mock(WireHelperService.class);
+        fifo.bindWireHelperService(wireHelperServiceMock);
+        when(wireHelperServiceMock.newWireSupport(fifo)).thenReturn(wireSupport);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("queue.capacity", 10);
+        properties.put("wait.strategy", "yield");
+        properties.put("emit.max.envelopes", 3);
+        fifo.activate(properties);
+
+        for (long i = 0; i < 5; i++) {
+            fifo.onWireReceive(createWireEnvelope(i));
+            Thread.sleep(10);
+        }
+
+        blockLatch.countDown();
+        Thread.sleep(200);
+        fifo.deactivate();
+
+        // the first envelope alone, then at most 3 envelopes per emit
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), emitted);
+        assertEquals(3, wireSupport.emitCount);
+    }
+
+    private static final class RecordingWireSupport implements WireSupport {
+
+        private final List<Long> emitted;
+        private final CountDownLatch blockLatch;
+        private int emitCount;
+
+        RecordingWireSupport(List<Long> emitted, CountDownLatch blockLatch) {
+            this.emitted = emitted;
+            this.blockLatch = blockLatch;
+        }
+
+        @Override
+        public void updated(Wire wire, Object value) {
+        }
+
+        @Override
+        public void producersConnected(Wire[] wires) {
+        }
+
+        @Override
+        public Object polled(Wire wire) {
+            return null;
+        }
+
+        @Override
+        public void consumersConnected(Wire[] wires) {
+        }
+
+        @Override
+        public void emit(List<WireRecord> wireRecords) {
+            try {
+                this.blockLatch.await();
+            } catch (InterruptedException e) {
+            }
+            this.emitCount++;
+            for (WireRecord wireRecord : wireRecords) {
+                this.emitted.add((Long) wireRecord.getProperties().get("timestamp").getValue());
+            }
+        }
+    }
+
+    private WireEnvelope createWireEnvelope(long timestamp) {
+        Map<String, TypedValue<?>> recordProps = new HashMap<String, TypedValue<?>>();
+        recordProps.put("timestamp", new LongValue(timestamp));
+        return new WireEnvelope("emitter", Arrays.asList(new WireRecord(recordProps)));
+    }
+
     private WireEnvelope createWireEnvelope() {
         String emitterPid = "emitter";
         List<WireRecord> wireRecords = new ArrayList<WireRecord>();
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.fifo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class RingBufferTest {
+
+    @Test
+    public void testOfferPoll() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+
+        assertNull(buffer.poll());
+        for (int round = 0; round < 3; round++) {
+            assertTrue(buffer.offer(1));
+            assertTrue(buffer.offer(2));
+            assertTrue(buffer.offer(3));
+            assertFalse(buffer.offer(4));
+            assertEquals(3, buffer.size());
+
+            assertEquals(1, (int) buffer.poll());
+
+            List<Integer> drained = new ArrayList<>();
+            assertEquals(2, buffer.drainTo(drained, 5));
+            assertEquals(2, (int) drained.get(0));
+            assertEquals(3, (int) drained.get(1));
+            assertTrue(buffer.isEmpty());
+        }
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        RingBuffer<Long> buffer = new RingBuffer<>(16);
+        AtomicLong sum = new AtomicLong();
+        int producers = 4;
+        int count = 1000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                for (long i = 1; i <= count; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long received = 0;
+        while (received < producers * count) {
+            Long value = buffer.poll();
+            if (value != null) {
+                sum.addAndGet(value);
+                received++;
+            } else {
+                Thread.yield();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * (long) count * (count + 1) / 2, sum.get());
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.kura.KuraErrorCode;
 import org.eclipse.kura.KuraException;
 import org.eclipse.kura.cloud.CloudClient;
 import org.eclipse.kura.cloud.CloudService;
@@ -210,4 +211,118 @@ public class CloudPublisherTest {
         verify(cloudClientMock, times(1)).controlPublish(eq(topic), (KuraPayload) anyObject(), eq(qos), eq(retain),
                 eq(prio));
     }
+
+    @Test
+    public void testOnWireReceiveBatch() throws InvalidSyntaxException, NoSuchFieldException, KuraException {
+        // test batching across envelopes, flushed by record count and on deactivation
+
+        CloudPublisher cp = new CloudPublisher();
+
+        WireHelperService wireHelperServiceMock = mock(WireHelperService.class);
+        cp.bindWireHelperService(wireHelperServiceMock);
+
+        BundleContext bundleCtxMock = mock(BundleContext.class);
+        Filter filter = mock(Filter.class);
+        when(bundleCtxMock.createFilter(anyString())).thenReturn(filter);
+
+        ComponentContext ctxMock = mock(ComponentContext.class);
+        when(ctxMock.getBundleContext()).thenReturn(bundleCtxMock);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("cloud.service.pid", "cspid");
+        properties.put("publish.topic", "topic");
+        properties.put("publish.batch.size", 2);
+        properties.put("publish.batch.max.latency", 60000);
+
+        cp.activate(ctxMock, properties);
+
+        CloudService cloudServiceMock = mock(CloudService.class);
+        CloudClient cloudClientMock = mock(CloudClient.class);
+        TestUtil.setFieldValue(cp, "cloudService", cloudServiceMock);
+        TestUtil.setFieldValue(cp, "cloudClient", cloudClientMock);
+
+        List<KuraPayload> payloads = new ArrayList<>();
+        when(cloudClientMock.publish(eq("topic"), (KuraPayload) anyObject(), eq(0), eq(false), eq(7)))
+                .thenAnswer(invocation -> {
+                    payloads.add(invocation.getArgumentAt(1, KuraPayload.class));
+                    return 1;
+                });
+
+        for (int i = 0; i < 3; i++) {
+            Map<String, TypedValue<?>> recordProps = new HashMap<>();
+            recordProps.put("key", new StringValue("val" + i));
+            List<WireRecord> wireRecords = new ArrayList<>();
+            wireRecords.add(new WireRecord(recordProps));
+            cp.onWireReceive(new WireEnvelope("emitter", wireRecords));
+        }
+
+        assertEquals(1, payloads.size());
+        assertEquals(2, payloads.get(0).getMetric("records"));
+        assertEquals("val0", payloads.get(0).getMetric("key[0]"));
+        assertEquals("val1", payloads.get(0).getMetric("key[1]"));
+
+        cp.deactivate(ctxMock);
+
+        assertEquals(2, payloads.size());
+        assertEquals(1, payloads.get(1).getMetric("records"));
+        assertEquals("val2", payloads.get(1).getMetric("key[0]"));
+    }
+
+    @Test
+    public void testOnWireReceiveBatchPublishFailure()
+            throws InvalidSyntaxException, NoSuchFieldException, KuraException {
+        // a batch which cannot be published is kept, without growing past the batch size, and published again
+        // later instead of with every new record
+
+        CloudPublisher cp = new CloudPublisher();
+
+        WireHelperService wireHelperServiceMock = mock(WireHelperService.class);
+        cp.bindWireHelperService(wireHelperServiceMock);
+
+        BundleContext bundleCtxMock = mock(BundleContext.class);
+        Filter filter = mock(Filter.class);
+        when(bundleCtxMock.createFilter(anyString())).thenReturn(filter);
+
+        ComponentContext ctxMock = mock(ComponentContext.class);
+        when(ctxMock.getBundleContext()).thenReturn(bundleCtxMock);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("cloud.service.pid", "cspid");
+        properties.put("publish.topic", "topic");
+        properties.put("publish.batch.size", 2);
+        properties.put("publish.batch.max.latency", 60000);
+
+        cp.activate(ctxMock, properties);
+
+        CloudService cloudServiceMock = mock(CloudService.class);
+        CloudClient cloudClientMock = mock(CloudClient.class);
+        TestUtil.setFieldValue(cp, "cloudService", cloudServiceMock);
+        TestUtil.setFieldValue(cp, "cloudClient", cloudClientMock);
+
+        List<KuraPayload> payloads = new ArrayList<>();
+        when(cloudClientMock.publish(eq("topic"), (KuraPayload) anyObject(), eq(0), eq(false), eq(7)))
+                .thenThrow(new KuraException(KuraErrorCode.STORE_ERROR)).thenAnswer(invocation -> {
+                    payloads.add(invocation.getArgumentAt(1, KuraPayload.class));
+                    return 1;
+                });
+
+        for (int i = 0; i < 5; i++) {
+            Map<String, TypedValue<?>> recordProps = new HashMap<>();
+            recordProps.put("key", new StringValue("val" + i));
+            List<WireRecord> wireRecords = new ArrayList<>();
+            wireRecords.add(new WireRecord(recordProps));
+            cp.onWireReceive(new WireEnvelope("emitter", wireRecords));
+        }
+
+        verify(cloudClientMock, times(1)).publish(eq("topic"), (KuraPayload) anyObject(), eq(0), eq(false), eq(7));
+        assertEquals(0, payloads.size());
+
+        cp.deactivate(ctxMock);
+
+        verify(cloudClientMock, times(2)).publish(eq("topic"), (KuraPayload) anyObject(), eq(0), eq(false), eq(7));
+        assertEquals(1, payloads.size());
+        assertEquals(2, payloads.get(0).getMetric("records"));
+        assertEquals("val3", payloads.get(0).getMetric("key[0]"));
+        assertEquals("val4", payloads.get(0).getMetric("key[1]"));
+    }
 }
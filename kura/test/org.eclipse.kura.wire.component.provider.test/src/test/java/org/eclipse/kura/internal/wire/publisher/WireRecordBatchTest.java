@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.publisher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.kura.internal.wire.publisher.CloudPublisherOptions.BatchEncoding;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.type.DoubleValue;
+import org.eclipse.kura.type.IntegerValue;
+import org.eclipse.kura.type.StringValue;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.wire.WireRecord;
+import org.junit.Test;
+
+public class WireRecordBatchTest {
+
+    private static WireRecordBatch createBatch() {
+        WireRecordBatch batch = new WireRecordBatch();
+        for (int i = 0; i < 2; i++) {
+            Map<String, TypedValue<?>> properties = new HashMap<>();
+            properties.put("channel", new DoubleValue(i + 0.5));
+            properties.put("asset", new StringValue("asset" + i));
+            // same name, different types
+            properties.put("mixed", i == 0 ? new IntegerValue(i) : new StringValue("s"));
+            batch.add(new WireRecord(properties));
+        }
+        return batch;
+    }
+
+    @Test
+    public void testArrayEncoding() {
+        WireRecordBatch batch = createBatch();
+        assertEquals(2, batch.size());
+
+        KuraPayload payload = batch.toKuraPayload(BatchEncoding.ARRAY);
+
+        assertEquals(7, payload.metrics().size());
+        assertEquals(2, payload.getMetric(WireRecordBatch.RECORDS_METRIC));
+        assertEquals(1.5, payload.getMetric("channel[1]"));
+        assertEquals("asset0", payload.getMetric("asset[0]"));
+        assertEquals("s", payload.getMetric("mixed[1]"));
+    }
+
+    @Test
+    public void testColumnarEncoding() throws IOException {
+        KuraPayload payload = createBatch().toKuraPayload(BatchEncoding.COLUMNAR);
+
+        assertEquals(5, payload.metrics().size());
+        assertNull(payload.getMetric("channel[0]"));
+        assertEquals(0, payload.getMetric("mixed[0]"));
+
+        DataInputStream channel = new DataInputStream(
+                new ByteArrayInputStream((byte[]) payload.getMetric("channel:DOUBLE")));
+        assertEquals(0.5, channel.readDouble(), 0.0);
+        assertEquals(1.5, channel.readDouble(), 0.0);
+
+        DataInputStream asset = new DataInputStream(
+                new ByteArrayInputStream((byte[]) payload.getMetric("asset:STRING")));
+        assertEquals("asset0", asset.readUTF());
+        assertEquals("asset1", asset.readUTF());
+    }
+
+    @Test
+    public void testDropOldest() {
+        WireRecordBatch batch = new WireRecordBatch();
+        for (int i = 0; i < 5; i++) {
+            Map<String, TypedValue<?>> properties = new HashMap<>();
+            properties.put("key", new StringValue("val" + i));
+            batch.add(new WireRecord(properties));
+        }
+        // each record is estimated to 7 bytes
+        assertEquals(35, batch.getEstimatedSize());
+
+        assertEquals(2, batch.dropOldest(3, 0));
+        assertEquals(3, batch.size());
+        assertEquals(21, batch.getEstimatedSize());
+
+        assertEquals(1, batch.dropOldest(3, 14));
+        assertEquals(2, batch.size());
+
+        // the latest record is always kept
+        assertEquals(1, batch.dropOldest(3, 1));
+        assertEquals(1, batch.size());
+        assertEquals(4, batch.takeDroppedCount());
+        assertEquals(0, batch.takeDroppedCount());
+
+        KuraPayload payload = batch.toKuraPayload(BatchEncoding.ARRAY);
+        assertEquals("val4", payload.getMetric("key[0]"));
+    }
+}
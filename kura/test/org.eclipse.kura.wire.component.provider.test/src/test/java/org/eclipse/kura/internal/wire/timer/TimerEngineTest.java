@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kura.internal.wire.timer.TimerEngine.OverrunPolicy;
+import org.eclipse.kura.internal.wire.timer.TimerEngine.Tick;
+import org.junit.Test;
+
+public class TimerEngineTest {
+
+    private final TimerEngine engine = new TimerEngine();
+
+    @Test
+    public void testMillisecondInterval() throws InterruptedException {
+        CountDownLatch ticks = new CountDownLatch(20);
+
+        Tick tick = this.engine.schedule("group", 2, TimeUnit.MILLISECONDS, false, OverrunPolicy.SKIP,
+                ticks::countDown);
+        try {
+            assertTrue(ticks.await(1, TimeUnit.SECONDS));
+        } finally {
+            tick.cancel();
+        }
+
+        TimerStatistics statistics = tick.getStatistics();
+        assertTrue(statistics.getTickCount() >= 20);
+        assertEquals(statistics.getOverrunCount(), statistics.getDroppedCount());
+    }
+
+    @Test
+    public void testAlignment() throws InterruptedException {
+        List<Long> times = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch ticks = new CountDownLatch(3);
+
+        Tick tick = this.engine.schedule("group", 200, TimeUnit.MILLISECONDS, true, OverrunPolicy.SKIP, () -> {
+            times.add(System.currentTimeMillis());
+            ticks.countDown();
+        });
+        try {
+            assertTrue(ticks.await(2, TimeUnit.SECONDS));
+        } finally {
+            tick.cancel();
+        }
+
+        for (long time : times) {
+            long offset = time % 200;
+            assertTrue("offset " + offset, offset < 50);
+        }
+    }
+
+    @Test
+    public void testSkip() throws InterruptedException {
+        TimerStatistics statistics = runSlowTicks(OverrunPolicy.SKIP);
+
+        // every tick lasts 2.5 intervals, the two following deadlines are missed and dropped
+        assertEquals(statistics.getOverrunCount(), statistics.getDroppedCount());
+        assertEquals(2 * statistics.getTickCount(), statistics.getOverrunCount(), 2);
+    }
+
+    @Test
+    public void testCoalesce() throws InterruptedException {
+        TimerStatistics statistics = runSlowTicks(OverrunPolicy.COALESCE);
+
+        // the missed deadlines are replaced by a single late tick
+        assertTrue(statistics.getDroppedCount() > 0);
+        assertTrue(statistics.getDroppedCount() < statistics.getOverrunCount());
+        assertTrue(statistics.getMaximumLatency() >= TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testQueue() throws InterruptedException {
+        TimerStatistics statistics = runSlowTicks(OverrunPolicy.QUEUE);
+
+        assertEquals(0, statistics.getDroppedCount());
+        assertTrue(statistics.getOverrunCount() > 0);
+        assertTrue(statistics.getLastLatency() >= statistics.getAverageLatency());
+    }
+
+    @Test
+    public void testGroupsDoNotDelayEachOther() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch ticks = new CountDownLatch(5);
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+        Tick slowTick = this.engine.schedule("slow", 1, TimeUnit.MILLISECONDS, false, OverrunPolicy.SKIP, () -> {
+            threads.add(Thread.currentThread().getName());
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Tick fastTick = this.engine.schedule("fast", 1, TimeUnit.MILLISECONDS, false, OverrunPolicy.SKIP, () -> {
+            threads.add(Thread.currentThread().getName());
+            ticks.countDown();
+        });
+        try {
+            assertTrue(ticks.await(1, TimeUnit.SECONDS));
+        } finally {
+            blocked.countDown();
+            slowTick.cancel();
+            fastTick.cancel();
+        }
+
+        assertEquals(2, new HashSet<>(threads).size());
+    }
+
+    @Test
+    public void testCancelWhileAnotherTickIsExecuting() throws InterruptedException {
+        CountDownLatch executing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ticks = new CountDownLatch(3);
+
+        Tick slowTick = this.engine.schedule("group", 1, TimeUnit.MILLISECONDS, false, OverrunPolicy.SKIP, () -> {
+            executing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ticks.countDown();
+        });
+        Tick otherTick = this.engine.schedule("group", 1, TimeUnit.HOURS, true, OverrunPolicy.SKIP, () -> {
+        });
+        try {
+            assertTrue(executing.await(1, TimeUnit.SECONDS));
+            // the only tick left in the queue is cancelled while the other one is being executed
+            otherTick.cancel();
+            otherTick.cancel();
+            release.countDown();
+
+            assertTrue(ticks.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            slowTick.cancel();
+        }
+    }
+
+    private TimerStatistics runSlowTicks(OverrunPolicy policy) throws InterruptedException {
+        CountDownLatch ticks = new CountDownLatch(6);
+        Tick tick = this.engine.schedule("group", 20, TimeUnit.MILLISECONDS, false, policy, () -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ticks.countDown();
+        });
+        try {
+            assertTrue(ticks.await(2, TimeUnit.SECONDS));
+        } finally {
+            tick.cancel();
+        }
+        return tick.getStatistics();
+    }
+}
@@ -10,10 +10,13 @@ package org.eclipse.kura.internal.wire.timer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -22,6 +25,7 @@ import java.util.Map;
 
 import org.eclipse.kura.core.testutil.TestUtil;
 import org.eclipse.kura.wire.WireHelperService;
+import org.eclipse.kura.wire.WireRecord;
 import org.eclipse.kura.wire.WireSupport;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -32,21 +36,20 @@ import org.quartz.SchedulerContext;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.impl.triggers.CronTriggerImpl;
-import org.quartz.impl.triggers.SimpleTriggerImpl;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class TimerTest {
 
     @Test
-    public void testActivateSimple() throws SchedulerException, NoSuchFieldException {
+    public void testActivateSimple() throws NoSuchFieldException {
         WireHelperService mockWireHelperService = mock(WireHelperService.class);
-        Scheduler mockScheduler = mock(Scheduler.class);
+        TimerEngine engine = new TimerEngine();
 
         Timer timer = new Timer() {
 
             @Override
-            protected Scheduler getScheduler() throws SchedulerException {
-                return mockScheduler;
+            protected TimerEngine getTimerEngine() {
+                return engine;
             }
         };
 
@@ -56,41 +59,34 @@ public class TimerTest {
         when(mockWireHelperService.newWireSupport(timer)).thenReturn(mockWireSupport);
 
         String expectedType = "SIMPLE";
-        int expectedIntervalSeconds = 1;
-        int expectedIntervalMilliseconds = expectedIntervalSeconds * 1000;
+        int expectedIntervalMilliseconds = 5;
         Map<String, Object> properties = new HashMap<>();
         properties.put("type", expectedType);
-        properties.put("simple.interval", expectedIntervalSeconds);
-        properties.put("simple.time.unit", "SECONDS");
-
-        doAnswer(invocation -> {
-            Object[] arguments = invocation.getArguments();
-
-            assertEquals(2, arguments.length);
-
-            JobDetail job = (JobDetail) arguments[0];
-            Trigger trigger = (Trigger) arguments[1];
-
-            assertTrue(job.getJobDataMap() instanceof TimerJobDataMap);
-            assertTrue(trigger instanceof SimpleTriggerImpl);
-
-            SimpleTriggerImpl simpleTriggerImpl = (SimpleTriggerImpl) trigger;
-            assertEquals((long) expectedIntervalMilliseconds, simpleTriggerImpl.getRepeatInterval());
-
-            return null;
-        }).when(mockScheduler).scheduleJob(any(), any());
+        properties.put("simple.interval", expectedIntervalMilliseconds);
+        properties.put("simple.time.unit", "MILLISECONDS");
+        properties.put("simple.group", "test");
 
         timer.activate(null, properties);
 
-        assertEquals(mockWireSupport, TestUtil.getFieldValue(timer, "wireSupport"));
+        try {
+            assertEquals(mockWireSupport, TestUtil.getFieldValue(timer, "wireSupport"));
 
-        TimerOptions timerOptions = (TimerOptions) TestUtil.getFieldValue(timer, "timerOptions");
-        assertEquals(expectedType, timerOptions.getType());
-        assertEquals(expectedIntervalSeconds, timerOptions.getSimpleInterval());
+            TimerOptions timerOptions = (TimerOptions) TestUtil.getFieldValue(timer, "timerOptions");
+            assertEquals(expectedType, timerOptions.getType());
+            assertEquals(expectedIntervalMilliseconds, timerOptions.getSimpleInterval());
+            assertEquals("test", timerOptions.getSimpleGroup());
+            assertEquals(TimerEngine.OverrunPolicy.COALESCE, timerOptions.getSimpleOverrunPolicy());
 
-        assertNotNull(TestUtil.getFieldValue(timer, "jobKey"));
+            assertNull(TestUtil.getFieldValue(timer, "jobKey"));
+            assertNotNull(TestUtil.getFieldValue(timer, "tick"));
 
-        verify(mockScheduler).scheduleJob(any(), any());
+            verify(mockWireSupport, timeout(1000).atLeast(3)).emit(anyListOf(WireRecord.class));
+            assertTrue(timer.getStatistics().getTickCount() >= 3);
+        } finally {
+            timer.deactivate(null);
+        }
+
+        assertNull(timer.getStatistics());
     }
 
     @Test
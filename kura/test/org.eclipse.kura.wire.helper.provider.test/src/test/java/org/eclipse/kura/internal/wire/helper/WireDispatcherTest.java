@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.kura.wire.WireEnvelope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.wireadmin.Wire;
+
+public class WireDispatcherTest {
+
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch firstStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Wire wire;
+    private WireDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        this.wire = mock(Wire.class);
+        doAnswer(invocation -> {
+            String pid = ((WireEnvelope) invocation.getArguments()[0]).getEmitterPid();
+            this.firstStarted.countDown();
+            // the first envelope holds the delivery thread until the test releases it
+            if ("0".equals(pid)) {
+                this.release.await();
+            }
+            this.delivered.add(pid);
+            return null;
+        }).when(this.wire).update(any());
+    }
+
+    @After
+    public void tearDown() {
+        this.release.countDown();
+        if (this.dispatcher != null) {
+            this.dispatcher.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testOrdering() throws InterruptedException {
+        this.dispatcher = new WireDispatcher(this.wire, "test", options(10, null));
+        this.release.countDown();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(Integer.toString(i));
+        }
+        for (String pid : expected) {
+            this.dispatcher.dispatch(envelope(pid));
+        }
+
+        awaitDelivered(expected.size());
+        assertEquals(expected, this.delivered);
+    }
+
+    @Test(timeout = 10000)
+    public void testDropNewest() throws InterruptedException {
+        this.dispatcher = new WireDispatcher(this.wire, "test", options(1, "drop-newest"));
+        fillQueue();
+
+        this.dispatcher.dispatch(envelope("2"));
+        this.release.countDown();
+
+        awaitDelivered(2);
+        Thread.sleep(100);
+        assertEquals(Arrays.asList("0", "1"), this.delivered);
+    }
+
+    @Test(timeout = 10000)
+    public void testDropOldest() throws InterruptedException {
+        this.dispatcher = new WireDispatcher(this.wire, "test", options(1, "DROP_OLDEST"));
+        fillQueue();
+
+        this.dispatcher.dispatch(envelope("2"));
+        this.release.countDown();
+
+        awaitDelivered(2);
+        Thread.sleep(100);
+        assertEquals(Arrays.asList("0", "2"), this.delivered);
+    }
+
+    @Test(timeout = 10000)
+    public void testBlock() throws Exception {
+        this.dispatcher = new WireDispatcher(this.wire, "test", options(1, "block"));
+        fillQueue();
+
+        ExecutorService emitter = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blocked = emitter.submit(() -> this.dispatcher.dispatch(envelope("2")));
+            try {
+                blocked.get(200, TimeUnit.MILLISECONDS);
+                fail("The emitter should wait for room in the queue");
+            } catch (TimeoutException e) {
+                // expected
+            }
+
+            this.release.countDown();
+            blocked.get(5, TimeUnit.SECONDS);
+        } finally {
+            emitter.shutdownNow();
+        }
+
+        awaitDelivered(3);
+        assertEquals(Arrays.asList("0", "1", "2"), this.delivered);
+    }
+
+    @Test
+    public void testDefaultOptions() {
+        WireDispatchOptions options = new WireDispatchOptions(null);
+
+        assertFalse(options.isAsync());
+        assertEquals(100, options.getQueueCapacity());
+        assertEquals(WireDispatchOptions.BackPressurePolicy.BLOCK, options.getBackPressurePolicy());
+        assertEquals(WireDispatchOptions.BackPressurePolicy.BLOCK, options(1, "unknown").getBackPressurePolicy());
+        assertTrue(options.isEmitEventEnabled());
+    }
+
+    private void fillQueue() throws InterruptedException {
+        // the first envelope is being delivered and the second one takes the only slot of the queue
+        this.dispatcher.dispatch(envelope("0"));
+        this.firstStarted.await();
+        this.dispatcher.dispatch(envelope("1"));
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        while (this.delivered.size() < count) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static WireEnvelope envelope(String pid) {
+        return new WireEnvelope(pid, Collections.emptyList());
+    }
+
+    private static WireDispatchOptions options(int capacity, String policy) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("dispatch.async", true);
+        properties.put("dispatch.queue.capacity", capacity);
+        if (policy != null) {
+            properties.put("dispatch.back.pressure.policy", policy);
+        }
+        return new WireDispatchOptions(properties);
+    }
+}